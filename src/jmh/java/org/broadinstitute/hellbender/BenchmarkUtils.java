@@ -0,0 +1,125 @@
+package org.broadinstitute.hellbender;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMReadGroupRecord;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadCoordinateComparator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic inputs for the JMH benchmarks.
+ *
+ * All data are derived from a {@link Random} seeded with {@link #SEED} (or a caller-provided seed), so that every
+ * benchmark run, on every machine and in every release, measures exactly the same inputs.
+ */
+public final class BenchmarkUtils {
+    public static final long SEED = 42L;
+
+    private static final byte[] BASES = {'A', 'C', 'G', 'T'};
+
+    private BenchmarkUtils() {}
+
+    /**
+     * @return a new random number generator seeded with {@link #SEED}
+     */
+    public static Random newRandom() {
+        return new Random(SEED);
+    }
+
+    /**
+     * @param random source of randomness
+     * @param length number of bases
+     * @return random bases drawn uniformly from ACGT
+     */
+    public static byte[] randomBases( final Random random, final int length ) {
+        final byte[] bases = new byte[length];
+        for ( int i = 0; i < length; ++i ) {
+            bases[i] = BASES[random.nextInt(BASES.length)];
+        }
+        return bases;
+    }
+
+    /**
+     * @param random source of randomness
+     * @param length number of qualities
+     * @param minQual minimum quality (inclusive)
+     * @param maxQual maximum quality (inclusive)
+     * @return random base qualities drawn uniformly from [minQual, maxQual]
+     */
+    public static byte[] randomQuals( final Random random, final int length, final int minQual, final int maxQual ) {
+        Utils.validateArg(minQual >= 0 && minQual <= maxQual, "invalid quality range");
+        final byte[] quals = new byte[length];
+        for ( int i = 0; i < length; ++i ) {
+            quals[i] = (byte)(minQual + random.nextInt(maxQual - minQual + 1));
+        }
+        return quals;
+    }
+
+    /**
+     * @param random source of randomness
+     * @param bases bases to mutate (not modified)
+     * @param substitutionRate probability that each base is replaced by a different base
+     * @return a copy of bases with random substitutions
+     */
+    public static byte[] withSubstitutions( final Random random, final byte[] bases, final double substitutionRate ) {
+        final byte[] mutated = bases.clone();
+        for ( int i = 0; i < mutated.length; ++i ) {
+            if ( random.nextDouble() < substitutionRate ) {
+                byte newBase;
+                do {
+                    newBase = BASES[random.nextInt(BASES.length)];
+                } while ( newBase == mutated[i] );
+                mutated[i] = newBase;
+            }
+        }
+        return mutated;
+    }
+
+    /**
+     * @param contigLength length of the single contig ("1") in the header
+     * @param numReadGroups number of read groups, all from the same sample
+     * @return a coordinate-sorted header made by {@link ArtificialReadUtils#createArtificialSamHeaderWithGroups}
+     */
+    public static SAMFileHeader makeHeader( final int contigLength, final int numReadGroups ) {
+        return ArtificialReadUtils.createArtificialSamHeaderWithGroups(1, 1, contigLength, numReadGroups);
+    }
+
+    /**
+     * Sample reads uniformly from the reference, with substitution errors and random qualities. Reads are assigned to
+     * the read groups in the header in turn, are fully aligned (cigar {@code <readLength>M}) to the first contig,
+     * and are returned in coordinate order.
+     *
+     * @param random source of randomness
+     * @param header header for the reads
+     * @param reference bases of the first contig in header
+     * @param numReads number of reads to make
+     * @param readLength length of every read
+     * @param errorRate per-base substitution rate
+     * @return coordinate-sorted reads
+     */
+    public static List<GATKRead> makeReads( final Random random, final SAMFileHeader header, final byte[] reference,
+                                            final int numReads, final int readLength, final double errorRate ) {
+        Utils.validateArg(readLength <= reference.length, "reads can't be longer than the reference");
+        final List<SAMReadGroupRecord> readGroups = header.getReadGroups();
+        final List<GATKRead> reads = new ArrayList<>(numReads);
+        for ( int i = 0; i < numReads; ++i ) {
+            final int start = random.nextInt(reference.length - readLength + 1);
+            final byte[] bases = withSubstitutions(random, Arrays.copyOfRange(reference, start, start + readLength), errorRate);
+            final byte[] quals = randomQuals(random, readLength, 10, 40);
+            final GATKRead read = ArtificialReadUtils.createArtificialRead(header, "read" + i, 0, start + 1, bases, quals, readLength + "M");
+            if ( ! readGroups.isEmpty() ) {
+                read.setReadGroup(readGroups.get(i % readGroups.size()).getId());
+            }
+            read.setMappingQuality(60);
+            reads.add(read);
+        }
+        reads.sort(new ReadCoordinateComparator(header));
+        return reads;
+    }
+}
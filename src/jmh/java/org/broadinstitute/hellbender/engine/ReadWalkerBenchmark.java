@@ -0,0 +1,156 @@
+package org.broadinstitute.hellbender.engine;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceDictionaryCodec;
+import htsjdk.samtools.reference.FastaSequenceIndexCreator;
+import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
+import org.broadinstitute.hellbender.BenchmarkUtils;
+import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
+import org.broadinstitute.hellbender.cmdline.programgroups.ExampleProgramGroup;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.broadinstitute.hellbender.utils.read.ArtificialBAMBuilder;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks a full {@link ReadWalker} traversal of a synthetic BAM made by {@link ArtificialBAMBuilder}, in which the
+ * tool looks at the reference bases under every read, either one read at a time or in batches
+ * (see {@link ReadWalker#getReadBatchSize}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReadWalkerBenchmark {
+    private static final int CONTIG_LENGTH = 1_000_000;
+    private static final int FASTA_LINE_LENGTH = 60;
+
+    /**
+     * 0 for the per-read traversal
+     */
+    @Param({"0", "1000"})
+    public int readBatchSize;
+
+    private File tempDir;
+    private String[] args;
+
+    @Setup
+    public void setup() throws IOException {
+        tempDir = IOUtils.createTempDir("ReadWalkerBenchmark");
+        final SAMSequenceDictionary dictionary = ArtificialReadUtils.createArtificialSamHeader(1, 1, CONTIG_LENGTH).getSequenceDictionary();
+        final Path fasta = writeReference(tempDir.toPath(), dictionary);
+
+        final ArtificialBAMBuilder bamBuilder = new ArtificialBAMBuilder(dictionary, 2, 100_000).setReadLength(101);
+        final File bam = bamBuilder.makeBAMFile(new File(tempDir, "reads.bam"));
+
+        args = new String[] {
+                "-" + StandardArgumentDefinitions.INPUT_SHORT_NAME, bam.getAbsolutePath(),
+                "-" + StandardArgumentDefinitions.REFERENCE_SHORT_NAME, fasta.toString(),
+                "--" + StandardArgumentDefinitions.VERBOSITY_NAME, "ERROR",
+                "--" + StandardArgumentDefinitions.QUIET_NAME
+        };
+    }
+
+    @TearDown
+    public void tearDown() {
+        IOUtils.deleteRecursively(tempDir.toPath());
+    }
+
+    @Benchmark
+    public long traverse() {
+        final ReferenceBasesReadWalker walker = new ReferenceBasesReadWalker(readBatchSize);
+        walker.instanceMain(args);
+        return walker.numMatchingBases;
+    }
+
+    /**
+     * Write a FASTA with random bases, along with its index and sequence dictionary
+     */
+    private static Path writeReference( final Path directory, final SAMSequenceDictionary dictionary ) throws IOException {
+        final Path fasta = directory.resolve("reference.fasta");
+        final byte[] bases = BenchmarkUtils.randomBases(BenchmarkUtils.newRandom(), CONTIG_LENGTH);
+        try ( final BufferedWriter writer = Files.newBufferedWriter(fasta) ) {
+            writer.write(">" + dictionary.getSequence(0).getSequenceName() + "\n");
+            for ( int i = 0; i < bases.length; i += FASTA_LINE_LENGTH ) {
+                writer.write(new String(bases, i, Math.min(FASTA_LINE_LENGTH, bases.length - i)) + "\n");
+            }
+        }
+        FastaSequenceIndexCreator.create(fasta, false);
+        try ( final BufferedWriter writer = Files.newBufferedWriter(directory.resolve("reference.dict")) ) {
+            new SAMSequenceDictionaryCodec(writer).encode(dictionary);
+        }
+        return fasta;
+    }
+
+    /**
+     * Counts the read bases that match the reference, fetching the reference bases for each read separately in the
+     * per-read traversal, and once per batch in the batched traversal.
+     */
+    @CommandLineProgramProperties(
+            summary = "Counts read bases that match the reference, for benchmarking",
+            oneLineSummary = "Counts read bases that match the reference, for benchmarking",
+            programGroup = ExampleProgramGroup.class,
+            omitFromCommandLine = true
+    )
+    public static final class ReferenceBasesReadWalker extends ReadWalker {
+        private final int batchSize;
+        private long numMatchingBases = 0;
+
+        public ReferenceBasesReadWalker( final int batchSize ) {
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public boolean requiresReference() {
+            return true;
+        }
+
+        @Override
+        public int getReadBatchSize() {
+            return batchSize;
+        }
+
+        @Override
+        public void apply( final GATKRead read, final ReferenceContext referenceContext, final FeatureContext featureContext ) {
+            countMatchingBases(read, referenceContext.getBases(), 0);
+        }
+
+        @Override
+        public void applyBatch( final ReadBatch batch ) {
+            final SimpleInterval spanningInterval = batch.getSpanningInterval();
+            if ( spanningInterval == null ) {
+                super.applyBatch(batch);
+                return;
+            }
+            final byte[] referenceBases = batch.getSpanningReferenceContext().getBases();
+            for ( int i = 0; i < batch.size(); ++i ) {
+                countMatchingBases(batch.getRead(i), referenceBases, batch.getReadInterval(i).getStart() - spanningInterval.getStart());
+            }
+        }
+
+        private void countMatchingBases( final GATKRead read, final byte[] referenceBases, final int offset ) {
+            final byte[] readBases = read.getBases();
+            for ( int i = 0; i < readBases.length && offset + i < referenceBases.length; ++i ) {
+                if ( readBases[i] == referenceBases[offset + i] ) {
+                    ++numMatchingBases;
+                }
+            }
+        }
+
+        @Override
+        public Object onTraversalSuccess() {
+            return numMatchingBases;
+        }
+    }
+}
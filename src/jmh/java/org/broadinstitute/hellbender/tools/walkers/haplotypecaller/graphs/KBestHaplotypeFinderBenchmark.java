@@ -0,0 +1,64 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.graphs;
+
+import org.broadinstitute.hellbender.BenchmarkUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link KBestHaplotypeFinder#findBestHaplotypes(int)} on the sequence graph of a complex region: a chain
+ * of bubbles, each with a few alternative branches of random multiplicities, so that the number of paths grows
+ * exponentially with the number of bubbles and many paths have the same score.
+ *
+ * Run with "-prof gc" to also track the memory allocated per search (gc.alloc.rate.norm), most of which is the
+ * partial paths in the search's queue.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class KBestHaplotypeFinderBenchmark {
+    private static final int MAX_BRANCHES = 3;
+    private static final int MAX_MULTIPLICITY = 4;
+    private static final int BRANCH_LENGTH = 10;
+
+    @Param({"20", "60"})
+    public int numBubbles;
+
+    @Param({"128", "4096"})
+    public int maxNumberOfHaplotypes;
+
+    private SeqGraph graph;
+    private SeqVertex source;
+    private SeqVertex sink;
+
+    @Setup
+    public void setup() {
+        final Random random = BenchmarkUtils.newRandom();
+        graph = new SeqGraph(25);
+        source = new SeqVertex(BenchmarkUtils.randomBases(random, BRANCH_LENGTH));
+        graph.addVertex(source);
+        SeqVertex previous = source;
+        for ( int bubble = 0; bubble < numBubbles; ++bubble ) {
+            final SeqVertex next = new SeqVertex(BenchmarkUtils.randomBases(random, BRANCH_LENGTH));
+            graph.addVertex(next);
+            for ( int branch = 0, branches = 2 + random.nextInt(MAX_BRANCHES - 1); branch < branches; ++branch ) {
+                final SeqVertex middle = new SeqVertex(BenchmarkUtils.randomBases(random, BRANCH_LENGTH));
+                graph.addVertex(middle);
+                graph.addEdge(previous, middle, new BaseEdge(branch == 0, 1 + random.nextInt(MAX_MULTIPLICITY)));
+                graph.addEdge(middle, next, new BaseEdge(branch == 0, 1 + random.nextInt(MAX_MULTIPLICITY)));
+            }
+            previous = next;
+        }
+        sink = previous;
+    }
+
+    @Benchmark
+    public List<KBestHaplotype> findBestHaplotypes() {
+        return new KBestHaplotypeFinder(graph, source, sink).findBestHaplotypes(maxNumberOfHaplotypes);
+    }
+}
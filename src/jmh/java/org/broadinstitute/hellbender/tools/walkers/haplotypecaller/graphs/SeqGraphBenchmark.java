@@ -0,0 +1,78 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.graphs;
+
+import org.broadinstitute.hellbender.BenchmarkUtils;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.readthreading.ReadThreadingGraph;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link SeqGraph#simplifyGraph()} on the sequence graph of a synthetic active region, prepared as the
+ * ReadThreadingAssembler prepares it: zipped, and with the vertices not connected to the reference removed.
+ *
+ * The region's reads are drawn from the reference and from a few alternate haplotypes (each with a few SNPs), with
+ * sequencing errors, so that the graph has bubbles and dangling branches to merge.
+ *
+ * Run with "-prof gc" to also track the memory allocated per simplification (gc.alloc.rate.norm).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SeqGraphBenchmark {
+    private static final int REGION_LENGTH = 300;
+    private static final int READ_LENGTH = 100;
+    private static final int NUM_HAPLOTYPES = 4;
+
+    @Param({"10", "25"})
+    public int kmerSize;
+
+    @Param({"200", "1000"})
+    public int numReads;
+
+    private SeqGraph graph;
+    private SeqGraph copy;
+
+    @Setup
+    public void setup() {
+        final Random random = BenchmarkUtils.newRandom();
+        final byte[] refBases = BenchmarkUtils.randomBases(random, REGION_LENGTH);
+        final List<byte[]> haplotypes = new ArrayList<>();
+        haplotypes.add(refBases);
+        for ( int i = 1; i < NUM_HAPLOTYPES; ++i ) {
+            haplotypes.add(BenchmarkUtils.withSubstitutions(random, refBases, 0.01));
+        }
+
+        final ReadThreadingGraph assemblyGraph = new ReadThreadingGraph(kmerSize);
+        assemblyGraph.addSequence("ref", refBases, true);
+        for ( int i = 0; i < numReads; ++i ) {
+            final byte[] haplotype = haplotypes.get(i % haplotypes.size());
+            final int offset = random.nextInt(REGION_LENGTH - READ_LENGTH + 1);
+            final byte[] bases = BenchmarkUtils.withSubstitutions(random, Arrays.copyOfRange(haplotype, offset, offset + READ_LENGTH), 0.005);
+            assemblyGraph.addSequence("read" + i, bases, false);
+        }
+        assemblyGraph.buildGraphIfNecessary();
+
+        graph = assemblyGraph.toSequenceGraph();
+        graph.zipLinearChains();
+        graph.removeSingletonOrphanVertices();
+        graph.removeVerticesNotConnectedToRefRegardlessOfEdgeDirection();
+    }
+
+    @Setup(Level.Invocation)
+    public void copyGraph() {
+        copy = graph.clone();
+    }
+
+    @Benchmark
+    public SeqGraph simplifyGraph() {
+        copy.simplifyGraph();
+        return copy;
+    }
+}
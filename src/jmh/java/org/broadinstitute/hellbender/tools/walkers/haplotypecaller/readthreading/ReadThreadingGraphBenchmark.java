@@ -0,0 +1,123 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.readthreading;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.TextCigarCodec;
+import org.broadinstitute.hellbender.BenchmarkUtils;
+import org.broadinstitute.hellbender.engine.AssemblyRegion;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.AssemblyResultSet;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.smithwaterman.SmithWatermanJavaAligner;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks building a {@link ReadThreadingGraph} from the reads in a synthetic active region, and the whole local
+ * assembly of that region by {@link ReadThreadingAssembler}.
+ *
+ * The region's reads are drawn from the reference and from two alternate haplotypes (each with a few SNPs), with
+ * sequencing errors, so that the graph has both real variation and error branches to prune and recover.
+ *
+ * The "random" region has a random reference. The "repetitive" region is a hard one to assemble: its reference is
+ * mostly short tandem repeats of several motif lengths, between short random stretches, so that many kmers are
+ * non-unique and reads are threaded through long chains of repeated kmers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ReadThreadingGraphBenchmark {
+    private static final int REGION_START = 1_000;
+    private static final int REGION_LENGTH = 300;
+    private static final int READ_LENGTH = 100;
+
+    @Param({"10", "25"})
+    public int kmerSize;
+
+    @Param({"200", "1000"})
+    public int numReads;
+
+    @Param({"random", "repetitive"})
+    public String regionType;
+
+    private SAMFileHeader header;
+    private byte[] refBases;
+    private SimpleInterval regionInterval;
+    private List<GATKRead> reads;
+
+    @Setup
+    public void setup() {
+        final Random random = BenchmarkUtils.newRandom();
+        header = BenchmarkUtils.makeHeader(REGION_START + REGION_LENGTH + 1_000, 1);
+        refBases = regionType.equals("repetitive") ? repetitiveBases(random, REGION_LENGTH) : BenchmarkUtils.randomBases(random, REGION_LENGTH);
+        regionInterval = new SimpleInterval("1", REGION_START, REGION_START + REGION_LENGTH - 1);
+
+        final List<byte[]> haplotypes = Arrays.asList(refBases,
+                BenchmarkUtils.withSubstitutions(random, refBases, 0.01),
+                BenchmarkUtils.withSubstitutions(random, refBases, 0.01));
+
+        reads = new ArrayList<>(numReads);
+        for ( int i = 0; i < numReads; ++i ) {
+            final byte[] haplotype = haplotypes.get(i % haplotypes.size());
+            final int offset = random.nextInt(REGION_LENGTH - READ_LENGTH + 1);
+            final byte[] bases = BenchmarkUtils.withSubstitutions(random, Arrays.copyOfRange(haplotype, offset, offset + READ_LENGTH), 0.005);
+            final GATKRead read = ArtificialReadUtils.createArtificialRead(header, "read" + i, 0, REGION_START + offset,
+                    bases, BenchmarkUtils.randomQuals(random, READ_LENGTH, 20, 40), READ_LENGTH + "M");
+            read.setReadGroup(header.getReadGroups().get(0).getId());
+            reads.add(read);
+        }
+    }
+
+    /**
+     * @return length bases made of tandem repeats of random motifs of 1 to 6 bases, each 20 to 60 bases long and
+     *         followed by 5 random bases
+     */
+    private static byte[] repetitiveBases( final Random random, final int length ) {
+        final byte[] bases = new byte[length];
+        int position = 0;
+        while ( position < length ) {
+            final byte[] motif = BenchmarkUtils.randomBases(random, 1 + random.nextInt(6));
+            final int repeatEnd = Math.min(length, position + 20 + random.nextInt(41));
+            for ( int i = 0; position < repeatEnd; ++i ) {
+                bases[position++] = motif[i % motif.length];
+            }
+            final byte[] spacer = BenchmarkUtils.randomBases(random, 5);
+            for ( int i = 0; i < spacer.length && position < length; ++i ) {
+                bases[position++] = spacer[i];
+            }
+        }
+        return bases;
+    }
+
+    @Benchmark
+    public ReadThreadingGraph buildGraph() {
+        final ReadThreadingGraph graph = new ReadThreadingGraph(kmerSize, false, (byte)10, 1);
+        graph.addSequence("ref", refBases, true);
+        for ( final GATKRead read : reads ) {
+            graph.addRead(read, header);
+        }
+        graph.buildGraphIfNecessary();
+        return graph;
+    }
+
+    @Benchmark
+    public AssemblyResultSet runLocalAssembly() {
+        final ReadThreadingAssembler assembler = new ReadThreadingAssembler(128, Collections.singletonList(kmerSize), 2);
+        final Haplotype refHaplotype = new Haplotype(refBases, true);
+        refHaplotype.setCigar(TextCigarCodec.decode(REGION_LENGTH + "M"));
+
+        final AssemblyRegion region = new AssemblyRegion(regionInterval, null, true, 0, header);
+        region.addAll(reads);
+        return assembler.runLocalAssembly(region, refHaplotype, refBases, regionInterval, null, header, SmithWatermanJavaAligner.getInstance());
+    }
+}
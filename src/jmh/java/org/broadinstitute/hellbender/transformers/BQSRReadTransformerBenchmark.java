@@ -0,0 +1,130 @@
+package org.broadinstitute.hellbender.transformers;
+
+import htsjdk.samtools.SAMFileHeader;
+import org.broadinstitute.hellbender.BenchmarkUtils;
+import org.broadinstitute.hellbender.engine.ReferenceDataSource;
+import org.broadinstitute.hellbender.engine.ReferenceMemorySource;
+import org.broadinstitute.hellbender.tools.ApplyBQSRArgumentCollection;
+import org.broadinstitute.hellbender.utils.QualityUtils;
+import org.broadinstitute.hellbender.utils.MathUtils;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.recalibration.*;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.ReadCovariates;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.StandardCovariateList;
+import org.broadinstitute.hellbender.utils.reference.ReferenceBases;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of {@link BQSRReadTransformer}, which recalibrates bases with its
+ * {@link RecalibrationLookupTable}, with recalibrating them from the {@link RecalDatum}s of the report (as the
+ * transformer used to, looking up the datums of every base and computing their empirical qualities).
+ *
+ * The report is made by BaseRecalibrationEngine from a set of synthetic reads, which are then recalibrated from
+ * their original qualities by every operation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BQSRReadTransformerBenchmark {
+    private static final int CONTIG_LENGTH = 100_000;
+    private static final int NUM_READS = 10_000;
+    private static final int NUM_READ_GROUPS = 4;
+    private static final int READ_LENGTH = 151;
+    private static final int BASE_SUBSTITUTION_INDEX = EventType.BASE_SUBSTITUTION.ordinal();
+
+    private SAMFileHeader header;
+    private List<GATKRead> reads;
+    private List<byte[]> originalQuals;
+
+    private ApplyBQSRArgumentCollection args;
+    private BQSRReadTransformer transformer;
+
+    private RecalibrationReport report;
+    private RecalibrationScratch scratch;
+
+    @Setup
+    public void setup() {
+        final Random random = BenchmarkUtils.newRandom();
+        header = BenchmarkUtils.makeHeader(CONTIG_LENGTH, NUM_READ_GROUPS);
+        final byte[] refBases = BenchmarkUtils.randomBases(random, CONTIG_LENGTH);
+        final ReferenceDataSource reference = new ReferenceMemorySource(new ReferenceBases(refBases, new SimpleInterval("1", 1, CONTIG_LENGTH)), header.getSequenceDictionary());
+        reads = BenchmarkUtils.makeReads(random, header, refBases, NUM_READS, READ_LENGTH, 0.01);
+        originalQuals = new ArrayList<>(reads.size());
+        for ( final GATKRead read : reads ) {
+            originalQuals.add(read.getBaseQualities());
+        }
+
+        // make the report as BaseRecalibrator does
+        final RecalibrationArgumentCollection recalArgs = new RecalibrationArgumentCollection();
+        final BaseRecalibrationEngine engine = new BaseRecalibrationEngine(recalArgs, header);
+        for ( final GATKRead read : reads ) {
+            engine.processRead(read, reference, Collections.emptyList());
+        }
+        engine.finalizeData();
+        final RecalibrationTables tables = engine.getFinalRecalibrationTables();
+        final QuantizationInfo quantizationInfo = new QuantizationInfo(tables, recalArgs.QUANTIZING_LEVELS);
+        final StandardCovariateList covariates = engine.getCovariates();
+        report = RecalUtils.createRecalibrationReport(recalArgs.generateReportTable(covariates.covariateNames()), quantizationInfo.generateReportTable(), RecalUtils.generateReportTables(tables, covariates));
+
+        args = new ApplyBQSRArgumentCollection();
+        transformer = new BQSRReadTransformer(header, report, args);
+        scratch = new RecalibrationScratch();
+    }
+
+    @Benchmark
+    public long lookupTable() {
+        long sum = 0;
+        for ( int i = 0; i < reads.size(); i++ ) {
+            final GATKRead read = reads.get(i);
+            read.setBaseQualities(originalQuals.get(i));
+            sum += transformer.apply(read).getBaseQuality(0);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long recalDatums() {
+        final RecalibrationTables tables = report.getRecalibrationTables();
+        final StandardCovariateList covariates = report.getCovariates();
+        final List<Byte> quantizedQuals = report.getQuantizationInfo().getQuantizedQuals();
+        final int totalCovariateCount = covariates.size();
+        final int specialCovariateCount = covariates.numberOfSpecialCovariates();
+        final RecalDatum[] empiricalQualCovs = new RecalDatum[totalCovariateCount - specialCovariateCount];
+
+        long sum = 0;
+        for ( int i = 0; i < reads.size(); i++ ) {
+            final GATKRead read = reads.get(i);
+            read.setBaseQualities(originalQuals.get(i));
+            final ReadCovariates readCovariates = RecalUtils.computeCovariates(read, header, covariates, false, scratch);
+            final int[][] fullReadKeySet = readCovariates.getKeySet(EventType.BASE_SUBSTITUTION);
+            final RecalDatum empiricalQualRG = tables.getReadGroupTable().get2Keys(fullReadKeySet[0][0], BASE_SUBSTITUTION_INDEX);
+            final byte[] quals = read.getBaseQualities();
+            final double epsilon = empiricalQualRG.getEstimatedQReported();
+            for ( int offset = 0; offset < quals.length; offset++ ) {
+                if ( quals[offset] < args.PRESERVE_QSCORES_LESS_THAN ) {
+                    continue;
+                }
+                final int[] keySet = fullReadKeySet[offset];
+                final RecalDatum empiricalQualQS = tables.getQualityScoreTable().get3Keys(keySet[0], keySet[1], BASE_SUBSTITUTION_INDEX);
+                for ( int j = specialCovariateCount; j < totalCovariateCount; j++ ) {
+                    empiricalQualCovs[j - specialCovariateCount] = keySet[j] >= 0 ? tables.getTable(j).get4Keys(keySet[0], keySet[1], keySet[j], BASE_SUBSTITUTION_INDEX) : null;
+                }
+                final double recalibratedQual = BQSRReadTransformer.hierarchicalBayesianQualityEstimate(epsilon, empiricalQualRG, empiricalQualQS, empiricalQualCovs);
+                quals[offset] = quantizedQuals.get(QualityUtils.boundQual(MathUtils.fastRound(recalibratedQual), RecalDatum.MAX_RECALIBRATED_Q_SCORE));
+            }
+            read.setBaseQualities(quals);
+            sum += quals[0];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,95 @@
+package org.broadinstitute.hellbender.utils.io;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.util.BlockCompressedInputStream;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import org.broadinstitute.hellbender.BenchmarkUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks BGZF compression (with htsjdk's {@link BlockCompressedOutputStream} and with
+ * {@link ParallelBlockCompressedOutputStream}) and decompression (with {@link BlockCompressedInputStream}).
+ *
+ * The payload is the SAM text of synthetic reads, which compresses about as well as typical BAM and VCF records.
+ * Streams are held in memory so that disk speed doesn't affect the results.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BGZFBenchmark {
+    private static final int CONTIG_LENGTH = 1_000_000;
+    private static final int NUM_READS = 50_000;
+    private static final int READ_LENGTH = 101;
+
+    @Param({"1", "5"})
+    public int compressionLevel;
+
+    /**
+     * Compression threads for {@link #compressParallel}
+     */
+    @Param({"4"})
+    public int numThreads;
+
+    private byte[] uncompressed;
+    private byte[] compressed;
+    private final byte[] readBuffer = new byte[64 * 1024];
+
+    @Setup
+    public void setup() throws IOException {
+        final Random random = BenchmarkUtils.newRandom();
+        final SAMFileHeader header = BenchmarkUtils.makeHeader(CONTIG_LENGTH, 1);
+        final byte[] refBases = BenchmarkUtils.randomBases(random, CONTIG_LENGTH);
+        final List<GATKRead> reads = BenchmarkUtils.makeReads(random, header, refBases, NUM_READS, READ_LENGTH, 0.01);
+
+        final StringBuilder sam = new StringBuilder();
+        for ( final GATKRead read : reads ) {
+            sam.append(read.getSAMString());
+        }
+        uncompressed = sam.toString().getBytes(StandardCharsets.US_ASCII);
+        compressed = compressSerial();
+    }
+
+    @Benchmark
+    public byte[] compressSerial() throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(uncompressed.length / 2);
+        try ( final OutputStream bgzf = new BlockCompressedOutputStream(bytes, (Path)null, compressionLevel) ) {
+            bgzf.write(uncompressed);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] compressParallel() throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(uncompressed.length / 2);
+        try ( final OutputStream bgzf = new ParallelBlockCompressedOutputStream(bytes, compressionLevel, numThreads) ) {
+            bgzf.write(uncompressed);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public long decompress() throws IOException {
+        long total = 0;
+        try ( final BlockCompressedInputStream bgzf = new BlockCompressedInputStream(new ByteArrayInputStream(compressed)) ) {
+            int n;
+            while ( (n = bgzf.read(readBuffer)) > 0 ) {
+                total += n;
+            }
+        }
+        return total;
+    }
+}
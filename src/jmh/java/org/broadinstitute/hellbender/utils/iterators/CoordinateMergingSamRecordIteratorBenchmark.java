@@ -0,0 +1,83 @@
+package org.broadinstitute.hellbender.utils.iterators;
+
+import htsjdk.samtools.*;
+import htsjdk.samtools.util.CloseableIterator;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.broadinstitute.hellbender.utils.read.ArtificialBAMBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks merging many coordinate-sorted BAMs, as ReadsDataSource does when given many inputs, with htsjdk's
+ * {@link MergingSamRecordIterator} and with {@link CoordinateMergingSamRecordIterator}.
+ *
+ * The inputs are made by {@link ArtificialBAMBuilder}, with staggered start positions so that reads from different
+ * inputs interleave. The readers (and the header merger) are opened once, and reused by every merge.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CoordinateMergingSamRecordIteratorBenchmark {
+    private static final int TOTAL_READS = 200_000;
+
+    @Param({"10", "100"})
+    public int numInputs;
+
+    @Param({"htsjdk", "gatk"})
+    public String merger;
+
+    private File tempDir;
+    private List<SamReader> readers;
+    private SamFileHeaderMerger headerMerger;
+    private CoordinateMergingSamRecordIterator.HeaderTranslation translation;
+
+    @Setup
+    public void setup() {
+        tempDir = IOUtils.createTempDir("CoordinateMergingSamRecordIteratorBenchmark");
+        readers = new ArrayList<>(numInputs);
+        final List<SAMFileHeader> headers = new ArrayList<>(numInputs);
+        for ( int i = 0; i < numInputs; ++i ) {
+            final ArtificialBAMBuilder builder = new ArtificialBAMBuilder(1, TOTAL_READS / numInputs)
+                    .setReadLength(101).setAlignmentStart(1 + i);
+            final File bam = builder.makeBAMFile(new File(tempDir, "input" + i + ".bam"));
+            final SamReader reader = SamReaderFactory.makeDefault().validationStringency(ValidationStringency.SILENT).open(bam);
+            readers.add(reader);
+            headers.add(reader.getFileHeader());
+        }
+        headerMerger = new SamFileHeaderMerger(SAMFileHeader.SortOrder.coordinate, headers, true);
+        translation = new CoordinateMergingSamRecordIterator.HeaderTranslation(headerMerger, headers);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        for ( final SamReader reader : readers ) {
+            reader.close();
+        }
+        IOUtils.deleteRecursively(tempDir.toPath());
+    }
+
+    @Benchmark
+    public long merge() {
+        final Map<SamReader, CloseableIterator<SAMRecord>> iterators = new LinkedHashMap<>(numInputs * 2);
+        for ( final SamReader reader : readers ) {
+            iterators.put(reader, reader.iterator());
+        }
+        final CloseableIterator<SAMRecord> mergingIterator = merger.equals("htsjdk") ?
+                new MergingSamRecordIterator(headerMerger, iterators, true) :
+                new CoordinateMergingSamRecordIterator(translation, new ArrayList<>(iterators.values()));
+
+        long sum = 0;
+        while ( mergingIterator.hasNext() ) {
+            sum += mergingIterator.next().getAlignmentStart();
+        }
+        mergingIterator.close();
+        return sum;
+    }
+}
@@ -0,0 +1,72 @@
+package org.broadinstitute.hellbender.utils.locusiterator;
+
+import org.broadinstitute.hellbender.engine.AlignmentContext;
+import org.broadinstitute.hellbender.utils.downsampling.DownsamplingMethod;
+import org.broadinstitute.hellbender.utils.pileup.PileupElement;
+import org.broadinstitute.hellbender.utils.read.ArtificialBAMBuilder;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link LocusIteratorByState} producing the pileup at every locus covered by a stream of reads made by
+ * {@link ArtificialBAMBuilder}, and visiting every element of each pileup as a LocusWalker typically does, either
+ * in the AlignmentContext of each locus or through the primitive accessors of a reused {@link CompactPileup}.
+ *
+ * Every read spans READ_LENGTH loci, so readsPerLocus = 10 is a depth of about 1000x per sample. Run with {@code -prof gc} to
+ * compare the bytes allocated per locus.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LocusIteratorByStateBenchmark {
+    private static final int NUM_LOCI = 10_000;
+    private static final int READ_LENGTH = 101;
+
+    @Param({"1", "10"})
+    public int readsPerLocus;
+
+    @Param({"1", "4"})
+    public int numSamples;
+
+    private ArtificialBAMBuilder builder;
+    private List<GATKRead> reads;
+
+    @Setup
+    public void setup() {
+        builder = new ArtificialBAMBuilder(readsPerLocus, NUM_LOCI).setReadLength(READ_LENGTH).createAndSetHeader(numSamples);
+        reads = builder.makeReads();
+    }
+
+    @Benchmark
+    public long traversePileups() {
+        final LocusIteratorByState libs = new LocusIteratorByState(reads.iterator(), DownsamplingMethod.NONE, false,
+                builder.getSamples(), builder.getHeader(), true);
+        long sum = 0;
+        while ( libs.hasNext() ) {
+            final AlignmentContext context = libs.next();
+            for ( final PileupElement element : context.getBasePileup() ) {
+                sum += element.getBase() + element.getQual();
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long traverseCompactPileups() {
+        final LocusIteratorByState libs = new LocusIteratorByState(reads.iterator(), DownsamplingMethod.NONE, false,
+                builder.getSamples(), builder.getHeader(), true);
+        long sum = 0;
+        for ( CompactPileup pileup = libs.nextCompactPileup(); pileup != null; pileup = libs.nextCompactPileup() ) {
+            for ( int i = 0; i < pileup.size(); i++ ) {
+                sum += pileup.getBase(i) + pileup.getQual(i);
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,92 @@
+package org.broadinstitute.hellbender.utils.pairhmm;
+
+import org.broadinstitute.hellbender.BenchmarkUtils;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedAlleleList;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedSampleList;
+import org.broadinstitute.hellbender.utils.genotyper.LikelihoodMatrix;
+import org.broadinstitute.hellbender.utils.genotyper.ReadLikelihoods;
+import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the Java PairHMM implementations computing the likelihoods of every read given every haplotype in a
+ * synthetic active region, as {@link org.broadinstitute.hellbender.tools.walkers.haplotypecaller.PairHMMLikelihoodCalculationEngine}
+ * does for each region.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PairHMMBenchmark {
+    private static final int HAPLOTYPE_LENGTH = 300;
+    private static final byte GAP_CONTINUATION_PENALTY = 10;
+
+    @Param({"ANTIDIAGONAL_LOGLESS_CACHING", "LOGLESS_CACHING", "ORIGINAL"})
+    public PairHMM.Implementation implementation;
+
+    @Param({"100", "250"})
+    public int readLength;
+
+    @Param({"8"})
+    public int numHaplotypes;
+
+    @Param({"100"})
+    public int numReads;
+
+    private PairHMM pairHMM;
+    private List<Haplotype> haplotypes;
+    private List<GATKRead> reads;
+    private Map<GATKRead, byte[]> gapContinuationPenalties;
+    private LikelihoodMatrix<Haplotype> likelihoods;
+
+    @Setup
+    public void setup() {
+        final Random random = BenchmarkUtils.newRandom();
+
+        // haplotypes differ from the reference (and from each other) by a few SNPs, as in a typical active region
+        final byte[] refBases = BenchmarkUtils.randomBases(random, HAPLOTYPE_LENGTH);
+        haplotypes = new ArrayList<>(numHaplotypes);
+        haplotypes.add(new Haplotype(refBases, true));
+        for ( int i = 1; i < numHaplotypes; ++i ) {
+            haplotypes.add(new Haplotype(BenchmarkUtils.withSubstitutions(random, refBases, 0.01), false));
+        }
+
+        reads = new ArrayList<>(numReads);
+        gapContinuationPenalties = new LinkedHashMap<>();
+        for ( int i = 0; i < numReads; ++i ) {
+            final byte[] haplotypeBases = haplotypes.get(i % numHaplotypes).getBases();
+            final int start = random.nextInt(HAPLOTYPE_LENGTH - readLength + 1);
+            final byte[] bases = BenchmarkUtils.withSubstitutions(random, Arrays.copyOfRange(haplotypeBases, start, start + readLength), 0.01);
+            final GATKRead read = ArtificialReadUtils.createArtificialRead(bases, BenchmarkUtils.randomQuals(random, readLength, 10, 40), readLength + "M");
+            reads.add(read);
+
+            final byte[] gcp = new byte[readLength];
+            Arrays.fill(gcp, GAP_CONTINUATION_PENALTY);
+            gapContinuationPenalties.put(read, gcp);
+        }
+
+        final ReadLikelihoods<Haplotype> readLikelihoods = new ReadLikelihoods<>(new IndexedSampleList("sample"),
+                new IndexedAlleleList<>(haplotypes), Collections.singletonMap("sample", reads));
+        likelihoods = readLikelihoods.sampleMatrix(0);
+        pairHMM = implementation.makeNewHMM(null);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pairHMM.close();
+    }
+
+    @Benchmark
+    public double[] computeLikelihoods() {
+        pairHMM.initialize(haplotypes, Collections.singletonMap("sample", reads), readLength, HAPLOTYPE_LENGTH);
+        pairHMM.computeLog10Likelihoods(likelihoods, reads, gapContinuationPenalties);
+        return pairHMM.getLogLikelihoodArray();
+    }
+}
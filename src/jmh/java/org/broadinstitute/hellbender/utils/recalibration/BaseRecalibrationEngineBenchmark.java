@@ -0,0 +1,65 @@
+package org.broadinstitute.hellbender.utils.recalibration;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.util.Locatable;
+import org.broadinstitute.hellbender.BenchmarkUtils;
+import org.broadinstitute.hellbender.engine.ReferenceDataSource;
+import org.broadinstitute.hellbender.engine.ReferenceMemorySource;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.reference.ReferenceBases;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link BaseRecalibrationEngine} accumulating the recalibration tables for a set of synthetic reads, as
+ * BaseRecalibrator does for every read in its input.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BaseRecalibrationEngineBenchmark {
+    private static final int CONTIG_LENGTH = 100_000;
+    private static final int NUM_READS = 10_000;
+    private static final int NUM_READ_GROUPS = 4;
+
+    @Param({"101", "151"})
+    public int readLength;
+
+    @Param({"false", "true"})
+    public boolean computeIndelBQSRTables;
+
+    private SAMFileHeader header;
+    private ReferenceDataSource reference;
+    private List<GATKRead> reads;
+    private final List<Locatable> knownSites = Collections.emptyList();
+
+    @Setup
+    public void setup() {
+        final Random random = BenchmarkUtils.newRandom();
+        header = BenchmarkUtils.makeHeader(CONTIG_LENGTH, NUM_READ_GROUPS);
+        final byte[] refBases = BenchmarkUtils.randomBases(random, CONTIG_LENGTH);
+        reference = new ReferenceMemorySource(new ReferenceBases(refBases, new SimpleInterval("1", 1, CONTIG_LENGTH)), header.getSequenceDictionary());
+        reads = BenchmarkUtils.makeReads(random, header, refBases, NUM_READS, readLength, 0.01);
+    }
+
+    @Benchmark
+    public RecalibrationTables processReads() {
+        final RecalibrationArgumentCollection recalArgs = new RecalibrationArgumentCollection();
+        recalArgs.computeIndelBQSRTables = computeIndelBQSRTables;
+
+        final BaseRecalibrationEngine engine = new BaseRecalibrationEngine(recalArgs, header);
+        for ( final GATKRead read : reads ) {
+            engine.processRead(read, reference, knownSites);
+        }
+        engine.finalizeData();
+        return engine.getFinalRecalibrationTables();
+    }
+}
@@ -0,0 +1,81 @@
+package org.broadinstitute.hellbender.utils.recalibration;
+
+import htsjdk.samtools.SAMFileHeader;
+import org.broadinstitute.hellbender.BenchmarkUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadCoordinateComparator;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.CovariateKeyCache;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.ReadCovariates;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.StandardCovariateList;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of computing the covariates of reads in the buffers of a {@link RecalibrationScratch}
+ * with computing them in the key arrays of a {@link CovariateKeyCache}, which allocates the temporary arrays of the
+ * context and quality score covariates for every read.
+ *
+ * Run with {@code -prof gc} to compare the bytes allocated per read.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CovariateComputationBenchmark {
+    private static final int CONTIG_LENGTH = 100_000;
+    private static final int NUM_READS_PER_LENGTH = 2_500;
+    private static final int NUM_READ_GROUPS = 4;
+    private static final int[] READ_LENGTHS = {76, 101, 148, 151};
+
+    @Param({"false", "true"})
+    public boolean recordIndelValues;
+
+    private SAMFileHeader header;
+    private StandardCovariateList covariates;
+    private List<GATKRead> reads;
+
+    private CovariateKeyCache keyCache;
+    private RecalibrationScratch scratch;
+
+    @Setup
+    public void setup() {
+        final Random random = BenchmarkUtils.newRandom();
+        header = BenchmarkUtils.makeHeader(CONTIG_LENGTH, NUM_READ_GROUPS);
+        final byte[] refBases = BenchmarkUtils.randomBases(random, CONTIG_LENGTH);
+        reads = new ArrayList<>();
+        for ( final int readLength : READ_LENGTHS ) {
+            reads.addAll(BenchmarkUtils.makeReads(random, header, refBases, NUM_READS_PER_LENGTH, readLength, 0.01));
+        }
+        // interleave the reads of all lengths, as after adaptor clipping
+        reads.sort(new ReadCoordinateComparator(header));
+        covariates = new StandardCovariateList(new RecalibrationArgumentCollection(), header);
+        keyCache = new CovariateKeyCache();
+        scratch = new RecalibrationScratch();
+    }
+
+    @Benchmark
+    public long keyCache() {
+        long sum = 0;
+        for ( final GATKRead read : reads ) {
+            final ReadCovariates readCovariates = RecalUtils.computeCovariates(read, header, covariates, recordIndelValues, keyCache);
+            sum += readCovariates.getKeySet(read.getLength() - 1, EventType.BASE_SUBSTITUTION)[2];
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long scratch() {
+        long sum = 0;
+        for ( final GATKRead read : reads ) {
+            final ReadCovariates readCovariates = RecalUtils.computeCovariates(read, header, covariates, recordIndelValues, scratch);
+            sum += readCovariates.getKeySet(read.getLength() - 1, EventType.BASE_SUBSTITUTION)[2];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,110 @@
+package org.broadinstitute.hellbender.utils.recalibration;
+
+import htsjdk.samtools.SAMFileHeader;
+import org.broadinstitute.hellbender.BenchmarkUtils;
+import org.broadinstitute.hellbender.utils.collections.NestedIntegerArray;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.CovariateKeyCache;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.ReadCovariates;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.StandardCovariateList;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of {@link BaseRecalibrationEngine#updateRecalTablesForRead}, which counts observations in
+ * the flat tables of {@link RecalibrationTables}, with the same update done in the tables of {@link RecalDatum}s
+ * (as the engine used to, with {@link RecalUtils#incrementDatumOrPutIfNecessary3keys} and
+ * {@link RecalUtils#incrementDatumOrPutIfNecessary4keys}).
+ *
+ * The covariates, errors and skips of a set of synthetic reads are computed once, so that only the table updates
+ * are measured. Each operation updates fresh tables with all the reads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RecalibrationTablesBenchmark {
+    private static final int CONTIG_LENGTH = 100_000;
+    private static final int NUM_READS = 10_000;
+    private static final int NUM_READ_GROUPS = 4;
+    private static final int READ_LENGTH = 151;
+
+    @Param({"false", "true"})
+    public boolean computeIndelBQSRTables;
+
+    private RecalibrationArgumentCollection recalArgs;
+    private SAMFileHeader header;
+    private List<ReadRecalibrationInfo> recalInfos;
+
+    @Setup
+    public void setup() {
+        final Random random = BenchmarkUtils.newRandom();
+        header = BenchmarkUtils.makeHeader(CONTIG_LENGTH, NUM_READ_GROUPS);
+        final byte[] refBases = BenchmarkUtils.randomBases(random, CONTIG_LENGTH);
+        final List<GATKRead> reads = BenchmarkUtils.makeReads(random, header, refBases, NUM_READS, READ_LENGTH, 0.01);
+
+        recalArgs = new RecalibrationArgumentCollection();
+        recalArgs.computeIndelBQSRTables = computeIndelBQSRTables;
+        final StandardCovariateList covariates = new StandardCovariateList(recalArgs, header);
+
+        recalInfos = new ArrayList<>(reads.size());
+        for ( final GATKRead read : reads ) {
+            // a new key cache for every read, as the cache would otherwise share the key arrays of reads of the same length
+            final ReadCovariates readCovariates = RecalUtils.computeCovariates(read, header, covariates, true, new CovariateKeyCache());
+            final double[] snpErrors = new double[READ_LENGTH];
+            for ( int i = 0; i < READ_LENGTH; i++ ) {
+                snpErrors[i] = random.nextDouble() < 0.01 ? 1.0 : 0.0;
+            }
+            recalInfos.add(new ReadRecalibrationInfo(read, readCovariates, new boolean[READ_LENGTH], snpErrors, new double[READ_LENGTH], new double[READ_LENGTH]));
+        }
+    }
+
+    @Benchmark
+    public RecalibrationTables flatTables() {
+        final BaseRecalibrationEngine engine = new BaseRecalibrationEngine(recalArgs, header);
+        for ( final ReadRecalibrationInfo recalInfo : recalInfos ) {
+            engine.updateRecalTablesForRead(recalInfo);
+        }
+        return engine.getRecalibrationTables();
+    }
+
+    @Benchmark
+    public RecalibrationTables recalDatumTables() {
+        final BaseRecalibrationEngine engine = new BaseRecalibrationEngine(recalArgs, header);
+        final RecalibrationTables recalTables = engine.getRecalibrationTables();
+        final StandardCovariateList covariates = engine.getCovariates();
+        final EventType[] eventTypes = computeIndelBQSRTables ? EventType.values() : new EventType[]{EventType.BASE_SUBSTITUTION};
+        final NestedIntegerArray<RecalDatum> qualityScoreTable = recalTables.getQualityScoreTable();
+        final int nCovariates = covariates.size();
+        final int nSpecialCovariates = covariates.numberOfSpecialCovariates();
+
+        for ( final ReadRecalibrationInfo recalInfo : recalInfos ) {
+            final ReadCovariates readCovariates = recalInfo.getCovariatesValues();
+            final int readLength = recalInfo.getRead().getLength();
+            for ( int offset = 0; offset < readLength; offset++ ) {
+                if ( ! recalInfo.skip(offset) ) {
+                    for ( final EventType eventType : eventTypes ) {
+                        final int[] keys = readCovariates.getKeySet(offset, eventType);
+                        final int eventIndex = eventType.ordinal();
+                        final byte qual = recalInfo.getQual(eventType, offset);
+                        final double isError = recalInfo.getErrorFraction(eventType, offset);
+
+                        RecalUtils.incrementDatumOrPutIfNecessary3keys(qualityScoreTable, qual, isError, keys[0], keys[1], eventIndex);
+                        for ( int i = nSpecialCovariates; i < nCovariates; i++ ) {
+                            if ( keys[i] >= 0 ) {
+                                RecalUtils.incrementDatumOrPutIfNecessary4keys(recalTables.getTable(i), qual, isError, keys[0], keys[1], keys[i], eventIndex);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return recalTables;
+    }
+}
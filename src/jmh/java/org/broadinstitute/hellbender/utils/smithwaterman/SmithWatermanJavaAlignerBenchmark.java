@@ -0,0 +1,66 @@
+package org.broadinstitute.hellbender.utils.smithwaterman;
+
+import org.broadinstitute.gatk.nativebindings.smithwaterman.SWOverhangStrategy;
+import org.broadinstitute.hellbender.BenchmarkUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link SmithWatermanJavaAligner} aligning a haplotype containing a SNP, an insertion and a deletion
+ * back to its reference, as the HaplotypeCaller does for each assembled haplotype.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SmithWatermanJavaAlignerBenchmark {
+
+    @Param({"150", "500"})
+    public int referenceLength;
+
+    @Param({"SOFTCLIP", "INDEL"})
+    public SWOverhangStrategy overhangStrategy;
+
+    private final SmithWatermanJavaAligner aligner = SmithWatermanJavaAligner.getInstance();
+    private byte[] reference;
+    private byte[] alternate;
+    private byte[] read;
+
+    @Setup
+    public void setup() {
+        final Random random = BenchmarkUtils.newRandom();
+        reference = BenchmarkUtils.randomBases(random, referenceLength);
+
+        // a SNP a third of the way in, a 3-base insertion half way, and a 5-base deletion two thirds of the way
+        final int snpPosition = referenceLength / 3;
+        final int insertionPosition = referenceLength / 2;
+        final int deletionPosition = 2 * referenceLength / 3;
+        final byte[] withSnp = reference.clone();
+        withSnp[snpPosition] = (byte)(withSnp[snpPosition] == 'A' ? 'C' : 'A');
+
+        final StringBuilder builder = new StringBuilder(referenceLength);
+        builder.append(new String(withSnp, 0, insertionPosition));
+        builder.append("GTA");
+        builder.append(new String(withSnp, insertionPosition, deletionPosition - insertionPosition));
+        builder.append(new String(withSnp, deletionPosition + 5, referenceLength - deletionPosition - 5));
+        alternate = builder.toString().getBytes();
+
+        // a read from the middle of the haplotype, as when realigning reads to their best haplotype
+        read = Arrays.copyOfRange(alternate, alternate.length / 4, alternate.length / 4 + Math.min(100, alternate.length / 2));
+    }
+
+    @Benchmark
+    public SmithWatermanAlignment alignHaplotypeToReference() {
+        return aligner.align(reference, alternate, SmithWatermanAligner.STANDARD_NGS, overhangStrategy);
+    }
+
+    @Benchmark
+    public SmithWatermanAlignment alignReadToHaplotype() {
+        return aligner.align(alternate, read, SmithWatermanAligner.ORIGINAL_DEFAULT, overhangStrategy);
+    }
+}
@@ -0,0 +1,124 @@
+package org.broadinstitute.hellbender.utils.variant;
+
+import htsjdk.variant.variantcontext.*;
+import org.broadinstitute.hellbender.BenchmarkUtils;
+import org.broadinstitute.hellbender.tools.walkers.genotyper.GenotypeAssignmentMethod;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the {@link GATKVariantContextUtils} operations on the HaplotypeCaller and variant-manipulation hot paths:
+ * merging the per-haplotype events at a site, splitting multi-allelic sites, and trimming alleles.
+ *
+ * Each benchmark processes {@link #NUM_SITES} synthetic sites, and results are reported per batch of sites.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GATKVariantContextUtilsBenchmark {
+    private static final int NUM_SITES = 1_000;
+    private static final byte[] BASES = {'A', 'C', 'G', 'T'};
+
+    @Param({"1", "100"})
+    public int numSamples;
+
+    /**
+     * For each site, the biallelic events on each of three haplotypes, as passed to simpleMerge by the HaplotypeCaller
+     */
+    private List<List<VariantContext>> eventsBySite;
+    private List<String> haplotypeSources;
+
+    /**
+     * Tri-allelic SNPs with a genotype for every sample
+     */
+    private List<VariantContext> multiallelicSites;
+
+    /**
+     * Deletions with an extra shared base at both ends of the alleles, to be trimmed
+     */
+    private List<VariantContext> untrimmedSites;
+
+    @Setup
+    public void setup() {
+        final Random random = BenchmarkUtils.newRandom();
+        final List<String> samples = new ArrayList<>(numSamples);
+        for ( int i = 0; i < numSamples; ++i ) {
+            samples.add("sample" + i);
+        }
+        haplotypeSources = Arrays.asList("HC0", "HC1", "HC2");
+
+        eventsBySite = new ArrayList<>(NUM_SITES);
+        multiallelicSites = new ArrayList<>(NUM_SITES);
+        untrimmedSites = new ArrayList<>(NUM_SITES);
+        for ( int site = 0; site < NUM_SITES; ++site ) {
+            final int start = 1 + 100 * site;
+            final int refIndex = random.nextInt(BASES.length);
+            final Allele ref = Allele.create(BASES[refIndex], true);
+            final Allele alt1 = Allele.create(BASES[(refIndex + 1) % BASES.length], false);
+            final Allele alt2 = Allele.create(BASES[(refIndex + 2) % BASES.length], false);
+
+            final List<VariantContext> events = new ArrayList<>(haplotypeSources.size());
+            for ( int h = 0; h < haplotypeSources.size(); ++h ) {
+                final Allele alt = h % 2 == 0 ? alt1 : alt2;
+                events.add(new VariantContextBuilder(haplotypeSources.get(h), "1", start, start, Arrays.asList(ref, alt)).make());
+            }
+            eventsBySite.add(events);
+
+            final List<Allele> alleles = Arrays.asList(ref, alt1, alt2);
+            final List<Genotype> genotypes = new ArrayList<>(numSamples);
+            for ( final String sample : samples ) {
+                final int[] pls = new int[GenotypeLikelihoods.numLikelihoods(alleles.size(), 2)];
+                for ( int i = 0; i < pls.length; ++i ) {
+                    pls[i] = random.nextInt(100);
+                }
+                pls[random.nextInt(pls.length)] = 0;
+                genotypes.add(new GenotypeBuilder(sample, Arrays.asList(ref, random.nextBoolean() ? alt1 : alt2))
+                        .PL(pls).DP(30).GQ(random.nextInt(99)).make());
+            }
+            multiallelicSites.add(new VariantContextBuilder("multi", "1", start, start, alleles).genotypes(genotypes).make());
+
+            final byte[] deletedBases = BenchmarkUtils.randomBases(random, 1 + random.nextInt(5));
+            final String padding = new String(BenchmarkUtils.randomBases(random, 1));
+            final String refAllele = padding + new String(deletedBases) + padding;
+            untrimmedSites.add(GATKVariantContextUtils.makeFromAlleles("untrimmed", "1", start, Arrays.asList(refAllele, padding + padding)));
+        }
+    }
+
+    @Benchmark
+    public long simpleMerge() {
+        long numAlleles = 0;
+        for ( final List<VariantContext> events : eventsBySite ) {
+            final VariantContext merged = GATKVariantContextUtils.simpleMerge(events, haplotypeSources,
+                    GATKVariantContextUtils.FilteredRecordMergeType.KEEP_IF_ANY_UNFILTERED,
+                    GATKVariantContextUtils.GenotypeMergeType.PRIORITIZE, false);
+            numAlleles += merged.getNAlleles();
+        }
+        return numAlleles;
+    }
+
+    @Benchmark
+    public long splitToBiallelics() {
+        long numSplit = 0;
+        for ( final VariantContext vc : multiallelicSites ) {
+            numSplit += GATKVariantContextUtils.splitVariantContextToBiallelics(vc, false, GenotypeAssignmentMethod.BEST_MATCH_TO_ORIGINAL, false).size();
+        }
+        return numSplit;
+    }
+
+    @Benchmark
+    public long trimAlleles() {
+        long totalLength = 0;
+        for ( final VariantContext vc : untrimmedSites ) {
+            totalLength += GATKVariantContextUtils.trimAlleles(vc, true, true).getLengthOnReference();
+        }
+        return totalLength;
+    }
+}
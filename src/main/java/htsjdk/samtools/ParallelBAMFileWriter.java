@@ -0,0 +1,212 @@
+package htsjdk.samtools;
+
+import htsjdk.samtools.util.BinaryCodec;
+import htsjdk.samtools.util.IOUtil;
+import htsjdk.samtools.util.Md5CalculatingOutputStream;
+import htsjdk.samtools.util.RuntimeIOException;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.io.ParallelBlockCompressedOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * A BAM writer that compresses its output on multiple threads via a {@link ParallelBlockCompressedOutputStream}.
+ *
+ * Produces output (and, if requested, a BAI index built on the fly) that is byte-for-byte identical to that of the
+ * htsjdk {@link BAMFileWriter} created by a {@link SAMFileWriterFactory} with the same settings.
+ *
+ * When indexing, records are held until the compressed addresses of the blocks they were written to are known,
+ * so as with htsjdk's asynchronous writers, records must not be modified after they have been added.
+ *
+ * Lives in the htsjdk.samtools package because the indexer needs the file source of each record, which
+ * can only be set from within this package.
+ */
+public final class ParallelBAMFileWriter extends SAMFileWriterImpl {
+
+    private final ParallelBlockCompressedOutputStream blockCompressedOutputStream;
+    private final BinaryCodec outputBinaryCodec;
+    private final String filename;
+    private BAMRecordCodec bamRecordCodec = null;
+
+    private BAMIndexer bamIndexer = null;
+
+    /**
+     * Records written but not yet indexed, because the addresses of the blocks they occupy are not yet known
+     */
+    private final Deque<PendingIndexEntry> pendingIndexEntries = new ArrayDeque<>();
+
+    /**
+     * Create a writer to a stream, with no index
+     *
+     * @param out stream to write the BAM to
+     * @param filename name of the output, for error messages only (may be null)
+     * @param compressionLevel deflate compression level (0-9)
+     * @param compressionThreads number of threads to use for compression (> 0)
+     */
+    public ParallelBAMFileWriter( final OutputStream out, final String filename, final int compressionLevel, final int compressionThreads ) {
+        this.blockCompressedOutputStream = new ParallelBlockCompressedOutputStream(out, compressionLevel, compressionThreads);
+        this.outputBinaryCodec = new BinaryCodec(blockCompressedOutputStream);
+        this.outputBinaryCodec.setOutputFileName(filename);
+        this.filename = filename;
+    }
+
+    /**
+     * Create and initialize a writer to a file, in the same way as {@link SAMFileWriterFactory#makeBAMWriter} would.
+     *
+     * @param header header for the output. Its sort order determines the sort order of the output.
+     * @param presorted if true, records must already be sorted to match the header sort order
+     * @param outputPath output file
+     * @param createIndex if true, create a BAI index on the fly (only if the output is coordinate sorted)
+     * @param createMd5File if true, create an MD5 file alongside the output
+     * @param compressionLevel deflate compression level (0-9)
+     * @param compressionThreads number of threads to use for compression (> 0)
+     * @return a new writer with the header already written
+     */
+    public static ParallelBAMFileWriter create( final SAMFileHeader header, final boolean presorted, final Path outputPath,
+                                                final boolean createIndex, final boolean createMd5File,
+                                                final int compressionLevel, final int compressionThreads ) {
+        Utils.nonNull(header);
+        Utils.nonNull(outputPath);
+
+        final boolean isRegularPath = IOUtil.isRegularPath(outputPath);
+        try {
+            OutputStream out = IOUtil.maybeBufferOutputStream(Files.newOutputStream(outputPath));
+            if ( createMd5File && isRegularPath ) {
+                out = new Md5CalculatingOutputStream(out, IOUtil.addExtension(outputPath, ".md5"));
+            }
+
+            final ParallelBAMFileWriter writer = new ParallelBAMFileWriter(out, outputPath.toUri().toString(), compressionLevel, compressionThreads);
+            writer.setSortOrder(header.getSortOrder(), presorted);
+            writer.setHeader(header);
+            if ( createIndex && isRegularPath && writer.getSortOrder() == SAMFileHeader.SortOrder.coordinate ) {
+                writer.enableBamIndexConstruction(getIndexPath(outputPath));
+            }
+            return writer;
+        } catch ( final IOException e ) {
+            throw new RuntimeIOException("Error opening file: " + outputPath.toUri(), e);
+        }
+    }
+
+    /**
+     * @return the path of the BAI index for a BAM, following the same convention as {@link BAMFileWriter}
+     */
+    private static Path getIndexPath( final Path bamPath ) {
+        final String bamName = bamPath.getFileName().toString();
+        final String indexBase = bamName.endsWith(BamFileIoUtils.BAM_FILE_EXTENSION) ? bamName.substring(0, bamName.lastIndexOf('.')) : bamName;
+        return bamPath.resolveSibling(indexBase + BAMIndex.BAI_INDEX_SUFFIX);
+    }
+
+    /**
+     * Build a BAI index on the fly as records are written. Must be called before any records are added.
+     *
+     * @param indexPath where to write the index
+     */
+    public void enableBamIndexConstruction( final Path indexPath ) {
+        Utils.nonNull(indexPath);
+        if ( getSortOrder() != SAMFileHeader.SortOrder.coordinate ) {
+            throw new SAMException("Not creating BAM index since not sorted by coordinates: " + getSortOrder());
+        }
+        bamIndexer = new BAMIndexer(indexPath, getFileHeader());
+    }
+
+    @Override
+    protected void writeHeader( final SAMFileHeader header ) {
+        BAMFileWriter.writeHeader(outputBinaryCodec, header);
+    }
+
+    // The base class still declares this as abstract, although setHeader() now goes through writeHeader(SAMFileHeader)
+    @SuppressWarnings("deprecation")
+    @Override
+    protected void writeHeader( final String textHeader ) {
+        BAMFileWriter.writeHeader(outputBinaryCodec, getFileHeader(), textHeader);
+    }
+
+    @Override
+    protected void writeAlignment( final SAMRecord alignment ) {
+        if ( bamRecordCodec == null ) {
+            bamRecordCodec = new BAMRecordCodec(getFileHeader());
+            bamRecordCodec.setOutputStream(blockCompressedOutputStream, getFilename());
+        }
+
+        if ( bamIndexer == null ) {
+            bamRecordCodec.encode(alignment);
+            return;
+        }
+
+        final long startOffset = blockCompressedOutputStream.getFilePointer();
+        bamRecordCodec.encode(alignment);
+        final long stopOffset = blockCompressedOutputStream.getFilePointer();
+        pendingIndexEntries.addLast(new PendingIndexEntry(alignment, startOffset, stopOffset));
+
+        try {
+            indexPendingAlignments(false);
+        } catch ( final IOException e ) {
+            throw new RuntimeIOException("Error writing BAM file " + getFilename(), e);
+        }
+    }
+
+    /**
+     * Pass pending records to the indexer, in order, with their real file offsets
+     *
+     * @param waitForCompression if true, index all pending records, waiting for compression as necessary.
+     *                           Otherwise, index only those records whose offsets can be resolved immediately.
+     */
+    private void indexPendingAlignments( final boolean waitForCompression ) throws IOException {
+        while ( ! pendingIndexEntries.isEmpty() &&
+                (waitForCompression || blockCompressedOutputStream.isFilePointerResolvable(pendingIndexEntries.peekFirst().stopOffset)) ) {
+            final PendingIndexEntry entry = pendingIndexEntries.removeFirst();
+            final long startOffset = blockCompressedOutputStream.resolveFilePointer(entry.startOffset);
+            final long stopOffset = blockCompressedOutputStream.resolveFilePointer(entry.stopOffset);
+            entry.alignment.setFileSource(new SAMFileSource(null, new BAMFileSpan(new Chunk(startOffset, stopOffset))));
+            try {
+                bamIndexer.processAlignment(entry.alignment);
+            } catch ( final Exception e ) {
+                bamIndexer = null;
+                pendingIndexEntries.clear();
+                throw new SAMException("Exception creating BAM index for record " + entry.alignment, e);
+            }
+        }
+    }
+
+    @Override
+    protected void finish() {
+        try {
+            if ( bamIndexer != null ) {
+                indexPendingAlignments(true);
+            }
+            outputBinaryCodec.close();
+        } catch ( final IOException e ) {
+            throw new RuntimeIOException("Error writing BAM file " + getFilename(), e);
+        }
+
+        try {
+            if ( bamIndexer != null ) {
+                bamIndexer.finish();
+            }
+        } catch ( final Exception e ) {
+            throw new SAMException("Exception writing BAM index file", e);
+        }
+    }
+
+    @Override
+    protected String getFilename() {
+        return filename;
+    }
+
+    private static final class PendingIndexEntry {
+        private final SAMRecord alignment;
+        private final long startOffset;
+        private final long stopOffset;
+
+        private PendingIndexEntry( final SAMRecord alignment, final long startOffset, final long stopOffset ) {
+            this.alignment = alignment;
+            this.startOffset = startOffset;
+            this.stopOffset = stopOffset;
+        }
+    }
+}
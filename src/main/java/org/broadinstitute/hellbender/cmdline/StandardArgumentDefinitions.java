@@ -29,6 +29,13 @@ public final class StandardArgumentDefinitions {
     public static final String CLOUD_PREFETCH_BUFFER_LONG_NAME = "cloud-prefetch-buffer";
     public static final String CLOUD_INDEX_PREFETCH_BUFFER_LONG_NAME = "cloud-index-prefetch-buffer";
     public static final String DISABLE_BAM_INDEX_CACHING_LONG_NAME = "disable-bam-index-caching";
+    public static final String READ_AHEAD_BATCHES_LONG_NAME = "read-ahead-batches";
+    public static final String COMPRESSION_THREADS_LONG_NAME = "compression-threads";
+    public static final String MEMORY_MAP_REFERENCE_LONG_NAME = "memory-map-reference";
+    public static final String FEATURE_CACHE_SIZE_LONG_NAME = "feature-cache-size";
+    public static final String FEATURE_STREAMING_BUFFER_SIZE_LONG_NAME = "feature-streaming-buffer-size";
+    public static final String RUNTIME_METRICS_OUTPUT_LONG_NAME = "runtime-metrics-output";
+    public static final String LOG_RUNTIME_METRICS_LONG_NAME = "log-runtime-metrics";
     public static final String DISABLE_SEQUENCE_DICT_VALIDATION_NAME = "disable-sequence-dictionary-validation";
     public static final String ADD_OUTPUT_SAM_PROGRAM_RECORD = "add-output-sam-program-record";
     public static final String ADD_OUTPUT_VCF_COMMANDLINE = "add-output-vcf-command-line";
@@ -0,0 +1,33 @@
+package org.broadinstitute.hellbender.engine;
+
+import htsjdk.variant.variantcontext.VariantContext;
+
+import java.util.List;
+
+/**
+ * A self-contained unit of assembly region processing, used by {@link AssemblyRegionWalker} when traversing
+ * with multiple threads (see {@link AssemblyRegionWalker#createAssemblyRegionProcessor}).
+ *
+ * Each traversal thread gets its own processor, which is used both to evaluate the activity of each locus
+ * and to process the resulting assembly regions. Implementations therefore do not need to be thread-safe,
+ * but must not share mutable state with other processors or with the tool instance that created them.
+ */
+public interface AssemblyRegionProcessor extends AssemblyRegionEvaluator, AutoCloseable {
+
+    /**
+     * Process an individual AssemblyRegion, returning the resulting calls rather than writing them.
+     * The engine is responsible for emitting the calls from all processors in coordinate order.
+     *
+     * @param region region to process (pre-marked as either active or inactive)
+     * @param referenceContext reference data overlapping the full extended span of the assembly region
+     * @param featureContext features overlapping the full extended span of the assembly region
+     * @return calls made in this region, in coordinate order (may be empty, but never {@code null})
+     */
+    List<VariantContext> processRegion( final AssemblyRegion region, final ReferenceContext referenceContext, final FeatureContext featureContext );
+
+    /**
+     * Release any resources held by this processor. Called once, after traversal, on the main thread.
+     */
+    @Override
+    void close();
+}
@@ -7,19 +7,34 @@ import org.broadinstitute.hellbender.engine.filters.CountingReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilterLibrary;
 import org.broadinstitute.hellbender.engine.filters.WellformedReadFilter;
+import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.transformers.ReadTransformer;
 import org.broadinstitute.hellbender.utils.IGVUtils;
 import org.broadinstitute.hellbender.utils.IntervalUtils;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.activityprofile.ActivityProfileState;
 import org.broadinstitute.hellbender.utils.downsampling.PositionalDownsampler;
 import org.broadinstitute.hellbender.utils.downsampling.ReadsDownsampler;
+import org.broadinstitute.hellbender.utils.runtime.MetricsRegistry;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.variant.variantcontext.VariantContext;
 
 import java.io.IOException;
 import java.io.PrintStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * An AssemblyRegionWalker is a tool that processes an entire region of reads at a time, each marked as either "active"
@@ -38,6 +53,12 @@ import java.util.List;
  *
  * Internally, the reads are loaded in chunks called read shards, which are then subdivided into active/inactive regions
  * for processing by the tool implementation. One read shard is created per contig.
+ *
+ * Tools that implement {@link #createAssemblyRegionProcessor} may also be run with more than one traversal thread
+ * (see {@link #traversalThreads}). In that mode the traversal intervals are divided into padded shards of up to
+ * {@link #parallelShardSize} bases, each thread processes whole shards using its own reads, reference and Feature
+ * readers and its own {@link AssemblyRegionProcessor}, and the calls from each shard are handed back to the tool
+ * via {@link #onParallelRegionCalls} on the main thread, in coordinate order.
  */
 public abstract class AssemblyRegionWalker extends WalkerBase {
 
@@ -51,6 +72,10 @@ public abstract class AssemblyRegionWalker extends WalkerBase {
     public static final String PROFILE_OUT_LONG_NAME = "activity-profile-out";
     public static final String ASSEMBLY_REGION_OUT_LONG_NAME = "assembly-region-out";
     public static final String FORCE_ACTIVE_REGIONS_LONG_NAME = "force-active";
+    public static final String TRAVERSAL_THREADS_LONG_NAME = "threads";
+    public static final String PARALLEL_SHARD_SIZE_LONG_NAME = "parallel-shard-size";
+
+    public static final int DEFAULT_PARALLEL_SHARD_SIZE = 100_000;
 
     @Advanced
     @Argument(fullName = MIN_ASSEMBLY_LONG_NAME, doc = "Minimum size of an assembly region", optional = true)
@@ -105,6 +130,19 @@ public abstract class AssemblyRegionWalker extends WalkerBase {
 
     private PrintStream assemblyRegionOutStream;
 
+    /**
+     * Number of threads to use for traversal. Values greater than 1 are only supported by tools that implement
+     * {@link #createAssemblyRegionProcessor}. Note that when running with multiple threads, assembly regions
+     * cannot extend across shard boundaries, so calls very close to a boundary may differ slightly from a
+     * single-threaded run (as is also the case for the Spark version of these tools).
+     */
+    @Argument(fullName = TRAVERSAL_THREADS_LONG_NAME, doc = "Number of threads to use for traversal", minValue = 1, optional = true)
+    protected int traversalThreads = 1;
+
+    @Advanced
+    @Argument(fullName = PARALLEL_SHARD_SIZE_LONG_NAME, doc = "Maximum size of each shard of the traversal intervals, in bases, when traversing with multiple threads. For good performance, this should be much larger than the maximum assembly region size.", minValue = 1, optional = true)
+    protected int parallelShardSize = DEFAULT_PARALLEL_SHARD_SIZE;
+
     /**
      * @return Default value for the {@link #minAssemblyRegionSize} parameter, if none is provided on the command line
      */
@@ -151,6 +189,17 @@ public abstract class AssemblyRegionWalker extends WalkerBase {
 
     private List<MultiIntervalLocalReadShard> readShards;
 
+    /**
+     * Intervals for each shard processed by multithreaded traversal (null in single-threaded mode)
+     */
+    private List<List<SimpleInterval>> parallelShardIntervals;
+
+    /**
+     * Per-thread readers and processors for multithreaded traversal, created lazily by each traversal thread
+     */
+    private final List<ParallelTraversalWorker> parallelWorkers = new ArrayList<>();
+    private ThreadLocal<ParallelTraversalWorker> currentParallelWorker;
+
     /**
      * Initialize data sources for traversal.
      *
@@ -177,7 +226,19 @@ public abstract class AssemblyRegionWalker extends WalkerBase {
         }
 
         final List<SimpleInterval> intervals = hasUserSuppliedIntervals() ? userIntervals : IntervalUtils.getAllIntervalsForReference(getHeaderForReads().getSequenceDictionary());
-        readShards = makeReadShards(intervals);
+        if ( traversalThreads > 1 ) {
+            if ( ! supportsMultithreadedTraversal() ) {
+                throw new CommandLineException.BadArgumentValue(TRAVERSAL_THREADS_LONG_NAME, String.valueOf(traversalThreads),
+                        getClass().getSimpleName() + " does not support multithreaded traversal");
+            }
+            if ( activityProfileOut != null || assemblyRegionOut != null ) {
+                throw new CommandLineException.BadArgumentValue(TRAVERSAL_THREADS_LONG_NAME, String.valueOf(traversalThreads),
+                        "the activity profile and assembly region outputs are not supported with multithreaded traversal");
+            }
+            parallelShardIntervals = makeParallelShardIntervals(intervals);
+        } else {
+            readShards = makeReadShards(intervals);
+        }
 
         initializeAssemblyRegionOutputStreams();
     }
@@ -203,6 +264,46 @@ public abstract class AssemblyRegionWalker extends WalkerBase {
         return shards;
     }
 
+    /**
+     * Shard our intervals for multithreaded traversal. Intervals larger than {@link #parallelShardSize} are divided
+     * into multiple shards, and consecutive small intervals on the same contig are grouped together until the
+     * group spans at least {@link #parallelShardSize} bases, so that each shard is worth handing to a thread.
+     *
+     * Each group becomes a {@link MultiIntervalLocalReadShard} padded by the assembly region padding when it is
+     * processed, so that each thread queries all of the intervals in its shard at once.
+     *
+     * @param intervals unmodified intervals for traversal
+     * @return intervals for each shard, in traversal order
+     */
+    private List<List<SimpleInterval>> makeParallelShardIntervals(final List<SimpleInterval> intervals) {
+        final SAMSequenceDictionary dictionary = getHeaderForReads().getSequenceDictionary();
+        final List<List<SimpleInterval>> shards = new ArrayList<>();
+
+        for ( final List<SimpleInterval> allIntervalsOnContig : IntervalUtils.groupIntervalsByContig(intervals) ) {
+            List<SimpleInterval> currentShard = new ArrayList<>();
+            long currentShardSize = 0;
+
+            for ( final SimpleInterval interval : allIntervalsOnContig ) {
+                for ( final ShardBoundary boundary : Shard.divideIntervalIntoShards(interval, parallelShardSize, assemblyRegionPadding, dictionary) ) {
+                    currentShard.add(boundary.getInterval());
+                    currentShardSize += boundary.getInterval().size();
+
+                    if ( currentShardSize >= parallelShardSize ) {
+                        shards.add(currentShard);
+                        currentShard = new ArrayList<>();
+                        currentShardSize = 0;
+                    }
+                }
+            }
+
+            if ( ! currentShard.isEmpty() ) {
+                shards.add(currentShard);
+            }
+        }
+
+        return shards;
+    }
+
     private void initializeAssemblyRegionOutputStreams() {
         if ( activityProfileOut != null ) {
             try {
@@ -263,6 +364,10 @@ public abstract class AssemblyRegionWalker extends WalkerBase {
      */
     @Override
     public void traverse() {
+        if ( traversalThreads > 1 ) {
+            traverseInParallel();
+            return;
+        }
 
         CountingReadFilter countedFilter = makeReadFilter();
 
@@ -284,6 +389,122 @@ public abstract class AssemblyRegionWalker extends WalkerBase {
         logger.info(countedFilter.getSummaryLine());
     }
 
+    /**
+     * Implementation of multithreaded assembly region traversal.
+     *
+     * Shards are submitted to a pool of {@link #traversalThreads} threads, with at most twice that many shards in
+     * flight at once, and their results are consumed on this thread in submission order. This keeps the output
+     * in coordinate order while bounding the number of calls buffered in memory.
+     */
+    private void traverseInParallel() {
+        progressMeter.setRecordsBetweenTimeChecks(10L);
+        logger.info(String.format("Traversing %d shards using %d threads", parallelShardIntervals.size(), traversalThreads));
+
+        currentParallelWorker = ThreadLocal.withInitial(this::createParallelTraversalWorker);
+        final ExecutorService executorService = Executors.newFixedThreadPool(traversalThreads,
+                new ThreadFactoryBuilder().setNameFormat("assemblyRegionTraversal-thread-%d").setDaemon(true).build());
+        final Queue<Future<ParallelShardResult>> pendingShards = new ArrayDeque<>();
+        final int maxPendingShards = 2 * traversalThreads;
+
+        try {
+            for ( final List<SimpleInterval> shardIntervals : parallelShardIntervals ) {
+                if ( pendingShards.size() == maxPendingShards ) {
+                    consumeParallelShardResult(pendingShards.remove());
+                }
+                pendingShards.add(executorService.submit(() -> currentParallelWorker.get().processShard(shardIntervals)));
+            }
+            while ( ! pendingShards.isEmpty() ) {
+                consumeParallelShardResult(pendingShards.remove());
+            }
+        } finally {
+            executorService.shutdownNow();
+            try {
+                executorService.awaitTermination(1, TimeUnit.MINUTES);
+            } catch ( final InterruptedException e ) {
+                Thread.currentThread().interrupt();
+            }
+            closeParallelTraversalWorkers();
+        }
+    }
+
+    private void consumeParallelShardResult(final Future<ParallelShardResult> pendingShard) {
+        final ParallelShardResult result;
+        try {
+            result = pendingShard.get();
+        } catch ( final InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new GATKException("Interrupted while waiting for a traversal shard", e);
+        } catch ( final ExecutionException e ) {
+            // Rethrow unchecked exceptions (such as UserExceptions) from the traversal threads unchanged
+            if ( e.getCause() instanceof RuntimeException ) {
+                throw (RuntimeException)e.getCause();
+            }
+            throw new GATKException("Error processing traversal shard", e.getCause());
+        }
+
+        onParallelRegionCalls(result.calls);
+        for ( final SimpleInterval regionSpan : result.regionSpans ) {
+            progressMeter.update(regionSpan);
+        }
+    }
+
+    private ParallelTraversalWorker createParallelTraversalWorker() {
+        // Worker creation consults the command line parser and the tool, so only let one thread do it at a time
+        synchronized ( parallelWorkers ) {
+            final ParallelTraversalWorker worker = new ParallelTraversalWorker();
+            parallelWorkers.add(worker);
+            return worker;
+        }
+    }
+
+    private void closeParallelTraversalWorkers() {
+        synchronized ( parallelWorkers ) {
+            long totalFilteredReads = 0;
+            for ( final ParallelTraversalWorker worker : parallelWorkers ) {
+                logger.info(worker.readFilter.getSummaryLine());
+                totalFilteredReads += worker.readFilter.getFilteredCount();
+                worker.close();
+            }
+            logger.info(String.format("%d total reads filtered across %d traversal threads", totalFilteredReads, parallelWorkers.size()));
+            parallelWorkers.clear();
+        }
+    }
+
+    /**
+     * Does this tool support multithreaded traversal via {@link #createAssemblyRegionProcessor}?
+     * Tools that override {@link #createAssemblyRegionProcessor} must also override this method to return true.
+     *
+     * @return true if this tool may be run with more than one traversal thread, otherwise false
+     */
+    protected boolean supportsMultithreadedTraversal() {
+        return false;
+    }
+
+    /**
+     * Create a new, independent {@link AssemblyRegionProcessor} for use by a single traversal thread during
+     * multithreaded traversal. Called once per traversal thread, after {@link #onTraversalStart}, and never
+     * concurrently with another call to this method.
+     *
+     * The default implementation throws, since tools must opt in to multithreaded traversal.
+     *
+     * @return a processor that shares no mutable state with the tool or with other processors
+     */
+    protected AssemblyRegionProcessor createAssemblyRegionProcessor() {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support multithreaded traversal");
+    }
+
+    /**
+     * Receive the calls made by the {@link AssemblyRegionProcessor}s during multithreaded traversal. Called on the
+     * main traversal thread, in coordinate order, once per shard.
+     *
+     * The default implementation throws, since tools must opt in to multithreaded traversal.
+     *
+     * @param calls calls made in the next shard, in coordinate order
+     */
+    protected void onParallelRegionCalls(final List<VariantContext> calls) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support multithreaded traversal");
+    }
+
     /**
      * Divide the given Shard up into active/inactive AssemblyRegions using the {@link #assemblyRegionEvaluator},
      * and send each region to the tool implementation for processing.
@@ -293,7 +514,9 @@ public abstract class AssemblyRegionWalker extends WalkerBase {
      * @param features FeatureManager
      */
     private void processReadShard(MultiIntervalLocalReadShard shard, ReferenceDataSource reference, FeatureManager features ) {
-        final Iterator<AssemblyRegion> assemblyRegionIter = new AssemblyRegionIterator(shard, getHeaderForReads(), reference, features, assemblyRegionEvaluator(), minAssemblyRegionSize, maxAssemblyRegionSize, assemblyRegionPadding, activeProbThreshold, maxProbPropagationDistance, includeReadsWithDeletionsInIsActivePileups());
+        final Iterator<AssemblyRegion> assemblyRegionIter = getRuntimeMetrics().timer("traversal.assemblyRegions").timeIterator(
+                new AssemblyRegionIterator(shard, getHeaderForReads(), reference, features, assemblyRegionEvaluator(), minAssemblyRegionSize, maxAssemblyRegionSize, assemblyRegionPadding, activeProbThreshold, maxProbPropagationDistance, includeReadsWithDeletionsInIsActivePileups()));
+        final MetricsRegistry.Timer applyTimer = getRuntimeMetrics().timer(APPLY_TIMER_NAME);
 
         // Call into the tool implementation to process each assembly region from this shard.
         while ( assemblyRegionIter.hasNext() ) {
@@ -305,9 +528,11 @@ public abstract class AssemblyRegionWalker extends WalkerBase {
             logger.debug("Processing assembly region at " + assemblyRegion.getSpan() + " isActive: " + assemblyRegion.isActive() + " numReads: " + assemblyRegion.getReads().size());
             writeAssemblyRegion(assemblyRegion);
 
+            final long applyStart = applyTimer.start();
             apply(assemblyRegion,
                     new ReferenceContext(reference, assemblyRegion.getExtendedSpan()),
                     new FeatureContext(features, assemblyRegion.getExtendedSpan()));
+            applyTimer.stop(applyStart);
 
             // For this traversal, the progress meter unit is the assembly region rather than the read shard
             progressMeter.update(assemblyRegion.getSpan());
@@ -352,6 +577,79 @@ public abstract class AssemblyRegionWalker extends WalkerBase {
         }
     }
 
+    /**
+     * Calls and processed region spans for a single shard of a multithreaded traversal
+     */
+    private static final class ParallelShardResult {
+        private final List<VariantContext> calls = new ArrayList<>();
+        private final List<SimpleInterval> regionSpans = new ArrayList<>();
+    }
+
+    /**
+     * The readers, read filter and processor owned by a single traversal thread. Everything here is confined to
+     * that thread until traversal is over, at which point the main thread closes it.
+     */
+    private final class ParallelTraversalWorker implements AutoCloseable {
+        private final ReadsDataSource reads;
+        private final ReferenceDataSource reference;
+        private final FeatureManager features;
+        private final CountingReadFilter readFilter;
+        private final ReadTransformer preReadFilterTransformer;
+        private final ReadTransformer postReadFilterTransformer;
+        private final AssemblyRegionProcessor processor;
+
+        private ParallelTraversalWorker() {
+            reads = createReadsDataSource();
+            reference = createReferenceDataSource();
+            final FeatureManager featureManager = createFeatureManager();
+            if ( featureManager.isEmpty() ) {
+                featureManager.close();
+                features = null;
+            } else {
+                features = featureManager;
+            }
+            readFilter = makeReadFilter();
+            preReadFilterTransformer = makePreReadFilterTransformer();
+            postReadFilterTransformer = makePostReadFilterTransformer();
+            processor = createAssemblyRegionProcessor();
+        }
+
+        private ParallelShardResult processShard(final List<SimpleInterval> shardIntervals) {
+            final MultiIntervalLocalReadShard shard = new MultiIntervalLocalReadShard(shardIntervals, assemblyRegionPadding, reads);
+            shard.setPreReadFilterTransformer(preReadFilterTransformer);
+            shard.setReadFilter(readFilter);
+            shard.setDownsampler(createDownsampler());
+            shard.setPostReadFilterTransformer(postReadFilterTransformer);
+
+            final ParallelShardResult result = new ParallelShardResult();
+            final Iterator<AssemblyRegion> assemblyRegionIter = new AssemblyRegionIterator(shard, getHeaderForReads(), reference, features, processor, minAssemblyRegionSize, maxAssemblyRegionSize, assemblyRegionPadding, activeProbThreshold, maxProbPropagationDistance, includeReadsWithDeletionsInIsActivePileups());
+
+            while ( assemblyRegionIter.hasNext() ) {
+                final AssemblyRegion assemblyRegion = assemblyRegionIter.next();
+                if ( forceActive ) {
+                    assemblyRegion.setIsActive(true);
+                }
+
+                result.calls.addAll(processor.processRegion(assemblyRegion,
+                        new ReferenceContext(reference, assemblyRegion.getExtendedSpan()),
+                        new FeatureContext(features, assemblyRegion.getExtendedSpan())));
+                result.regionSpans.add(assemblyRegion.getSpan());
+            }
+
+            return result;
+        }
+
+        @Override
+        public void close() {
+            processor.close();
+            reads.close();
+            reference.close();
+            if ( features != null ) {
+                features.close();
+            }
+        }
+    }
+
     /**
      * @return The evaluator to be used to determine whether each locus is active or not. Must be implemented by tool authors.
      *         The results of this per-locus evaluator are used to determine the bounds of each active and inactive region.
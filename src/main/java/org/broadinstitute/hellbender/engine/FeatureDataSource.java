@@ -18,6 +18,7 @@ import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
 import org.broadinstitute.hellbender.utils.nio.SeekableByteChannelPrefetcher;
+import org.broadinstitute.hellbender.utils.runtime.MetricsRegistry;
 import org.genomicsdb.model.GenomicsDBExportConfiguration;
 import org.genomicsdb.reader.GenomicsDBFeatureReader;
 
@@ -91,6 +92,25 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
      */
     private final FeatureCache<T> queryCache;
 
+    /**
+     * Optional replacement for {@link #queryCache} that holds multiple windows from recent queries, for access
+     * patterns that jump back and forth across the genome. Null unless enabled via {@link #setMultiWindowCache}.
+     */
+    private MultiWindowFeatureCache<T> multiWindowQueryCache = null;
+
+    /**
+     * Optional replacement for {@link #queryCache} that streams Features ahead of the current query on a background
+     * thread, for sequential traversals over large Feature inputs. Null unless enabled via {@link #setStreamingQueries}.
+     * Takes precedence over {@link #multiWindowQueryCache}.
+     */
+    private StreamingFeatureCache<T> streamingQueryCache = null;
+
+    /**
+     * Time spent in {@link #queryAndPrefetch}, in total and in queries against the underlying reader after cache misses
+     */
+    private MetricsRegistry.Timer queryTimer = MetricsRegistry.DISABLED.timer("query");
+    private MetricsRegistry.Timer readerQueryTimer = MetricsRegistry.DISABLED.timer("readerQuery");
+
     /**
      * When we experience a cache miss (ie., a query interval not fully contained within our cache) and need
      * to re-populate the Feature cache from disk to satisfy a query, this controls the number of extra bases
@@ -278,7 +298,68 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
     }
 
     final void printCacheStats() {
-        queryCache.printCacheStatistics( getName() );
+        if (streamingQueryCache != null) {
+            streamingQueryCache.printCacheStatistics( getName() );
+        } else if (multiWindowQueryCache != null) {
+            multiWindowQueryCache.printCacheStatistics( getName() );
+        } else {
+            queryCache.printCacheStatistics( getName() );
+        }
+    }
+
+    /**
+     * Record the latency of queries against this data source via {@link #queryAndPrefetch} in the given registry,
+     * under the names "feature.&lt;name&gt;.query" (all queries) and "feature.&lt;name&gt;.readerQuery" (queries that
+     * missed the cache and went to the underlying reader).
+     *
+     * @param registry registry in which to record metrics
+     */
+    public void setRuntimeMetrics(final MetricsRegistry registry) {
+        Utils.nonNull(registry);
+        this.queryTimer = registry.timer("feature." + getName() + ".query");
+        this.readerQueryTimer = registry.timer("feature." + getName() + ".readerQuery");
+    }
+
+    /**
+     * Replace the single-window query cache used by {@link #queryAndPrefetch} with a cache that holds multiple
+     * windows from recent queries, evicting the least-recently-used windows once more than
+     * {@code maxCachedFeatures} Features are cached in total. See {@link MultiWindowFeatureCache}.
+     *
+     * Any Features already cached are discarded.
+     *
+     * @param maxCachedFeatures maximum number of Features to cache (0 to revert to the single-window cache)
+     */
+    public void setMultiWindowCache(final int maxCachedFeatures) {
+        Utils.validateArg(maxCachedFeatures >= 0, "maxCachedFeatures must be >= 0");
+        this.multiWindowQueryCache = maxCachedFeatures > 0 ? new MultiWindowFeatureCache<>(maxCachedFeatures) : null;
+    }
+
+    /**
+     * Satisfy queries via {@link #queryAndPrefetch} by streaming forward through the underlying reader, rather than
+     * re-querying it each time a query runs past the end of the cache. A background thread decodes up to
+     * {@code maxBufferedFeatures} Features ahead of the most recent query, from a single forward-only iterator per
+     * contig. The reader is queried again only when a query jumps to another contig, backwards, or far ahead.
+     * See {@link StreamingFeatureCache}.
+     *
+     * This suits traversals with steadily increasing query positions over large inputs (eg., dbSNP or gnomAD), and
+     * takes precedence over the multi-window cache (see {@link #setMultiWindowCache}) if both are enabled.
+     *
+     * Any open stream, and any Features already cached, are discarded.
+     *
+     * @param maxBufferedFeatures maximum number of Features to decode ahead of the current query (0 to disable streaming)
+     */
+    public void setStreamingQueries(final int maxBufferedFeatures) {
+        Utils.validateArg(maxBufferedFeatures >= 0, "maxBufferedFeatures must be >= 0");
+        if (streamingQueryCache != null) {
+            streamingQueryCache.close();
+            streamingQueryCache = null;
+        }
+        if (maxBufferedFeatures > 0) {
+            final SAMSequenceDictionary dictionary = supportsRandomAccess ? getSequenceDictionary() : null;
+            streamingQueryCache = new StreamingFeatureCache<>(featureReader, getName(),
+                    contig -> dictionary != null && dictionary.getSequence(contig) != null ? dictionary.getSequence(contig).getSequenceLength() : 0,
+                    maxBufferedFeatures, StreamingFeatureCache.DEFAULT_MAX_SEQUENTIAL_GAP);
+        }
     }
 
     @SuppressWarnings("unchecked")
@@ -435,6 +516,9 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
         // Tribble documentation states that having multiple iterators open simultaneously over the same FeatureReader
         // results in undefined behavior
         closeOpenIterationIfNecessary();
+        if (streamingQueryCache != null) {
+            streamingQueryCache.stop();
+        }
 
         try {
             // Save the iterator returned so that we can close it properly later
@@ -486,11 +570,30 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
      * @return a List of all Features in this data source that overlap the provided interval
      */
     public List<T> queryAndPrefetch(final SimpleInterval interval) {
+        final long start = queryTimer.start();
+        final List<T> features = queryAndPrefetchUntimed(interval);
+        queryTimer.stop(start);
+        return features;
+    }
+
+    private List<T> queryAndPrefetchUntimed(final SimpleInterval interval) {
         if (!supportsRandomAccess) {
             throw new UserException("Input " + featureInput.getFeaturePath() + " must support random access to enable queries by interval. " +
                     "If it's a file, please index it using the bundled tool " + IndexFeatureFile.class.getSimpleName());
         }
 
+        if (streamingQueryCache != null) {
+            // Tribble documentation states that having multiple iterators open simultaneously over the same FeatureReader
+            // results in undefined behavior
+            closeOpenIterationIfNecessary();
+            return streamingQueryCache.getFeatures(interval, readerQueryTimer);
+        }
+
+        if (multiWindowQueryCache != null) {
+            final List<T> cachedFeatures = multiWindowQueryCache.getCachedFeatures(interval);
+            return cachedFeatures != null ? cachedFeatures : refillMultiWindowQueryCache(interval);
+        }
+
         // If the query can be satisfied using existing cache contents, prepare for retrieval
         // by discarding all Features at the beginning of the cache that end before the start
         // of our query interval.
@@ -521,22 +624,53 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
         // results in undefined behavior
         closeOpenIterationIfNecessary();
 
-        // Expand the end of our query by the configured number of bases, in anticipation of probable future
-        // queries with slightly larger start/stop positions.
-        //
-        // Note that it doesn't matter if we go off the end of the contig in the process, since
-        // our reader's query operation is not aware of (and does not care about) contig boundaries.
-        // Note: we use addExact to blow up on overflow rather than propagate negative results downstream
-        final SimpleInterval queryInterval = new SimpleInterval(interval.getContig(), interval.getStart(), Math.addExact(interval.getEnd(), queryLookaheadBases));
+        final SimpleInterval queryInterval = getLookaheadQueryInterval(interval);
 
         // Query iterator over our reader will be immediately closed after re-populating our cache
+        final long start = readerQueryTimer.start();
         try (final CloseableTribbleIterator<T> queryIter = featureReader.query(queryInterval.getContig(), queryInterval.getStart(), queryInterval.getEnd())) {
             queryCache.fill(queryIter, queryInterval);
         } catch (final IOException e) {
             throw new GATKException("Error querying file " + featureInput + " over interval " + interval, e);
+        } finally {
+            readerQueryTimer.stop(start);
+        }
+    }
+
+    /**
+     * Add a new window to our multi-window cache after a cache miss, prefetching Features in the same way
+     * as {@link #refillQueryCache}.
+     *
+     * @param interval the query interval that produced a cache miss
+     * @return the Features overlapping the query interval
+     */
+    private List<T> refillMultiWindowQueryCache(final SimpleInterval interval) {
+        closeOpenIterationIfNecessary();
+
+        final SimpleInterval queryInterval = getLookaheadQueryInterval(interval);
+
+        final long start = readerQueryTimer.start();
+        try (final CloseableTribbleIterator<T> queryIter = featureReader.query(queryInterval.getContig(), queryInterval.getStart(), queryInterval.getEnd())) {
+            return multiWindowQueryCache.fill(queryIter, queryInterval, interval);
+        } catch (final IOException e) {
+            throw new GATKException("Error querying file " + featureInput + " over interval " + interval, e);
+        } finally {
+            readerQueryTimer.stop(start);
         }
     }
 
+    /**
+     * Expand the end of a query by the configured number of bases, in anticipation of probable future
+     * queries with slightly larger start/stop positions.
+     *
+     * Note that it doesn't matter if we go off the end of the contig in the process, since
+     * our reader's query operation is not aware of (and does not care about) contig boundaries.
+     */
+    private SimpleInterval getLookaheadQueryInterval(final SimpleInterval interval) {
+        // Note: we use addExact to blow up on overflow rather than propagate negative results downstream
+        return new SimpleInterval(interval.getContig(), interval.getStart(), Math.addExact(interval.getEnd(), queryLookaheadBases));
+    }
+
     /**
      * Get the logical name of this data source.
      *
@@ -564,7 +698,14 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
         closeOpenIterationIfNecessary();
 
         logger.debug(String.format("Cache statistics for FeatureInput %s:", featureInput));
-        queryCache.printCacheStatistics();
+        if (streamingQueryCache != null) {
+            streamingQueryCache.printCacheStatistics(getName());
+            streamingQueryCache.close();
+        } else if (multiWindowQueryCache != null) {
+            multiWindowQueryCache.printCacheStatistics(getName());
+        } else {
+            queryCache.printCacheStatistics();
+        }
 
         try {
             if (featureReader != null) {
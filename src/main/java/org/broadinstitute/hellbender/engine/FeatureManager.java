@@ -18,6 +18,7 @@ import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.config.ConfigFactory;
 import org.broadinstitute.hellbender.utils.config.GATKConfig;
+import org.broadinstitute.hellbender.utils.runtime.MetricsRegistry;
 
 import java.io.File;
 import java.lang.reflect.Field;
@@ -90,6 +91,23 @@ public final class FeatureManager implements AutoCloseable {
      */
     private final Map<FeatureInput<? extends Feature>, FeatureDataSource<? extends Feature>> featureSources;
 
+    /**
+     * If > 0, each FeatureDataSource uses a multi-window query cache holding up to this many Features
+     * (see {@link FeatureDataSource#setMultiWindowCache}). Otherwise, the default single-window cache is used.
+     */
+    private int multiWindowCacheSize = 0;
+
+    /**
+     * If > 0, each FeatureDataSource streams up to this many Features ahead of the current query
+     * (see {@link FeatureDataSource#setStreamingQueries}).
+     */
+    private int streamingBufferSize = 0;
+
+    /**
+     * Registry in which each FeatureDataSource records its query latency (see {@link FeatureDataSource#setRuntimeMetrics})
+     */
+    private MetricsRegistry runtimeMetrics = MetricsRegistry.DISABLED;
+
     /**
      * Create a FeatureManager given a CommandLineProgram tool instance, discovering all FeatureInput
      * arguments in the tool and creating query-able FeatureDataSources for them. Uses the default
@@ -210,6 +228,48 @@ public final class FeatureManager implements AutoCloseable {
         }
     }
 
+    /**
+     * Use a multi-window query cache holding up to {@code maxCachedFeatures} Features in each of our current
+     * and future FeatureDataSources, in place of the default single-window cache.
+     * See {@link FeatureDataSource#setMultiWindowCache}.
+     *
+     * @param maxCachedFeatures maximum number of Features to cache per data source (0 to use the default single-window cache)
+     */
+    public void setMultiWindowCacheSize( final int maxCachedFeatures ) {
+        Utils.validateArg(maxCachedFeatures >= 0, "maxCachedFeatures must be >= 0");
+        this.multiWindowCacheSize = maxCachedFeatures;
+        for ( final FeatureDataSource<? extends Feature> dataSource : featureSources.values() ) {
+            dataSource.setMultiWindowCache(maxCachedFeatures);
+        }
+    }
+
+    /**
+     * Stream up to {@code maxBufferedFeatures} Features ahead of the current query in each of our current
+     * and future FeatureDataSources. See {@link FeatureDataSource#setStreamingQueries}.
+     *
+     * @param maxBufferedFeatures maximum number of Features to buffer per data source (0 to disable streaming)
+     */
+    public void setStreamingBufferSize( final int maxBufferedFeatures ) {
+        Utils.validateArg(maxBufferedFeatures >= 0, "maxBufferedFeatures must be >= 0");
+        this.streamingBufferSize = maxBufferedFeatures;
+        for ( final FeatureDataSource<? extends Feature> dataSource : featureSources.values() ) {
+            dataSource.setStreamingQueries(maxBufferedFeatures);
+        }
+    }
+
+    /**
+     * Record the query latency of each of our current and future FeatureDataSources in the given registry.
+     * See {@link FeatureDataSource#setRuntimeMetrics}.
+     *
+     * @param registry registry in which to record metrics
+     */
+    public void setRuntimeMetrics( final MetricsRegistry registry ) {
+        this.runtimeMetrics = Utils.nonNull(registry);
+        for ( final FeatureDataSource<? extends Feature> dataSource : featureSources.values() ) {
+            dataSource.setRuntimeMetrics(registry);
+        }
+    }
+
     @SuppressWarnings({"unchecked", "rawtypes"})
     public void dumpAllFeatureCacheStats() {
         for ( final FeatureDataSource f : featureSources.values() ) {
@@ -231,7 +291,17 @@ public final class FeatureManager implements AutoCloseable {
      */
     void addToFeatureSources(final int featureQueryLookahead, final FeatureInput<? extends Feature> featureInput, final Class<? extends Feature> featureType, final int cloudPrefetchBuffer, final int cloudIndexPrefetchBuffer, final Path reference) {
         // Create a new FeatureDataSource for this file, and add it to our query pool
-        featureSources.put(featureInput, new FeatureDataSource<>(featureInput, featureQueryLookahead, featureType, cloudPrefetchBuffer, cloudIndexPrefetchBuffer, reference));
+        final FeatureDataSource<? extends Feature> dataSource = new FeatureDataSource<>(featureInput, featureQueryLookahead, featureType, cloudPrefetchBuffer, cloudIndexPrefetchBuffer, reference);
+        if ( multiWindowCacheSize > 0 ) {
+            dataSource.setMultiWindowCache(multiWindowCacheSize);
+        }
+        if ( streamingBufferSize > 0 ) {
+            dataSource.setStreamingQueries(streamingBufferSize);
+        }
+        if ( runtimeMetrics.isEnabled() ) {
+            dataSource.setRuntimeMetrics(runtimeMetrics);
+        }
+        featureSources.put(featureInput, dataSource);
     }
 
     /**
@@ -6,6 +6,7 @@ import org.broadinstitute.hellbender.engine.filters.CountingReadFilter;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.runtime.MetricsRegistry;
 
 import java.io.File;
 
@@ -85,13 +86,16 @@ public abstract class FeatureWalker<F extends Feature> extends WalkerBase {
     @Override
     public void traverse() {
         CountingReadFilter readFilter = makeReadFilter();
+        final MetricsRegistry.Timer applyTimer = getRuntimeMetrics().timer(APPLY_TIMER_NAME);
         // Process each feature in the input stream.
         Utils.stream(drivingFeatures).forEach(feature -> {
                     final SimpleInterval featureInterval = new SimpleInterval(feature);
+                    final long applyStart = applyTimer.start();
                     apply(feature,
                             new ReadsContext(reads, featureInterval, readFilter),
                             new ReferenceContext(reference, featureInterval),
                             new FeatureContext(features, featureInterval));
+                    applyTimer.stop(applyStart);
                     progressMeter.update(feature);
                 });
     }
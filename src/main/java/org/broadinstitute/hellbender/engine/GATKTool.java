@@ -13,7 +13,10 @@ import java.io.File;
 import java.nio.file.Path;
 import java.time.ZonedDateTime;
 import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import org.broadinstitute.barclay.argparser.Advanced;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.ArgumentCollection;
 import org.broadinstitute.barclay.argparser.CommandLinePluginDescriptor;
@@ -37,11 +40,14 @@ import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.config.ConfigFactory;
 import org.broadinstitute.hellbender.utils.config.GATKConfig;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.broadinstitute.hellbender.utils.iterators.ReadAheadIterator;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.ReadUtils;
 import org.broadinstitute.hellbender.utils.read.SAMFileGATKReadWriter;
 import org.broadinstitute.hellbender.utils.reference.ReferenceUtils;
+import org.broadinstitute.hellbender.utils.runtime.MetricsRegistry;
 import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
+import org.broadinstitute.hellbender.utils.variant.writers.TimedVariantContextWriter;
 
 /**
  * Base class for all GATK tools. Tool authors that wish to write a "GATK" tool but not use one of
@@ -115,6 +121,57 @@ public abstract class GATKTool extends CommandLineProgram {
             optional = true)
     public boolean disableBamIndexCaching = false;
 
+    @Advanced
+    @Argument(fullName = StandardArgumentDefinitions.READ_AHEAD_BATCHES_LONG_NAME,
+            doc = "If > 0, decompress and decode reads on background threads, buffering up to this many batches of " + ReadsDataSource.DEFAULT_READ_AHEAD_BATCH_SIZE +
+                  " reads ahead of the traversal (0 to disable). Read-ahead queue statistics are reported with the traversal progress.",
+            minValue = 0, optional = true)
+    public int readAheadBatches = 0;
+
+    @Advanced
+    @Argument(fullName = StandardArgumentDefinitions.COMPRESSION_THREADS_LONG_NAME,
+            doc = "Number of threads to use for compressing BAM and block-compressed VCF (.vcf.gz) output. " +
+                  "The output is identical to that written with a single thread.",
+            minValue = 1, optional = true)
+    public int compressionThreads = 1;
+
+    @Advanced
+    @Argument(fullName = StandardArgumentDefinitions.MEMORY_MAP_REFERENCE_LONG_NAME,
+            doc = "If true, memory-map the reference instead of reading it through a cache. Only supported for uncompressed " +
+                  "fasta files on the local file system; other references are read as usual.",
+            optional = true)
+    public boolean memoryMapReference = false;
+
+    @Advanced
+    @Argument(fullName = StandardArgumentDefinitions.FEATURE_CACHE_SIZE_LONG_NAME,
+            doc = "If > 0, cache Features from each Feature input in multiple windows, holding up to this many Features per input " +
+                  "and evicting the least recently used windows first. Speeds up tools that query Feature inputs at scattered " +
+                  "or overlapping locations. If 0, only the Features around the most recent query are cached.",
+            minValue = 0, optional = true)
+    public int featureCacheSize = 0;
+
+    @Advanced
+    @Argument(fullName = StandardArgumentDefinitions.FEATURE_STREAMING_BUFFER_SIZE_LONG_NAME,
+            doc = "If > 0, stream Features from each Feature input ahead of the current query on a background thread, buffering " +
+                  "up to this many Features per input. Speeds up tools that query large Feature inputs at steadily increasing " +
+                  "positions. Takes precedence over --" + StandardArgumentDefinitions.FEATURE_CACHE_SIZE_LONG_NAME + ".",
+            minValue = 0, optional = true)
+    public int featureStreamingBufferSize = 0;
+
+    @Advanced
+    @Argument(fullName = StandardArgumentDefinitions.RUNTIME_METRICS_OUTPUT_LONG_NAME,
+            doc = "If specified, time the phases of the traversal (eg., decoding, filtering and processing of records, " +
+                  "Feature queries and output) and write the resulting timers, counters and histograms to this file " +
+                  "at exit: as JSON if the file name ends with .json, otherwise as a tab-separated table.",
+            optional = true)
+    public String runtimeMetricsOutput = null;
+
+    @Advanced
+    @Argument(fullName = StandardArgumentDefinitions.LOG_RUNTIME_METRICS_LONG_NAME,
+            doc = "If true, time the phases of the traversal and log the most time-consuming ones alongside each progress update.",
+            optional = true)
+    public boolean logRuntimeMetrics = false;
+
     @Argument(fullName = StandardArgumentDefinitions.SITES_ONLY_LONG_NAME,
             doc = "If true, don't emit genotype fields when writing vcf file output.", optional = true)
     public boolean outputSitesOnlyVCFs = false;
@@ -221,6 +278,16 @@ public abstract class GATKTool extends CommandLineProgram {
      */
     protected ProgressMeter progressMeter;
 
+    /**
+     * Number of timers to include in the runtime metrics summary logged with progress updates
+     */
+    private static final int NUM_TIMERS_IN_PROGRESS_SUMMARY = 5;
+
+    /**
+     * Runtime metrics for this tool, or {@link MetricsRegistry#DISABLED} if none were requested
+     */
+    private MetricsRegistry runtimeMetrics = MetricsRegistry.DISABLED;
+
     /**
      * Return the list of GATKCommandLinePluginDescriptors to be used for this tool.
      * Uses the read filter plugin.
@@ -269,9 +336,13 @@ public abstract class GATKTool extends CommandLineProgram {
      public CountingReadFilter makeReadFilter(){
         final GATKReadFilterPluginDescriptor readFilterPlugin =
                 getCommandLineParser().getPluginDescriptor(GATKReadFilterPluginDescriptor.class);
-        return hasReads() ?
+        final CountingReadFilter countingReadFilter = hasReads() ?
                 readFilterPlugin.getMergedCountingReadFilter(getHeaderForReads()) :
                 new CountingReadFilter(ReadFilterLibrary.ALLOW_ALL_READS);
+        if ( runtimeMetrics.isEnabled() ) {
+            countingReadFilter.enableRuntimeMetrics(runtimeMetrics);
+        }
+        return countingReadFilter;
     }
 
     /**
@@ -373,7 +444,7 @@ public abstract class GATKTool extends CommandLineProgram {
         if (hasReads()) {
             final ReadTransformer preTransformer = makePreReadFilterTransformer();
             final ReadTransformer postTransformer = makePostReadFilterTransformer();
-            return Utils.stream(reads)
+            return Utils.stream(runtimeMetrics.timer("traversal.readDecode").timeIterator(reads.iterator()))
                     .map(preTransformer)
                     .filter(filter)
                     .map(postTransformer);
@@ -420,7 +491,26 @@ public abstract class GATKTool extends CommandLineProgram {
      * May be overridden by traversals that require custom initialization of the reference data source.
      */
     void initializeReference() {
-        reference = referenceArguments.getReferencePath() != null ? ReferenceDataSource.of(referenceArguments.getReferencePath()) : null;
+        reference = referenceArguments.getReferencePath() != null ? createReferenceDataSource() : null;
+    }
+
+    /**
+     * Create a new, independent source of reference data for the reference argument provided by the user.
+     *
+     * Package-private so that engine classes can open additional readers (eg., one per traversal thread),
+     * but concrete tool child classes cannot.
+     *
+     * If the reference is memory-mapped, the engine's {@link ReferenceMemoryMappedSource} is returned once it has
+     * been initialized, since it can be shared by all threads.
+     *
+     * @return a newly-opened {@link ReferenceDataSource}, which must be closed by the caller
+     */
+    ReferenceDataSource createReferenceDataSource() {
+        final Path referencePath = referenceArguments.getReferencePath();
+        if ( memoryMapReference ) {
+            return reference instanceof ReferenceMemoryMappedSource ? reference : ReferenceDataSource.ofMemoryMappedIfPossible(referencePath);
+        }
+        return ReferenceDataSource.of(referencePath);
     }
 
     /**
@@ -430,27 +520,42 @@ public abstract class GATKTool extends CommandLineProgram {
      * May be overridden by traversals that require custom initialization of the reads data source.
      */
     void initializeReads() {
-        if (! readArguments.getReadFiles().isEmpty()) {
-            SamReaderFactory factory = SamReaderFactory.makeDefault().validationStringency(readArguments.getReadValidationStringency());
-            if (hasReference()) { // pass in reference if available, because CRAM files need it
-                factory = factory.referenceSequence(referenceArguments.getReferencePath());
-            }
-            else if (hasCramInput()) {
-                throw new UserException.MissingReference("A reference file is required when using CRAM files.");
-            }
+        reads = ! readArguments.getReadFiles().isEmpty() ? createReadsDataSource() : null;
+    }
 
-            if(bamIndexCachingShouldBeEnabled()) {
-                factory = factory.enable(SamReaderFactory.Option.CACHE_FILE_BASED_INDEXES);
-            }
+    /**
+     * Create a new, independent source of reads data for the reads argument(s) provided by the user.
+     *
+     * Package-private so that engine classes can open additional readers (eg., one per traversal thread),
+     * but concrete tool child classes cannot.
+     *
+     * @return a newly-opened {@link ReadsDataSource}, which must be closed by the caller
+     */
+    ReadsDataSource createReadsDataSource() {
+        SamReaderFactory factory = SamReaderFactory.makeDefault().validationStringency(readArguments.getReadValidationStringency());
+        if (hasReference()) { // pass in reference if available, because CRAM files need it
+            factory = factory.referenceSequence(referenceArguments.getReferencePath());
+        }
+        else if (hasCramInput()) {
+            throw new UserException.MissingReference("A reference file is required when using CRAM files.");
+        }
 
-            reads = new ReadsDataSource(readArguments.getReadPaths(), readArguments.getReadIndexPaths(), factory, cloudPrefetchBuffer,
-                (cloudIndexPrefetchBuffer < 0 ? cloudPrefetchBuffer : cloudIndexPrefetchBuffer));
+        if(bamIndexCachingShouldBeEnabled()) {
+            factory = factory.enable(SamReaderFactory.Option.CACHE_FILE_BASED_INDEXES);
         }
-        else {
-            reads = null;
+
+        if ( readAheadBatches > 0 ) {
+            // inflate BGZF blocks on htsjdk's own background thread, feeding our decoding thread
+            factory = factory.setUseAsyncIo(true);
         }
-    }
 
+        final ReadsDataSource readsDataSource = new ReadsDataSource(readArguments.getReadPaths(), readArguments.getReadIndexPaths(), factory, cloudPrefetchBuffer,
+            (cloudIndexPrefetchBuffer < 0 ? cloudPrefetchBuffer : cloudIndexPrefetchBuffer));
+        if ( readAheadBatches > 0 ) {
+            readsDataSource.setReadAhead(readAheadBatches, ReadsDataSource.DEFAULT_READ_AHEAD_BATCH_SIZE);
+        }
+        return readsDataSource;
+    }
 
     private boolean bamIndexCachingShouldBeEnabled() {
         return intervalArgumentCollection.intervalsSpecified() && !disableBamIndexCaching;
@@ -472,13 +577,43 @@ public abstract class GATKTool extends CommandLineProgram {
      * By default, this method initializes the FeatureManager to use the lookahead cache of {@link FeatureDataSource#DEFAULT_QUERY_LOOKAHEAD_BASES} bases.
      */
     void initializeFeatures() {
-        features = new FeatureManager(this, FeatureDataSource.DEFAULT_QUERY_LOOKAHEAD_BASES, cloudPrefetchBuffer, cloudIndexPrefetchBuffer,
-                                      referenceArguments.getReferencePath());
+        features = createFeatureManager();
         if ( features.isEmpty() ) {  // No available sources of Features discovered for this tool
             features = null;
         }
     }
 
+    /**
+     * Create a new, independent FeatureManager for the Feature arguments of this tool, using the lookahead cache of
+     * {@link FeatureDataSource#DEFAULT_QUERY_LOOKAHEAD_BASES} bases (and a multi-window cache, if requested).
+     *
+     * Package-private so that engine classes can open additional readers (eg., one per traversal thread),
+     * but concrete tool child classes cannot.
+     *
+     * @return a newly-opened {@link FeatureManager} (possibly empty), which must be closed by the caller
+     */
+    FeatureManager createFeatureManager() {
+        final FeatureManager featureManager = new FeatureManager(this, FeatureDataSource.DEFAULT_QUERY_LOOKAHEAD_BASES, cloudPrefetchBuffer, cloudIndexPrefetchBuffer,
+                                                                 referenceArguments.getReferencePath());
+        configureFeatureManager(featureManager);
+        return featureManager;
+    }
+
+    /**
+     * Apply the caching and runtime metrics settings of this tool to a FeatureManager
+     */
+    private void configureFeatureManager(final FeatureManager featureManager) {
+        if ( featureCacheSize > 0 ) {
+            featureManager.setMultiWindowCacheSize(featureCacheSize);
+        }
+        if ( featureStreamingBufferSize > 0 ) {
+            featureManager.setStreamingBufferSize(featureStreamingBufferSize);
+        }
+        if ( runtimeMetrics.isEnabled() ) {
+            featureManager.setRuntimeMetrics(runtimeMetrics);
+        }
+    }
+
     /**
      * Initialize our intervals for traversal.
      *
@@ -688,6 +823,10 @@ public abstract class GATKTool extends CommandLineProgram {
     protected void onStartup() {
         super.onStartup();
 
+        if ( runtimeMetricsOutput != null || logRuntimeMetrics ) {
+            runtimeMetrics = new MetricsRegistry();
+        }
+
         loadMasterSequenceDictionary();
 
         initializeReference();
@@ -695,6 +834,9 @@ public abstract class GATKTool extends CommandLineProgram {
         initializeReads(); // Must be initialized after reference, in case we are dealing with CRAM and a reference is required
 
         initializeFeatures();
+        if ( features != null ) {
+            configureFeatureManager(features);
+        }
 
         initializeIntervals(); // Must be initialized after reference, reads and features, since intervals currently require a sequence dictionary from another data source
 
@@ -706,6 +848,20 @@ public abstract class GATKTool extends CommandLineProgram {
 
         progressMeter = new ProgressMeter(secondsBetweenProgressUpdates);
         progressMeter.setRecordLabel(getProgressMeterRecordLabel());
+        final List<Supplier<String>> statusSuppliers = new ArrayList<>();
+        if ( reads != null && reads.getReadAheadStatistics() != null ) {
+            final ReadAheadIterator.Statistics readAheadStatistics = reads.getReadAheadStatistics();
+            statusSuppliers.add(() -> readAheadStatistics.getBatchesConsumed() > 0 ? "Reads: " + readAheadStatistics : null);
+        }
+        if ( logRuntimeMetrics ) {
+            statusSuppliers.add(() -> runtimeMetrics.getSummary(NUM_TIMERS_IN_PROGRESS_SUMMARY));
+        }
+        if ( ! statusSuppliers.isEmpty() ) {
+            progressMeter.setStatusSupplier(() -> {
+                final String status = statusSuppliers.stream().map(Supplier::get).filter(Objects::nonNull).collect(Collectors.joining("; "));
+                return status.isEmpty() ? null : status;
+            });
+        }
     }
 
     /**
@@ -824,8 +980,11 @@ public abstract class GATKTool extends CommandLineProgram {
                 getHeaderForSAMWriter(),
                 preSorted,
                 createOutputBamIndex,
-                createOutputBamMD5
-            )
+                createOutputBamMD5,
+                compressionThreads
+            ),
+            runtimeMetrics,
+            outputPath.getFileName().toString()
         );
     }
 
@@ -874,11 +1033,13 @@ public abstract class GATKTool extends CommandLineProgram {
             options.add(Options.DO_NOT_WRITE_GENOTYPES);
         }
 
-        return GATKVariantContextUtils.createVCFWriter(
+        final VariantContextWriter writer = GATKVariantContextUtils.createVCFWriter(
                 outPath,
                 sequenceDictionary,
                 createOutputVariantMD5,
+                compressionThreads,
                 options.toArray(new Options[options.size()]));
+        return runtimeMetrics.isEnabled() ? new TimedVariantContextWriter(writer, runtimeMetrics, outPath.getFileName().toString()) : writer;
     }
 
     /**
@@ -1033,17 +1194,45 @@ public abstract class GATKTool extends CommandLineProgram {
 
     @Override
     protected final Object doWork() {
+        boolean succeeded = false;
         try {
-            onTraversalStart();
+            timeToolPhase("tool.onTraversalStart", this::onTraversalStart);
             progressMeter.start();
-            traverse();
+            timeToolPhase("tool.traverse", this::traverse);
             progressMeter.stop();
-            return onTraversalSuccess();
+            final MetricsRegistry.Timer onTraversalSuccessTimer = runtimeMetrics.timer("tool.onTraversalSuccess");
+            final long start = onTraversalSuccessTimer.start();
+            final Object result = onTraversalSuccess();
+            onTraversalSuccessTimer.stop(start);
+            succeeded = true;
+            return result;
         } finally {
-            closeTool();
+            timeToolPhase("tool.closeTool", this::closeTool);
+            // don't let a failure to write the metrics mask an earlier failure
+            if ( runtimeMetricsOutput != null && succeeded ) {
+                runtimeMetrics.write(IOUtils.getPath(runtimeMetricsOutput));
+            }
         }
     }
 
+    private void timeToolPhase(final String timerName, final Runnable phase) {
+        final MetricsRegistry.Timer timer = runtimeMetrics.timer(timerName);
+        final long start = timer.start();
+        phase.run();
+        timer.stop(start);
+    }
+
+    /**
+     * Returns the runtime metrics registry for this tool, in which the engine records the time spent in each phase
+     * of the traversal (see {@link StandardArgumentDefinitions#RUNTIME_METRICS_OUTPUT_LONG_NAME}). Tools may record
+     * their own metrics here as well.
+     *
+     * @return the runtime metrics registry, or {@link MetricsRegistry#DISABLED} if runtime metrics were not requested
+     */
+    public final MetricsRegistry getRuntimeMetrics() {
+        return runtimeMetrics;
+    }
+
     /**
      * This method is called by the GATK framework at the end of the {@link #doWork} template method.
      * It is called regardless of whether the {@link #traverse} has succeeded or not.
@@ -2,6 +2,7 @@ package org.broadinstitute.hellbender.engine;
 
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.runtime.MetricsRegistry;
 
 /**
  * An IntervalWalker is a tool that processes a single interval at a time, with the ability to query
@@ -65,11 +66,14 @@ public abstract class IntervalWalker extends WalkerBase {
     @Override
     public void traverse() {
         final ReadFilter readFilter = makeReadFilter();
+        final MetricsRegistry.Timer applyTimer = getRuntimeMetrics().timer(APPLY_TIMER_NAME);
         for ( final SimpleInterval interval : userIntervals ) {
+            final long applyStart = applyTimer.start();
             apply(interval,
                   new ReadsContext(reads, interval, readFilter),
                   new ReferenceContext(reference, interval),
                   new FeatureContext(features, interval));
+            applyTimer.stop(applyStart);
 
             progressMeter.update(interval);
         }
@@ -14,6 +14,7 @@ import org.broadinstitute.hellbender.utils.locusiterator.AlignmentContextIterato
 import org.broadinstitute.hellbender.utils.locusiterator.LIBSDownsamplingInfo;
 import org.broadinstitute.hellbender.utils.locusiterator.LocusIteratorByState;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.runtime.MetricsRegistry;
 
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -175,9 +176,12 @@ public abstract class LocusWalker extends WalkerBase {
                 hasReference());
 
         // iterate over each alignment, and apply the function
-        iterator.forEachRemaining(alignmentContext -> {
+        final MetricsRegistry.Timer applyTimer = getRuntimeMetrics().timer(APPLY_TIMER_NAME);
+        getRuntimeMetrics().timer("traversal.alignmentContexts").timeIterator(iterator).forEachRemaining(alignmentContext -> {
                         final SimpleInterval alignmentInterval = new SimpleInterval(alignmentContext);
+                        final long applyStart = applyTimer.start();
                         apply(alignmentContext, new ReferenceContext(reference, alignmentInterval), new FeatureContext(features, alignmentInterval));
+                        applyTimer.stop(applyStart);
                         progressMeter.update(alignmentInterval);
                 }
             );
@@ -7,6 +7,7 @@ import org.broadinstitute.barclay.argparser.ArgumentCollection;
 import org.broadinstitute.hellbender.cmdline.argumentcollections.MultiVariantInputArgumentCollection;
 import org.broadinstitute.hellbender.engine.filters.CountingReadFilter;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.runtime.MetricsRegistry;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -113,13 +114,16 @@ public abstract class MultiVariantWalker extends VariantWalkerBase {
     public void traverse() {
         final CountingReadFilter readFilter = makeReadFilter();
         // Process each variant in the input stream.
+        final MetricsRegistry.Timer applyTimer = getRuntimeMetrics().timer(APPLY_TIMER_NAME);
         getTransformedVariantStream( makeVariantFilter() )
                 .forEach(variant -> {
                     final SimpleInterval variantInterval = new SimpleInterval(variant);
+                    final long applyStart = applyTimer.start();
                     apply(variant,
                             new ReadsContext(reads, variantInterval, readFilter),
                             new ReferenceContext(reference, variantInterval),
                             new FeatureContext(features, variantInterval));
+                    applyTimer.stop(applyStart);
 
                     progressMeter.update(variantInterval);
                 });
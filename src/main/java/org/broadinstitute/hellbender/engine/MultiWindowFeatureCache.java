@@ -0,0 +1,258 @@
+package org.broadinstitute.hellbender.engine;
+
+import htsjdk.samtools.util.IntervalTree;
+import htsjdk.tribble.Feature;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.*;
+
+/**
+ * MultiWindowFeatureCache: an alternative to {@link FeatureCache} for {@link FeatureDataSource} queries, for
+ * tools that query the same source at several unrelated loci (eg., around each record of another input).
+ *
+ * Rather than a single window that can only move forward, this cache holds any number of windows (each filled
+ * from a single query that produced a cache miss, plus lookahead), indexed by an interval tree per contig. A query
+ * is a cache hit if it lies entirely within any cached window, regardless of the order of queries. Once the total
+ * number of cached Features exceeds the configured maximum, the least-recently-used windows are evicted.
+ *
+ * Usage:
+ * -Retrieve the Features overlapping each query interval via {@link #getCachedFeatures(SimpleInterval)}, which
+ *  returns null on a cache miss.
+ *
+ * -On a cache miss, add a new window using {@link #fill(Iterator, SimpleInterval, SimpleInterval)}, which also
+ *  returns the Features overlapping the original query interval.
+ *
+ * @param <CACHED_FEATURE> Type of Feature record we are caching
+ */
+class MultiWindowFeatureCache<CACHED_FEATURE extends Feature> {
+    private static final Logger logger = LogManager.getLogger(MultiWindowFeatureCache.class);
+
+    /**
+     * Maximum total number of Features to keep in all of our windows
+     */
+    private final int maxCachedFeatures;
+
+    /**
+     * Cached windows by contig, indexed by the interval that all Features in the window overlap
+     */
+    private final Map<String, IntervalTree<Window<CACHED_FEATURE>>> windowsByContig = new HashMap<>();
+
+    /**
+     * All cached windows, from least to most recently used
+     */
+    private final LinkedHashMap<Window<CACHED_FEATURE>, Window<CACHED_FEATURE>> windowsByLastUse = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Total size (see {@link Window#size}) of all cached windows
+     */
+    private long numCachedFeatures = 0;
+
+    private long numCacheHits = 0;
+    private long numCacheMisses = 0;
+    private long numEvictions = 0;
+
+    /**
+     * Create an initially-empty cache
+     *
+     * @param maxCachedFeatures evict least-recently-used windows once more than this many Features are cached (> 0)
+     */
+    public MultiWindowFeatureCache( final int maxCachedFeatures ) {
+        Utils.validateArg(maxCachedFeatures > 0, "maxCachedFeatures must be > 0");
+        this.maxCachedFeatures = maxCachedFeatures;
+    }
+
+    /**
+     * Returns all cached Features that overlap the provided interval, if the interval lies entirely within one of
+     * our windows (a cache hit).
+     *
+     * @param interval the interval to query
+     * @return the Features overlapping the interval in the order in which they were cached, or null on a cache miss
+     */
+    public List<CACHED_FEATURE> getCachedFeatures( final SimpleInterval interval ) {
+        final Window<CACHED_FEATURE> window = findContainingWindow(interval);
+        if ( window == null ) {
+            ++numCacheMisses;
+            return null;
+        }
+
+        ++numCacheHits;
+        windowsByLastUse.get(window);  // mark as most recently used
+        return window.getOverlappingFeatures(interval);
+    }
+
+    /**
+     * Add a new window containing the records from the provided iterator (preserving their relative ordering),
+     * then evict least-recently-used windows if we are over capacity. The new window is never evicted by this call.
+     *
+     * @param featureIter iterator from which to pull Features with which to populate the new window. Must be sorted
+     *                    by start position.
+     * @param windowInterval all Features from featureIter overlap this interval
+     * @param queryInterval the query that produced the cache miss (must be within windowInterval)
+     * @return the Features in the new window that overlap queryInterval
+     */
+    public List<CACHED_FEATURE> fill( final Iterator<CACHED_FEATURE> featureIter, final SimpleInterval windowInterval, final SimpleInterval queryInterval ) {
+        Utils.validateArg(windowInterval.contains(queryInterval), () -> "Window " + windowInterval + " does not contain query " + queryInterval);
+
+        final Window<CACHED_FEATURE> window = new Window<>(windowInterval, featureIter);
+        final Window<CACHED_FEATURE> replacedWindow = windowsByContig.computeIfAbsent(windowInterval.getContig(), contig -> new IntervalTree<>())
+                .put(windowInterval.getStart(), windowInterval.getEnd(), window);
+        if ( replacedWindow != null ) {
+            windowsByLastUse.remove(replacedWindow);
+            numCachedFeatures -= replacedWindow.size();
+        }
+        windowsByLastUse.put(window, window);
+        numCachedFeatures += window.size();
+
+        evictIfNecessary(window);
+        return window.getOverlappingFeatures(queryInterval);
+    }
+
+    /**
+     * @return a cached window that contains the interval, or null if there is none
+     */
+    private Window<CACHED_FEATURE> findContainingWindow( final SimpleInterval interval ) {
+        final IntervalTree<Window<CACHED_FEATURE>> windows = windowsByContig.get(interval.getContig());
+        if ( windows == null ) {
+            return null;
+        }
+        final Iterator<IntervalTree.Node<Window<CACHED_FEATURE>>> overlappingWindows = windows.overlappers(interval.getStart(), interval.getEnd());
+        while ( overlappingWindows.hasNext() ) {
+            final IntervalTree.Node<Window<CACHED_FEATURE>> node = overlappingWindows.next();
+            if ( node.getStart() <= interval.getStart() && node.getEnd() >= interval.getEnd() ) {
+                return node.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Evict least-recently-used windows (other than the one provided) until we are within capacity
+     */
+    private void evictIfNecessary( final Window<CACHED_FEATURE> windowToKeep ) {
+        final Iterator<Window<CACHED_FEATURE>> leastRecentlyUsed = windowsByLastUse.keySet().iterator();
+        while ( numCachedFeatures > maxCachedFeatures && leastRecentlyUsed.hasNext() ) {
+            final Window<CACHED_FEATURE> window = leastRecentlyUsed.next();
+            if ( window == windowToKeep ) {
+                continue;
+            }
+            leastRecentlyUsed.remove();
+            final IntervalTree<Window<CACHED_FEATURE>> windows = windowsByContig.get(window.interval.getContig());
+            windows.remove(window.interval.getStart(), window.interval.getEnd());
+            if ( windows.size() == 0 ) {
+                windowsByContig.remove(window.interval.getContig());
+            }
+            numCachedFeatures -= window.size();
+            ++numEvictions;
+        }
+    }
+
+    /**
+     * @return Number of cached windows
+     */
+    public int getNumWindows() {
+        return windowsByLastUse.size();
+    }
+
+    /**
+     * @return Total number of Features in all cached windows (windows with no Features count as one)
+     */
+    public long getNumCachedFeatures() {
+        return numCachedFeatures;
+    }
+
+    /**
+     * @return Number of times {@link #getCachedFeatures} found the query within a cached window
+     */
+    public long getNumCacheHits() {
+        return numCacheHits;
+    }
+
+    /**
+     * @return Number of times {@link #getCachedFeatures} did not find the query within a cached window
+     */
+    public long getNumCacheMisses() {
+        return numCacheMisses;
+    }
+
+    /**
+     * @return Number of windows evicted to keep the cache within capacity
+     */
+    public long getNumEvictions() {
+        return numEvictions;
+    }
+
+    /**
+     * Print statistics about the cache hit rate.
+     * @param sourceName The source for the features in this cache.
+     */
+    public void printCacheStatistics( final String sourceName ) {
+        final long totalQueries = numCacheHits + numCacheMisses;
+        logger.info(String.format("Feature cache hit rate for data source %s was %.2f%% (%d out of %d total queries, %d windows evicted)",
+                sourceName,
+                totalQueries > 0 ? ((double)numCacheHits / totalQueries) * 100.0 : 0.0,
+                numCacheHits,
+                totalQueries,
+                numEvictions));
+    }
+
+    /**
+     * A single cached window: Features overlapping an interval, sorted by start position.
+     */
+    private static final class Window<CACHED_FEATURE extends Feature> {
+        private final SimpleInterval interval;
+        private final List<CACHED_FEATURE> features = new ArrayList<>();
+
+        /**
+         * Length of the longest Feature in the window, to bound the search for overlapping Features
+         */
+        private int maxFeatureLength = 0;
+
+        private Window( final SimpleInterval interval, final Iterator<CACHED_FEATURE> featureIter ) {
+            this.interval = interval;
+            while ( featureIter.hasNext() ) {
+                final CACHED_FEATURE feature = featureIter.next();
+                features.add(feature);
+                maxFeatureLength = Math.max(maxFeatureLength, feature.getEnd() - feature.getStart() + 1);
+            }
+        }
+
+        /**
+         * @return the number of Features in this window, but at least one, so that empty windows also count towards capacity
+         */
+        private int size() {
+            return Math.max(features.size(), 1);
+        }
+
+        /**
+         * @return the Features in this window overlapping the interval, in the order in which they were cached
+         */
+        private List<CACHED_FEATURE> getOverlappingFeatures( final SimpleInterval query ) {
+            // no Feature that starts before this position can overlap the query
+            final long earliestOverlappingStart = (long)query.getStart() - maxFeatureLength + 1;
+
+            // binary search for the first Feature that could overlap the query
+            int low = 0;
+            int high = features.size();
+            while ( low < high ) {
+                final int mid = (low + high) >>> 1;
+                if ( features.get(mid).getStart() < earliestOverlappingStart ) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+
+            final List<CACHED_FEATURE> overlappingFeatures = new ArrayList<>();
+            for ( int i = low; i < features.size() && features.get(i).getStart() <= query.getEnd(); ++i ) {
+                final CACHED_FEATURE feature = features.get(i);
+                if ( feature.getEnd() >= query.getStart() ) {
+                    overlappingFeatures.add(feature);
+                }
+            }
+            return overlappingFeatures;
+        }
+    }
+}
@@ -8,6 +8,7 @@ import org.apache.logging.log4j.Logger;
 import org.broadinstitute.hellbender.utils.Utils;
 
 import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 
 /**
  * A basic progress meter to print out the number of records processed (and other metrics) during a traversal
@@ -125,6 +126,12 @@ public final class ProgressMeter {
      */
     private String recordLabel = DEFAULT_RECORD_LABEL;
 
+    /**
+     * Optional source of additional status (eg., input pipeline statistics) to output alongside each progress line.
+     * Null if there is none.
+     */
+    private Supplier<String> statusSupplier = null;
+
     /**
      * Create a progress meter with the default update interval of {@link #DEFAULT_SECONDS_BETWEEN_UPDATES} seconds
      * and the default time function {@link #DEFAULT_TIME_FUNCTION}.
@@ -181,6 +188,16 @@ public final class ProgressMeter {
         this.recordLabel = label;
     }
 
+    /**
+     * Set a source of additional status to output to the logger alongside each progress line, and once more
+     * when the meter is stopped.
+     *
+     * @param statusSupplier function returning a short status message, or null to output no additional status
+     */
+    public void setStatusSupplier( final Supplier<String> statusSupplier ) {
+        this.statusSupplier = statusSupplier;
+    }
+
     /**
      * Start the progress meter and produce preliminary output such as column headings.
      * @throws IllegalStateException if the meter has been started before or has been stopped already
@@ -253,6 +270,12 @@ public final class ProgressMeter {
         ++numLoggerUpdates;
         logger.info(String.format("%20s  %15.1f  %20d  %15.1f",
                                   currentLocusString(), elapsedTimeInMinutes(), numRecordsProcessed, processingRate()));
+        if ( statusSupplier != null ) {
+            final String status = statusSupplier.get();
+            if ( status != null ) {
+                logger.info(status);
+            }
+        }
     }
 
     /**
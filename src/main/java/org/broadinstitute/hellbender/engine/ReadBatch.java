@@ -0,0 +1,163 @@
+package org.broadinstitute.hellbender.engine;
+
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A batch of consecutive reads passed to {@link ReadWalker#applyBatch}, together with lazily-created reference and
+ * Feature contexts for them.
+ *
+ * The engine fills a single ReadBatch over and over during a traversal, so tools must not retain a reference to a
+ * batch (or to the list returned by {@link #getReads}) after {@link ReadWalker#applyBatch} returns. The reads
+ * themselves may be retained.
+ *
+ * Unlike the per-read traversal, no {@link ReferenceContext} or {@link FeatureContext} is created unless the tool
+ * asks for one. Tools that need reference bases for many reads in a batch can make a single query via
+ * {@link #getSpanningReferenceContext} rather than one query per read.
+ */
+public final class ReadBatch implements Iterable<GATKRead> {
+
+    private final ReferenceDataSource reference;
+    private final FeatureManager features;
+
+    private final List<GATKRead> reads;
+    private final List<GATKRead> readsView;
+    private final SimpleInterval[] readIntervals;
+
+    /**
+     * Create an empty batch
+     *
+     * @param maxSize maximum number of reads in the batch (> 0)
+     * @param reference source of reference bases for the reads (may be null)
+     * @param features source of Features overlapping the reads (may be null)
+     */
+    ReadBatch( final int maxSize, final ReferenceDataSource reference, final FeatureManager features ) {
+        Utils.validateArg(maxSize > 0, "maxSize must be > 0");
+        this.reference = reference;
+        this.features = features;
+        this.reads = new ArrayList<>(maxSize);
+        this.readsView = Collections.unmodifiableList(reads);
+        this.readIntervals = new SimpleInterval[maxSize];
+    }
+
+    /**
+     * Add a read to the end of this batch
+     *
+     * @param read read to add
+     * @param readInterval interval spanned by the read, or null if it does not have a valid interval (eg., it is unmapped)
+     */
+    void add( final GATKRead read, final SimpleInterval readInterval ) {
+        Utils.validate(! isFull(), "batch is full");
+        readIntervals[reads.size()] = readInterval;
+        reads.add(read);
+    }
+
+    /**
+     * Remove all reads from this batch, so that it can be refilled
+     */
+    void clear() {
+        reads.clear();
+    }
+
+    /**
+     * @return true if no more reads can be added to this batch
+     */
+    boolean isFull() {
+        return reads.size() == readIntervals.length;
+    }
+
+    /**
+     * @return the number of reads in this batch
+     */
+    public int size() {
+        return reads.size();
+    }
+
+    /**
+     * @return true if this batch has no reads
+     */
+    public boolean isEmpty() {
+        return reads.isEmpty();
+    }
+
+    /**
+     * @param index index of a read in this batch
+     * @return the read at the given index
+     */
+    public GATKRead getRead( final int index ) {
+        return reads.get(index);
+    }
+
+    /**
+     * @return an unmodifiable view of the reads in this batch, in traversal order
+     */
+    public List<GATKRead> getReads() {
+        return readsView;
+    }
+
+    @Override
+    public Iterator<GATKRead> iterator() {
+        return readsView.iterator();
+    }
+
+    /**
+     * @param index index of a read in this batch
+     * @return the interval spanned by the read at the given index, or null if it does not have a valid interval
+     */
+    public SimpleInterval getReadInterval( final int index ) {
+        Utils.validIndex(index, reads.size());
+        return readIntervals[index];
+    }
+
+    /**
+     * @param index index of a read in this batch
+     * @return a new ReferenceContext for the read at the given index, as would be passed to {@link ReadWalker#apply}
+     */
+    public ReferenceContext getReferenceContext( final int index ) {
+        return new ReferenceContext(reference, getReadInterval(index));
+    }
+
+    /**
+     * @param index index of a read in this batch
+     * @return a new FeatureContext for the read at the given index, as would be passed to {@link ReadWalker#apply}
+     */
+    public FeatureContext getFeatureContext( final int index ) {
+        return new FeatureContext(features, getReadInterval(index));
+    }
+
+    /**
+     * @return the smallest interval spanning all reads in this batch, or null if the batch is empty, any read lacks
+     *         a valid interval, or the reads are on more than one contig
+     */
+    public SimpleInterval getSpanningInterval() {
+        if ( reads.isEmpty() || readIntervals[0] == null ) {
+            return null;
+        }
+        final String contig = readIntervals[0].getContig();
+        int start = readIntervals[0].getStart();
+        int end = readIntervals[0].getEnd();
+        for ( int i = 1; i < reads.size(); ++i ) {
+            final SimpleInterval readInterval = readIntervals[i];
+            if ( readInterval == null || ! readInterval.getContig().equals(contig) ) {
+                return null;
+            }
+            start = Math.min(start, readInterval.getStart());
+            end = Math.max(end, readInterval.getEnd());
+        }
+        return new SimpleInterval(contig, start, end);
+    }
+
+    /**
+     * @return a ReferenceContext spanning all reads in this batch (see {@link #getSpanningInterval}). The context is
+     *         empty if there is no reference or no spanning interval.
+     */
+    public ReferenceContext getSpanningReferenceContext() {
+        return new ReferenceContext(reference, getSpanningInterval());
+    }
+}
@@ -5,8 +5,10 @@ import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.engine.filters.WellformedReadFilter;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.runtime.MetricsRegistry;
 
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -40,6 +42,11 @@ public abstract class ReadWalker extends WalkerBase {
      */
     public static final int FEATURE_CACHE_LOOKAHEAD = 1_000;
 
+    /**
+     * A reasonable number of reads per batch for tools that opt in to batched traversal (see {@link #getReadBatchSize})
+     */
+    public static final int DEFAULT_READ_BATCH_SIZE = 1_000;
+
     /**
      * Initialize data sources for traversal.
      *
@@ -81,21 +88,32 @@ public abstract class ReadWalker extends WalkerBase {
      * the pre-filter transformer, the filter, then the post-filter transformer and hands the resulting reads to the {@link #apply}
      * function of the walker (along with additional contextual information, if present, such as reference bases).
      *
+     * If the tool requests batched traversal via {@link #getReadBatchSize}, the reads are instead handed to
+     * {@link #applyBatch} in batches of that size.
+     *
      * NOTE: You should only override {@link #traverse()} if you are writing a new walker base class in the
      * engine package that extends this class. It is not meant to be overridden by tools outside of the engine
      * package.
      */
     @Override
     public void traverse() {
+        if ( getReadBatchSize() > 0 ) {
+            traverseBatches(getReadBatchSize());
+            return;
+        }
+
         // Process each read in the input stream.
         // Supply reference bases spanning each read, if a reference is available.
         final CountingReadFilter countedFilter = makeReadFilter();
+        final MetricsRegistry.Timer applyTimer = getRuntimeMetrics().timer(APPLY_TIMER_NAME);
         getTransformedReadStream(countedFilter)
                 .forEach(read -> {
                     final SimpleInterval readInterval = getReadInterval(read);
+                    final long applyStart = applyTimer.start();
                     apply(read,
                           new ReferenceContext(reference, readInterval), // Will create an empty ReferenceContext if reference or readInterval == null
                           new FeatureContext(features, readInterval));   // Will create an empty FeatureContext if features or readInterval == null
+                    applyTimer.stop(applyStart);
 
                     progressMeter.update(readInterval);
                 });
@@ -103,6 +121,35 @@ public abstract class ReadWalker extends WalkerBase {
         logger.info(countedFilter.getSummaryLine());
     }
 
+    /**
+     * Read-based traversal that fills a single, reused {@link ReadBatch} with up to {@code batchSize} consecutive
+     * reads at a time and hands each batch to {@link #applyBatch}.
+     */
+    private void traverseBatches( final int batchSize ) {
+        final CountingReadFilter countedFilter = makeReadFilter();
+        final MetricsRegistry.Timer applyTimer = getRuntimeMetrics().timer(APPLY_TIMER_NAME);
+        final ReadBatch batch = new ReadBatch(batchSize, reference, features);
+
+        final Iterator<GATKRead> readIterator = getTransformedReadStream(countedFilter).iterator();
+        while ( readIterator.hasNext() ) {
+            batch.clear();
+            while ( ! batch.isFull() && readIterator.hasNext() ) {
+                final GATKRead read = readIterator.next();
+                batch.add(read, getReadInterval(read));
+            }
+
+            final long applyStart = applyTimer.start();
+            applyBatch(batch);
+            applyTimer.stop(applyStart);
+
+            for ( int i = 0; i < batch.size(); ++i ) {
+                progressMeter.update(batch.getReadInterval(i));
+            }
+        }
+
+        logger.info(countedFilter.getSummaryLine());
+    }
+
     /**
      * Returns an interval for the read.
      * Note: some walkers must be able to work on any read, including those whose coordinates do not form a valid SimpleInterval.
@@ -146,6 +193,36 @@ public abstract class ReadWalker extends WalkerBase {
      */
     public abstract void apply( GATKRead read, ReferenceContext referenceContext, FeatureContext featureContext );
 
+    /**
+     * Tools that can process reads in batches should override this to return the number of reads per batch
+     * (typically {@link #DEFAULT_READ_BATCH_SIZE}), and override {@link #applyBatch} to process each batch.
+     *
+     * The default implementation returns 0, in which case reads are passed to {@link #apply} one at a time.
+     *
+     * @return number of reads per batch, or 0 to disable batched traversal
+     */
+    public int getReadBatchSize() {
+        return 0;
+    }
+
+    /**
+     * Process a batch of consecutive reads, if batched traversal is enabled via {@link #getReadBatchSize}. Batches
+     * are processed in traversal order, and all but the last batch are full.
+     *
+     * The engine reuses the batch object for the next batch once this method returns, so implementations must not
+     * retain it (although they may retain the reads in it). Reference and Feature contexts for individual reads are
+     * only created on request, via {@link ReadBatch#getReferenceContext} and {@link ReadBatch#getFeatureContext}.
+     *
+     * The default implementation calls {@link #apply} on each read in turn, with its reference and Feature contexts.
+     *
+     * @param batch the reads to process
+     */
+    public void applyBatch( final ReadBatch batch ) {
+        for ( int i = 0; i < batch.size(); ++i ) {
+            apply(batch.getRead(i), batch.getReferenceContext(i), batch.getFeatureContext(i));
+        }
+    }
+
     /**
      * Shutdown data sources.
      *
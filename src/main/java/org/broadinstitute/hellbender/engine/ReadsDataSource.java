@@ -14,6 +14,8 @@ import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
+import org.broadinstitute.hellbender.utils.iterators.CoordinateMergingSamRecordIterator;
+import org.broadinstitute.hellbender.utils.iterators.ReadAheadIterator;
 import org.broadinstitute.hellbender.utils.iterators.SAMRecordToReadIterator;
 import org.broadinstitute.hellbender.utils.iterators.SamReaderQueryingIterator;
 import org.broadinstitute.hellbender.utils.nio.SeekableByteChannelPrefetcher;
@@ -73,11 +75,44 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
      */
     private final SamFileHeaderMerger headerMerger;
 
+    /**
+     * Translation from each reader's header to the merged header, used to merge the readers' iterators if the inputs are
+     * coordinate-sorted. Computed once, and shared by every traversal and query. Null if we only have a single reader,
+     * or the inputs aren't coordinate-sorted (in which case we fall back on htsjdk's {@link MergingSamRecordIterator}).
+     */
+    private final CoordinateMergingSamRecordIterator.HeaderTranslation mergedHeaderTranslation;
+
     /**
      * Are indices available for all files?
      */
     private boolean indicesAvailable;
 
+    /**
+     * Number of batches of reads to decode ahead of the client on a background thread during full traversals
+     * initiated via {@link #iterator}. 0 if read-ahead is disabled.
+     */
+    private int readAheadBatches = 0;
+
+    /**
+     * Number of reads in each read-ahead batch
+     */
+    private int readAheadBatchSize = DEFAULT_READ_AHEAD_BATCH_SIZE;
+
+    /**
+     * Queue statistics accumulated over all read-ahead traversals of this data source. Null if read-ahead is disabled.
+     */
+    private ReadAheadIterator.Statistics readAheadStatistics = null;
+
+    /**
+     * The read-ahead iterator for the current traversal, if any. Must be closed before the reader iterators it pulls from.
+     */
+    private ReadAheadIterator<SAMRecord> readAheadIterator = null;
+
+    /**
+     * Default number of reads in each read-ahead batch
+     */
+    public static final int DEFAULT_READ_AHEAD_BATCH_SIZE = 1000;
+
     /**
      * Initialize this data source with a single SAM/BAM file and validation stringency SILENT.
      *
@@ -245,6 +280,9 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
 
         // Prepare a header merger only if we have multiple readers
         headerMerger = samPaths.size() > 1 ? createHeaderMerger() : null;
+        mergedHeaderTranslation = headerMerger != null && headerMerger.getMergedHeader().getSortOrder() == SAMFileHeader.SortOrder.coordinate ?
+                new CoordinateMergingSamRecordIterator.HeaderTranslation(headerMerger, getReaderHeaders()) :
+                null;
     }
 
     /**
@@ -254,6 +292,31 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
         return indicesAvailable;
     }
 
+    /**
+     * Enable asynchronous read-ahead for traversals initiated via {@link #iterator}: reads are pulled from the
+     * underlying readers and fully decoded on a background thread, up to {@code numBatches} batches of
+     * {@code batchSize} reads ahead of the client. Calls to {@link #query} are not affected.
+     *
+     * Takes effect at the start of the next traversal.
+     *
+     * @param numBatches maximum number of batches to buffer ahead of the client (0 to disable read-ahead)
+     * @param batchSize number of reads per batch (> 0)
+     */
+    public void setReadAhead( final int numBatches, final int batchSize ) {
+        Utils.validateArg(numBatches >= 0, "numBatches must be >= 0");
+        Utils.validateArg(batchSize > 0, "batchSize must be > 0");
+        this.readAheadBatches = numBatches;
+        this.readAheadBatchSize = batchSize;
+        this.readAheadStatistics = numBatches > 0 ? new ReadAheadIterator.Statistics(numBatches) : null;
+    }
+
+    /**
+     * @return queue statistics accumulated over all read-ahead traversals so far, or null if read-ahead is disabled
+     */
+    public ReadAheadIterator.Statistics getReadAheadStatistics() {
+        return readAheadStatistics;
+    }
+
     /**
      * Restricts a traversal of this data source via {@link #iterator} to only return reads which overlap the given intervals.
      * Calls to {@link #query} are not affected by setting these intervals.
@@ -327,7 +390,7 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
     @Override
     public Iterator<GATKRead> iterator() {
         logger.debug("Preparing readers for traversal");
-        return prepareIteratorsForTraversal(intervalsForTraversal, traverseUnmapped);
+        return prepareIteratorsForTraversal(intervalsForTraversal, traverseUnmapped, readAheadBatches > 0);
     }
 
     /**
@@ -355,7 +418,7 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
             raiseExceptionForMissingIndex("Cannot query reads data source by interval unless all files are indexed");
         }
 
-        return prepareIteratorsForTraversal(null, true);
+        return prepareIteratorsForTraversal(null, true, false);
     }
 
     /**
@@ -378,16 +441,18 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
      * @return Iterator over all reads in this data source, limited to overlap with the supplied intervals
      */
     private Iterator<GATKRead> prepareIteratorsForTraversal( final List<SimpleInterval> queryIntervals ) {
-        return prepareIteratorsForTraversal(queryIntervals, false);
+        return prepareIteratorsForTraversal(queryIntervals, false, false);
     }
 
     /**
      * Prepare iterators over all readers in response to a request for a complete iteration or query
      *
      * @param queryIntervals Intervals to bound the iteration (reads must overlap one of these intervals). If null, iteration is unbounded.
+     * @param queryUnmapped if true, also return unmapped reads that have no position
+     * @param readAhead if true, pull and decode reads on a background thread ahead of the client
      * @return Iterator over all reads in this data source, limited to overlap with the supplied intervals
      */
-    private Iterator<GATKRead> prepareIteratorsForTraversal( final List<SimpleInterval> queryIntervals, final boolean queryUnmapped ) {
+    private Iterator<GATKRead> prepareIteratorsForTraversal( final List<SimpleInterval> queryIntervals, final boolean queryUnmapped, final boolean readAhead ) {
         // htsjdk requires that only one iterator be open at a time per reader, so close out
         // any previous iterations
         closePreviousIterationsIfNecessary();
@@ -417,13 +482,34 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
         if ( readers.size() == 1 ) {
             startingIterator = readers.entrySet().iterator().next().getValue();
         }
+        else if ( mergedHeaderTranslation != null ) {
+            startingIterator = new CoordinateMergingSamRecordIterator(mergedHeaderTranslation, new ArrayList<>(readers.values()));
+        }
         else {
             startingIterator = new MergingSamRecordIterator(headerMerger, readers, true);
         }
 
+        if ( readAhead ) {
+            readAheadIterator = new ReadAheadIterator<>(startingIterator, ReadsDataSource::decodeRecord,
+                                                        readAheadBatchSize, readAheadBatches, readAheadStatistics, "readAhead");
+            startingIterator = readAheadIterator;
+        }
+
         return new SAMRecordToReadIterator(startingIterator);
     }
 
+    /**
+     * Force full decoding of a lazily-decoded record (eg., a BAMRecord), so that the cost of decoding is paid on the
+     * read-ahead thread rather than by the client.
+     */
+    private static void decodeRecord( final SAMRecord record ) {
+        record.getReadName();
+        record.getCigar();
+        record.getReadBases();
+        record.getBaseQualities();
+        record.getAttributes();
+    }
+
     /**
      * Reduce the intervals down to only include ones that can actually intersect with this reader
      */
@@ -443,13 +529,21 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
      * @return a header merger containing all individual headers in this data source
      */
     private SamFileHeaderMerger createHeaderMerger() {
+        List<SAMFileHeader> headers = getReaderHeaders();
+
+        SamFileHeaderMerger headerMerger = new SamFileHeaderMerger(identifySortOrder(headers), headers, true);
+        return headerMerger;
+    }
+
+    /**
+     * @return the headers of our readers, in the same order as the readers
+     */
+    private List<SAMFileHeader> getReaderHeaders() {
         List<SAMFileHeader> headers = new ArrayList<>(readers.size());
         for ( Map.Entry<SamReader, CloseableIterator<SAMRecord>> readerEntry : readers.entrySet() ) {
             headers.add(readerEntry.getKey().getFileHeader());
         }
-
-        SamFileHeaderMerger headerMerger = new SamFileHeaderMerger(identifySortOrder(headers), headers, true);
-        return headerMerger;
+        return headers;
     }
 
     @VisibleForTesting
@@ -487,6 +581,12 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
      * Close any previously-opened iterations over our readers (htsjdk allows only one open iteration per reader).
      */
     private void closePreviousIterationsIfNecessary() {
+        // The read-ahead thread may still be pulling from the reader iterators, so stop it first
+        if ( readAheadIterator != null ) {
+            readAheadIterator.close();
+            readAheadIterator = null;
+        }
+
         for ( Map.Entry<SamReader, CloseableIterator<SAMRecord>> readerEntry : readers.entrySet() ) {
             CloseableIterator<SAMRecord> readerIterator = readerEntry.getValue();
             if ( readerIterator != null ) {
@@ -2,7 +2,9 @@ package org.broadinstitute.hellbender.engine;
 
 import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.samtools.reference.ReferenceSequence;
+import org.apache.logging.log4j.LogManager;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.fasta.MemoryMappedFastaSequenceFile;
 import org.broadinstitute.hellbender.utils.iterators.ByteArrayIterator;
 import org.broadinstitute.hellbender.utils.reference.ReferenceBases;
 
@@ -43,6 +45,23 @@ public interface ReferenceDataSource extends GATKDataSource<Byte>, AutoCloseable
         return new ReferenceFileSource(fastaPath, preserveAmbiguityCodesAndCapitalization);
     }
 
+    /**
+     * Initialize a {@link ReferenceMemoryMappedSource} using a fasta file if it can be memory-mapped (see
+     * {@link MemoryMappedFastaSequenceFile#canMemoryMap}), otherwise log a warning and initialize a data source as
+     * {@link #of(Path)} does.
+     *
+     * The provided fasta file must have companion .fai and .dict files.
+     *
+     * @param fastaPath reference fasta Path
+     */
+    public static ReferenceDataSource ofMemoryMappedIfPossible(final Path fastaPath) {
+        if ( MemoryMappedFastaSequenceFile.canMemoryMap(fastaPath) ) {
+            return new ReferenceMemoryMappedSource(fastaPath);
+        }
+        LogManager.getLogger(ReferenceDataSource.class).warn("The reference " + fastaPath.toUri() + " cannot be memory-mapped, since it is not an uncompressed local file. Reading it through a cache instead.");
+        return of(fastaPath);
+    }
+
     /**
      * Initialize this data source using ReferenceBases and corresponding sequence dictionary.
      */
@@ -0,0 +1,88 @@
+package org.broadinstitute.hellbender.engine;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.reference.ReferenceSequence;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.fasta.MemoryMappedFastaSequenceFile;
+
+import java.nio.file.Path;
+import java.util.Iterator;
+
+/**
+ * Manages queries over reference data from a local, uncompressed fasta file that is memory-mapped
+ * (see {@link MemoryMappedFastaSequenceFile}).
+ *
+ * Unlike {@link ReferenceFileSource}, this data source is safe to query from multiple threads at once, so a single
+ * instance may be shared by all the threads of a traversal. Closing it has no effect.
+ *
+ * Supports targeted queries over the reference by interval, but does not
+ * yet support complete iteration over the entire reference.
+ */
+public final class ReferenceMemoryMappedSource implements ReferenceDataSource {
+
+    private final MemoryMappedFastaSequenceFile reference;
+
+    /**
+     * Initialize this data source using a fasta file.
+     *
+     * The provided fasta file must be local and uncompressed, and must have companion .fai and .dict files.
+     *
+     * @param fastaPath reference fasta file
+     */
+    public ReferenceMemoryMappedSource(final Path fastaPath) {
+        this(fastaPath, false);
+    }
+
+    /**
+     * Initialize this data source using a fasta file.
+     *
+     * The provided fasta file must be local and uncompressed, and must have companion .fai and .dict files.
+     *
+     * If {@code preserveFileBases} is {@code true}, will NOT convert IUPAC bases in the file to `N` and will NOT capitalize lower-case bases.
+     * NOTE: Most GATK tools do not support data created by setting {@code preserveFileBases} to {@code true}.
+     *
+     * @param fastaPath reference fasta file
+     * @param preserveFileBases Whether to preserve the original bases in the given reference file path.
+     */
+    public ReferenceMemoryMappedSource(final Path fastaPath, final boolean preserveFileBases) {
+        // Will throw a UserException if the .fai and/or .dict are missing, or the fasta can't be mapped
+        reference = new MemoryMappedFastaSequenceFile(Utils.nonNull(fastaPath), preserveFileBases);
+    }
+
+    /**
+     * Start an iteration over the entire reference. Not yet supported!
+     *
+     * See the BaseUtils class for guidance on how to work with bases in this format.
+     *
+     * @return iterator over all bases in this reference
+     */
+    @Override
+    public Iterator<Byte> iterator() {
+        throw new UnsupportedOperationException("Iteration over entire reference not yet implemented");
+    }
+
+    /**
+     * Query a specific interval on this reference, and get back all bases spanning that interval at once.
+     * Call getBases() on the returned ReferenceSequence to get the actual reference bases. See the BaseUtils
+     * class for guidance on how to work with bases in this format.
+     *
+     * @param contig query interval contig
+     * @param start query interval start
+     * @param stop query interval stop
+     * @return a ReferenceSequence containing all bases spanning the query interval, prefetched
+     */
+    @Override
+    public ReferenceSequence queryAndPrefetch( final String contig, final long start , final long stop) {
+        return reference.getSubsequenceAt(contig, start, stop);
+    }
+
+    /**
+     * Get the sequence dictionary for this reference
+     *
+     * @return SAMSequenceDictionary for this reference
+     */
+    @Override
+    public SAMSequenceDictionary getSequenceDictionary() {
+        return reference.getSequenceDictionary();
+    }
+}
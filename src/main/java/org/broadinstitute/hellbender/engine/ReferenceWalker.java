@@ -4,6 +4,7 @@ import org.broadinstitute.hellbender.engine.filters.CountingReadFilter;
 import org.broadinstitute.hellbender.tools.examples.ExampleReferenceWalker;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.iterators.IntervalLocusIterator;
+import org.broadinstitute.hellbender.utils.runtime.MetricsRegistry;
 
 /**
  * A reference walker is a tool which processes each base in a given reference.  Each base can be processed individually
@@ -48,13 +49,16 @@ public abstract class ReferenceWalker extends WalkerBase {
     @Override
     public void traverse() {
         final CountingReadFilter readFilter = makeReadFilter();
+        final MetricsRegistry.Timer applyTimer = getRuntimeMetrics().timer(APPLY_TIMER_NAME);
 
         for(final SimpleInterval locus : getIntervalIterator()){
             final SimpleInterval referenceWindow = getReferenceWindow(locus);
             final ReferenceContext referenceContext = new ReferenceContext(reference, locus, referenceWindow);
+            final long applyStart = applyTimer.start();
             apply(referenceContext,
                   new ReadsContext(reads, referenceContext.getWindow(), readFilter), // Will create an empty ReadsContext if reads == null
                   new FeatureContext(features, referenceContext.getWindow()));   // Will create an empty FeatureContext if features == null
+            applyTimer.stop(applyStart);
 
             progressMeter.update(referenceContext.getInterval());
         };
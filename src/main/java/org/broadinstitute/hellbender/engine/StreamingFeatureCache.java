@@ -0,0 +1,354 @@
+package org.broadinstitute.hellbender.engine;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import htsjdk.samtools.GenomicIndexUtil;
+import htsjdk.tribble.CloseableTribbleIterator;
+import htsjdk.tribble.Feature;
+import htsjdk.tribble.FeatureReader;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.runtime.MetricsRegistry;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.ToIntFunction;
+
+/**
+ * StreamingFeatureCache: an alternative to {@link FeatureCache} for {@link FeatureDataSource} queries, for
+ * traversals that query a large, dense source of Features (eg., dbSNP or gnomAD) at steadily increasing positions.
+ *
+ * Rather than re-querying the underlying reader every time a query runs past the end of the cached window, this
+ * cache opens a single forward-only iterator from the first query position to the end of the contig. A background
+ * thread decodes Features from that iterator into a bounded buffer, ahead of the current query position, while the
+ * caller gets on with its traversal.
+ *
+ * The reader is queried again (and the iterator reopened) only on a jump: a query on a different contig, a query that
+ * starts before the previous query, or a query so far ahead that skipping over the intervening Features would cost
+ * more than a new indexed query (see {@link #maxSequentialGap}).
+ *
+ * While a stream is open, the background thread owns the reader. {@link #stop} must be called before the reader is
+ * used for anything else (eg., a full traversal via {@link FeatureDataSource#iterator}).
+ *
+ * @param <CACHED_FEATURE> Type of Feature record we are caching
+ */
+class StreamingFeatureCache<CACHED_FEATURE extends Feature> implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(StreamingFeatureCache.class);
+
+    /**
+     * Default maximum distance between the start of a query and the start of the last Feature already decoded by the
+     * stream, for the query to be satisfied by streaming forward rather than by a new indexed query. Decoding the
+     * Features in this many bases of a dense resource costs roughly as much as a seek and block decompression.
+     */
+    public static final int DEFAULT_MAX_SEQUENTIAL_GAP = 20_000;
+
+    /**
+     * Maximum number of Features the background thread hands over at a time
+     */
+    private static final int MAX_CHUNK_SIZE = 1024;
+
+    /**
+     * How long the background thread waits for space in a full buffer before checking whether it has been stopped
+     */
+    private static final long PRODUCER_POLL_MILLISECONDS = 10;
+
+    private final FeatureReader<CACHED_FEATURE> reader;
+    private final String sourceName;
+    private final ToIntFunction<String> contigLengths;
+    private final int maxSequentialGap;
+    private final int chunkSize;
+    private final int maxBufferedChunks;
+    private final ExecutorService prefetchThread;
+
+    /**
+     * Features from the stream that may overlap the current or a later query, sorted by start position. Features that
+     * end before the start of the most recent query are discarded.
+     */
+    private final Deque<CACHED_FEATURE> cache = new ArrayDeque<>();
+
+    /**
+     * The currently-open stream, or null if none is open (in which case the next query starts a new one)
+     */
+    private Stream stream = null;
+
+    private String streamContig = null;
+    private int lastQueryStart = 0;
+
+    private long numQueries = 0;
+    private long numStreamStarts = 0;
+
+    /**
+     * Create a cache that streams Features from a reader
+     *
+     * @param reader reader to query. Must support random access, and must not be used by anyone else while a stream is open.
+     * @param sourceName name of the data source, for logging and error messages
+     * @param contigLengths length of each contig, or a value <= 0 if unknown. Used to bound the query for each stream.
+     * @param maxBufferedFeatures maximum number of decoded Features to buffer ahead of the consumer (> 0)
+     * @param maxSequentialGap maximum distance to skip forward by streaming rather than a new indexed query (>= 0)
+     */
+    public StreamingFeatureCache( final FeatureReader<CACHED_FEATURE> reader, final String sourceName, final ToIntFunction<String> contigLengths,
+                                  final int maxBufferedFeatures, final int maxSequentialGap ) {
+        Utils.validateArg(maxBufferedFeatures > 0, "maxBufferedFeatures must be > 0");
+        Utils.validateArg(maxSequentialGap >= 0, "maxSequentialGap must be >= 0");
+        this.reader = Utils.nonNull(reader);
+        this.sourceName = Utils.nonNull(sourceName);
+        this.contigLengths = Utils.nonNull(contigLengths);
+        this.maxSequentialGap = maxSequentialGap;
+        this.chunkSize = Math.min(maxBufferedFeatures, MAX_CHUNK_SIZE);
+        this.maxBufferedChunks = Math.max(1, maxBufferedFeatures / chunkSize);
+        this.prefetchThread = Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder().setNameFormat("featurePrefetch-%d").setDaemon(true).build());
+    }
+
+    /**
+     * Returns all Features that overlap the provided interval, streaming forward from the previous query if possible,
+     * or starting a new stream at the interval otherwise.
+     *
+     * @param interval the interval to query
+     * @param queryTimer timer for queries against the underlying reader (ie., when a new stream is started)
+     * @return the Features overlapping the interval, in the order in which they were read
+     */
+    public List<CACHED_FEATURE> getFeatures( final SimpleInterval interval, final MetricsRegistry.Timer queryTimer ) {
+        ++numQueries;
+        if ( ! canStreamTo(interval) ) {
+            final long start = queryTimer.start();
+            startStream(interval);
+            queryTimer.stop(start);
+        }
+        lastQueryStart = interval.getStart();
+
+        trimToNewStartPosition(interval.getStart());
+        fillThroughStopPosition(interval.getEnd());
+
+        final List<CACHED_FEATURE> overlappingFeatures = new ArrayList<>();
+        for ( final CACHED_FEATURE feature : cache ) {
+            if ( feature.getStart() > interval.getEnd() ) {
+                break;
+            }
+            overlappingFeatures.add(feature);
+        }
+        return overlappingFeatures;
+    }
+
+    /**
+     * @return true if the interval can be satisfied by continuing the current stream
+     */
+    private boolean canStreamTo( final SimpleInterval interval ) {
+        if ( streamContig == null || ! streamContig.equals(interval.getContig()) || interval.getStart() < lastQueryStart ) {
+            return false;
+        }
+        // the stream ran to the end of this contig, so every remaining Feature on it is already cached
+        if ( stream == null ) {
+            return true;
+        }
+        final int streamPosition = cache.isEmpty() ? lastQueryStart : cache.getLast().getStart();
+        return (long)interval.getStart() - streamPosition <= maxSequentialGap;
+    }
+
+    /**
+     * Stop any open stream, and start a new one from the start of the interval to the end of its contig
+     */
+    private void startStream( final SimpleInterval interval ) {
+        stop();
+        ++numStreamStarts;
+
+        final int contigLength = contigLengths.applyAsInt(interval.getContig());
+        final int streamEnd = Math.max(interval.getEnd(), contigLength > 0 ? contigLength : GenomicIndexUtil.BIN_GENOMIC_SPAN);
+        final CloseableTribbleIterator<CACHED_FEATURE> iterator;
+        try {
+            iterator = reader.query(interval.getContig(), interval.getStart(), streamEnd);
+        } catch ( final IOException e ) {
+            throw new GATKException("Error querying file " + sourceName + " over interval " + interval, e);
+        }
+        stream = new Stream(iterator);
+        streamContig = interval.getContig();
+    }
+
+    /**
+     * Discard all Features that end before the new start position, preserving the relative ordering of the others
+     */
+    private void trimToNewStartPosition( final int newStart ) {
+        final List<CACHED_FEATURE> overlappingFeaturesBeforeNewStart = new ArrayList<>();
+        while ( ! cache.isEmpty() && cache.getFirst().getStart() < newStart ) {
+            final CACHED_FEATURE featureBeforeNewStart = cache.removeFirst();
+            if ( featureBeforeNewStart.getEnd() >= newStart ) {
+                overlappingFeaturesBeforeNewStart.add(featureBeforeNewStart);
+            }
+        }
+        for ( int i = overlappingFeaturesBeforeNewStart.size() - 1; i >= 0; --i ) {
+            cache.addFirst(overlappingFeaturesBeforeNewStart.get(i));
+        }
+    }
+
+    /**
+     * Pull Features from the stream until we have one that starts after the stop position, or the stream is exhausted.
+     * Features pulled along the way that end before the start of the current query are dropped immediately.
+     */
+    private void fillThroughStopPosition( final int stopPosition ) {
+        while ( stream != null && (cache.isEmpty() || cache.getLast().getStart() <= stopPosition) ) {
+            final List<CACHED_FEATURE> chunk = stream.take();
+            if ( chunk.isEmpty() ) {
+                // end of stream: the iterator ran to the end of the contig, so later queries on this contig
+                // can still be satisfied from what we have cached
+                stream.awaitTermination();
+                stream = null;
+                return;
+            }
+            for ( final CACHED_FEATURE feature : chunk ) {
+                if ( feature.getEnd() >= lastQueryStart ) {
+                    cache.addLast(feature);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stop the background thread and close the underlying iterator, if a stream is open, and discard all cached
+     * Features. The next query will start a new stream. After this call the reader may safely be used by others.
+     */
+    public void stop() {
+        if ( stream != null ) {
+            stream.cancel();
+            stream = null;
+        }
+        streamContig = null;
+        cache.clear();
+    }
+
+    /**
+     * @return Number of queries satisfied by this cache
+     */
+    public long getNumQueries() {
+        return numQueries;
+    }
+
+    /**
+     * @return Number of times we queried the underlying reader to start a new stream
+     */
+    public long getNumStreamStarts() {
+        return numStreamStarts;
+    }
+
+    /**
+     * Print statistics about the number of queries and streams.
+     * @param sourceName The source for the features in this cache.
+     */
+    public void printCacheStatistics( final String sourceName ) {
+        logger.info(String.format("Feature streaming for data source %s satisfied %d queries with %d indexed queries",
+                sourceName, numQueries, numStreamStarts));
+    }
+
+    /**
+     * Stop any open stream and shut down the background thread. This cache may not be used afterwards.
+     */
+    @Override
+    public void close() {
+        stop();
+        prefetchThread.shutdownNow();
+    }
+
+    /**
+     * A single forward-only iterator, drained into a bounded buffer by the background thread. An empty chunk marks
+     * the end of the stream.
+     */
+    private final class Stream {
+        private final BlockingQueue<List<CACHED_FEATURE>> buffer = new ArrayBlockingQueue<>(maxBufferedChunks);
+        private final AtomicReference<Throwable> error = new AtomicReference<>();
+        private final Future<?> producer;
+        private volatile boolean cancelled = false;
+
+        private Stream( final CloseableTribbleIterator<CACHED_FEATURE> iterator ) {
+            producer = prefetchThread.submit(() -> produce(iterator));
+        }
+
+        /**
+         * Runs on the background thread: decode Features in chunks until the iterator is exhausted or we are cancelled
+         */
+        private void produce( final CloseableTribbleIterator<CACHED_FEATURE> iterator ) {
+            try {
+                List<CACHED_FEATURE> chunk = new ArrayList<>(chunkSize);
+                while ( ! cancelled && iterator.hasNext() ) {
+                    chunk.add(iterator.next());
+                    if ( chunk.size() == chunkSize ) {
+                        if ( ! put(chunk) ) {
+                            return;
+                        }
+                        chunk = new ArrayList<>(chunkSize);
+                    }
+                }
+                if ( ! chunk.isEmpty() && ! put(chunk) ) {
+                    return;
+                }
+            } catch ( final Throwable t ) {
+                error.set(t);
+            } finally {
+                iterator.close();
+            }
+            put(Collections.emptyList());
+        }
+
+        /**
+         * @return false if the stream was cancelled before the chunk could be added to the buffer
+         */
+        private boolean put( final List<CACHED_FEATURE> chunk ) {
+            try {
+                while ( ! buffer.offer(chunk, PRODUCER_POLL_MILLISECONDS, TimeUnit.MILLISECONDS) ) {
+                    if ( cancelled ) {
+                        return false;
+                    }
+                }
+                return true;
+            } catch ( final InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        /**
+         * Wait for the next chunk of Features from the background thread
+         *
+         * @return the next chunk, or an empty list at the end of the stream
+         */
+        private List<CACHED_FEATURE> take() {
+            final List<CACHED_FEATURE> chunk;
+            try {
+                chunk = buffer.take();
+            } catch ( final InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                throw new GATKException("Interrupted while waiting for Features from " + sourceName, e);
+            }
+            if ( chunk.isEmpty() && error.get() != null ) {
+                final Throwable t = error.get();
+                if ( t instanceof RuntimeException ) {
+                    throw (RuntimeException)t;
+                }
+                throw new GATKException("Error reading Features from " + sourceName, t);
+            }
+            return chunk;
+        }
+
+        /**
+         * Stop the background thread, and wait for it to close the iterator
+         */
+        private void cancel() {
+            cancelled = true;
+            buffer.clear();
+            awaitTermination();
+        }
+
+        private void awaitTermination() {
+            try {
+                producer.get();
+            } catch ( final InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                throw new GATKException("Interrupted while stopping the Feature prefetch thread for " + sourceName, e);
+            } catch ( final ExecutionException e ) {
+                throw new GATKException("Error in the Feature prefetch thread for " + sourceName, e.getCause());
+            }
+        }
+    }
+}
@@ -8,6 +8,7 @@ import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.engine.filters.CountingReadFilter;
 import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.runtime.MetricsRegistry;
 
 import java.util.Spliterator;
 
@@ -100,13 +101,16 @@ public abstract class VariantWalker extends VariantWalkerBase {
     public void traverse() {
         final CountingReadFilter readFilter = makeReadFilter();
         // Process each variant in the input stream.
+        final MetricsRegistry.Timer applyTimer = getRuntimeMetrics().timer(APPLY_TIMER_NAME);
         getTransformedVariantStream( makeVariantFilter() )
                 .forEach(variant -> {
                     final SimpleInterval variantInterval = new SimpleInterval(variant);
+                    final long applyStart = applyTimer.start();
                     apply(variant,
                             new ReadsContext(reads, variantInterval, readFilter),
                             new ReferenceContext(reference, variantInterval),
                             new FeatureContext(features, variantInterval));
+                    applyTimer.stop(applyStart);
 
                     progressMeter.update(variantInterval);
                 });
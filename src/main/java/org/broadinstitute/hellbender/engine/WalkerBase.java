@@ -16,6 +16,11 @@ import org.broadinstitute.hellbender.utils.read.GATKRead;
  */
 public abstract class WalkerBase extends GATKTool {
 
+    /**
+     * Name of the runtime metrics timer for calls to the tool's {@code apply()} method (see {@link #getRuntimeMetrics})
+     */
+    static final String APPLY_TIMER_NAME = "traversal.apply";
+
     /**
      * {@inheritDoc}
      *
@@ -5,6 +5,7 @@ import com.google.common.annotations.VisibleForTesting;
 import htsjdk.samtools.SAMFileHeader;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.runtime.MetricsRegistry;
 
 import java.util.List;
 import java.util.function.Predicate;
@@ -33,6 +34,10 @@ public class CountingReadFilter extends ReadFilter {
     // Number of reads filtered by this filter
     protected long filteredCount = 0;
 
+    // Optional runtime metrics for the delegate filter, installed by enableRuntimeMetrics (not serialized)
+    private transient MetricsRegistry.Timer testTimer = null;
+    private transient MetricsRegistry.Counter filteredCounter = null;
+
     public CountingReadFilter(final ReadFilter readFilter) {
         Utils.nonNull(readFilter);
         delegateFilter = readFilter;
@@ -75,6 +80,19 @@ public class CountingReadFilter extends ReadFilter {
         filteredCount = 0;
     }
 
+    /**
+     * Record the time spent in each component filter, and the number of reads it filters, in the given registry
+     * under the names "readFilter.&lt;filter name&gt;" and "readFilter.&lt;filter name&gt;.filtered". Component
+     * filters with the same name (eg., in the filters of different traversal threads) share their metrics.
+     *
+     * @param registry registry in which to record metrics
+     */
+    public void enableRuntimeMetrics(final MetricsRegistry registry) {
+        Utils.nonNull(registry);
+        testTimer = registry.timer("readFilter." + getName());
+        filteredCounter = registry.counter("readFilter." + getName() + ".filtered");
+    }
+
     public String getName() {return delegateFilter.getClass().getSimpleName();}
 
     // Returns a summary line with filter counts organized by level
@@ -123,9 +141,23 @@ public class CountingReadFilter extends ReadFilter {
 
     @Override
     public boolean test(final GATKRead read) {
+        if (testTimer != null) {
+            return testAndRecordMetrics(read);
+        }
+        final boolean accept = delegateFilter.test(read);
+        if (!accept) {
+            filteredCount++;
+        }
+        return accept;
+    }
+
+    private boolean testAndRecordMetrics(final GATKRead read) {
+        final long start = testTimer.start();
         final boolean accept = delegateFilter.test(read);
+        testTimer.stop(start);
         if (!accept) {
             filteredCount++;
+            filteredCounter.increment();
         }
         return accept;
     }
@@ -152,6 +184,11 @@ public class CountingReadFilter extends ReadFilter {
         public String getName() {
             return "Not " + delegateCountingFilter.getName();
         }
+
+        @Override
+        public void enableRuntimeMetrics(final MetricsRegistry registry) {
+            delegateCountingFilter.enableRuntimeMetrics(registry);
+        }
     }
 
     /**
@@ -194,6 +231,12 @@ public class CountingReadFilter extends ReadFilter {
             this.rhs.resetFilteredCount();
         }
 
+        @Override
+        public void enableRuntimeMetrics(final MetricsRegistry registry) {
+            this.lhs.enableRuntimeMetrics(registry);
+            this.rhs.enableRuntimeMetrics(registry);
+        }
+
         @Override
         public abstract String getName();
     }
@@ -4,6 +4,7 @@ import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
 import org.broadinstitute.barclay.help.DocumentedFeature;
 import org.broadinstitute.hellbender.cmdline.programgroups.CoverageAnalysisProgramGroup;
 import org.broadinstitute.hellbender.engine.FeatureContext;
+import org.broadinstitute.hellbender.engine.ReadBatch;
 import org.broadinstitute.hellbender.engine.ReadWalker;
 import org.broadinstitute.hellbender.engine.ReferenceContext;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
@@ -37,6 +38,16 @@ public final class CountReads extends ReadWalker {
         ++count;
     }
 
+    @Override
+    public int getReadBatchSize() {
+        return DEFAULT_READ_BATCH_SIZE;
+    }
+
+    @Override
+    public void applyBatch( final ReadBatch batch ) {
+        count += batch.size();
+    }
+
     @Override
     public Object onTraversalSuccess() {
         return count;
@@ -4,6 +4,7 @@ import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
 import org.broadinstitute.barclay.help.DocumentedFeature;
 import picard.cmdline.programgroups.DiagnosticsAndQCProgramGroup;
 import org.broadinstitute.hellbender.engine.FeatureContext;
+import org.broadinstitute.hellbender.engine.ReadBatch;
 import org.broadinstitute.hellbender.engine.ReadWalker;
 import org.broadinstitute.hellbender.engine.ReferenceContext;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
@@ -48,6 +49,18 @@ public final class FlagStat extends ReadWalker {
         sum.add(read);
     }
 
+    @Override
+    public int getReadBatchSize() {
+        return DEFAULT_READ_BATCH_SIZE;
+    }
+
+    @Override
+    public void applyBatch( final ReadBatch batch ) {
+        for ( final GATKRead read : batch ) {
+            sum.add(read);
+        }
+    }
+
     @Override
     public Object onTraversalSuccess() {
         return sum;
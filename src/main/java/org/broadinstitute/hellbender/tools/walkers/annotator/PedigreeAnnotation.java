@@ -29,10 +29,21 @@ public abstract class PedigreeAnnotation extends InfoFieldAnnotation {
     protected transient final Logger logger = LogManager.getLogger(this.getClass());
 
     protected GenotypesContext getFounderGenotypes(VariantContext vc) {
+        final Set<String> founders = getFounderIds();
+        return founders.isEmpty() ? vc.getGenotypes() : vc.getGenotypes(founders);
+    }
+
+    /**
+     * Synchronized because the founders of a pedigree file are read lazily, and the same annotation instances may be
+     * shared by the annotation engines of several threads (eg., HaplotypeCaller with multithreaded traversal).
+     *
+     * @return a copy of the founder IDs, empty if there are none
+     */
+    private synchronized Set<String> getFounderIds() {
         if ((pedigreeFile!= null) && (!hasAddedPedigreeFounders)) {
             initializeSampleDBAndSetFounders(pedigreeFile);
         }
-        return (founderIds == null || founderIds.isEmpty()) ? vc.getGenotypes() : vc.getGenotypes(new HashSet<>(founderIds));
+        return founderIds == null ? Collections.emptySet() : new HashSet<>(founderIds);
     }
 
     public PedigreeAnnotation(final Set<String> founderIds){
@@ -78,11 +89,11 @@ public abstract class PedigreeAnnotation extends InfoFieldAnnotation {
      * Setter for pedigree file and founderIDs to be used by the GATKAnnotationPluginDescriptor to handle duplicated annotaiton
      * arguments between InbreedingCoeff and ExcessHet
      */
-    public void setPedigreeFile(File pedigreeFile) {
+    public synchronized void setPedigreeFile(File pedigreeFile) {
         this.pedigreeFile = pedigreeFile;
         hasAddedPedigreeFounders = false;
     }
-    public void setFounderIds(List<String> founderIds) {
+    public synchronized void setFounderIds(List<String> founderIds) {
         this.founderIds = founderIds;
         hasAddedPedigreeFounders = false;
     }
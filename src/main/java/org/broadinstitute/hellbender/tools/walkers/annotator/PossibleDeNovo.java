@@ -83,7 +83,8 @@ public final class PossibleDeNovo extends PedigreeAnnotation {
     private static final double percentOfSamplesCutoff = 0.001; //for many, many samples use 0.1% of samples as allele frequency threshold for de novos
     private static final int flatNumberOfSamplesCutoff = 4;
 
-    private Set<Trio> initializeAndGetTrios() {
+    // synchronized since the same annotation instance may be shared by the annotation engines of several threads
+    private synchronized Set<Trio> initializeAndGetTrios() {
         if (trios == null) {
             trios = getTrios();
         }
@@ -9,6 +9,7 @@ import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
 import org.broadinstitute.barclay.help.DocumentedFeature;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.engine.FeatureContext;
+import org.broadinstitute.hellbender.engine.ReadBatch;
 import org.broadinstitute.hellbender.engine.ReadWalker;
 import org.broadinstitute.hellbender.engine.ReferenceContext;
 import org.broadinstitute.hellbender.tools.ApplyBQSRArgumentCollection;
@@ -114,6 +115,18 @@ public final class ApplyBQSR extends ReadWalker{
         outputWriter.addRead(read);
     }
 
+    @Override
+    public int getReadBatchSize() {
+        return DEFAULT_READ_BATCH_SIZE;
+    }
+
+    @Override
+    public void applyBatch( final ReadBatch batch ) {
+        for ( final GATKRead read : batch ) {
+            outputWriter.addRead(read);
+        }
+    }
+
     @Override
     public void closeTool() {
         if ( outputWriter != null ) {
@@ -1,5 +1,6 @@
 package org.broadinstitute.hellbender.tools.walkers.bqsr;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import htsjdk.tribble.Feature;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -12,6 +13,7 @@ import org.broadinstitute.hellbender.engine.*;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilterLibrary;
 import org.broadinstitute.hellbender.engine.filters.WellformedReadFilter;
+import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
@@ -24,8 +26,13 @@ import picard.cmdline.programgroups.ReadDataManipulationProgramGroup;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * First pass of the base quality score recalibration.
@@ -115,10 +122,28 @@ public final class BaseRecalibrator extends ReadWalker {
     @Argument(shortName = StandardArgumentDefinitions.OUTPUT_SHORT_NAME, fullName = StandardArgumentDefinitions.OUTPUT_LONG_NAME, doc = "The output recalibration table file to create", optional = false)
     private File recalTableFile = null;
 
+    /**
+     * Number of threads on which to collect the recalibration statistics. With more than one, the reads of each batch
+     * are dealt out in turn to one worker per thread. Each worker has its own recalibration tables, and the tables
+     * of all workers are combined before they are finalized, so the report is the same as with a single thread.
+     * Reads and known sites are still read on the main thread.
+     */
+    @Argument(fullName = "threads", doc = "Number of threads on which to collect recalibration statistics", minValue = 1, optional = true)
+    private int threads = 1;
+
     private BaseRecalibrationEngine recalibrationEngine;
 
     private ReferenceDataSource referenceDataSource; // datasource for the reference. We're using a different one from the engine itself to avoid messing with its caches.
 
+    /**
+     * With more than one thread, the engines of the workers and their reference datasources (only the main one is
+     * used with a single thread)
+     */
+    private BaseRecalibrationEngine[] workerEngines;
+    private ReferenceDataSource[] workerReferenceDataSources;
+    private ExecutorService workerExecutor;
+    private final List<Future<?>> pendingWork = new ArrayList<>();
+
     /**
      * an object that keeps track of the information necessary for quality score quantization
      */
@@ -143,7 +168,31 @@ public final class BaseRecalibrator extends ReadWalker {
 
         recalibrationEngine = new BaseRecalibrationEngine(recalArgs, getHeaderForReads());
         recalibrationEngine.logCovariatesUsed();
-        referenceDataSource = ReferenceDataSource.of(referenceArguments.getReferencePath());
+        referenceDataSource = openReferenceDataSource();
+
+        if ( threads > 1 ) {
+            workerEngines = new BaseRecalibrationEngine[threads];
+            workerReferenceDataSources = new ReferenceDataSource[threads];
+            for ( int i = 0; i < threads; i++ ) {
+                // each worker gets its own copy of the header, as the engine may set the platform of its read groups
+                workerEngines[i] = new BaseRecalibrationEngine(recalArgs, getHeaderForReads().clone());
+                workerReferenceDataSources[i] = openReferenceDataSource();
+            }
+            workerExecutor = Executors.newFixedThreadPool(threads,
+                    new ThreadFactoryBuilder().setNameFormat("baseRecalibrator-thread-%d").setDaemon(true).build());
+        }
+    }
+
+    /**
+     * @return the main reference datasource if it is memory-mapped, since it has no caches and is thread-safe, so
+     *         can be shared by all workers; otherwise a newly-opened datasource
+     */
+    private ReferenceDataSource openReferenceDataSource() {
+        if ( referenceDataSource instanceof ReferenceMemoryMappedSource ) {
+            return referenceDataSource;
+        }
+        final Path referencePath = referenceArguments.getReferencePath();
+        return memoryMapReference ? ReferenceDataSource.ofMemoryMappedIfPossible(referencePath) : ReferenceDataSource.of(referencePath);
     }
 
     @Override
@@ -185,8 +234,65 @@ public final class BaseRecalibrator extends ReadWalker {
         recalibrationEngine.processRead(read, referenceDataSource, featureContext.getValues(knownSites));
     }
 
+    @Override
+    public int getReadBatchSize() {
+        return threads > 1 ? DEFAULT_READ_BATCH_SIZE : 0;
+    }
+
+    /**
+     * With more than one thread, hand read i of the batch to worker i % threads. The workers process the batch while
+     * the engine reads the next one.
+     */
+    @Override
+    public void applyBatch( final ReadBatch batch ) {
+        // Feature queries aren't thread-safe, so the known sites of each read are looked up here
+        final List<GATKRead> reads = new ArrayList<>(batch.getReads());
+        final List<List<Feature>> readKnownSites = new ArrayList<>(reads.size());
+        for ( int i = 0; i < batch.size(); i++ ) {
+            readKnownSites.add(batch.getFeatureContext(i).getValues(knownSites));
+        }
+
+        // each worker must finish its reads of the previous batch before it starts on this one
+        waitForWorkers();
+        for ( int w = 0; w < threads; w++ ) {
+            final int worker = w;
+            pendingWork.add(workerExecutor.submit(() -> {
+                for ( int i = worker; i < reads.size(); i += threads ) {
+                    workerEngines[worker].processRead(reads.get(i), workerReferenceDataSources[worker], readKnownSites.get(i));
+                }
+            }));
+        }
+    }
+
+    private void waitForWorkers() {
+        try {
+            for ( final Future<?> work : pendingWork ) {
+                work.get();
+            }
+        } catch ( final InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new GATKException("Interrupted while waiting for the recalibration threads", e);
+        } catch ( final ExecutionException e ) {
+            // Rethrow unchecked exceptions (such as UserExceptions) from the worker threads unchanged
+            if ( e.getCause() instanceof RuntimeException ) {
+                throw (RuntimeException)e.getCause();
+            }
+            throw new GATKException("Error collecting recalibration statistics", e.getCause());
+        } finally {
+            pendingWork.clear();
+        }
+    }
+
     @Override
     public Object onTraversalSuccess() {
+        long numReadsProcessed = recalibrationEngine.getNumReadsProcessed();
+        if ( workerEngines != null ) {
+            waitForWorkers();
+            for ( final BaseRecalibrationEngine workerEngine : workerEngines ) {
+                recalibrationEngine.getRecalibrationTables().combine(workerEngine.getRecalibrationTables());
+                numReadsProcessed += workerEngine.getNumReadsProcessed();
+            }
+        }
         recalibrationEngine.finalizeData();
 
         logger.info("Calculating quantized quality scores...");
@@ -197,7 +303,24 @@ public final class BaseRecalibrator extends ReadWalker {
         logger.info("...done!");
 
         //logger.info("BaseRecalibrator was able to recalibrate " + result + " reads");
-        return recalibrationEngine.getNumReadsProcessed();
+        return numReadsProcessed;
+    }
+
+    @Override
+    public void closeTool() {
+        if ( workerExecutor != null ) {
+            workerExecutor.shutdownNow();
+        }
+        if ( workerReferenceDataSources != null ) {
+            for ( final ReferenceDataSource workerReferenceDataSource : workerReferenceDataSources ) {
+                if ( workerReferenceDataSource != null && workerReferenceDataSource != referenceDataSource ) {
+                    workerReferenceDataSource.close();
+                }
+            }
+        }
+        if ( referenceDataSource != null ) {
+            referenceDataSource.close();
+        }
     }
 
     /**
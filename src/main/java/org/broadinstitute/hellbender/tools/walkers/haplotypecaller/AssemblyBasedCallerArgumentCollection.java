@@ -9,6 +9,8 @@ import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.readthreading
 import org.broadinstitute.hellbender.utils.haplotype.HaplotypeBAMWriter;
 import org.broadinstitute.hellbender.utils.smithwaterman.SmithWatermanAligner;
 
+import java.util.concurrent.ForkJoinPool;
+
 /**
  * Set of arguments for Assembly Based Callers
  */
@@ -30,6 +32,9 @@ public abstract class AssemblyBasedCallerArgumentCollection {
         final ReadThreadingAssembler assemblyEngine = assemblerArgs.makeReadThreadingAssembler();
         assemblyEngine.setDebug(assemblerArgs.debugAssembly);
         assemblyEngine.setMinBaseQualityToUseInAssembly(minBaseQualityScore);
+        if ( assemblerArgs.parallelKmerAssembly ) {
+            assemblyEngine.setKmerSizeAssemblyPool(ForkJoinPool.commonPool());
+        }
 
         return assemblyEngine;
     }
@@ -210,7 +210,7 @@ public final class AssemblyBasedCallerUtils {
 
         switch ( likelihoodArgs.likelihoodEngineImplementation) {
             case PairHMM:
-                return new PairHMMLikelihoodCalculationEngine((byte) likelihoodArgs.gcpHMM, likelihoodArgs.pairHMMNativeArgs.getPairHMMArgs(), likelihoodArgs.pairHMM, log10GlobalReadMismappingRate, likelihoodArgs.pcrErrorModel, likelihoodArgs.BASE_QUALITY_SCORE_THRESHOLD);
+                return new PairHMMLikelihoodCalculationEngine((byte) likelihoodArgs.gcpHMM, likelihoodArgs.pairHMMNativeArgs.getPairHMMArgs(), likelihoodArgs.pairHMM, log10GlobalReadMismappingRate, likelihoodArgs.pcrErrorModel, likelihoodArgs.BASE_QUALITY_SCORE_THRESHOLD, likelihoodArgs.pairHMMLikelihoodCacheSize, likelihoodArgs.javaPairHMMThreads);
             case Random:
                 return new RandomLikelihoodCalculationEngine();
             default:
@@ -429,26 +429,53 @@ public final class AssemblyBasedCallerUtils {
                                                      final SimpleInterval activeRegionSpan,
                                                      final ReadLikelihoods<Haplotype> readLikelihoods,
                                                      final SampleList samples) {
+        final List<ReadPileup> pileups = new ArrayList<>(activeRegionSpan.size());
+        getPileupIteratorOverReference(readsHeader, activeRegionSpan, readLikelihoods, samples).forEachRemaining(pileups::add);
+        return pileups;
+    }
+
+    /**
+     * Get an iterator over pileups that span the entire active region span, in order, one for each position.
+     *
+     * The pileups are built as the iterator advances, by a single pass of a {@link LocusIteratorByState} over the
+     * reads, so only the pileups still referenced by the caller are kept in memory.
+     */
+    public static Iterator<ReadPileup> getPileupIteratorOverReference(final SAMFileHeader readsHeader,
+                                                                      final SimpleInterval activeRegionSpan,
+                                                                      final ReadLikelihoods<Haplotype> readLikelihoods,
+                                                                      final SampleList samples) {
         final List<GATKRead> reads = new ArrayList<>(readLikelihoods.sampleReads(0));
         reads.sort(new ReadCoordinateComparator(readsHeader));  //because we updated the reads based on the local realignments we have to re-sort or the pileups will be... unpredictable
 
         final LocusIteratorByState libs = new LocusIteratorByState(reads.iterator(), LocusIteratorByState.NO_DOWNSAMPLING,
                 false, samples.asSetOfSamples(), readsHeader, true);
 
-        final int startPos = activeRegionSpan.getStart();
-        final List<ReadPileup> pileups = new ArrayList<>(activeRegionSpan.getEnd() - startPos);
-        AlignmentContext next = libs.advanceToLocus(startPos, true);
-        for ( int curPos = startPos; curPos <= activeRegionSpan.getEnd(); curPos++ ) {
-            if ( next != null && next.getLocation().getStart() == curPos ) {
-                pileups.add(next.getBasePileup());
-                next = libs.hasNext() ? libs.next() : null;
-            } else {
-                // no data, so we create empty pileups
-                pileups.add(new ReadPileup(new SimpleInterval(activeRegionSpan.getContig(), curPos, curPos)));
+        return new Iterator<ReadPileup>() {
+            private int curPos = activeRegionSpan.getStart();
+            private AlignmentContext next = libs.advanceToLocus(curPos, true);
+
+            @Override
+            public boolean hasNext() {
+                return curPos <= activeRegionSpan.getEnd();
             }
-        }
 
-        return pileups;
+            @Override
+            public ReadPileup next() {
+                if ( ! hasNext() ) {
+                    throw new NoSuchElementException("no more pileups over " + activeRegionSpan);
+                }
+                final ReadPileup pileup;
+                if ( next != null && next.getLocation().getStart() == curPos ) {
+                    pileup = next.getBasePileup();
+                    next = libs.hasNext() ? libs.next() : null;
+                } else {
+                    // no data, so we create an empty pileup
+                    pileup = new ReadPileup(new SimpleInterval(activeRegionSpan.getContig(), curPos, curPos));
+                }
+                curPos++;
+                return pileup;
+            }
+        };
     }
 
     /**
@@ -1,9 +1,12 @@
 package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
 
 import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.reference.ReferenceSequenceFile;
+import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.writer.VariantContextWriter;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.ArgumentCollection;
+import org.broadinstitute.barclay.argparser.CommandLineException;
 import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
 import org.broadinstitute.barclay.help.DocumentedFeature;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
@@ -13,7 +16,9 @@ import org.broadinstitute.hellbender.engine.*;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.tools.walkers.annotator.Annotation;
 import org.broadinstitute.hellbender.tools.walkers.annotator.VariantAnnotatorEngine;
+import org.broadinstitute.hellbender.utils.activityprofile.ActivityProfileState;
 import org.broadinstitute.hellbender.utils.fasta.CachingIndexedFastaSequenceFile;
+import org.broadinstitute.hellbender.utils.fasta.MemoryMappedFastaSequenceFile;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
 
 import java.nio.file.Path;
@@ -157,6 +162,13 @@ public final class HaplotypeCaller extends AssemblyRegionWalker {
 
     private HaplotypeCallerEngine hcEngine;
 
+    /**
+     * Reference reader shared by all engines if the reference is memory-mapped, otherwise null
+     */
+    private MemoryMappedFastaSequenceFile memoryMappedReferenceReader = null;
+
+    private Collection<Annotation> variantAnnotations;
+
     @Override
     protected int defaultMinAssemblyRegionSize() { return DEFAULT_MIN_ASSEMBLY_REGION_SIZE; }
 
@@ -219,9 +231,13 @@ public final class HaplotypeCaller extends AssemblyRegionWalker {
             logger.warn("*************************************************************************");
         }
 
-        final VariantAnnotatorEngine variantAnnotatorEngine = new VariantAnnotatorEngine(makeVariantAnnotations(),
-                hcArgs.dbsnp.dbsnp, hcArgs.comps,  hcArgs.emitReferenceConfidence != ReferenceConfidenceMode.NONE, false);
-        hcEngine = new HaplotypeCallerEngine(hcArgs, createOutputBamIndex, createOutputBamMD5, getHeaderForReads(), getReferenceReader(referenceArguments), variantAnnotatorEngine);
+        if ( traversalThreads > 1 && hcArgs.bamOutputPath != null ) {
+            throw new CommandLineException.BadArgumentValue(AssemblyRegionWalker.TRAVERSAL_THREADS_LONG_NAME, String.valueOf(traversalThreads),
+                    "--" + AssemblyBasedCallerArgumentCollection.BAM_OUTPUT_LONG_NAME + " is not supported with multithreaded traversal");
+        }
+
+        variantAnnotations = makeVariantAnnotations();
+        hcEngine = new HaplotypeCallerEngine(hcArgs, createOutputBamIndex, createOutputBamMD5, getHeaderForReads(), getReferenceReader(referenceArguments), makeVariantAnnotatorEngine());
 
         // The HC engine will make the right kind (VCF or GVCF) of writer for us
         final SAMSequenceDictionary sequenceDictionary = getHeaderForReads().getSequenceDictionary();
@@ -229,9 +245,20 @@ public final class HaplotypeCaller extends AssemblyRegionWalker {
         hcEngine.writeHeader(vcfWriter, sequenceDictionary, getDefaultToolVCFHeaderLines());
     }
 
-    private static CachingIndexedFastaSequenceFile getReferenceReader(ReferenceInputArgumentCollection referenceArguments) {
+    private VariantAnnotatorEngine makeVariantAnnotatorEngine() {
+        return new VariantAnnotatorEngine(variantAnnotations, hcArgs.dbsnp.dbsnp, hcArgs.comps, hcArgs.emitReferenceConfidence != ReferenceConfidenceMode.NONE, false);
+    }
+
+    private synchronized ReferenceSequenceFile getReferenceReader(ReferenceInputArgumentCollection referenceArguments) {
         // TODO: this code is duplicated in AssemblyBasedCallerUtils
         final Path reference = IOUtils.getPath(referenceArguments.getReferenceFileName());
+        if ( memoryMapReference && MemoryMappedFastaSequenceFile.canMemoryMap(reference) ) {
+            // a memory-mapped reference has no cache, and can be shared by the engines of all traversal threads
+            if ( memoryMappedReferenceReader == null ) {
+                memoryMappedReferenceReader = new MemoryMappedFastaSequenceFile(reference);
+            }
+            return memoryMappedReferenceReader;
+        }
         return new CachingIndexedFastaSequenceFile(reference);
     }
 
@@ -240,6 +267,43 @@ public final class HaplotypeCaller extends AssemblyRegionWalker {
         hcEngine.callRegion(region, featureContext).forEach(vcfWriter::add);
     }
 
+    @Override
+    protected boolean supportsMultithreadedTraversal() { return true; }
+
+    /**
+     * Each traversal thread gets its own {@link HaplotypeCallerEngine}, with its own reference reader,
+     * assembler and likelihood calculation engine. Calls are written to {@link #vcfWriter} on the main thread.
+     *
+     * The annotation instances are resolved once by the command line parser, so all engines share them: annotations
+     * must not change after setup, or must synchronize any lazy initialization (as {@link org.broadinstitute.hellbender.tools.walkers.annotator.PedigreeAnnotation} does).
+     */
+    @Override
+    protected AssemblyRegionProcessor createAssemblyRegionProcessor() {
+        final HaplotypeCallerEngine threadEngine = new HaplotypeCallerEngine(hcArgs, false, false, getHeaderForReads(), getReferenceReader(referenceArguments), makeVariantAnnotatorEngine());
+
+        return new AssemblyRegionProcessor() {
+            @Override
+            public ActivityProfileState isActive(final AlignmentContext context, final ReferenceContext ref, final FeatureContext features) {
+                return threadEngine.isActive(context, ref, features);
+            }
+
+            @Override
+            public List<VariantContext> processRegion(final AssemblyRegion region, final ReferenceContext referenceContext, final FeatureContext featureContext) {
+                return threadEngine.callRegion(region, featureContext);
+            }
+
+            @Override
+            public void close() {
+                threadEngine.shutdown();
+            }
+        };
+    }
+
+    @Override
+    protected void onParallelRegionCalls(final List<VariantContext> calls) {
+        calls.forEach(vcfWriter::add);
+    }
+
     @Override
     public void closeTool() {
         if ( vcfWriter != null ) {
@@ -100,6 +100,15 @@ public class HaplotypeCallerArgumentCollection extends AssemblyBasedCallerArgume
     @Argument(fullName = "indel-size-to-eliminate-in-ref-model", doc = "The size of an indel to check for in the reference model", optional = true)
     public int indelSizeToEliminateInRefModel = 10;
 
+    /**
+     * Number of threads on which to compute the reference confidence of the positions of each region, in GVCF and
+     * BP_RESOLUTION modes. The pileups of a region are still built and examined for plausible indels in order, on a
+     * single thread, while blocks of positions are genotyped as hom-ref on the other threads.
+     */
+    @Advanced
+    @Argument(fullName = "reference-confidence-threads", doc = "How many threads to use to compute the reference confidence", optional = true, minValue = 1)
+    public int referenceConfidenceThreads = 1;
+
 
     @Advanced
     @Argument(fullName = "use-alleles-trigger", doc = "Use additional trigger on variants found in an external alleles file", optional = true)
@@ -116,6 +125,18 @@ public class HaplotypeCallerArgumentCollection extends AssemblyBasedCallerArgume
             optional = true)
     public boolean disableOptimizations = false;
 
+    /**
+     * Before assembling an active region, screen its reads for evidence of variation: an insertion, a deletion, a long
+     * high-quality soft clip, or a position where at least two reads have a high-quality mismatch against the reference.
+     * With SKIP, active regions without any such evidence are not assembled or genotyped, but go straight to the
+     * reference model (in GVCF mode) or produce no calls. VALIDATE screens regions but still assembles and genotypes
+     * all of them, and reports how many of the regions that would have been skipped had calls. Not used when
+     * genotyping given alleles.
+     */
+    @Advanced
+    @Argument(fullName = "reference-only-region-screen", doc = "Whether to skip assembly of active regions whose reads show no evidence of variation", optional = true)
+    public ReferenceOnlyRegionScreen.Mode referenceOnlyRegionScreen = ReferenceOnlyRegionScreen.Mode.OFF;
+
     @Hidden
     @Argument(fullName = "keep-rg", doc = "Only use reads from this read group when making calls (but use all reads to build the assembly)", optional = true)
     public String keepRG = null;
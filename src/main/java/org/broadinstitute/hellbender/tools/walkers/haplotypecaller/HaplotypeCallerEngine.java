@@ -79,6 +79,9 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
 
     private ReadLikelihoodCalculationEngine likelihoodCalculationEngine = null;
 
+    // screens active regions for evidence of variation before assembly, or null if they're not screened
+    private ReferenceOnlyRegionScreen referenceOnlyRegionScreen = null;
+
     private HaplotypeCallerGenotypingEngine genotypingEngine = null;
 
     private VariantAnnotatorEngine annotationEngine = null;
@@ -202,7 +205,8 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
         genotypingEngine = new HaplotypeCallerGenotypingEngine(hcArgs, samplesList, FixedAFCalculatorProvider.createThreadSafeProvider(hcArgs.standardArgs), ! hcArgs.doNotRunPhysicalPhasing);
         genotypingEngine.setAnnotationEngine(annotationEngine);
 
-        referenceConfidenceModel = new ReferenceConfidenceModel(samplesList, readsHeader, hcArgs.indelSizeToEliminateInRefModel, hcArgs.standardArgs.genotypeArgs.numRefIfMissing);
+        referenceConfidenceModel = new ReferenceConfidenceModel(samplesList, readsHeader, hcArgs.indelSizeToEliminateInRefModel, hcArgs.standardArgs.genotypeArgs.numRefIfMissing,
+                hcArgs.referenceConfidenceThreads);
 
         //Allele-specific annotations are not yet supported in the VCF mode
         if (isAlleleSpecificMode(annotationEngine) && isVCFMode()){
@@ -212,6 +216,9 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
         haplotypeBAMWriter = AssemblyBasedCallerUtils.createBamWriter(hcArgs, createBamOutIndex, createBamOutMD5, readsHeader);
         assemblyEngine = hcArgs.createReadThreadingAssembler();
         likelihoodCalculationEngine = AssemblyBasedCallerUtils.createLikelihoodCalculationEngine(hcArgs.likelihoodArgs);
+        if ( hcArgs.referenceOnlyRegionScreen != ReferenceOnlyRegionScreen.Mode.OFF ) {
+            referenceOnlyRegionScreen = new ReferenceOnlyRegionScreen(hcArgs.referenceOnlyRegionScreen, READ_QUALITY_FILTER_THRESHOLD);
+        }
 
         trimmer.initialize(hcArgs.assemblerArgs, readsHeader.getSequenceDictionary(),
                 hcArgs.standardArgs.genotypingOutputMode == GenotypingOutputMode.GENOTYPE_GIVEN_ALLELES, emitReferenceConfidence());
@@ -538,6 +545,27 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
             return referenceModelForNoVariation(region, true, VCpriors);
         }
 
+        if ( referenceOnlyRegionScreen != null && givenAlleles.isEmpty() ) {
+            final boolean referenceOnly = referenceOnlyRegionScreen.isReferenceOnly(region, region.getFullReference(referenceReader));
+            if ( referenceOnlyRegionScreen.getMode() == ReferenceOnlyRegionScreen.Mode.SKIP ) {
+                if ( referenceOnly ) {
+                    // no read shows any evidence of variation, so there's nothing to assemble
+                    return referenceModelForNoVariation(region, true, VCpriors);
+                }
+            } else {
+                final List<VariantContext> result = assembleAndCallRegion(region, features, givenAlleles, VCpriors);
+                referenceOnlyRegionScreen.recordFullResult(referenceOnly, result);
+                return result;
+            }
+        }
+
+        return assembleAndCallRegion(region, features, givenAlleles, VCpriors);
+    }
+
+    /**
+     * Assemble the reads of an active region, and genotype the haplotypes found
+     */
+    private List<VariantContext> assembleAndCallRegion(final AssemblyRegion region, final FeatureContext features, final List<VariantContext> givenAlleles, final List<VariantContext> VCpriors) {
         // run the local assembler, getting back a collection of information on how we should proceed
         final AssemblyResultSet untrimmedAssemblyResult =  AssemblyBasedCallerUtils.assembleReads(region, givenAlleles, hcArgs, readsHeader, samplesList, logger, referenceReader, assemblyEngine, aligner, !hcArgs.doNotCorrectOverlappingBaseQualities);
         
@@ -699,6 +727,10 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
      */
     public void shutdown() {
         likelihoodCalculationEngine.close();
+        referenceConfidenceModel.close();
+        if ( referenceOnlyRegionScreen != null ) {
+            referenceOnlyRegionScreen.logStatistics(logger);
+        }
         aligner.close();
         if ( haplotypeBAMWriter.isPresent() ) {
             haplotypeBAMWriter.get().close();
@@ -68,6 +68,26 @@ public final class LikelihoodEngineArgumentCollection implements Serializable {
     @Argument(fullName="phred-scaled-global-read-mismapping-rate", doc="The global assumed mismapping rate for reads", optional = true)
     public int phredScaledGlobalReadMismappingRate = 45;
 
+    /**
+     * Overlapping or adjacent active regions (for example, because of region padding, in GVCF mode, or when
+     * force-calling alleles) often evaluate the same reads against haplotypes with exactly the same bases. With a
+     * positive cache size, the PairHMM likelihood of each such read and haplotype is computed only once, and reused
+     * until the traversal moves past the read. The cache holds at most this many reads; the hit rate and an estimate of
+     * the PairHMM time saved are logged at the end of the run.
+     */
+    @Advanced
+    @Argument(fullName = "pair-hmm-likelihood-cache-size", doc = "Maximum number of reads whose PairHMM likelihoods are cached for reuse in later active regions (0 to disable the cache)", optional = true, minValue = 0)
+    public int pairHMMLikelihoodCacheSize = 0;
+
+    /**
+     * Number of threads on which to run a Java (that is, not a native) PairHMM implementation. The reads of each active
+     * region are split by sample and into blocks, which are evaluated concurrently. Native implementations manage their
+     * own threads (see --native-pair-hmm-threads) and ignore this argument.
+     */
+    @Advanced
+    @Argument(fullName = "java-pair-hmm-threads", doc = "How many threads a Java PairHMM implementation should use", optional = true, minValue = 1)
+    public int javaPairHMMThreads = 1;
+
     @ArgumentCollection
     public PairHMMNativeArgumentCollection pairHMMNativeArgs = new PairHMMNativeArgumentCollection();
 
@@ -0,0 +1,277 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
+
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.genotyper.LikelihoodMatrix;
+import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+import org.broadinstitute.hellbender.utils.pairhmm.PairHMM;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadUtils;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * A bounded cache of PairHMM log10 likelihoods of reads given haplotypes, for {@link PairHMMLikelihoodCalculationEngine}.
+ *
+ * Overlapping or adjacent assembly regions (because of padding, in GVCF mode, or when force-calling alleles) often
+ * evaluate the same read against haplotypes with exactly the same bases. The PairHMM likelihood of a read given a
+ * haplotype depends only on the bases and (already adjusted) qualities of the read and on the bases of the haplotype,
+ * so those likelihoods can be reused rather than recomputed.
+ *
+ * Reads are keyed by their bases and base, insertion and deletion qualities, and haplotypes by their bases. Keys are
+ * compared in full, so a hash collision can never return the wrong likelihood. Reads are evicted once the traversal
+ * moves past them (that is, once the reads being evaluated all start after the end of the cached read), and the
+ * oldest reads are evicted when there are more than the maximum number of reads in the cache.
+ *
+ * Not thread-safe.
+ */
+final class PairHMMLikelihoodCache {
+
+    private final int maxReads;
+
+    /**
+     * Cached reads, in the order in which they were added (and so, roughly, in traversal order)
+     */
+    private final LinkedHashMap<ReadKey, CachedRead> cache;
+
+    private long pairsLookedUp = 0;
+    private long pairsFound = 0;
+    private long pairsComputed = 0;
+    private long computeNanos = 0;
+
+    /**
+     * @param maxReads maximum number of reads to keep likelihoods for (> 0)
+     */
+    PairHMMLikelihoodCache(final int maxReads) {
+        Utils.validateArg(maxReads > 0, () -> "maxReads must be > 0 but got " + maxReads);
+        this.maxReads = maxReads;
+        this.cache = new LinkedHashMap<ReadKey, CachedRead>(16, 0.75f, false) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<ReadKey, CachedRead> eldest) {
+                return size() > PairHMMLikelihoodCache.this.maxReads;
+            }
+        };
+    }
+
+    /**
+     * Fill in the likelihoods of every read given every haplotype, taking them from the cache where possible, and
+     * running the PairHMM on the reads with any likelihood missing from the cache (given all the haplotypes). Newly
+     * computed likelihoods are added to the cache.
+     *
+     * @param pairHMM computes the likelihoods that aren't in the cache, such as {@link PairHMM#computeLog10Likelihoods}
+     * @param likelihoods where to put the likelihoods. Its reads are the original reads, used for their positions.
+     * @param processedReads the reads to evaluate, with their qualities already adjusted, in the same order as the reads of likelihoods
+     * @param gapContinuationPenalties gap continuation penalties of the processed reads
+     */
+    void computeLog10Likelihoods(final Log10LikelihoodsComputation pairHMM,
+                                 final LikelihoodMatrix<Haplotype> likelihoods,
+                                 final List<GATKRead> processedReads,
+                                 final Map<GATKRead, byte[]> gapContinuationPenalties) {
+        Utils.validateArg(processedReads.size() == likelihoods.numberOfReads(), "there must be one processed read for each read");
+        evictReadsBefore(likelihoods.reads());
+
+        final int haplotypeCount = likelihoods.numberOfAlleles();
+        final HaplotypeKey[] haplotypeKeys = new HaplotypeKey[haplotypeCount];
+        for (int h = 0; h < haplotypeCount; h++) {
+            haplotypeKeys[h] = new HaplotypeKey(likelihoods.getAllele(h).getBases());
+        }
+
+        // look up every pair, noting which reads are involved in pairs that still need to be computed
+        final int readCount = processedReads.size();
+        final CachedRead[] cachedReads = new CachedRead[readCount];
+        final List<Integer> readsToCompute = new ArrayList<>();
+        for (int r = 0; r < readCount; r++) {
+            final GATKRead processedRead = processedReads.get(r);
+            final ReadKey key = new ReadKey(processedRead);
+            CachedRead cachedRead = cache.get(key);
+            if (cachedRead == null) {
+                final GATKRead read = likelihoods.getRead(r);
+                cachedRead = new CachedRead(read.getContig(), read.getEnd());
+                cache.put(key, cachedRead);
+            }
+            cachedReads[r] = cachedRead;
+
+            boolean missing = false;
+            for (int h = 0; h < haplotypeCount; h++) {
+                final Double cached = cachedRead.likelihoods.get(haplotypeKeys[h]);
+                if (cached != null) {
+                    likelihoods.set(h, r, cached);
+                } else {
+                    missing = true;
+                }
+            }
+            if (missing) {
+                readsToCompute.add(r);
+            }
+        }
+        final long pairsToLookUp = (long)readCount * haplotypeCount;
+        pairsLookedUp += pairsToLookUp;
+        if (readsToCompute.isEmpty()) {
+            pairsFound += pairsToLookUp;
+            return;
+        }
+
+        // run the PairHMM on those reads given every haplotype, whether or not the pair was in the cache. Only the reads
+        // are subset: the PairHMM was initialized with all of the haplotypes, and the native implementations lay out
+        // their results for all of them, so they can't be given a subset of the haplotypes.
+        final int[] readIndices = readsToCompute.stream().mapToInt(Integer::intValue).toArray();
+        final LikelihoodMatrix<Haplotype> toCompute = readIndices.length == readCount ? likelihoods
+                : new SubsetLikelihoodMatrix(likelihoods, readIndices, IntStream.range(0, haplotypeCount).toArray());
+        final List<GATKRead> processedReadsToCompute = new ArrayList<>(readIndices.length);
+        for (final int r : readIndices) {
+            processedReadsToCompute.add(processedReads.get(r));
+        }
+
+        final long startTime = System.nanoTime();
+        pairHMM.compute(toCompute, processedReadsToCompute, gapContinuationPenalties);
+        computeNanos += System.nanoTime() - startTime;
+        final long pairsToCompute = (long)readIndices.length * haplotypeCount;
+        pairsComputed += pairsToCompute;
+        pairsFound += pairsToLookUp - pairsToCompute;
+
+        for (final int r : readIndices) {
+            for (int h = 0; h < haplotypeCount; h++) {
+                cachedReads[r].likelihoods.put(haplotypeKeys[h], likelihoods.get(h, r));
+            }
+        }
+    }
+
+    /**
+     * Evict the reads that the traversal has moved past: those on another contig, or ending before the first of the
+     * given reads starts. Reads are checked in the order in which they were added, stopping at the first one that
+     * can't be evicted yet, so a read that ends after reads added later may stay in the cache a little longer than
+     * it has to.
+     */
+    private void evictReadsBefore(final List<GATKRead> reads) {
+        if (reads.isEmpty() || cache.isEmpty()) {
+            return;
+        }
+        final String contig = reads.get(0).getContig();
+        int start = Integer.MAX_VALUE;
+        for (final GATKRead read : reads) {
+            start = Math.min(start, read.getStart());
+        }
+
+        final Iterator<CachedRead> iterator = cache.values().iterator();
+        while (iterator.hasNext()) {
+            final CachedRead cachedRead = iterator.next();
+            if (Objects.equals(cachedRead.contig, contig) && cachedRead.end >= start) {
+                break;
+            }
+            iterator.remove();
+        }
+    }
+
+    /**
+     * @return the number of reads currently in the cache
+     */
+    int size() {
+        return cache.size();
+    }
+
+    long getPairsLookedUp() {
+        return pairsLookedUp;
+    }
+
+    long getPairsFound() {
+        return pairsFound;
+    }
+
+    /**
+     * @return an estimate of the time that the cache saved, in nanoseconds: the number of pairs found in the cache
+     *         times the average time the PairHMM took per pair it computed
+     */
+    long getEstimatedNanosSaved() {
+        return pairsComputed == 0 ? 0 : (long)((double)computeNanos / pairsComputed * pairsFound);
+    }
+
+    void logStatistics(final Logger logger) {
+        logger.info(String.format("PairHMM likelihood cache: found %d of %d read/haplotype likelihoods (%.2f%%) in the cache, saving an estimated %.2f seconds of PairHMM time",
+                pairsFound, pairsLookedUp, pairsLookedUp == 0 ? 0.0 : 100.0 * pairsFound / pairsLookedUp, getEstimatedNanosSaved() * 1e-9));
+    }
+
+    /**
+     * Computes the log10 likelihoods of processed reads given haplotypes, as {@link PairHMM#computeLog10Likelihoods} does
+     */
+    @FunctionalInterface
+    interface Log10LikelihoodsComputation {
+        void compute(LikelihoodMatrix<Haplotype> likelihoods, List<GATKRead> processedReads, Map<GATKRead, byte[]> gapContinuationPenalties);
+    }
+
+    /**
+     * A read in the cache: its position, and its log10 likelihoods given each haplotype evaluated so far
+     */
+    private static final class CachedRead {
+        private final String contig;
+        private final int end;
+        private final Map<HaplotypeKey, Double> likelihoods = new HashMap<>();
+
+        private CachedRead(final String contig, final int end) {
+            this.contig = contig;
+            this.end = end;
+        }
+    }
+
+    /**
+     * Everything about a processed read that its PairHMM likelihoods depend on
+     */
+    private static final class ReadKey {
+        private final byte[] bases;
+        private final byte[] quals;
+        private final byte[] insertionQuals;
+        private final byte[] deletionQuals;
+        private final int hashCode;
+
+        private ReadKey(final GATKRead processedRead) {
+            bases = processedRead.getBases();
+            quals = processedRead.getBaseQualities();
+            insertionQuals = ReadUtils.getBaseInsertionQualities(processedRead);
+            deletionQuals = ReadUtils.getBaseDeletionQualities(processedRead);
+            hashCode = ((Arrays.hashCode(bases) * 31 + Arrays.hashCode(quals)) * 31 + Arrays.hashCode(insertionQuals)) * 31 + Arrays.hashCode(deletionQuals);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ReadKey)) {
+                return false;
+            }
+            final ReadKey other = (ReadKey) o;
+            return hashCode == other.hashCode && Arrays.equals(bases, other.bases) && Arrays.equals(quals, other.quals)
+                    && Arrays.equals(insertionQuals, other.insertionQuals) && Arrays.equals(deletionQuals, other.deletionQuals);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * The bases of a haplotype (unlike {@link Haplotype#equals}, which also compares whether it's the reference)
+     */
+    private static final class HaplotypeKey {
+        private final byte[] bases;
+        private final int hashCode;
+
+        private HaplotypeKey(final byte[] bases) {
+            this.bases = bases;
+            this.hashCode = Arrays.hashCode(bases);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return this == o || (o instanceof HaplotypeKey && hashCode == ((HaplotypeKey) o).hashCode && Arrays.equals(bases, ((HaplotypeKey) o).bases));
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
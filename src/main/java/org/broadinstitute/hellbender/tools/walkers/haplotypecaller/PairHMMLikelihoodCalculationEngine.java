@@ -13,6 +13,7 @@ import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.genotyper.*;
 import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
 import org.broadinstitute.hellbender.utils.pairhmm.PairHMM;
+import org.broadinstitute.hellbender.utils.pairhmm.VectorLoglessPairHMM;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.ReadUtils;
 import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
@@ -22,6 +23,10 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.PrintStream;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.IntStream;
 
 /*
  * Classic likelihood computation: full pair-hmm all haplotypes vs all reads.
@@ -34,6 +39,13 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
     private static final int MAX_REPEAT_LENGTH   = 20;
     private static final int MIN_ADJUSTED_QSCORE = 10;
 
+    /**
+     * When a Java PairHMM runs on several threads, each sample's reads are split into about this many blocks per
+     * thread (to balance the load), but blocks have at least {@link #MIN_READS_PER_PAIRHMM_BLOCK} reads
+     */
+    private static final int PAIRHMM_BLOCKS_PER_THREAD = 4;
+    private static final int MIN_READS_PER_PAIRHMM_BLOCK = 8;
+
     @VisibleForTesting
     static final double INITIAL_QSCORE = 40.0;
 
@@ -43,6 +55,19 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
 
     private final PairHMM pairHMM;
 
+    private final PairHMM.Implementation hmmType;
+    private final PairHMMNativeArguments hmmArguments;
+
+    /**
+     * Threads that run a Java PairHMM on blocks of reads, or null to run it only on the calling thread
+     */
+    private final ForkJoinPool pairHMMPool;
+
+    /**
+     * PairHMMs for the threads of {@link #pairHMMPool} (PairHMMs are not thread-safe), not in use at the moment
+     */
+    private final Queue<PairHMM> idleBlockPairHMMs = new ConcurrentLinkedQueue<>();
+
     @VisibleForTesting
     static boolean writeLikelihoodsToFile = false;
 
@@ -73,6 +98,11 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
     
     private final byte baseQualityScoreThreshold;
 
+    /**
+     * Likelihoods computed in earlier regions, or null if they're not being cached
+     */
+    private final PairHMMLikelihoodCache likelihoodCache;
+
     /**
      * The expected rate of random sequencing errors for a read originating from its true haplotype.
      *
@@ -126,6 +156,68 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
                                               final double log10globalReadMismappingRate,
                                               final PCRErrorModel pcrErrorModel,
                                               final byte baseQualityScoreThreshold) {
+        this( constantGCP, arguments, hmmType, log10globalReadMismappingRate, pcrErrorModel, baseQualityScoreThreshold, 0 );
+    }
+
+    /**
+     * Create a new PairHMMLikelihoodCalculationEngine using provided parameters and hmm to do its calculations
+     *
+     * @param constantGCP the gap continuation penalty to use with the PairHMM
+     * @param hmmType the type of the HMM to use
+     * @param log10globalReadMismappingRate the global mismapping probability, in log10(prob) units.  A value of
+     *                                      -3 means that the chance that a read doesn't actually belong at this
+     *                                      location in the genome is 1 in 1000.  The effect of this parameter is
+     *                                      to cap the maximum likelihood difference between the reference haplotype
+     *                                      and the best alternative haplotype by -3 log units.  So if the best
+     *                                      haplotype is at -10 and this parameter has a value of -3 then even if the
+     *                                      reference haplotype gets a score of -100 from the pairhmm it will be
+     *                                      assigned a likelihood of -13.
+     * @param pcrErrorModel model to correct for PCR indel artifacts
+     * @param baseQualityScoreThreshold Base qualities below this threshold will be reduced to the minimum usable base
+     *                                  quality.
+     * @param likelihoodCacheSize maximum number of reads whose likelihoods are cached for reuse in later regions
+     *                            (see {@link PairHMMLikelihoodCache}), or 0 for no cache
+     */
+    public PairHMMLikelihoodCalculationEngine(final byte constantGCP,
+                                              final PairHMMNativeArguments arguments,
+                                              final PairHMM.Implementation hmmType,
+                                              final double log10globalReadMismappingRate,
+                                              final PCRErrorModel pcrErrorModel,
+                                              final byte baseQualityScoreThreshold,
+                                              final int likelihoodCacheSize) {
+        this( constantGCP, arguments, hmmType, log10globalReadMismappingRate, pcrErrorModel, baseQualityScoreThreshold, likelihoodCacheSize, 1 );
+    }
+
+    /**
+     * Create a new PairHMMLikelihoodCalculationEngine using provided parameters and hmm to do its calculations
+     *
+     * @param constantGCP the gap continuation penalty to use with the PairHMM
+     * @param hmmType the type of the HMM to use
+     * @param log10globalReadMismappingRate the global mismapping probability, in log10(prob) units.  A value of
+     *                                      -3 means that the chance that a read doesn't actually belong at this
+     *                                      location in the genome is 1 in 1000.  The effect of this parameter is
+     *                                      to cap the maximum likelihood difference between the reference haplotype
+     *                                      and the best alternative haplotype by -3 log units.  So if the best
+     *                                      haplotype is at -10 and this parameter has a value of -3 then even if the
+     *                                      reference haplotype gets a score of -100 from the pairhmm it will be
+     *                                      assigned a likelihood of -13.
+     * @param pcrErrorModel model to correct for PCR indel artifacts
+     * @param baseQualityScoreThreshold Base qualities below this threshold will be reduced to the minimum usable base
+     *                                  quality.
+     * @param likelihoodCacheSize maximum number of reads whose likelihoods are cached for reuse in later regions
+     *                            (see {@link PairHMMLikelihoodCache}), or 0 for no cache
+     * @param javaPairHMMThreads number of threads on which to run a Java PairHMM implementation, splitting the work by
+     *                           sample and block of reads. Native implementations, which manage their own threads,
+     *                           always run on the calling thread.
+     */
+    public PairHMMLikelihoodCalculationEngine(final byte constantGCP,
+                                              final PairHMMNativeArguments arguments,
+                                              final PairHMM.Implementation hmmType,
+                                              final double log10globalReadMismappingRate,
+                                              final PCRErrorModel pcrErrorModel,
+                                              final byte baseQualityScoreThreshold,
+                                              final int likelihoodCacheSize,
+                                              final int javaPairHMMThreads) {
         Utils.nonNull(hmmType, "hmmType is null");
         Utils.nonNull(pcrErrorModel, "pcrErrorModel is null");
         if (constantGCP < 0){
@@ -138,6 +230,8 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
         this.log10globalReadMismappingRate = log10globalReadMismappingRate;
         this.pcrErrorModel = pcrErrorModel;
         this.pairHMM = hmmType.makeNewHMM(arguments);
+        this.hmmType = hmmType;
+        this.hmmArguments = arguments;
 
         initializePCRErrorModel();
 
@@ -147,6 +241,19 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
             throw new IllegalArgumentException("baseQualityScoreThreshold must be greater than or equal to " + QualityUtils.MIN_USABLE_Q_SCORE + " (QualityUtils.MIN_USABLE_Q_SCORE)");
         }
         this.baseQualityScoreThreshold = baseQualityScoreThreshold;
+
+        if (likelihoodCacheSize < 0) {
+            throw new IllegalArgumentException("likelihoodCacheSize must be non-negative");
+        }
+        this.likelihoodCache = likelihoodCacheSize > 0 ? new PairHMMLikelihoodCache(likelihoodCacheSize) : null;
+
+        if (javaPairHMMThreads < 1) {
+            throw new IllegalArgumentException("javaPairHMMThreads must be positive");
+        }
+        if (javaPairHMMThreads > 1 && pairHMM instanceof VectorLoglessPairHMM) {
+            logger.info("Running the native PairHMM on a single calling thread; it uses its own threads instead of the " + javaPairHMMThreads + " Java PairHMM threads");
+        }
+        this.pairHMMPool = javaPairHMMThreads > 1 && !(pairHMM instanceof VectorLoglessPairHMM) ? new ForkJoinPool(javaPairHMMThreads) : null;
     }
 
     private PrintStream makeLikelihoodStream() {
@@ -162,7 +269,14 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
         if ( likelihoodsStream != null ) {
             likelihoodsStream.close();
         }
+        if ( pairHMMPool != null ) {
+            pairHMMPool.shutdown();
+        }
+        // only the main PairHMM is closed: closing a Java PairHMM just logs the total time spent in all PairHMMs
         pairHMM.close();
+        if ( likelihoodCache != null ) {
+            likelihoodCache.logStatistics(logger);
+        }
     }
 
     @Override
@@ -179,8 +293,19 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
         // Add likelihoods for each sample's reads to our result
         final ReadLikelihoods<Haplotype> result = new ReadLikelihoods<>(samples, haplotypes, perSampleReadList);
         final int sampleCount = result.numberOfSamples();
-        for (int i = 0; i < sampleCount; i++) {
-            computeReadLikelihoods(result.sampleMatrix(i));
+        if (pairHMMPool == null || likelihoodCache != null || likelihoodsStream != null) {
+            // neither the likelihood cache nor the debug output is thread-safe, so with either of them only the blocks
+            // of reads of each sample run concurrently
+            for (int i = 0; i < sampleCount; i++) {
+                computeReadLikelihoods(result.sampleMatrix(i));
+            }
+        } else {
+            final List<ForkJoinTask<?>> sampleTasks = new ArrayList<>(sampleCount);
+            for (int i = 0; i < sampleCount; i++) {
+                final LikelihoodMatrix<Haplotype> sampleLikelihoods = result.sampleMatrix(i);
+                sampleTasks.add(ForkJoinTask.adapt(() -> computeReadLikelihoods(sampleLikelihoods)));
+            }
+            invokeAllInPairHMMPool(sampleTasks);
         }
 
         result.normalizeLikelihoods(log10globalReadMismappingRate);
@@ -249,11 +374,58 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
         final Map<GATKRead, byte[]> gapContinuationPenalties = buildGapContinuationPenalties(processedReads, constantGCP);
 
         // Run the PairHMM to calculate the log10 likelihood of each (processed) reads' arising from each haplotype
-        pairHMM.computeLog10Likelihoods(likelihoods, processedReads, gapContinuationPenalties);
+        if ( likelihoodCache != null ) {
+            likelihoodCache.computeLog10Likelihoods(this::computeLog10Likelihoods, likelihoods, processedReads, gapContinuationPenalties);
+        } else {
+            computeLog10Likelihoods(likelihoods, processedReads, gapContinuationPenalties);
+        }
 
         writeDebugLikelihoods(likelihoods);
     }
 
+    /**
+     * Run the PairHMM on the processed reads of one sample. With a pool of Java PairHMM threads, the reads are split
+     * into blocks that are evaluated concurrently, each by a PairHMM of its own, writing directly into likelihoods.
+     */
+    private void computeLog10Likelihoods(final LikelihoodMatrix<Haplotype> likelihoods, final List<GATKRead> processedReads, final Map<GATKRead, byte[]> gapContinuationPenalties) {
+        if ( pairHMMPool == null ) {
+            pairHMM.computeLog10Likelihoods(likelihoods, processedReads, gapContinuationPenalties);
+            return;
+        }
+
+        final int readCount = processedReads.size();
+        final int blockCount = pairHMMPool.getParallelism() * PAIRHMM_BLOCKS_PER_THREAD;
+        final int readsPerBlock = Math.max(MIN_READS_PER_PAIRHMM_BLOCK, (readCount + blockCount - 1) / blockCount);
+        final int[] alleleIndices = IntStream.range(0, likelihoods.numberOfAlleles()).toArray();
+        final List<ForkJoinTask<?>> blockTasks = new ArrayList<>();
+        for (int start = 0; start < readCount; start += readsPerBlock) {
+            final int end = Math.min(start + readsPerBlock, readCount);
+            final LikelihoodMatrix<Haplotype> blockLikelihoods = new SubsetLikelihoodMatrix(likelihoods, IntStream.range(start, end).toArray(), alleleIndices);
+            final List<GATKRead> blockReads = processedReads.subList(start, end);
+            blockTasks.add(ForkJoinTask.adapt(() -> {
+                final PairHMM idlePairHMM = idleBlockPairHMMs.poll();
+                final PairHMM blockPairHMM = idlePairHMM != null ? idlePairHMM : hmmType.makeNewHMM(hmmArguments);
+                try {
+                    blockPairHMM.computeLog10Likelihoods(blockLikelihoods, blockReads, gapContinuationPenalties);
+                } finally {
+                    idleBlockPairHMMs.add(blockPairHMM);
+                }
+            }));
+        }
+        invokeAllInPairHMMPool(blockTasks);
+    }
+
+    /**
+     * Run the tasks in {@link #pairHMMPool}, and wait for them to finish
+     */
+    private void invokeAllInPairHMMPool(final List<ForkJoinTask<?>> tasks) {
+        if ( ForkJoinTask.getPool() == pairHMMPool ) {
+            ForkJoinTask.invokeAll(tasks);
+        } else {
+            pairHMMPool.invoke(ForkJoinTask.adapt(() -> { ForkJoinTask.invokeAll(tasks); }));
+        }
+    }
+
     /**
      * Pre-processing of the reads to be evaluated at the current location from the current sample.
      * We apply the PCR Error Model, and cap the minimum base, insertion, and deletion qualities of each read.
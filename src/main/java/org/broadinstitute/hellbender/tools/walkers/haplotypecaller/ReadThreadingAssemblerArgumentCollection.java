@@ -22,6 +22,8 @@ public abstract class ReadThreadingAssemblerArgumentCollection implements Serial
 
     public static final String CAPTURE_ASSEMBLY_FAILURE_BAM_LONG_NAME = "capture-assembly-failure-bam";
 
+    public static final String PARALLEL_KMER_ASSEMBLY_LONG_NAME = "parallel-kmer-assembly";
+
 
     //---------------------------------------------------------------------------------------------------------------
     //
@@ -81,6 +83,15 @@ public abstract class ReadThreadingAssemblerArgumentCollection implements Serial
     @Argument(fullName="allow-non-unique-kmers-in-ref", doc="Allow graphs that have non-unique kmers in the reference", optional = true)
     public boolean allowNonUniqueKmersInRef = false;
 
+    /**
+     * The graphs for the different kmer sizes (including the larger kmer sizes tried when graph cycles are detected)
+     * are independent, so they can be built, pruned and cleaned concurrently. They are built on the JVM's common
+     * fork-join pool, which is shared by all assembly regions. The results are identical to those of sequential assembly.
+     */
+    @Advanced
+    @Argument(fullName=PARALLEL_KMER_ASSEMBLY_LONG_NAME, doc="Build the assembly graphs for the different kmer sizes concurrently", optional = true)
+    public boolean parallelKmerAssembly = false;
+
     /**
      * If fewer samples than the specified number pass the minPruning threshold for a given path, that path will be eliminated from the graph.
      */
@@ -25,6 +25,9 @@ import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
 import org.broadinstitute.hellbender.utils.variant.HomoSapiensConstants;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
 
 /**
  * Code for estimating the reference confidence
@@ -42,6 +45,12 @@ public class ReferenceConfidenceModel {
     private final int indelInformativeDepthIndelSize;
     private final int numRefSamplesForPrior;
 
+    /**
+     * Threads that compute the reference confidence of blocks of positions, or null to compute it on the calling
+     * thread only
+     */
+    private final ForkJoinPool refConfidencePool;
+
     private final PosteriorProbabilitiesUtils.PosteriorProbabilitiesOptions options;
 
     /**
@@ -100,6 +109,10 @@ public class ReferenceConfidenceModel {
     private static final boolean ignoreInputSamplesForMissingVariants = true;
     private static final boolean useFlatPriorsForIndels = false;
 
+    /**
+     * Number of consecutive positions whose reference confidence is computed by one task, when running on several threads
+     */
+    private static final int POSITIONS_PER_TASK = 50;
 
     /**
      * Create a new ReferenceConfidenceModel
@@ -112,11 +125,29 @@ public class ReferenceConfidenceModel {
                                     final SAMFileHeader header,
                                     final int indelInformativeDepthIndelSize,
                                     final int numRefForPrior) {
+        this(samples, header, indelInformativeDepthIndelSize, numRefForPrior, 1);
+    }
+
+    /**
+     * Create a new ReferenceConfidenceModel
+     *
+     * @param samples the list of all samples we'll be considering with this model
+     * @param header the SAMFileHeader describing the read information (used for debugging)
+     * @param indelInformativeDepthIndelSize the max size of indels to consider when calculating indel informative depths
+     * @param threads number of threads on which to compute the reference confidence of the positions of a region. With
+     *                more than one, call {@link #close} when done.
+     */
+    public ReferenceConfidenceModel(final SampleList samples,
+                                    final SAMFileHeader header,
+                                    final int indelInformativeDepthIndelSize,
+                                    final int numRefForPrior,
+                                    final int threads) {
         Utils.nonNull(samples, "samples cannot be null");
         Utils.validateArg( samples.numberOfSamples() > 0, "samples cannot be empty");
         Utils.nonNull(header, "header cannot be empty");
         //TODO: code and comment disagree -- which is right?
         Utils.validateArg( indelInformativeDepthIndelSize >= 0, () -> "indelInformativeDepthIndelSize must be >= 1 but got " + indelInformativeDepthIndelSize);
+        Utils.validateArg( threads >= 1, () -> "threads must be >= 1 but got " + threads);
 
         this.samples = samples;
         this.indelInformativeDepthIndelSize = indelInformativeDepthIndelSize;
@@ -124,6 +155,16 @@ public class ReferenceConfidenceModel {
         this.options = new PosteriorProbabilitiesUtils.PosteriorProbabilitiesOptions(HomoSapiensConstants.SNP_HETEROZYGOSITY,
                 HomoSapiensConstants.INDEL_HETEROZYGOSITY, useInputSamplesAlleleCounts, useMLEAC, ignoreInputSamplesForMissingVariants,
                 useFlatPriorsForIndels);
+        this.refConfidencePool = threads > 1 ? new ForkJoinPool(threads) : null;
+    }
+
+    /**
+     * Stop the threads of this model, if it has any
+     */
+    public void close() {
+        if ( refConfidencePool != null ) {
+            refConfidencePool.shutdown();
+        }
     }
 
     /**
@@ -189,16 +230,19 @@ public class ReferenceConfidenceModel {
         final int ploidy = ploidyModel.samplePloidy(0); // the first sample = the only sample in reference-confidence mode.
 
         final SimpleInterval refSpan = activeRegion.getSpan();
-        final List<ReadPileup> refPileups = AssemblyBasedCallerUtils.getPileupsOverReference(activeRegion.getHeader(), refSpan, readLikelihoods, samples);
+        final Iterator<ReadPileup> refPileups = AssemblyBasedCallerUtils.getPileupIteratorOverReference(activeRegion.getHeader(), refSpan, readLikelihoods, samples);
         final byte[] ref = refHaplotype.getBases();
-        final List<VariantContext> results = new ArrayList<>(refSpan.size());
         final String sampleName = readLikelihoods.getSample(0);
 
         final int globalRefOffset = refSpan.getStart() - activeRegion.getExtendedSpan().getStart();
-        // Note, we use an indexed for-loop here because this method has a large impact on the profile of HaplotypeCaller runtime in GVCF mode
-        final int refPileupsSize = refPileups.size();
-        for (int i = 0; i < refPileupsSize; i++) {
-            final ReadPileup pileup = refPileups.get(i);
+        // the priors may decode their genotypes lazily, which isn't thread-safe
+        if ( refConfidencePool != null && VCpriors.isEmpty() ) {
+            return calculateRefConfidenceOnSeveralThreads(ploidy, ref, sampleName, globalRefOffset, refSpan, refPileups, variantCalls, applyPriors);
+        }
+
+        final List<VariantContext> results = new ArrayList<>(refSpan.size());
+        while (refPileups.hasNext()) {
+            final ReadPileup pileup = refPileups.next();
             final Locatable curPos = pileup.getLocation();
             final int offset = curPos.getStart() - refSpan.getStart();
 
@@ -220,6 +264,63 @@ public class ReferenceConfidenceModel {
         return results;
     }
 
+    /**
+     * Calculate the reference confidence over refSpan, as {@link #calculateRefConfidence}, on the threads of
+     * {@link #refConfidencePool}, without priors.
+     *
+     * The calling thread builds the pileups, one position after the other, and counts the indel-informative reads of
+     * each position: {@link #readHasNoPlausibleIdealsOfSize} caches its results in the reads, and these depend on the
+     * position at which a read is first examined, so this has to be done in order. Everything else is computed by a
+     * task for each block of {@link #POSITIONS_PER_TASK} positions, forked as soon as the calling thread is done with
+     * the block. Results are stored by position, so they are returned in order.
+     */
+    private List<VariantContext> calculateRefConfidenceOnSeveralThreads(final int ploidy,
+                                                                        final byte[] ref,
+                                                                        final String sampleName,
+                                                                        final int globalRefOffset,
+                                                                        final SimpleInterval refSpan,
+                                                                        final Iterator<ReadPileup> refPileups,
+                                                                        final List<VariantContext> variantCalls,
+                                                                        final boolean applyPriors) {
+        getIndelPLs(ploidy, 0); // fill the shared indel PL cache for this ploidy before the tasks read it
+
+        final VariantContext[] results = new VariantContext[refSpan.size()];
+        final List<ForkJoinTask<?>> tasks = new ArrayList<>(results.length / POSITIONS_PER_TASK + 1);
+        for (int blockStart = 0; blockStart < results.length; blockStart += POSITIONS_PER_TASK) {
+            final int blockSize = Math.min(POSITIONS_PER_TASK, results.length - blockStart);
+            final ReadPileup[] pileups = new ReadPileup[blockSize];
+            final VariantContext[] overlappingSites = new VariantContext[blockSize];
+            final int[] nIndelInformativeReads = new int[blockSize];
+            for (int i = 0; i < blockSize; i++) {
+                final ReadPileup pileup = refPileups.next();
+                pileups[i] = pileup;
+                overlappingSites[i] = GATKVariantContextUtils.getOverlappingVariantContext(pileup.getLocation(), variantCalls);
+                if (overlappingSites[i] == null || overlappingSites[i].getStart() != pileup.getLocation().getStart()) {
+                    nIndelInformativeReads[i] = calcNReadsWithNoPlausibleIndelsReads(pileup, blockStart + i + globalRefOffset, ref, indelInformativeDepthIndelSize);
+                }
+            }
+
+            final int firstOffset = blockStart;
+            tasks.add(refConfidencePool.submit(() -> {
+                for (int i = 0; i < blockSize; i++) {
+                    final Locatable curPos = pileups[i].getLocation();
+                    final VariantContext overlappingSite = overlappingSites[i];
+                    final int refOffset = firstOffset + i + globalRefOffset;
+                    final int nInformativeReads = nIndelInformativeReads[i];
+                    if (overlappingSite != null && overlappingSite.getStart() == curPos.getStart()) {
+                        results[firstOffset + i] = applyPriors ? PosteriorProbabilitiesUtils.calculatePosteriorProbs(overlappingSite,
+                                Collections.emptyList(), numRefSamplesForPrior, options) : overlappingSite;
+                    } else {
+                        results[firstOffset + i] = makeReferenceConfidenceVariantContext(ploidy, ref[refOffset], sampleName, pileups[i], curPos, applyPriors,
+                                Collections.emptyList(), homRefCalc -> doIndelRefConfCalc(ploidy, nInformativeReads, (RefVsAnyResult) homRefCalc));
+                    }
+                }
+            }));
+        }
+        tasks.forEach(ForkJoinTask::join);
+
+        return new ArrayList<>(Arrays.asList(results));
+    }
 
    public VariantContext makeReferenceConfidenceVariantContext(final int ploidy,
                                                                  final byte[] ref,
@@ -232,7 +333,18 @@ public class ReferenceConfidenceModel {
                                                                  final List<VariantContext> VCpriors) {
         // Assume infinite population on a single sample.
         final int refOffset = offset + globalRefOffset;
-        final byte refBase = ref[refOffset];
+        return makeReferenceConfidenceVariantContext(ploidy, ref[refOffset], sampleName, pileup, curPos, applyPriors, VCpriors,
+                homRefCalc -> doIndelRefConfCalc(ploidy, ref, pileup, refOffset, homRefCalc));
+    }
+
+    private VariantContext makeReferenceConfidenceVariantContext(final int ploidy,
+                                                                 final byte refBase,
+                                                                 final String sampleName,
+                                                                 final ReadPileup pileup,
+                                                                 final Locatable curPos,
+                                                                 final boolean applyPriors,
+                                                                 final List<VariantContext> VCpriors,
+                                                                 final Consumer<ReferenceConfidenceResult> indelRefConfCalc) {
         final ReferenceConfidenceResult homRefCalc = calcGenotypeLikelihoodsOfRefVsAny(ploidy, pileup, refBase, BASE_QUAL_THRESHOLD, null, true);
 
         final Allele refAllele = Allele.create(refBase, true);
@@ -242,7 +354,7 @@ public class ReferenceConfidenceModel {
         gb.AD(homRefCalc.getAD());
         gb.DP(homRefCalc.getDP());
 
-        doIndelRefConfCalc(ploidy, ref, pileup, refOffset, homRefCalc);
+        indelRefConfCalc.accept(homRefCalc);
 
        addGenotypeData(homRefCalc, gb);
         if(!applyPriors) {
@@ -255,10 +367,13 @@ public class ReferenceConfidenceModel {
     }
 
     public void doIndelRefConfCalc(final int ploidy, final byte[] ref, final ReadPileup pileup, final int refOffset, final ReferenceConfidenceResult refResult) {
-        final RefVsAnyResult homRefCalc = (RefVsAnyResult)refResult;
+        final int nIndelInformativeReads = calcNReadsWithNoPlausibleIndelsReads(pileup, refOffset, ref, indelInformativeDepthIndelSize);
+        doIndelRefConfCalc(ploidy, nIndelInformativeReads, (RefVsAnyResult)refResult);
+    }
+
+    private void doIndelRefConfCalc(final int ploidy, final int nIndelInformativeReads, final RefVsAnyResult homRefCalc) {
         // genotype likelihood calculation
         final GenotypeLikelihoods snpGLs = GenotypeLikelihoods.fromLog10Likelihoods(homRefCalc.getGenotypeLikelihoodsCappedByHomRefLikelihood());
-        final int nIndelInformativeReads = calcNReadsWithNoPlausibleIndelsReads(pileup, refOffset, ref, indelInformativeDepthIndelSize);
         final GenotypeLikelihoods indelGLs = getIndelPLs(ploidy,nIndelInformativeReads);
 
         // now that we have the SNP and indel GLs, we take the one with the least confidence,
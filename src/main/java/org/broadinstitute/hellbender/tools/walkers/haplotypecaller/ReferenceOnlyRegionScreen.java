@@ -0,0 +1,210 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
+
+import htsjdk.samtools.CigarElement;
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.VariantContext;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.engine.AssemblyRegion;
+import org.broadinstitute.hellbender.utils.BaseUtils;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+
+import java.util.List;
+
+/**
+ * A cheap screen, run before local assembly, for active regions whose reads show no evidence of variation, so that
+ * the HaplotypeCaller can send them straight to the reference model instead of assembling them and running the PairHMM.
+ *
+ * A region is reference-only if none of its (well-mapped) reads, as aligned by the mapper, has an insertion, a deletion
+ * or a soft clip with more than {@link #MAX_HIGH_QUALITY_SOFT_CLIPPED_BASES} high-quality bases, and if no position of
+ * its extended span has {@link #MIN_MISMATCHING_READS} or more high-quality mismatches against the reference. A single
+ * high-quality mismatch is taken to be a sequencing error.
+ *
+ * The screen keeps counts of the regions it screens, and, in {@link Mode#VALIDATE} mode, of how many of the regions it
+ * would have skipped still had calls after the full assembly and genotyping, to measure its concordance with the full
+ * path.
+ *
+ * Not thread-safe.
+ */
+public final class ReferenceOnlyRegionScreen {
+
+    public enum Mode {
+        /**
+         * Don't screen regions
+         */
+        OFF,
+
+        /**
+         * Skip the assembly and genotyping of the regions that pass the screen
+         */
+        SKIP,
+
+        /**
+         * Screen regions, but assemble and genotype all of them, and report how often the regions that pass the
+         * screen have calls
+         */
+        VALIDATE
+    }
+
+    /**
+     * Minimum base quality of a mismatching or soft-clipped base to count as evidence of variation
+     */
+    static final byte MIN_EVIDENCE_BASE_QUALITY = 20;
+
+    /**
+     * Minimum number of reads with a high-quality mismatch at the same position for it to count as evidence of variation
+     */
+    static final int MIN_MISMATCHING_READS = 2;
+
+    /**
+     * Maximum number of high-quality bases in a soft clip that doesn't count as evidence of variation
+     */
+    static final int MAX_HIGH_QUALITY_SOFT_CLIPPED_BASES = 6;
+
+    private final Mode mode;
+    private final int minMappingQuality;
+
+    private long regionsScreened = 0;
+    private long referenceOnlyRegions = 0;
+    private long referenceOnlyRegionsWithCalls = 0;
+    private long otherRegionsWithoutCalls = 0;
+
+    /**
+     * @param mode whether, and how, to use the screen; not {@link Mode#OFF}
+     * @param minMappingQuality reads with a lower mapping quality are ignored, as they won't be genotyped
+     */
+    public ReferenceOnlyRegionScreen(final Mode mode, final int minMappingQuality) {
+        Utils.nonNull(mode);
+        Utils.validateArg(mode != Mode.OFF, "a screen that is off should not be created");
+        this.mode = mode;
+        this.minMappingQuality = minMappingQuality;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Screen a region, counting it in the statistics
+     *
+     * @param region an active region, before it's finalized for assembly
+     * @param reference reference bases of {@link AssemblyRegion#getReadSpanLoc()} of the region
+     * @return true if no read in the region shows evidence of variation within the region's extended span
+     */
+    public boolean isReferenceOnly(final AssemblyRegion region, final byte[] reference) {
+        Utils.nonNull(region);
+        Utils.nonNull(reference);
+        regionsScreened++;
+        final boolean referenceOnly = screen(region, reference);
+        if ( referenceOnly ) {
+            referenceOnlyRegions++;
+        }
+        return referenceOnly;
+    }
+
+    private boolean screen(final AssemblyRegion region, final byte[] reference) {
+        final SimpleInterval extendedSpan = region.getExtendedSpan();
+        final int referenceStart = region.getReadSpanLoc().getStart();
+        final int spanStart = extendedSpan.getStart();
+        final int[] mismatchingReads = new int[extendedSpan.size()];
+
+        for ( final GATKRead read : region.getReads() ) {
+            if ( read.isUnmapped() || read.getMappingQuality() < minMappingQuality ) {
+                continue;
+            }
+            final byte[] bases = read.getBases();
+            final byte[] quals = read.getBaseQualities();
+            int readOffset = 0;
+            int referencePosition = read.getStart();
+            for ( final CigarElement element : read.getCigarElements() ) {
+                final int length = element.getLength();
+                switch ( element.getOperator() ) {
+                    case I:
+                    case D:
+                        return false;
+                    case S:
+                        if ( countHighQualityBases(quals, readOffset, length) > MAX_HIGH_QUALITY_SOFT_CLIPPED_BASES ) {
+                            return false;
+                        }
+                        readOffset += length;
+                        break;
+                    case M:
+                    case EQ:
+                    case X:
+                        for ( int i = 0; i < length; i++ ) {
+                            final int position = referencePosition + i;
+                            final int spanOffset = position - spanStart;
+                            if ( spanOffset < 0 || spanOffset >= mismatchingReads.length ) {
+                                continue;
+                            }
+                            final byte refBase = reference[position - referenceStart];
+                            final byte readBase = bases[readOffset + i];
+                            if ( quals[readOffset + i] >= MIN_EVIDENCE_BASE_QUALITY && BaseUtils.isRegularBase(refBase) && BaseUtils.isRegularBase(readBase)
+                                    && ! BaseUtils.basesAreEqual(readBase, refBase) && ++mismatchingReads[spanOffset] >= MIN_MISMATCHING_READS ) {
+                                return false;
+                            }
+                        }
+                        readOffset += length;
+                        referencePosition += length;
+                        break;
+                    case N:
+                        referencePosition += length;
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static int countHighQualityBases(final byte[] quals, final int offset, final int length) {
+        int count = 0;
+        for ( int i = offset; i < offset + length; i++ ) {
+            if ( quals[i] >= MIN_EVIDENCE_BASE_QUALITY ) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Record the outcome of the full assembly and genotyping of a screened region, in {@link Mode#VALIDATE} mode
+     *
+     * @param referenceOnly what {@link #isReferenceOnly} returned for the region
+     * @param calls the calls for the region
+     */
+    public void recordFullResult(final boolean referenceOnly, final List<VariantContext> calls) {
+        final boolean hasCalls = calls.stream().anyMatch(vc -> vc.getAlternateAlleles().stream().anyMatch(a -> ! a.equals(Allele.NON_REF_ALLELE)));
+        if ( referenceOnly && hasCalls ) {
+            referenceOnlyRegionsWithCalls++;
+        } else if ( ! referenceOnly && ! hasCalls ) {
+            otherRegionsWithoutCalls++;
+        }
+    }
+
+    long getRegionsScreened() {
+        return regionsScreened;
+    }
+
+    long getReferenceOnlyRegions() {
+        return referenceOnlyRegions;
+    }
+
+    long getReferenceOnlyRegionsWithCalls() {
+        return referenceOnlyRegionsWithCalls;
+    }
+
+    public void logStatistics(final Logger logger) {
+        final double percentReferenceOnly = regionsScreened == 0 ? 0.0 : 100.0 * referenceOnlyRegions / regionsScreened;
+        if ( mode == Mode.SKIP ) {
+            logger.info(String.format("Reference-only region screen: skipped the assembly of %d of %d active regions (%.2f%%)",
+                    referenceOnlyRegions, regionsScreened, percentReferenceOnly));
+        } else {
+            logger.info(String.format("Reference-only region screen: %d of %d active regions (%.2f%%) would have been skipped; " +
+                            "%d of those had calls, and %d of the other regions had no calls",
+                    referenceOnlyRegions, regionsScreened, percentReferenceOnly, referenceOnlyRegionsWithCalls, otherRegionsWithoutCalls));
+        }
+    }
+}
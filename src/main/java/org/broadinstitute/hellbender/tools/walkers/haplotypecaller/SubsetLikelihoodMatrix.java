@@ -0,0 +1,97 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
+
+import org.broadinstitute.hellbender.utils.genotyper.LikelihoodMatrix;
+import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A view of some of the reads and alleles of a likelihood matrix. Likelihoods set in the view are set in the
+ * underlying matrix.
+ */
+final class SubsetLikelihoodMatrix implements LikelihoodMatrix<Haplotype> {
+    private final LikelihoodMatrix<Haplotype> matrix;
+    private final int[] readIndices;
+    private final int[] alleleIndices;
+    private final List<GATKRead> reads;
+    private final List<Haplotype> alleles;
+
+    /**
+     * @param matrix the underlying matrix
+     * @param readIndices indices in the underlying matrix of the reads in the view, in order
+     * @param alleleIndices indices in the underlying matrix of the alleles in the view, in order
+     */
+    SubsetLikelihoodMatrix(final LikelihoodMatrix<Haplotype> matrix, final int[] readIndices, final int[] alleleIndices) {
+        this.matrix = matrix;
+        this.readIndices = readIndices;
+        this.alleleIndices = alleleIndices;
+        this.reads = new ArrayList<>(readIndices.length);
+        for (final int r : readIndices) {
+            reads.add(matrix.getRead(r));
+        }
+        this.alleles = new ArrayList<>(alleleIndices.length);
+        for (final int a : alleleIndices) {
+            alleles.add(matrix.getAllele(a));
+        }
+    }
+
+    @Override
+    public List<GATKRead> reads() {
+        return Collections.unmodifiableList(reads);
+    }
+
+    @Override
+    public List<Haplotype> alleles() {
+        return Collections.unmodifiableList(alleles);
+    }
+
+    @Override
+    public void set(final int alleleIndex, final int readIndex, final double value) {
+        matrix.set(alleleIndices[alleleIndex], readIndices[readIndex], value);
+    }
+
+    @Override
+    public double get(final int alleleIndex, final int readIndex) {
+        return matrix.get(alleleIndices[alleleIndex], readIndices[readIndex]);
+    }
+
+    @Override
+    public int indexOfAllele(final Haplotype allele) {
+        return alleles.indexOf(allele);
+    }
+
+    @Override
+    public int indexOfRead(final GATKRead read) {
+        return reads.indexOf(read);
+    }
+
+    @Override
+    public int numberOfAlleles() {
+        return alleles.size();
+    }
+
+    @Override
+    public int numberOfReads() {
+        return reads.size();
+    }
+
+    @Override
+    public Haplotype getAllele(final int alleleIndex) {
+        return alleles.get(alleleIndex);
+    }
+
+    @Override
+    public GATKRead getRead(final int readIndex) {
+        return reads.get(readIndex);
+    }
+
+    @Override
+    public void copyAlleleLikelihoods(final int alleleIndex, final double[] dest, final int offset) {
+        for (int r = 0; r < readIndices.length; r++) {
+            dest[offset + r] = get(alleleIndex, r);
+        }
+    }
+}
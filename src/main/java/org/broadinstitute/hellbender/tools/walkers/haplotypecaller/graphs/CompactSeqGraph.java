@@ -0,0 +1,907 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.graphs;
+
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.IntPredicate;
+
+/**
+ * A compact, index-based copy of a {@link SeqGraph}, on which {@link SeqGraph#simplifyGraph()} runs its simplification
+ * cycles without creating a {@link SeqVertex}, a {@link BaseEdge} or any JGraphT structure per transformation.
+ *
+ * Vertices and edges are ints, indices into primitive arrays; each vertex keeps its outgoing and incoming edges in
+ * int arrays, and its sequence is a slice of a single arena of bases. New vertices whose sequence is a prefix, suffix
+ * or middle of another vertex's sequence (as when splitting common prefixes and suffixes) share the other vertex's
+ * bases rather than copying them; only merged sequences are appended to the arena. Removed vertices and edges are
+ * only marked as such, so ids are never reused and increase in order of addition.
+ *
+ * The transformations do exactly what {@link MergeDiamonds}, {@link MergeTails}, {@link SplitCommonSuffices},
+ * {@link MergeCommonSuffices} and {@link SeqGraph#zipLinearChains()} do on the SeqGraph. They visit vertices, and the
+ * edges of each vertex, in the order in which JGraphT would iterate over them (order of addition), and they add and
+ * remove vertices and edges in the same order, so that the result is the same graph. The only difference is that the
+ * SeqGraph transformations iterate over the neighbors of a vertex in hash set order, while these iterate over them in
+ * edge order.
+ *
+ * Once simplified, the graph is copied back into the SeqGraph with {@link #copyInto}, which removes the vertices and
+ * edges that were removed and adds the new ones, keeping the SeqGraph's vertex and edge iteration order. A single
+ * instance can be reused for many graphs, as its arrays are only grown, never shrunk.
+ *
+ * Not thread-safe.
+ */
+final class CompactSeqGraph {
+    private static final int NO_VERTEX = -1;
+    private static final int NO_EDGE = -1;
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int INITIAL_DEGREE_CAPACITY = 2;
+
+    // vertices, by id; removed vertices keep their id, with removedVertex set
+    private int vertexIdLimit = 0;
+    private int vertexCount = 0;
+    private int[] sequenceStart = new int[INITIAL_CAPACITY];
+    private int[] sequenceLength = new int[INITIAL_CAPACITY];
+    private boolean[] removedVertex = new boolean[INITIAL_CAPACITY];
+    private int[][] outgoingEdges = new int[INITIAL_CAPACITY][];
+    private int[] outDegree = new int[INITIAL_CAPACITY];
+    private int[][] incomingEdges = new int[INITIAL_CAPACITY][];
+    private int[] inDegree = new int[INITIAL_CAPACITY];
+
+    // the SeqGraph's own vertices, for the vertices it was loaded with
+    private SeqVertex[] seqVertices = new SeqVertex[INITIAL_CAPACITY];
+    private int loadedVertexCount = 0;
+
+    // edges, by id; removed edges have NO_VERTEX as their source
+    private int edgeIdLimit = 0;
+    private int edgeCount = 0;
+    private int[] edgeSource = new int[INITIAL_CAPACITY];
+    private int[] edgeTarget = new int[INITIAL_CAPACITY];
+    private int[] edgeMultiplicity = new int[INITIAL_CAPACITY];
+    private boolean[] edgeIsRef = new boolean[INITIAL_CAPACITY];
+
+    // the SeqGraph's own edges, for the edges it was loaded with
+    private BaseEdge[] baseEdges = new BaseEdge[INITIAL_CAPACITY];
+    private int loadedEdgeCount = 0;
+
+    private byte[] bases = new byte[INITIAL_CAPACITY * 16];
+    private int basesLength = 0;
+
+    // whether any loaded vertex or edge was removed
+    private boolean removedLoaded = false;
+
+    // vertices already tried by splitCommonSuffices
+    private final BitSet alreadySplit = new BitSet();
+
+    // scratch space for the vertices involved in a transformation
+    private int[] scratchVertices = new int[INITIAL_CAPACITY];
+
+    /**
+     * Replace the contents of this graph with a copy of graph
+     *
+     * @param graph a non-null graph
+     */
+    void load(final SeqGraph graph) {
+        Utils.nonNull(graph);
+        clear();
+        final Set<SeqVertex> vertexSet = graph.vertexSet();
+        final Map<SeqVertex, Integer> ids = new HashMap<>(vertexSet.size() * 2);
+        for ( final SeqVertex v : vertexSet ) {
+            final byte[] sequence = v.getSequence();
+            final int id = addVertex(appendBases(sequence), sequence.length);
+            seqVertices[id] = v;
+            ids.put(v, id);
+        }
+        // JGraphT keeps the edges of each vertex in the same order as its edge set
+        for ( final BaseEdge e : graph.edgeSet() ) {
+            addEdge(ids.get(graph.getEdgeSource(e)), ids.get(graph.getEdgeTarget(e)), e.isRef(), e.getMultiplicity());
+            baseEdges[edgeIdLimit - 1] = e;
+        }
+        loadedVertexCount = vertexIdLimit;
+        loadedEdgeCount = edgeIdLimit;
+    }
+
+    /**
+     * Empty this graph, dropping its references to the vertices and edges of the SeqGraph it was loaded with
+     */
+    void clear() {
+        Arrays.fill(seqVertices, 0, vertexIdLimit, null);
+        Arrays.fill(baseEdges, 0, edgeIdLimit, null);
+        vertexIdLimit = vertexCount = loadedVertexCount = 0;
+        edgeIdLimit = edgeCount = loadedEdgeCount = 0;
+        basesLength = 0;
+        removedLoaded = false;
+    }
+
+    /**
+     * @return true if any vertex or edge was added or removed since this graph was loaded
+     */
+    boolean isModified() {
+        return removedLoaded || vertexIdLimit > loadedVertexCount || edgeIdLimit > loadedEdgeCount;
+    }
+
+    /**
+     * Update the graph this graph was loaded from to be the same as this graph: remove its vertices and edges that
+     * were removed from this graph, and add the vertices and edges that were added to it, in the order they were added
+     *
+     * @param graph the graph this graph was loaded from, unmodified since
+     */
+    void copyInto(final SeqGraph graph) {
+        Utils.nonNull(graph);
+        if ( ! isModified() ) {
+            return;
+        }
+        for ( int v = 0; v < loadedVertexCount; v++ ) {
+            if ( removedVertex[v] ) {
+                graph.removeVertex(seqVertices[v]);
+            }
+        }
+        for ( int e = 0; e < loadedEdgeCount; e++ ) {
+            if ( edgeSource[e] == NO_VERTEX ) {
+                graph.removeEdge(baseEdges[e]);
+            }
+        }
+        for ( int v = loadedVertexCount; v < vertexIdLimit; v++ ) {
+            if ( ! removedVertex[v] ) {
+                seqVertices[v] = new SeqVertex(getSequence(v));
+                graph.addVertex(seqVertices[v]);
+            }
+        }
+        for ( int e = loadedEdgeCount; e < edgeIdLimit; e++ ) {
+            if ( edgeSource[e] != NO_VERTEX ) {
+                graph.addEdge(seqVertices[edgeSource[e]], seqVertices[edgeTarget[e]], new BaseEdge(edgeIsRef[e], edgeMultiplicity[e]));
+            }
+        }
+    }
+
+    /**
+     * @return a new SeqGraph with the same vertices and edges as this graph, for debugging
+     */
+    SeqGraph toSeqGraph(final int kmerSize) {
+        final SeqGraph graph = new SeqGraph(kmerSize);
+        final SeqVertex[] vertices = new SeqVertex[vertexIdLimit];
+        for ( int v = 0; v < vertexIdLimit; v++ ) {
+            if ( ! removedVertex[v] ) {
+                vertices[v] = new SeqVertex(getSequence(v));
+                graph.addVertex(vertices[v]);
+            }
+        }
+        for ( int e = 0; e < edgeIdLimit; e++ ) {
+            if ( edgeSource[e] != NO_VERTEX ) {
+                graph.addEdge(vertices[edgeSource[e]], vertices[edgeTarget[e]], new BaseEdge(edgeIsRef[e], edgeMultiplicity[e]));
+            }
+        }
+        return graph;
+    }
+
+    int vertexCount() {
+        return vertexCount;
+    }
+
+    int edgeCount() {
+        return edgeCount;
+    }
+
+    byte[] getSequence(final int v) {
+        return Arrays.copyOfRange(bases, sequenceStart[v], sequenceStart[v] + sequenceLength[v]);
+    }
+
+    // --------------------------------------------------------------------------------
+    // Basic graph operations, with the same semantics as the JGraphT DefaultDirectedGraph
+    // --------------------------------------------------------------------------------
+
+    private int appendBases(final byte[] sequence) {
+        ensureBasesCapacity(sequence.length);
+        System.arraycopy(sequence, 0, bases, basesLength, sequence.length);
+        basesLength += sequence.length;
+        return basesLength - sequence.length;
+    }
+
+    private void ensureBasesCapacity(final int extraBases) {
+        if ( basesLength + extraBases > bases.length ) {
+            bases = Arrays.copyOf(bases, Math.max(bases.length * 2, basesLength + extraBases));
+        }
+    }
+
+    /**
+     * Add a vertex whose sequence is the given slice of the arena
+     * @return the id of the new vertex
+     */
+    private int addVertex(final int start, final int length) {
+        if ( vertexIdLimit == sequenceStart.length ) {
+            final int capacity = sequenceStart.length * 2;
+            sequenceStart = Arrays.copyOf(sequenceStart, capacity);
+            sequenceLength = Arrays.copyOf(sequenceLength, capacity);
+            removedVertex = Arrays.copyOf(removedVertex, capacity);
+            outgoingEdges = Arrays.copyOf(outgoingEdges, capacity);
+            outDegree = Arrays.copyOf(outDegree, capacity);
+            incomingEdges = Arrays.copyOf(incomingEdges, capacity);
+            inDegree = Arrays.copyOf(inDegree, capacity);
+            seqVertices = Arrays.copyOf(seqVertices, capacity);
+        }
+        final int v = vertexIdLimit++;
+        sequenceStart[v] = start;
+        sequenceLength[v] = length;
+        removedVertex[v] = false;
+        outDegree[v] = 0;
+        inDegree[v] = 0;
+        if ( outgoingEdges[v] == null ) {
+            outgoingEdges[v] = new int[INITIAL_DEGREE_CAPACITY];
+            incomingEdges[v] = new int[INITIAL_DEGREE_CAPACITY];
+        }
+        vertexCount++;
+        return v;
+    }
+
+    /**
+     * Add an edge from source to target, unless there already is one
+     * @return true if the edge was added
+     */
+    private boolean addEdge(final int source, final int target, final boolean isRef, final int multiplicity) {
+        if ( getEdge(source, target) != NO_EDGE ) {
+            return false;
+        }
+        if ( edgeIdLimit == edgeSource.length ) {
+            final int capacity = edgeSource.length * 2;
+            edgeSource = Arrays.copyOf(edgeSource, capacity);
+            edgeTarget = Arrays.copyOf(edgeTarget, capacity);
+            edgeMultiplicity = Arrays.copyOf(edgeMultiplicity, capacity);
+            edgeIsRef = Arrays.copyOf(edgeIsRef, capacity);
+            baseEdges = Arrays.copyOf(baseEdges, capacity);
+        }
+        final int e = edgeIdLimit++;
+        edgeSource[e] = source;
+        edgeTarget[e] = target;
+        edgeMultiplicity[e] = multiplicity;
+        edgeIsRef[e] = isRef;
+        if ( outDegree[source] == outgoingEdges[source].length ) {
+            outgoingEdges[source] = Arrays.copyOf(outgoingEdges[source], outDegree[source] * 2);
+        }
+        outgoingEdges[source][outDegree[source]++] = e;
+        if ( inDegree[target] == incomingEdges[target].length ) {
+            incomingEdges[target] = Arrays.copyOf(incomingEdges[target], inDegree[target] * 2);
+        }
+        incomingEdges[target][inDegree[target]++] = e;
+        edgeCount++;
+        return true;
+    }
+
+    private int getEdge(final int source, final int target) {
+        final int[] edges = outgoingEdges[source];
+        for ( int i = 0; i < outDegree[source]; i++ ) {
+            if ( edgeTarget[edges[i]] == target ) {
+                return edges[i];
+            }
+        }
+        return NO_EDGE;
+    }
+
+    private void removeEdge(final int e) {
+        final int source = edgeSource[e];
+        final int target = edgeTarget[e];
+        outDegree[source] = removeFrom(outgoingEdges[source], outDegree[source], e);
+        inDegree[target] = removeFrom(incomingEdges[target], inDegree[target], e);
+        edgeSource[e] = NO_VERTEX;
+        edgeCount--;
+        removedLoaded |= e < loadedEdgeCount;
+    }
+
+    /**
+     * Remove e from the first size elements of edges, keeping the others in order
+     * @return the new size
+     */
+    private static int removeFrom(final int[] edges, final int size, final int e) {
+        for ( int i = 0; i < size; i++ ) {
+            if ( edges[i] == e ) {
+                System.arraycopy(edges, i + 1, edges, i, size - i - 1);
+                return size - 1;
+            }
+        }
+        throw new IllegalStateException("edge " + e + " is not in the list");
+    }
+
+    private void removeVertex(final int v) {
+        if ( removedVertex[v] ) {
+            return;
+        }
+        while ( outDegree[v] > 0 ) {
+            removeEdge(outgoingEdges[v][outDegree[v] - 1]);
+        }
+        while ( inDegree[v] > 0 ) {
+            removeEdge(incomingEdges[v][inDegree[v] - 1]);
+        }
+        removedVertex[v] = true;
+        vertexCount--;
+        removedLoaded |= v < loadedVertexCount;
+    }
+
+    /**
+     * @see BaseGraph#isReferenceNode
+     */
+    private boolean isReferenceNode(final int v) {
+        return anyRef(outgoingEdges[v], outDegree[v]) || anyRef(incomingEdges[v], inDegree[v]) || vertexCount == 1;
+    }
+
+    /**
+     * @see BaseGraph#isRefSource
+     */
+    private boolean isRefSource(final int v) {
+        if ( anyRef(incomingEdges[v], inDegree[v]) ) {
+            return false;
+        }
+        return anyRef(outgoingEdges[v], outDegree[v]) || vertexCount == 1;
+    }
+
+    private boolean anyRef(final int[] edges, final int size) {
+        for ( int i = 0; i < size; i++ ) {
+            if ( edgeIsRef[edges[i]] ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int singleOutgoingVertex(final int v) {
+        return edgeTarget[outgoingEdges[v][0]];
+    }
+
+    private int singleIncomingVertex(final int v) {
+        return edgeSource[incomingEdges[v][0]];
+    }
+
+    /**
+     * Copy the targets of the outgoing edges of v, in order, into the scratch vertices
+     * @return the number of vertices
+     */
+    private int outgoingVerticesToScratch(final int v) {
+        final int n = outDegree[v];
+        ensureScratchCapacity(n);
+        for ( int i = 0; i < n; i++ ) {
+            scratchVertices[i] = edgeTarget[outgoingEdges[v][i]];
+        }
+        return n;
+    }
+
+    /**
+     * Copy the sources of the incoming edges of v, in order, into the scratch vertices
+     * @return the number of vertices
+     */
+    private int incomingVerticesToScratch(final int v) {
+        final int n = inDegree[v];
+        ensureScratchCapacity(n);
+        for ( int i = 0; i < n; i++ ) {
+            scratchVertices[i] = edgeSource[incomingEdges[v][i]];
+        }
+        return n;
+    }
+
+    private void ensureScratchCapacity(final int n) {
+        if ( n > scratchVertices.length ) {
+            scratchVertices = new int[Math.max(n, scratchVertices.length * 2)];
+        }
+    }
+
+    private boolean sequencesEqual(final int v1, final int v2) {
+        final int length = sequenceLength[v1];
+        if ( length != sequenceLength[v2] ) {
+            return false;
+        }
+        final int start1 = sequenceStart[v1];
+        final int start2 = sequenceStart[v2];
+        for ( int i = 0; i < length; i++ ) {
+            if ( bases[start1 + i] != bases[start2 + i] ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // --------------------------------------------------------------------------------
+    // Transformations
+    // --------------------------------------------------------------------------------
+
+    /**
+     * @see VertexBasedTransformer#transformUntilComplete()
+     */
+    private boolean transformUntilComplete(final IntPredicate tryToTransform) {
+        boolean didAtLeastOneTransform = false;
+        boolean foundNodesToMerge = true;
+        while ( foundNodesToMerge ) {
+            foundNodesToMerge = false;
+            for ( int v = 0; v < vertexIdLimit; v++ ) {
+                if ( ! removedVertex[v] && tryToTransform.test(v) ) {
+                    foundNodesToMerge = true;
+                    didAtLeastOneTransform = true;
+                    break;
+                }
+            }
+        }
+        return didAtLeastOneTransform;
+    }
+
+    /**
+     * @see MergeDiamonds
+     */
+    boolean mergeDiamonds() {
+        return transformUntilComplete(this::mergeDiamond);
+    }
+
+    private boolean mergeDiamond(final int top) {
+        final int middleCount = outDegree[top];
+        if ( middleCount <= 1 ) {
+            return false;
+        }
+
+        int bottom = NO_VERTEX;
+        for ( int i = 0; i < middleCount; i++ ) {
+            final int middle = edgeTarget[outgoingEdges[top][i]];
+            if ( outDegree[middle] < 1 || inDegree[middle] != 1 ) {
+                return false;
+            }
+            for ( int j = 0; j < outDegree[middle]; j++ ) {
+                final int target = edgeTarget[outgoingEdges[middle][j]];
+                if ( bottom == NO_VERTEX ) {
+                    bottom = target;
+                } else if ( bottom != target ) {
+                    return false;
+                }
+            }
+        }
+        if ( inDegree[bottom] != middleCount ) {
+            return false;
+        }
+
+        final int n = outgoingVerticesToScratch(top);
+        final int prefixLength = commonPrefixLength(scratchVertices, n);
+        final int suffixLength = commonSuffixLength(scratchVertices, n, prefixLength);
+        if ( prefixLength < 1 && suffixLength < 1 ) {
+            return false;
+        }
+        splitSharedSequence(top, bottom, Arrays.copyOf(scratchVertices, n), prefixLength, suffixLength);
+        return true;
+    }
+
+    /**
+     * @see MergeTails
+     */
+    boolean mergeTails() {
+        return transformUntilComplete(this::mergeTail);
+    }
+
+    private boolean mergeTail(final int top) {
+        final int tailCount = outDegree[top];
+        if ( tailCount <= 1 ) {
+            return false;
+        }
+        for ( int i = 0; i < tailCount; i++ ) {
+            final int tail = edgeTarget[outgoingEdges[top][i]];
+            if ( outDegree[tail] != 0 || inDegree[tail] > 1 ) {
+                return false;
+            }
+        }
+
+        final int n = outgoingVerticesToScratch(top);
+        final int prefixLength = commonPrefixLength(scratchVertices, n);
+        final int suffixLength = commonSuffixLength(scratchVertices, n, prefixLength);
+        if ( suffixLength < MergeTails.MIN_COMMON_SEQUENCE_TO_MERGE_SOURCE_SINK_VERTICES ) {
+            return false;
+        }
+        splitSharedSequence(top, NO_VERTEX, Arrays.copyOf(scratchVertices, n), prefixLength, suffixLength);
+        return true;
+    }
+
+    /**
+     * @see GraphUtils#commonMaximumPrefixLength
+     */
+    private int commonPrefixLength(final int[] vertices, final int n) {
+        int minLength = Integer.MAX_VALUE;
+        for ( int i = 0; i < n; i++ ) {
+            minLength = Math.min(minLength, sequenceLength[vertices[i]]);
+        }
+        final int firstStart = sequenceStart[vertices[0]];
+        for ( int offset = 0; offset < minLength; offset++ ) {
+            final byte b = bases[firstStart + offset];
+            for ( int i = 1; i < n; i++ ) {
+                if ( bases[sequenceStart[vertices[i]] + offset] != b ) {
+                    return offset;
+                }
+            }
+        }
+        return minLength;
+    }
+
+    /**
+     * @see GraphUtils#commonMaximumSuffixLength, whose minLength is the shortest sequence length minus prefixLength
+     */
+    private int commonSuffixLength(final int[] vertices, final int n, final int prefixLength) {
+        int minLength = Integer.MAX_VALUE;
+        for ( int i = 0; i < n; i++ ) {
+            minLength = Math.min(minLength, sequenceLength[vertices[i]]);
+        }
+        minLength -= prefixLength;
+        final int firstEnd = sequenceStart[vertices[0]] + sequenceLength[vertices[0]];
+        for ( int suffixLength = 0; suffixLength < minLength; suffixLength++ ) {
+            final byte b = bases[firstEnd - suffixLength - 1];
+            for ( int i = 1; i < n; i++ ) {
+                if ( bases[sequenceStart[vertices[i]] + sequenceLength[vertices[i]] - suffixLength - 1] != b ) {
+                    return suffixLength;
+                }
+            }
+        }
+        return minLength;
+    }
+
+    /**
+     * What {@link SharedVertexSequenceSplitter#splitAndUpdate} does: replace the middle vertices, whose sequences all
+     * start with the same prefix and end with the same suffix, with a prefix vertex, the remaining sequence of each
+     * middle vertex, and a suffix vertex.
+     *
+     * Edges are added in the order in which SharedVertexSequenceSplitter adds them from its split graph, in which the
+     * prefix has an edge to each remaining sequence, and a single edge to the suffix for all the middle vertices that
+     * are entirely prefix and suffix.
+     *
+     * SharedVertexSequenceSplitter also handles a missing top vertex, which none of the transformations needs.
+     *
+     * @param top the vertex with an edge to every middle vertex
+     * @param bottom the vertex with an edge from every middle vertex, or NO_VERTEX if the middle vertices are sinks
+     * @param middles the middle vertices
+     */
+    private void splitSharedSequence(final int top, final int bottom, final int[] middles, final int prefixLength, final int suffixLength) {
+        final int n = middles.length;
+        final int templateStart = sequenceStart[middles[0]];
+        final int templateEnd = templateStart + sequenceLength[middles[0]];
+
+        // the edges of the split graph, from the edges to and from each middle vertex
+        final boolean[] toRef = new boolean[n];
+        final int[] toMultiplicity = new int[n];
+        final boolean[] fromRef = new boolean[n];
+        final int[] fromMultiplicity = new int[n];
+        final int[] remainingStart = new int[n];
+        final int[] remainingLength = new int[n];
+        int remainingCount = 0;
+        int firstCollapsed = -1;
+        boolean collapsedRef = false;
+        int collapsedMultiplicity = 0;
+        boolean prefixOutRef = false;
+        boolean suffixInRef = false;
+        for ( int i = 0; i < n; i++ ) {
+            final int middle = middles[i];
+            final int in = singleEdge(incomingEdges[middle], inDegree[middle]);
+            final int out = singleEdge(outgoingEdges[middle], outDegree[middle]);
+            final boolean isReferenceNode = (in == NO_EDGE || out == NO_EDGE) && isReferenceNode(middle);
+            toRef[i] = in == NO_EDGE ? isReferenceNode : edgeIsRef[in];
+            toMultiplicity[i] = in == NO_EDGE ? 0 : edgeMultiplicity[in];
+            fromRef[i] = out == NO_EDGE ? isReferenceNode : edgeIsRef[out];
+            fromMultiplicity[i] = out == NO_EDGE ? 0 : edgeMultiplicity[out];
+            remainingStart[i] = sequenceStart[middle] + prefixLength;
+            remainingLength[i] = sequenceLength[middle] - prefixLength - suffixLength;
+            if ( remainingLength[i] > 0 ) {
+                remainingCount++;
+                prefixOutRef |= toRef[i];
+                suffixInRef |= fromRef[i];
+            } else {
+                if ( firstCollapsed == -1 ) {
+                    firstCollapsed = i;
+                }
+                collapsedRef |= toRef[i] || fromRef[i];
+                collapsedMultiplicity += toMultiplicity[i] + fromMultiplicity[i];
+            }
+        }
+        prefixOutRef |= collapsedRef;
+        suffixInRef |= collapsedRef;
+        final boolean hasOnlyPrefixSuffixEdges = remainingCount == 0;
+
+        for ( final int middle : middles ) {
+            removeVertex(middle);
+        }
+
+        final int[] remaining = new int[n];
+        for ( int i = 0; i < n; i++ ) {
+            remaining[i] = remainingLength[i] > 0 ? addVertex(remainingStart[i], remainingLength[i]) : NO_VERTEX;
+        }
+
+        final boolean needPrefixNode = prefixLength > 0;
+        final boolean needSuffixNode = suffixLength > 0 || (bottom == NO_VERTEX && ! hasOnlyPrefixSuffixEdges);
+        int topForConnect = top;
+        int bottomForConnect = bottom;
+        if ( needPrefixNode ) {
+            topForConnect = addVertex(templateStart, prefixLength);
+            addEdge(top, topForConnect, prefixOutRef, 1);
+        }
+        if ( needSuffixNode ) {
+            bottomForConnect = addVertex(templateEnd - suffixLength, suffixLength);
+            if ( bottom != NO_VERTEX ) {
+                addEdge(bottomForConnect, bottom, suffixInRef, 1);
+            }
+        }
+
+        for ( int i = 0; i < n; i++ ) {
+            if ( remaining[i] != NO_VERTEX ) {
+                addEdge(topForConnect, remaining[i], toRef[i], toMultiplicity[i]);
+            } else if ( i == firstCollapsed && bottomForConnect != NO_VERTEX ) {
+                addEdge(topForConnect, bottomForConnect, collapsedRef, collapsedMultiplicity);
+            }
+        }
+        if ( bottomForConnect != NO_VERTEX ) {
+            for ( int i = 0; i < n; i++ ) {
+                if ( remaining[i] != NO_VERTEX ) {
+                    addEdge(remaining[i], bottomForConnect, fromRef[i], fromMultiplicity[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * @see BaseGraph#incomingEdgeOf
+     */
+    private static int singleEdge(final int[] edges, final int size) {
+        Utils.validateArg(size <= 1, "Cannot get a single edge for a vertex with multiple edges");
+        return size == 0 ? NO_EDGE : edges[0];
+    }
+
+    /**
+     * @see SplitCommonSuffices
+     */
+    boolean splitCommonSuffices() {
+        alreadySplit.clear();
+        return transformUntilComplete(this::splitCommonSuffix);
+    }
+
+    /**
+     * @see CommonSuffixSplitter#split
+     */
+    private boolean splitCommonSuffix(final int bottom) {
+        if ( alreadySplit.get(bottom) ) {
+            return false;
+        }
+        alreadySplit.set(bottom);
+
+        final int n = inDegree[bottom];
+        if ( n < 2 ) {
+            return false;
+        }
+        for ( int i = 0; i < n; i++ ) {
+            final int middle = edgeSource[incomingEdges[bottom][i]];
+            if ( middle == bottom || outDegree[middle] != 1 || singleOutgoingVertex(middle) != bottom || getEdge(bottom, middle) != NO_EDGE ) {
+                return false;
+            }
+        }
+
+        incomingVerticesToScratch(bottom);
+        final int suffixLength = commonSuffixLength(scratchVertices, n, 0);
+        if ( suffixLength == 0 ) {
+            return false;
+        }
+        boolean allSuffix = true;
+        for ( int i = 0; i < n; i++ ) {
+            final int middle = scratchVertices[i];
+            if ( isRefSource(middle) ) {
+                if ( sequenceLength[middle] == suffixLength ) {
+                    return false;
+                }
+                break;
+            }
+        }
+        for ( int i = 0; i < n; i++ ) {
+            allSuffix &= sequenceLength[scratchVertices[i]] == suffixLength;
+        }
+        if ( allSuffix ) {
+            return false;
+        }
+
+        final int[] middles = Arrays.copyOf(scratchVertices, n);
+        final int suffixStart = sequenceStart[middles[0]] + sequenceLength[middles[0]] - suffixLength;
+        for ( final int middle : middles ) {
+            final int suffix = addVertex(suffixStart, suffixLength);
+            final int out = outgoingEdges[middle][0];
+            final int incomingTarget;
+            if ( sequenceLength[middle] == suffixLength ) {
+                incomingTarget = suffix;
+            } else {
+                incomingTarget = addVertex(sequenceStart[middle], sequenceLength[middle] - suffixLength);
+                addEdge(incomingTarget, suffix, edgeIsRef[out], 1);
+            }
+            addEdge(suffix, bottom, edgeIsRef[out], edgeMultiplicity[out]);
+            for ( int i = 0; i < inDegree[middle]; i++ ) {
+                final int in = incomingEdges[middle][i];
+                addEdge(edgeSource[in], incomingTarget, edgeIsRef[in], edgeMultiplicity[in]);
+            }
+        }
+        for ( final int middle : middles ) {
+            removeVertex(middle);
+        }
+        return true;
+    }
+
+    /**
+     * @see MergeCommonSuffices
+     */
+    boolean mergeCommonSuffices() {
+        return transformUntilComplete(this::mergeIncomingVertices);
+    }
+
+    /**
+     * @see SharedSequenceMerger#merge
+     */
+    private boolean mergeIncomingVertices(final int v) {
+        final int n = inDegree[v];
+        if ( n == 0 ) {
+            return false;
+        }
+        final int first = edgeSource[incomingEdges[v][0]];
+        for ( int i = 0; i < n; i++ ) {
+            final int previous = edgeSource[incomingEdges[v][i]];
+            if ( ! sequencesEqual(previous, first) || outDegree[previous] != 1 || singleOutgoingVertex(previous) != v || inDegree[previous] == 0 ) {
+                return false;
+            }
+        }
+
+        final int[] previouses = Arrays.copyOf(scratchVertices, incomingVerticesToScratch(v));
+        final int merged = addVertex(concatenateSequences(first, v), sequenceLength[first] + sequenceLength[v]);
+        for ( final int previous : previouses ) {
+            for ( int i = 0; i < inDegree[previous]; i++ ) {
+                final int in = incomingEdges[previous][i];
+                addEdge(edgeSource[in], merged, edgeIsRef[in], edgeMultiplicity[in]);
+            }
+        }
+        for ( int i = 0; i < outDegree[v]; i++ ) {
+            final int out = outgoingEdges[v][i];
+            addEdge(merged, edgeTarget[out], edgeIsRef[out], edgeMultiplicity[out]);
+        }
+        for ( final int previous : previouses ) {
+            removeVertex(previous);
+        }
+        removeVertex(v);
+        return true;
+    }
+
+    private int concatenateSequences(final int v1, final int v2) {
+        ensureBasesCapacity(sequenceLength[v1] + sequenceLength[v2]);
+        final int start = basesLength;
+        System.arraycopy(bases, sequenceStart[v1], bases, basesLength, sequenceLength[v1]);
+        basesLength += sequenceLength[v1];
+        System.arraycopy(bases, sequenceStart[v2], bases, basesLength, sequenceLength[v2]);
+        basesLength += sequenceLength[v2];
+        return start;
+    }
+
+    /**
+     * @see SeqGraph#zipLinearChains()
+     */
+    boolean zipLinearChains() {
+        int zipStartCount = 0;
+        ensureScratchCapacity(vertexIdLimit);
+        for ( int v = 0; v < vertexIdLimit; v++ ) {
+            if ( ! removedVertex[v] && isLinearChainStart(v) ) {
+                scratchVertices[zipStartCount++] = v;
+            }
+        }
+        if ( zipStartCount == 0 ) {
+            return false;
+        }
+
+        final int[] zipStarts = Arrays.copyOf(scratchVertices, zipStartCount);
+        boolean mergedOne = false;
+        for ( final int zipStart : zipStarts ) {
+            mergedOne |= mergeLinearChain(zipStart);
+        }
+        return mergedOne;
+    }
+
+    private boolean isLinearChainStart(final int source) {
+        return outDegree[source] == 1 && ( inDegree[source] != 1 || outDegree[singleIncomingVertex(source)] > 1 );
+    }
+
+    /**
+     * Trace the linear chain that starts at zipStart, as SeqGraph#traceLinearChain does, and merge it into a single
+     * vertex, as SeqGraph#mergeLinearChain does
+     *
+     * @return true if the chain had at least two vertices
+     */
+    private boolean mergeLinearChain(final int zipStart) {
+        int chainLength = 1;
+        int sequenceLengthSum = sequenceLength[zipStart];
+        boolean lastIsRef = isReferenceNode(zipStart);
+        int last = zipStart;
+        while ( outDegree[last] == 1 ) {
+            final int target = singleOutgoingVertex(last);
+            if ( inDegree[target] != 1 || last == target ) {
+                break;
+            }
+            final boolean targetIsRef = isReferenceNode(target);
+            if ( lastIsRef != targetIsRef ) {
+                break;
+            }
+            chainLength++;
+            sequenceLengthSum += sequenceLength[target];
+            last = target;
+            lastIsRef = targetIsRef;
+        }
+        if ( chainLength == 1 ) {
+            return false;
+        }
+
+        ensureBasesCapacity(sequenceLengthSum);
+        final int start = basesLength;
+        ensureScratchCapacity(chainLength);
+        int v = zipStart;
+        for ( int i = 0; i < chainLength; i++ ) {
+            if ( i > 0 ) {
+                v = singleOutgoingVertex(v);
+            }
+            scratchVertices[i] = v;
+            System.arraycopy(bases, sequenceStart[v], bases, basesLength, sequenceLength[v]);
+            basesLength += sequenceLength[v];
+        }
+        final int merged = addVertex(start, sequenceLengthSum);
+
+        for ( int i = 0; i < outDegree[last]; i++ ) {
+            final int out = outgoingEdges[last][i];
+            addEdge(merged, edgeTarget[out], edgeIsRef[out], edgeMultiplicity[out]);
+        }
+        for ( int i = 0; i < inDegree[zipStart]; i++ ) {
+            final int in = incomingEdges[zipStart][i];
+            addEdge(edgeSource[in], merged, edgeIsRef[in], edgeMultiplicity[in]);
+        }
+        for ( int i = 0; i < chainLength; i++ ) {
+            removeVertex(scratchVertices[i]);
+        }
+        return true;
+    }
+
+    // --------------------------------------------------------------------------------
+    // Detection of simplification loops
+    // --------------------------------------------------------------------------------
+
+    /**
+     * @return the sequences of the vertices and edges of this graph, to be compared with {@link #hasStructure}
+     */
+    Structure getStructure() {
+        final Set<String> vertexSequences = new HashSet<>();
+        for ( int v = 0; v < vertexIdLimit; v++ ) {
+            if ( ! removedVertex[v] ) {
+                vertexSequences.add(sequenceString(v));
+            }
+        }
+        final Set<String> edgeSequences = new HashSet<>();
+        for ( int e = 0; e < edgeIdLimit; e++ ) {
+            if ( edgeSource[e] != NO_VERTEX ) {
+                edgeSequences.add(sequenceLength[edgeSource[e]] + ":" + sequenceString(edgeSource[e]) + sequenceString(edgeTarget[e]));
+            }
+        }
+        return new Structure(vertexCount, edgeCount, vertexSequences, edgeSequences);
+    }
+
+    /**
+     * Is this graph equal to a previous state of it, according to {@link BaseGraph#graphEquals}?
+     *
+     * @param previous the structure of the previous state, from {@link #getStructure}
+     */
+    boolean hasStructure(final Structure previous) {
+        Utils.nonNull(previous);
+        if ( previous.vertexCount != vertexCount || previous.edgeCount != edgeCount ) {
+            return false;
+        }
+        final Structure current = getStructure();
+        return current.vertexSequences.containsAll(previous.vertexSequences) && current.edgeSequences.equals(previous.edgeSequences);
+    }
+
+    private String sequenceString(final int v) {
+        return new String(bases, sequenceStart[v], sequenceLength[v], StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * The vertex and edge sequences of the graph at some point
+     */
+    static final class Structure {
+        private final int vertexCount;
+        private final int edgeCount;
+        private final Set<String> vertexSequences;
+        private final Set<String> edgeSequences;
+
+        private Structure(final int vertexCount, final int edgeCount, final Set<String> vertexSequences, final Set<String> edgeSequences) {
+            this.vertexCount = vertexCount;
+            this.edgeCount = edgeCount;
+            this.vertexSequences = vertexSequences;
+            this.edgeSequences = edgeSequences;
+        }
+    }
+}
@@ -4,6 +4,8 @@ import org.broadinstitute.hellbender.utils.MathUtils;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
 
+import java.util.List;
+
 /**
  * Represents a result from a K-best haplotype search.
  *
@@ -27,6 +29,19 @@ public final class KBestHaplotype extends Path<SeqVertex,BaseEdge>{
         isReference &= edge.isRef();
     }
 
+    /**
+     * Create a path from its edges and score, without checking that the edges are contiguous
+     *
+     * @param edgesInOrder the edges of the path, which this path takes ownership of
+     * @param lastVertex the last vertex of the path
+     * @param score the score of the path, as computed edge by edge by {@link #KBestHaplotype(KBestHaplotype, BaseEdge, int)}
+     * @param graph the graph of the path
+     */
+    KBestHaplotype(final List<BaseEdge> edgesInOrder, final SeqVertex lastVertex, final double score, final BaseGraph<SeqVertex,BaseEdge> graph) {
+        super(edgesInOrder, lastVertex, graph);
+        this.score = score;
+    }
+
     public final Haplotype haplotype() {
         final Haplotype haplotype = new Haplotype(getBases(),isReference());
         haplotype.setScore(score());
@@ -1,11 +1,11 @@
 package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.graphs;
 
 import org.apache.commons.lang3.mutable.MutableInt;
+import org.broadinstitute.hellbender.utils.MathUtils;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.jgrapht.alg.CycleDetector;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Efficient algorithm to obtain the list of best haplotypes given the {@link SeqGraph instace}.
@@ -63,31 +63,33 @@ public final class KBestHaplotypeFinder {
 
     /**
      * Implement Dijkstra's algorithm as described in https://en.wikipedia.org/wiki/K_shortest_path_routing
+     *
+     * Partial paths share their prefixes (each one just points to the path it extends), so extending a path takes
+     * constant time and memory, and only the paths that reach a sink are turned into {@link KBestHaplotype}s. The
+     * outgoing edges of each vertex, and the log10 multiplicities of those edges, are computed once, the first time
+     * the vertex is extended.
      */
     public List<KBestHaplotype> findBestHaplotypes(final int maxNumberOfHaplotypes) {
         final List<KBestHaplotype> result = new ArrayList<>();
-        final PriorityQueue<KBestHaplotype> queue = new PriorityQueue<>(Comparator.comparingDouble(KBestHaplotype::score).reversed());
-        sources.forEach(source -> queue.add(new KBestHaplotype(source, graph)));
+        final PriorityQueue<PartialPath> queue = new PriorityQueue<>(Comparator.comparingDouble(PartialPath::score).reversed());
+        sources.forEach(source -> queue.add(new PartialPath(source)));
 
-        final Map<SeqVertex, MutableInt> vertexCounts = graph.vertexSet().stream()
-                .collect(Collectors.toMap(v -> v, v -> new MutableInt(0)));
+        final Map<SeqVertex, VertexExtensions> extensions = new HashMap<>();
+        final Map<SeqVertex, MutableInt> vertexCounts = new HashMap<>();
 
         while (!queue.isEmpty() && result.size() < maxNumberOfHaplotypes) {
-            final KBestHaplotype pathToExtend = queue.poll();
-            final SeqVertex vertexToExtend = pathToExtend.getLastVertex();
+            final PartialPath pathToExtend = queue.poll();
+            final SeqVertex vertexToExtend = pathToExtend.lastVertex;
             if (sinks.contains(vertexToExtend)) {
-                result.add(pathToExtend);
+                result.add(pathToExtend.toKBestHaplotype(graph));
             } else {
-                final Set<BaseEdge> outgoingEdges = graph.outgoingEdgesOf(vertexToExtend);
-                int totalOutgoingMultiplicity = 0;
-                for (final BaseEdge edge : outgoingEdges) {
-                    totalOutgoingMultiplicity += edge.getMultiplicity();
-                }
-
-                for (final BaseEdge edge : outgoingEdges) {
-                    final SeqVertex targetVertex = graph.getEdgeTarget(edge);
-                    if (vertexCounts.get(targetVertex).getAndIncrement() < maxNumberOfHaplotypes) {
-                        queue.add(new KBestHaplotype(pathToExtend, edge, totalOutgoingMultiplicity));
+                final VertexExtensions vertexExtensions = extensions.computeIfAbsent(vertexToExtend, v -> new VertexExtensions(graph, v));
+                for (int i = 0; i < vertexExtensions.edges.length; i++) {
+                    final SeqVertex targetVertex = vertexExtensions.targets[i];
+                    if (vertexCounts.computeIfAbsent(targetVertex, v -> new MutableInt(0)).getAndIncrement() < maxNumberOfHaplotypes) {
+                        // the same arithmetic, in the same order, as KBestHaplotype(KBestHaplotype, BaseEdge, int)
+                        final double score = pathToExtend.score + vertexExtensions.log10Multiplicities[i] - vertexExtensions.log10TotalMultiplicity;
+                        queue.add(new PartialPath(pathToExtend, vertexExtensions.edges[i], targetVertex, score));
                     }
                 }
             }
@@ -95,6 +97,70 @@ public final class KBestHaplotypeFinder {
         return result;
     }
 
+    /**
+     * A path being extended by {@link #findBestHaplotypes(int)}: its last edge and vertex, and the path it extends
+     */
+    private static final class PartialPath {
+        private final PartialPath parent;
+        private final BaseEdge lastEdge;
+        private final SeqVertex lastVertex;
+        private final double score;
+        private final int length;
+
+        private PartialPath(final SeqVertex source) {
+            this.parent = null;
+            this.lastEdge = null;
+            this.lastVertex = source;
+            this.score = 0;
+            this.length = 0;
+        }
+
+        private PartialPath(final PartialPath parent, final BaseEdge lastEdge, final SeqVertex lastVertex, final double score) {
+            this.parent = parent;
+            this.lastEdge = lastEdge;
+            this.lastVertex = lastVertex;
+            this.score = score;
+            this.length = parent.length + 1;
+        }
+
+        private double score() {
+            return score;
+        }
+
+        private KBestHaplotype toKBestHaplotype(final SeqGraph graph) {
+            final BaseEdge[] edges = new BaseEdge[length];
+            for (PartialPath path = this; path.parent != null; path = path.parent) {
+                edges[path.length - 1] = path.lastEdge;
+            }
+            return new KBestHaplotype(new ArrayList<>(Arrays.asList(edges)), lastVertex, score, graph);
+        }
+    }
+
+    /**
+     * The outgoing edges of a vertex, their targets and their log10 multiplicities, and the log10 of their total
+     * multiplicity
+     */
+    private static final class VertexExtensions {
+        private final BaseEdge[] edges;
+        private final SeqVertex[] targets;
+        private final double[] log10Multiplicities;
+        private final double log10TotalMultiplicity;
+
+        private VertexExtensions(final SeqGraph graph, final SeqVertex vertex) {
+            final Set<BaseEdge> outgoingEdges = graph.outgoingEdgesOf(vertex);
+            edges = outgoingEdges.toArray(new BaseEdge[outgoingEdges.size()]);
+            targets = new SeqVertex[edges.length];
+            log10Multiplicities = new double[edges.length];
+            int totalOutgoingMultiplicity = 0;
+            for (int i = 0; i < edges.length; i++) {
+                targets[i] = graph.getEdgeTarget(edges[i]);
+                log10Multiplicities[i] = MathUtils.log10(edges[i].getMultiplicity());
+                totalOutgoingMultiplicity += edges[i].getMultiplicity();
+            }
+            log10TotalMultiplicity = MathUtils.log10(totalOutgoingMultiplicity);
+        }
+    }
+
     public List<KBestHaplotype> findBestHaplotypes() {
        return findBestHaplotypes(Integer.MAX_VALUE);
     }
@@ -44,6 +44,11 @@ public final class SeqGraph extends BaseGraph<SeqVertex, BaseEdge> {
      */
     private static final int MAX_REASONABLE_SIMPLIFICATION_CYCLES = 100;
 
+    /**
+     * Compact graphs in which to simplify SeqGraphs, reused by each thread from one graph to the next
+     */
+    private static final ThreadLocal<CompactSeqGraph> COMPACT_GRAPHS = ThreadLocal.withInitial(CompactSeqGraph::new);
+
     /**
      * Construct an empty SeqGraph where we'll add nodes based on a kmer size of kmer
      *
@@ -60,6 +65,8 @@ public final class SeqGraph extends BaseGraph<SeqVertex, BaseEdge> {
      * Simplify this graph, merging vertices together and restructuring the graph in an
      * effort to minimize the number of overall vertices in the graph without changing
      * in any way the sequences implied by a complex enumeration of all paths through the graph.
+     *
+     * The simplification runs on a {@link CompactSeqGraph} copy of this graph, which is copied back at the end.
      */
     public void simplifyGraph() {
         simplifyGraph(Integer.MAX_VALUE);
@@ -67,18 +74,29 @@ public final class SeqGraph extends BaseGraph<SeqVertex, BaseEdge> {
 
     @VisibleForTesting
     void simplifyGraph(final int maxCycles) {
+        final CompactSeqGraph graph = COMPACT_GRAPHS.get();
+        graph.load(this);
+        try {
+            simplifyGraph(graph, maxCycles);
+            graph.copyInto(this);
+        } finally {
+            graph.clear();
+        }
+    }
+
+    private void simplifyGraph(final CompactSeqGraph graph, final int maxCycles) {
         // start off with one round of zipping of chains for performance reasons
-        zipLinearChains();
+        graph.zipLinearChains();
 
-        SeqGraph prevGraph = null;
+        CompactSeqGraph.Structure prevStructure = null;
         for( int i = 0; i < maxCycles; i++ ) {
             if ( i > MAX_REASONABLE_SIMPLIFICATION_CYCLES ) {
                 logger.warn("Infinite loop detected in simpliciation routines.  Writing current graph to debugMeMark.dot");
-                printGraph(new File("debugMeMark.dot"), 0);
+                graph.toSeqGraph(getKmerSize()).printGraph(new File("debugMeMark.dot"), 0);
                 throw new IllegalStateException("Infinite loop detected in simplification routines for kmer graph " + getKmerSize());
             }
 
-            final boolean didSomeWork = simplifyGraphOnce(i);
+            final boolean didSomeWork = simplifyGraphOnce(graph, i);
             if ( ! didSomeWork )
                 // no simplification algorithm could run, so stop
             {
@@ -86,15 +104,15 @@ public final class SeqGraph extends BaseGraph<SeqVertex, BaseEdge> {
             }
 
             // we get five cycles before we start looking for changes in the graph
-            // by cloning ourselves and then checking for any changes
+            // by remembering its structure and then checking for any changes
             if ( i > 5 ) {
                 // the previous graph and this graph have the same structure, so the simplification
                 // algorithms are looping endless between states.  Just break and consider ourselves done
-                if ( prevGraph != null && graphEquals(prevGraph, this) ) {
+                if ( prevStructure != null && graph.hasStructure(prevStructure) ) {
                     break;
                 }
 
-                prevGraph = clone();
+                prevStructure = graph.getStructure();
             }
         }
     }
@@ -103,31 +121,33 @@ public final class SeqGraph extends BaseGraph<SeqVertex, BaseEdge> {
      * Run one full cycle of the graph simplification algorithms
      * @return true if any algorithms said they did some simplification
      */
-    private boolean simplifyGraphOnce(final int iteration) {
+    private boolean simplifyGraphOnce(final CompactSeqGraph graph, final int iteration) {
         //logger.info("simplifyGraph iteration " + i);
         // iterate until we haven't don't anything useful
-        printGraphSimplification(new File("simplifyGraph." + iteration + ".1.dot"));
+        printGraphSimplification(graph, new File("simplifyGraph." + iteration + ".1.dot"));
         boolean didSomeWork = false;
-        didSomeWork |= new MergeDiamonds(this).transformUntilComplete();
-        didSomeWork |= new MergeTails(this).transformUntilComplete();
-        printGraphSimplification(new File("simplifyGraph." + iteration + ".2.diamonds_and_tails.dot"));
+        didSomeWork |= graph.mergeDiamonds();
+        didSomeWork |= graph.mergeTails();
+        printGraphSimplification(graph, new File("simplifyGraph." + iteration + ".2.diamonds_and_tails.dot"));
 
-        didSomeWork |= new SplitCommonSuffices(this).transformUntilComplete();
-        printGraphSimplification(new File("simplifyGraph." + iteration + ".3.split_suffix.dot"));
-        didSomeWork |= new MergeCommonSuffices(this).transformUntilComplete();
-        printGraphSimplification(new File("simplifyGraph." + iteration + ".4.merge_suffix.dot"));
+        didSomeWork |= graph.splitCommonSuffices();
+        printGraphSimplification(graph, new File("simplifyGraph." + iteration + ".3.split_suffix.dot"));
+        didSomeWork |= graph.mergeCommonSuffices();
+        printGraphSimplification(graph, new File("simplifyGraph." + iteration + ".4.merge_suffix.dot"));
 
-        didSomeWork |= zipLinearChains();
+        didSomeWork |= graph.zipLinearChains();
         return didSomeWork;
     }
 
     /**
      * Print simplication step of this graph, if PRINT_SIMPLIFY_GRAPHS is enabled
+     * @param graph the compact graph being simplified
      * @param file the destination for the graph DOT file
      */
-    private void printGraphSimplification(final File file) {
+    private void printGraphSimplification(final CompactSeqGraph graph, final File file) {
         if ( PRINT_SIMPLIFY_GRAPHS ) {
-            subsetToNeighbors(getReferenceSourceVertex(), 5).printGraph(file, 0);
+            final SeqGraph seqGraph = graph.toSeqGraph(getKmerSize());
+            seqGraph.subsetToNeighbors(seqGraph.getReferenceSourceVertex(), 5).printGraph(file, 0);
         }
     }
 
@@ -0,0 +1,302 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.readthreading;
+
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.Kmer;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * A map from kmers of a fixed size to values, for read threading. Kmers are looked up directly by their position in a
+ * sequence, without allocating a {@link Kmer} for each lookup.
+ *
+ * Kmers of up to {@link #MAX_PACKED_KMER_SIZE} bases that consist only of the (upper-case) bases A, C, G and T are
+ * packed two bits per base into one or two longs, and stored in an open-addressing (linear probing) hash table.
+ * Any other kmer -- one containing an N or another IUPAC code, or any kmer if the kmer size is too large to pack --
+ * goes into an ordinary map keyed by {@link Kmer}. As with {@link Kmer}, two kmers are equal only if their bases are
+ * identical.
+ *
+ * Iteration order is unspecified. Not thread-safe.
+ *
+ * @param <V> type of the values. Values may not be null.
+ */
+final class KmerIndex<V> {
+    /**
+     * Largest kmer size for which kmers are packed into longs
+     */
+    static final int MAX_PACKED_KMER_SIZE = 64;
+
+    private static final int BASES_PER_WORD = 32;
+    private static final int INITIAL_CAPACITY = 64;
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    /**
+     * 2-bit code of each base that can be packed, or -1
+     */
+    private static final byte[] BASE_CODES = new byte[256];
+    private static final byte[] CODE_BASES = {'A', 'C', 'G', 'T'};
+    static {
+        Arrays.fill(BASE_CODES, (byte)-1);
+        for ( int code = 0; code < CODE_BASES.length; ++code ) {
+            BASE_CODES[CODE_BASES[code]] = (byte)code;
+        }
+    }
+
+    private final int kmerSize;
+
+    /**
+     * Number of longs in each packed kmer (0 if kmers of this size can't be packed)
+     */
+    private final int wordsPerKmer;
+
+    /**
+     * The hash table: the packed kmer in slot i occupies keys[i * wordsPerKmer] to keys[(i + 1) * wordsPerKmer - 1],
+     * and its value is values[i]. A null value marks an empty slot.
+     */
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int shift;
+    private int numPacked = 0;
+
+    /**
+     * Kmers that can't be packed. Created on first use.
+     */
+    private Map<Kmer, V> unpackable = null;
+
+    /**
+     * The most recently packed kmer
+     */
+    private final long[] packed;
+
+    /**
+     * @param kmerSize size of the kmers in this index (> 0)
+     */
+    KmerIndex(final int kmerSize) {
+        Utils.validateArg(kmerSize > 0, () -> "kmerSize must be > 0 but got " + kmerSize);
+        this.kmerSize = kmerSize;
+        this.wordsPerKmer = kmerSize <= MAX_PACKED_KMER_SIZE ? (kmerSize + BASES_PER_WORD - 1) / BASES_PER_WORD : 0;
+        this.packed = new long[wordsPerKmer];
+        allocate(INITIAL_CAPACITY);
+    }
+
+    int getKmerSize() {
+        return kmerSize;
+    }
+
+    /**
+     * @return the number of kmers in this index
+     */
+    int size() {
+        return numPacked + (unpackable == null ? 0 : unpackable.size());
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * @param bases bases containing the kmer
+     * @param start offset of the kmer in bases
+     * @return the value for the kmer of our size starting at start in bases, or null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    V get(final byte[] bases, final int start) {
+        if ( ! pack(bases, start) ) {
+            return unpackable == null ? null : unpackable.get(new Kmer(bases, start, kmerSize));
+        }
+        return (V)values[findSlot()];
+    }
+
+    boolean containsKey(final byte[] bases, final int start) {
+        return get(bases, start) != null;
+    }
+
+    /**
+     * Associate a value with the kmer of our size starting at start in bases. The bases are not retained.
+     *
+     * @return the previous value for the kmer, or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    V put(final byte[] bases, final int start, final V value) {
+        Utils.nonNull(value);
+        if ( ! pack(bases, start) ) {
+            if ( unpackable == null ) {
+                unpackable = new LinkedHashMap<>();
+            }
+            return unpackable.put(new Kmer(Arrays.copyOfRange(bases, start, start + kmerSize)), value);
+        }
+
+        final int slot = findSlot();
+        final V previous = (V)values[slot];
+        values[slot] = value;
+        if ( previous == null ) {
+            System.arraycopy(packed, 0, keys, slot * wordsPerKmer, wordsPerKmer);
+            if ( ++numPacked > (values.length >> 1) + (values.length >> 2) ) {
+                rehash(values.length << 1);
+            }
+        }
+        return previous;
+    }
+
+    /**
+     * Remove the kmer of our size starting at start in bases
+     *
+     * @return the value for the kmer, or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    V remove(final byte[] bases, final int start) {
+        if ( ! pack(bases, start) ) {
+            return unpackable == null ? null : unpackable.remove(new Kmer(bases, start, kmerSize));
+        }
+
+        int slot = findSlot();
+        final V previous = (V)values[slot];
+        if ( previous == null ) {
+            return null;
+        }
+        --numPacked;
+
+        // backward-shift deletion: move later entries of the probe sequence into the gap, so that lookups never need
+        // to skip over deleted slots
+        int next = slot;
+        while ( true ) {
+            values[slot] = null;
+            int home;
+            do {
+                next = (next + 1) & mask;
+                if ( values[next] == null ) {
+                    return previous;
+                }
+                home = homeSlot(keys, next * wordsPerKmer);
+            } while ( slot <= next ? slot < home && home <= next : slot < home || home <= next );
+            System.arraycopy(keys, next * wordsPerKmer, keys, slot * wordsPerKmer, wordsPerKmer);
+            values[slot] = values[next];
+            slot = next;
+        }
+    }
+
+    /**
+     * Remove all kmers
+     */
+    void clear() {
+        if ( numPacked > 0 ) {
+            Arrays.fill(values, null);
+            numPacked = 0;
+        }
+        unpackable = null;
+    }
+
+    /**
+     * Apply action to every value in this index, in no particular order
+     */
+    @SuppressWarnings("unchecked")
+    void forEachValue(final Consumer<? super V> action) {
+        for ( final Object value : values ) {
+            if ( value != null ) {
+                action.accept((V)value);
+            }
+        }
+        if ( unpackable != null ) {
+            unpackable.values().forEach(action);
+        }
+    }
+
+    /**
+     * @return a new set of all of the kmers in this index. Intended for testing and debugging.
+     */
+    Set<Kmer> keySet() {
+        final Set<Kmer> kmers = new LinkedHashSet<>(size() * 2);
+        for ( int slot = 0; slot < values.length; ++slot ) {
+            if ( values[slot] != null ) {
+                final byte[] bases = new byte[kmerSize];
+                for ( int i = 0; i < kmerSize; ++i ) {
+                    bases[i] = CODE_BASES[(int)(keys[slot * wordsPerKmer + i / BASES_PER_WORD] >>> (2 * (i % BASES_PER_WORD))) & 3];
+                }
+                kmers.add(new Kmer(bases));
+            }
+        }
+        if ( unpackable != null ) {
+            kmers.addAll(unpackable.keySet());
+        }
+        return kmers;
+    }
+
+    /**
+     * Pack the kmer of our size starting at start in bases into {@link #packed}
+     *
+     * @return false if the kmer can't be packed
+     */
+    private boolean pack(final byte[] bases, final int start) {
+        Utils.validIndex(start + kmerSize - 1, bases.length);
+        if ( wordsPerKmer == 0 ) {
+            return false;
+        }
+        for ( int word = 0; word < wordsPerKmer; ++word ) {
+            final int wordStart = start + word * BASES_PER_WORD;
+            final int wordEnd = Math.min(wordStart + BASES_PER_WORD, start + kmerSize);
+            long bits = 0;
+            for ( int i = wordEnd - 1; i >= wordStart; --i ) {
+                final int code = BASE_CODES[bases[i] & 0xFF];
+                if ( code < 0 ) {
+                    return false;
+                }
+                bits = (bits << 2) | code;
+            }
+            packed[word] = bits;
+        }
+        return true;
+    }
+
+    /**
+     * @return the slot that holds the kmer in {@link #packed}, or the empty slot where it belongs if it's not present
+     */
+    private int findSlot() {
+        int slot = homeSlot(packed, 0);
+        while ( values[slot] != null && ! keyEquals(slot) ) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private boolean keyEquals( final int slot ) {
+        final int offset = slot * wordsPerKmer;
+        for ( int word = 0; word < wordsPerKmer; ++word ) {
+            if ( keys[offset + word] != packed[word] ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int homeSlot(final long[] words, final int offset) {
+        long hash = words[offset];
+        for ( int word = 1; word < wordsPerKmer; ++word ) {
+            hash = hash * HASH_MULTIPLIER + words[offset + word];
+        }
+        return (int)((hash * HASH_MULTIPLIER) >>> shift);
+    }
+
+    private void allocate(final int capacity) {
+        keys = new long[capacity * Math.max(wordsPerKmer, 1)];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        shift = Long.SIZE - Integer.numberOfTrailingZeros(capacity);
+    }
+
+    private void rehash(final int newCapacity) {
+        final long[] oldKeys = keys;
+        final Object[] oldValues = values;
+        allocate(newCapacity);
+        for ( int oldSlot = 0; oldSlot < oldValues.length; ++oldSlot ) {
+            if ( oldValues[oldSlot] != null ) {
+                int slot = homeSlot(oldKeys, oldSlot * wordsPerKmer);
+                while ( values[slot] != null ) {
+                    slot = (slot + 1) & mask;
+                }
+                System.arraycopy(oldKeys, oldSlot * wordsPerKmer, keys, slot * wordsPerKmer, wordsPerKmer);
+                values[slot] = oldValues[oldSlot];
+            }
+        }
+    }
+}
@@ -27,6 +27,9 @@ import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
 
 public final class ReadThreadingAssembler {
     private static final Logger logger = LogManager.getLogger(ReadThreadingAssembler.class);
@@ -65,6 +68,11 @@ public final class ReadThreadingAssembler {
     private File debugGraphOutputPath = null;  //Where to write debug graphs, if unset it defaults to the current working dir
     private File graphOutputPath = null;
 
+    /**
+     * If not null, the graphs for the different kmer sizes are built concurrently on this pool
+     */
+    private ForkJoinPool kmerSizeAssemblyPool = null;
+
     public ReadThreadingAssembler(final int maxAllowedPathsForReadThreadingAssembler, final List<Integer> kmerSizes,
                                   final boolean dontIncreaseKmerSizesForCycles, final boolean allowNonUniqueKmersInRef,
                                   final int numPruningSamples, final int pruneFactor, final boolean useAdaptivePruning,
@@ -344,23 +352,70 @@ public final class ReadThreadingAssembler {
         final List<AssemblyResult> results = new LinkedList<>();
 
         // first, try using the requested kmer sizes
+        final List<Supplier<AssemblyResult>> graphBuilders = new ArrayList<>(kmerSizes.size());
         for ( final int kmerSize : kmerSizes ) {
-            addResult(results, createGraph(reads, refHaplotype, kmerSize, dontIncreaseKmerSizesForCycles, allowNonUniqueKmersInRef, header, aligner));
+            graphBuilders.add(() -> createGraph(reads, refHaplotype, kmerSize, dontIncreaseKmerSizesForCycles, allowNonUniqueKmersInRef, header, aligner));
         }
+        createGraphs(graphBuilders, false).forEach(result -> addResult(results, result));
 
-        // if none of those worked, iterate over larger sizes if allowed to do so
+        // if none of those worked, iterate over larger sizes if allowed to do so, stopping at the first one that works
         if ( results.isEmpty() && !dontIncreaseKmerSizesForCycles ) {
+            final List<Supplier<AssemblyResult>> largerGraphBuilders = new ArrayList<>(MAX_KMER_ITERATIONS_TO_ATTEMPT);
             int kmerSize = arrayMaxInt(kmerSizes) + KMER_SIZE_ITERATION_INCREASE;
-            int numIterations = 1;
-            while ( results.isEmpty() && numIterations <= MAX_KMER_ITERATIONS_TO_ATTEMPT ) {
+            for ( int numIterations = 1; numIterations <= MAX_KMER_ITERATIONS_TO_ATTEMPT; numIterations++ ) {
                 // on the last attempt we will allow low complexity graphs
                 final boolean lastAttempt = numIterations == MAX_KMER_ITERATIONS_TO_ATTEMPT;
-                addResult(results, createGraph(reads, refHaplotype, kmerSize, lastAttempt, lastAttempt, header, aligner));
+                final int largerKmerSize = kmerSize;
+                largerGraphBuilders.add(() -> createGraph(reads, refHaplotype, largerKmerSize, lastAttempt, lastAttempt, header, aligner));
                 kmerSize += KMER_SIZE_ITERATION_INCREASE;
-                numIterations++;
             }
+            createGraphs(largerGraphBuilders, true).forEach(result -> addResult(results, result));
+        }
+
+        return results;
+    }
+
+    /**
+     * Run each of the given graph builders, concurrently on the {@link #kmerSizeAssemblyPool} if there is one, and
+     * return their results in the order of the builders, so that the results don't depend on which graph is built first.
+     *
+     * @param graphBuilders the graph builders, each of which returns the result of {@link #createGraph} for one kmer size
+     * @param stopAtFirstResult if true, return only the results up to and including the first non-null one. When
+     *                          building concurrently, the builders after that one are cancelled if they haven't started.
+     * @return the (possibly null) results of the builders
+     */
+    private List<AssemblyResult> createGraphs(final List<Supplier<AssemblyResult>> graphBuilders, final boolean stopAtFirstResult) {
+        final List<AssemblyResult> results = new ArrayList<>(graphBuilders.size());
+        if ( kmerSizeAssemblyPool == null || graphBuilders.size() == 1 ) {
+            for ( final Supplier<AssemblyResult> graphBuilder : graphBuilders ) {
+                final AssemblyResult result = graphBuilder.get();
+                results.add(result);
+                if ( stopAtFirstResult && result != null ) {
+                    break;
+                }
+            }
+            return results;
         }
 
+        final List<ForkJoinTask<AssemblyResult>> tasks = new ArrayList<>(graphBuilders.size());
+        for ( final Supplier<AssemblyResult> graphBuilder : graphBuilders ) {
+            tasks.add(kmerSizeAssemblyPool.submit(graphBuilder::get));
+        }
+        try {
+            for ( final ForkJoinTask<AssemblyResult> task : tasks ) {
+                final AssemblyResult result = task.join();
+                results.add(result);
+                if ( stopAtFirstResult && result != null ) {
+                    break;
+                }
+            }
+        } finally {
+            // don't leave any graphs being built with our reads after we return
+            for ( final ForkJoinTask<AssemblyResult> task : tasks ) {
+                task.cancel(false);
+                task.quietlyJoin();
+            }
+        }
         return results;
     }
 
@@ -518,6 +573,14 @@ public final class ReadThreadingAssembler {
         this.graphOutputPath = graphOutputPath;
     }
 
+    /**
+     * Build the graphs for the different kmer sizes of each assembly region concurrently on the given pool, or
+     * sequentially if it is null. The assembly results are the same either way.
+     */
+    public void setKmerSizeAssemblyPool(final ForkJoinPool kmerSizeAssemblyPool) {
+        this.kmerSizeAssemblyPool = kmerSizeAssemblyPool;
+    }
+
     public byte getMinBaseQualityToUseInAssembly() {
         return minBaseQualityToUseInAssembly;
     }
@@ -58,12 +58,12 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
     /**
      * A set of non-unique kmers that cannot be used as merge points in the graph
      */
-    private Set<Kmer> nonUniqueKmers;
+    private KmerIndex<Boolean> nonUniqueKmers;
 
     /**
      * A map from kmers -> their corresponding vertex in the graph
      */
-    private final Map<Kmer, MultiDeBruijnVertex> uniqueKmers = new LinkedHashMap<>();
+    private final KmerIndex<MultiDeBruijnVertex> uniqueKmers = new KmerIndex<>(kmerSize);
 
     private final boolean debugGraphTransformations;
     private final byte minBaseQualityToUseInAssembly;
@@ -268,8 +268,7 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
         }
 
         for ( int i = seqForKmers.start; i < seqForKmers.stop - kmerSize; i++ ) {
-            final Kmer kmer1 = new Kmer(seqForKmers.sequence, i, kmerSize);
-            if ( isThreadingStart(kmer1) ) {
+            if ( isThreadingStart(seqForKmers.sequence, i) ) {
                 return i;
             }
         }
@@ -283,12 +282,13 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
      * @see #setThreadingStartOnlyAtExistingVertex(boolean)
      * @see #getThreadingStartOnlyAtExistingVertex()
      *
-     * @param kmer the query kmer.
+     * @param sequence the sequence containing the query kmer.
+     * @param start the start of the query kmer in sequence.
      * @return {@code true} if we can start thread the sequence at this kmer, {@code false} otherwise.
      */
-    private boolean isThreadingStart(final Kmer kmer) {
-        Utils.nonNull(kmer);
-        return startThreadingOnlyAtExistingVertex ? uniqueKmers.containsKey(kmer) : !nonUniqueKmers.contains(kmer);
+    private boolean isThreadingStart(final byte[] sequence, final int start) {
+        Utils.nonNull(sequence);
+        return startThreadingOnlyAtExistingVertex ? uniqueKmers.containsKey(sequence, start) : !nonUniqueKmers.containsKey(sequence, start);
     }
 
     /**
@@ -336,9 +336,7 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
         // clear
         pending.clear();
         alreadyBuilt = true;
-        for (final MultiDeBruijnVertex v : uniqueKmers.values()) {
-            v.setAdditionalInfo(v.getAdditionalInfo() + '+');
-        }
+        uniqueKmers.forEachValue(v -> v.setAdditionalInfo(v.getAdditionalInfo() + '+'));
     }
 
 
@@ -347,8 +345,9 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
         final boolean result = super.removeVertex(V);
         if (result) {
             final byte[] sequence = V.getSequence();
-            final Kmer kmer = new Kmer(sequence);
-            uniqueKmers.remove(kmer);
+            if ( sequence.length == kmerSize ) {
+                uniqueKmers.remove(sequence, 0);
+            }
         }
         return result;
     }
@@ -431,9 +430,9 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
 
     /** structure that keeps track of the non-unique kmers for a given kmer size */
     private static final class NonUniqueResult {
-        final Set<Kmer> nonUniques;
+        final KmerIndex<Boolean> nonUniques;
 
-        private NonUniqueResult(final Set<Kmer> nonUniques) {
+        private NonUniqueResult(final KmerIndex<Boolean> nonUniques) {
             this.nonUniques = nonUniques;
         }
     }
@@ -998,26 +997,24 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
      */
     private NonUniqueResult determineKmerSizeAndNonUniques(final int minKmerSize, final int maxKmerSize) {
         final Collection<SequenceForKmers> withNonUniques = getAllPendingSequences();
-        final Set<Kmer> nonUniqueKmers = new HashSet<>();
+        KmerIndex<Boolean> nonUniqueKmers = null;
 
         // go through the sequences and determine which kmers aren't unique within each read
         for (int kmerSize = minKmerSize ; kmerSize <= maxKmerSize; kmerSize++) {
-            // clear out set of non-unique kmers
-            nonUniqueKmers.clear();
+            // start a new set of non-unique kmers, and a scratch set of the kmers seen in each sequence
+            nonUniqueKmers = new KmerIndex<>(kmerSize);
+            final KmerIndex<Boolean> kmersInSequence = new KmerIndex<>(kmerSize);
 
             // loop over all sequences that have non-unique kmers in them from the previous iterator
             final Iterator<SequenceForKmers> it = withNonUniques.iterator();
             while ( it.hasNext() ) {
                 final SequenceForKmers sequenceForKmers = it.next();
 
-                // determine the non-unique kmers for this sequence
-                final Collection<Kmer> nonUniquesFromSeq = determineNonUniqueKmers(sequenceForKmers, kmerSize);
-                if ( nonUniquesFromSeq.isEmpty() ) {
+                // determine the non-unique kmers for this sequence, keeping track of the non-uniques for this kmerSize
+                kmersInSequence.clear();
+                if ( ! addNonUniqueKmers(sequenceForKmers, kmersInSequence, nonUniqueKmers) ) {
                     // remove this sequence from future consideration
                     it.remove();
-                } else {
-                    // keep track of the non-uniques for this kmerSize, and keep it in the list of sequences that have non-uniques
-                    nonUniqueKmers.addAll(nonUniquesFromSeq);
                 }
             }
 
@@ -1048,18 +1045,38 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
      */
     static Collection<Kmer> determineNonUniqueKmers(final SequenceForKmers seqForKmers, final int kmerSize) {
         // count up occurrences of kmers within each read
-        final Set<Kmer> allKmers = new LinkedHashSet<>();
+        final KmerIndex<Boolean> allKmers = new KmerIndex<>(kmerSize);
         final List<Kmer> nonUniqueKmers = new ArrayList<>();
         final int stopPosition = seqForKmers.stop - kmerSize;
         for (int i = 0; i <= stopPosition; i++) {
-            final Kmer kmer = new Kmer(seqForKmers.sequence, i, kmerSize);
-            if (!allKmers.add(kmer)) {
-                nonUniqueKmers.add(kmer);
+            if (allKmers.put(seqForKmers.sequence, i, Boolean.TRUE) != null) {
+                nonUniqueKmers.add(new Kmer(seqForKmers.sequence, i, kmerSize));
             }
         }
         return nonUniqueKmers;
     }
 
+    /**
+     * Add the non-unique kmers in a sequence to a set of non-unique kmers, without allocating a {@link Kmer} for each
+     * kmer in the sequence (see {@link #determineNonUniqueKmers})
+     *
+     * @param seqForKmers a sequence to get kmers from
+     * @param allKmers an empty scratch set of the same kmer size as nonUniqueKmers
+     * @param nonUniqueKmers the set of non-unique kmers to add to
+     * @return true if the sequence contains any non-unique kmers
+     */
+    private static boolean addNonUniqueKmers(final SequenceForKmers seqForKmers, final KmerIndex<Boolean> allKmers, final KmerIndex<Boolean> nonUniqueKmers) {
+        boolean foundNonUnique = false;
+        final int stopPosition = seqForKmers.stop - allKmers.getKmerSize();
+        for (int i = 0; i <= stopPosition; i++) {
+            if (allKmers.put(seqForKmers.sequence, i, Boolean.TRUE) != null) {
+                nonUniqueKmers.put(seqForKmers.sequence, i, Boolean.TRUE);
+                foundNonUnique = true;
+            }
+        }
+        return foundNonUnique;
+    }
+
     @Override
     public SeqGraph toSequenceGraph() {
         buildGraphIfNecessary();
@@ -1092,23 +1109,22 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
      * @return a non-null vertex
      */
     private MultiDeBruijnVertex getOrCreateKmerVertex(final byte[] sequence, final int start) {
-        final Kmer kmer = new Kmer(sequence, start, kmerSize);
-        final MultiDeBruijnVertex vertex = getUniqueKmerVertex(kmer, true);
-        return ( vertex != null ) ? vertex : createVertex(kmer);
+        final MultiDeBruijnVertex vertex = getUniqueKmerVertex(sequence, start, true);
+        return ( vertex != null ) ? vertex : createVertex(sequence, start);
     }
 
     /**
-     * Get the unique vertex for kmer, or null if not possible.
+     * Get the unique vertex for the kmer in sequence starting at start, or null if not possible.
      *
      * @param allowRefSource if true, we will allow kmer to match the reference source vertex
      * @return a vertex for kmer, or null if it's not unique
      */
-    private MultiDeBruijnVertex getUniqueKmerVertex(final Kmer kmer, final boolean allowRefSource) {
-        if ( ! allowRefSource && kmer.equals(refSource) ) {
+    private MultiDeBruijnVertex getUniqueKmerVertex(final byte[] sequence, final int start, final boolean allowRefSource) {
+        if ( ! allowRefSource && refSource != null && Utils.equalRange(sequence, start, refSource.bases(), 0, kmerSize) ) {
             return null;
         }
 
-        return uniqueKmers.get(kmer);
+        return uniqueKmers.get(sequence, start);
     }
 
 
@@ -1117,11 +1133,12 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
      *
      * kmer must not have a entry in unique kmers, or an error will be thrown
      *
-     * @param kmer the kmer we want to create a vertex for
+     * @param sequence the sequence containing the kmer we want to create a vertex for
+     * @param start the start of the kmer in sequence
      * @return the non-null created vertex
      */
-    private MultiDeBruijnVertex createVertex(final Kmer kmer) {
-        final MultiDeBruijnVertex newVertex = new MultiDeBruijnVertex(kmer.bases());
+    private MultiDeBruijnVertex createVertex(final byte[] sequence, final int start) {
+        final MultiDeBruijnVertex newVertex = new MultiDeBruijnVertex(Arrays.copyOfRange(sequence, start, start + kmerSize));
         final int prevSize = vertexSet().size();
         addVertex(newVertex);
 
@@ -1131,9 +1148,9 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
         }
 
         // add the vertex to the unique kmer map, if it is in fact unique
-        if ( ! nonUniqueKmers.contains(kmer) && ! uniqueKmers.containsKey(kmer) ) // TODO -- not sure this last test is necessary
+        if ( ! nonUniqueKmers.containsKey(sequence, start) && ! uniqueKmers.containsKey(sequence, start) ) // TODO -- not sure this last test is necessary
         {
-            uniqueKmers.put(kmer, newVertex);
+            uniqueKmers.put(sequence, start, newVertex);
         }
 
         return newVertex;
@@ -1164,15 +1181,14 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
         }
 
         // none of our outgoing edges had our unique suffix base, so we check for an opportunity to merge back in
-        final Kmer kmer = new Kmer(sequence, kmerStart, kmerSize);
-        final MultiDeBruijnVertex uniqueMergeVertex = getUniqueKmerVertex(kmer, false);
+        final MultiDeBruijnVertex uniqueMergeVertex = getUniqueKmerVertex(sequence, kmerStart, false);
 
         if ( isRef && uniqueMergeVertex != null ) {
             throw new IllegalStateException("Found a unique vertex to merge into the reference graph " + prevVertex + " -> " + uniqueMergeVertex);
         }
 
         // either use our unique merge vertex, or create a new one in the chain
-        final MultiDeBruijnVertex nextVertex = uniqueMergeVertex == null ? createVertex(kmer) : uniqueMergeVertex;
+        final MultiDeBruijnVertex nextVertex = uniqueMergeVertex == null ? createVertex(sequence, kmerStart) : uniqueMergeVertex;
         addEdge(prevVertex, nextVertex, ((MyEdgeFactory)getEdgeFactory()).createEdge(isRef, count));
         return nextVertex;
     }
@@ -1227,7 +1243,7 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
      */
     @VisibleForTesting
     Set<Kmer> getNonUniqueKmers() {
-        return nonUniqueKmers;
+        return nonUniqueKmers.keySet();
     }
 
     @Override
@@ -1238,7 +1254,7 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
 
     @Override
     public MultiDeBruijnVertex findKmer(final Kmer k) {
-        return uniqueKmers.get(k);
+        return k.length() == kmerSize ? uniqueKmers.get(k.bases(), 0) : null;
     }
 
 
@@ -7,16 +7,13 @@ import org.broadinstitute.hellbender.exceptions.UserException.MalformedRead;
 import org.broadinstitute.hellbender.tools.ApplyBQSRArgumentCollection;
 import org.broadinstitute.hellbender.utils.QualityUtils;
 import org.broadinstitute.hellbender.utils.Utils;
-import org.broadinstitute.hellbender.utils.collections.NestedIntegerArray;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.ReadUtils;
 import org.broadinstitute.hellbender.utils.recalibration.*;
-import org.broadinstitute.hellbender.utils.recalibration.covariates.CovariateKeyCache;
 import org.broadinstitute.hellbender.utils.recalibration.covariates.ReadCovariates;
 import org.broadinstitute.hellbender.utils.recalibration.covariates.StandardCovariateList;
 
 import java.io.File;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -27,27 +24,17 @@ import static org.broadinstitute.hellbender.utils.recalibration.RecalDatum.MAX_R
 public final class BQSRReadTransformer implements ReadTransformer {
     private static final long serialVersionUID = 1L;
 
-    private final QuantizationInfo quantizationInfo; // histogram containing the map for qual quantization (calculated after recalibration is done)
-    private final RecalibrationTables recalibrationTables;
+    private final RecalibrationLookupTable recalibrationLookupTable; // the recalibration tables, precomputed for recalibrating bases
     private final StandardCovariateList covariates; // list of all covariates to be used in this calculation
     private final SAMFileHeader header;
     
     private final int preserveQLessThan;
-    private final double globalQScorePrior;
     private final boolean emitOriginalQuals;
-
-    //These fields are created to avoid redoing these calculations for every read
-    private final int totalCovariateCount;
-    private final int specialCovariateCount;
-
-    private static final int BASE_SUBSTITUTION_INDEX = EventType.BASE_SUBSTITUTION.ordinal();
-
-    //Note: varargs allocates a new array every time. We'll pre-allocate one array and reuse it to avoid object allocation for every base of every read.
-    private final RecalDatum[] empiricalQualCovsArgs;
     private final boolean useOriginalBaseQualities;
 
-    private byte[] staticQuantizedMapping;
-    private final CovariateKeyCache keyCache;
+    // the final quality of every recalibrated quality, after quantization and static binning
+    private final byte[] finalQuals;
+    private final RecalibrationScratch scratch;
 
     /**
      * Constructor using a GATK Report file
@@ -71,9 +58,7 @@ public final class BQSRReadTransformer implements ReadTransformer {
      */
     private BQSRReadTransformer(final SAMFileHeader header, final RecalibrationTables recalibrationTables, final QuantizationInfo quantizationInfo, final StandardCovariateList covariates, final ApplyBQSRArgumentCollection args) {
         this.header = header;
-        this.recalibrationTables = recalibrationTables;
         this.covariates = covariates;
-        this.quantizationInfo = quantizationInfo;
 
         if (args.quantizationLevels == 0) { // quantizationLevels == 0 means no quantization, preserve the quality scores
             quantizationInfo.noQuantization();
@@ -82,22 +67,19 @@ public final class BQSRReadTransformer implements ReadTransformer {
         }
 
         this.preserveQLessThan = args.PRESERVE_QSCORES_LESS_THAN;
-        this.globalQScorePrior = args.globalQScorePrior;
         this.emitOriginalQuals = args.emitOriginalQuals;
         this.useOriginalBaseQualities = args.useOriginalBaseQualities;
 
         // staticQuantizedQuals is entirely separate from the dynamic binning that quantizationLevels, and
         // staticQuantizedQuals does not make use of quantizationInfo
+        byte[] staticQuantizedMapping = null;
         if(args.staticQuantizationQuals != null && !args.staticQuantizationQuals.isEmpty()) {
             staticQuantizedMapping = constructStaticQuantizedMapping(args.staticQuantizationQuals, args.roundDown);
         }
+        finalQuals = constructFinalQuals(quantizationInfo.getQuantizedQuals(), staticQuantizedMapping);
 
-        totalCovariateCount = covariates.size();
-        specialCovariateCount = covariates.numberOfSpecialCovariates();
-
-        //Note: We pre-create the varargs arrays that will be used in the calls. Otherwise we're spending a lot of time allocating those int[] objects
-        empiricalQualCovsArgs = new RecalDatum[totalCovariateCount - specialCovariateCount];
-        keyCache = new CovariateKeyCache();//one cache per transformer
+        recalibrationLookupTable = new RecalibrationLookupTable(recalibrationTables, covariates.size(), covariates.numberOfSpecialCovariates(), args.globalQScorePrior);
+        scratch = new RecalibrationScratch();//one scratch per transformer
     }
 
     /**
@@ -142,7 +124,7 @@ public final class BQSRReadTransformer implements ReadTransformer {
             }
         }
 
-        final ReadCovariates readCovariates = RecalUtils.computeCovariates(read, header, covariates, false, keyCache);
+        final ReadCovariates readCovariates = RecalUtils.computeCovariates(read, header, covariates, false, scratch);
 
         //clear indel qualities
         read.clearAttribute(ReadUtils.BQSR_BASE_INSERTION_QUALITIES);
@@ -151,21 +133,15 @@ public final class BQSRReadTransformer implements ReadTransformer {
         // get the keyset for this base using the error model
         final int[][] fullReadKeySet = readCovariates.getKeySet(EventType.BASE_SUBSTITUTION);
 
-        // the rg key is constant over the whole read, the global deltaQ is too
+        // the rg key is constant over the whole read
         final int rgKey = fullReadKeySet[0][0];
 
-        final RecalDatum empiricalQualRG = recalibrationTables.getReadGroupTable().get2Keys(rgKey, BASE_SUBSTITUTION_INDEX);
-
-        if (empiricalQualRG == null) {
+        if (!recalibrationLookupTable.hasReadGroup(rgKey)) {
             return read;
         }
         final byte[] quals = read.getBaseQualities();
 
         final int readLength = quals.length;
-        final double epsilon = globalQScorePrior > 0.0 ? globalQScorePrior : empiricalQualRG.getEstimatedQReported();
-
-        final NestedIntegerArray<RecalDatum> qualityScoreTable = recalibrationTables.getQualityScoreTable();
-        final List<Byte> quantizedQuals = quantizationInfo.getQuantizedQuals();
 
         //Note: this loop is under very heavy use in applyBQSR. Keep it slim.
         for (int offset = 0; offset < readLength; offset++) { // recalibrate all bases in the read
@@ -174,23 +150,10 @@ public final class BQSRReadTransformer implements ReadTransformer {
             if (quals[offset] < preserveQLessThan) {
                 continue;
             }
-            Arrays.fill(empiricalQualCovsArgs, null);  //clear the array
-            final int[] keySet = fullReadKeySet[offset];
-
-
-            final RecalDatum empiricalQualQS = qualityScoreTable.get3Keys(keySet[0], keySet[1], BASE_SUBSTITUTION_INDEX);
-
-            for (int i = specialCovariateCount; i < totalCovariateCount; i++) {
-                if (keySet[i] >= 0) {
-                    empiricalQualCovsArgs[i - specialCovariateCount] = recalibrationTables.getTable(i).get4Keys(keySet[0], keySet[1], keySet[i], BASE_SUBSTITUTION_INDEX);
-                }
-            }
-            final double recalibratedQualDouble = hierarchicalBayesianQualityEstimate(epsilon, empiricalQualRG, empiricalQualQS, empiricalQualCovsArgs);
-
-            final byte recalibratedQualityScore = quantizedQuals.get(getRecalibratedQual(recalibratedQualDouble));
+            final double recalibratedQualDouble = recalibrationLookupTable.getRecalibratedQuality(fullReadKeySet[offset]);
 
-            // Bin to static quals
-            quals[offset] = staticQuantizedMapping == null ? recalibratedQualityScore : staticQuantizedMapping[recalibratedQualityScore];
+            // quantize and bin to static quals
+            quals[offset] = finalQuals[getRecalibratedQual(recalibratedQualDouble)];
         }
         read.setBaseQualities(quals);
         return read;
@@ -201,24 +164,53 @@ public final class BQSRReadTransformer implements ReadTransformer {
         return boundQual(fastRound(recalibratedQualDouble), MAX_RECALIBRATED_Q_SCORE);
     }
 
+    /**
+     * Maps every recalibrated quality to its final quality, so that quantization and static binning are one lookup per base
+     *
+     * @param quantizedQuals the quantized quality of every quality
+     * @param staticQuantizedMapping the static bin of every quality, or null if there is no static binning
+     * @return the final quality of every recalibrated quality, from 0 to {@link RecalDatum#MAX_RECALIBRATED_Q_SCORE}
+     */
+    private static byte[] constructFinalQuals(final List<Byte> quantizedQuals, final byte[] staticQuantizedMapping) {
+        final byte[] finalQuals = new byte[Math.min(MAX_RECALIBRATED_Q_SCORE + 1, quantizedQuals.size())];
+        for (int qual = 0; qual < finalQuals.length; qual++) {
+            final byte quantizedQual = quantizedQuals.get(qual);
+            finalQuals[qual] = staticQuantizedMapping == null ? quantizedQual : staticQuantizedMapping[quantizedQual];
+        }
+        return finalQuals;
+    }
+
     public static double hierarchicalBayesianQualityEstimate( final double epsilon,
                                                               final RecalDatum empiricalQualRG,
                                                               final RecalDatum empiricalQualQS,
                                                               final RecalDatum... empiricalQualCovs ) {
-        final double globalDeltaQ = empiricalQualRG == null ? 0.0 : empiricalQualRG.getEmpiricalQuality(epsilon) - epsilon;
-        final double deltaQReported = empiricalQualQS == null ? 0.0 : empiricalQualQS.getEmpiricalQuality(globalDeltaQ + epsilon) - (globalDeltaQ + epsilon);
-
         double deltaQCovariates = 0.0;
-        final double conditionalPrior2 = deltaQReported + globalDeltaQ + epsilon;
+        final double conditionalPrior2 = conditionalPrior(epsilon, empiricalQualRG, empiricalQualQS);
         for( final RecalDatum empiricalQualCov : empiricalQualCovs ) {
             if (empiricalQualCov != null) {
-                deltaQCovariates += empiricalQualCov.getEmpiricalQuality(conditionalPrior2) - conditionalPrior2;
+                deltaQCovariates += covariateDeltaQ(conditionalPrior2, empiricalQualCov);
             }
         }
 
         return conditionalPrior2 + deltaQCovariates;
     }
 
+    /**
+     * @return the prior of the optional covariates of a base: epsilon, shifted by the read group and then by the reported quality
+     */
+    static double conditionalPrior(final double epsilon, final RecalDatum empiricalQualRG, final RecalDatum empiricalQualQS) {
+        final double globalDeltaQ = empiricalQualRG == null ? 0.0 : empiricalQualRG.getEmpiricalQuality(epsilon) - epsilon;
+        final double deltaQReported = empiricalQualQS == null ? 0.0 : empiricalQualQS.getEmpiricalQuality(globalDeltaQ + epsilon) - (globalDeltaQ + epsilon);
+        return deltaQReported + globalDeltaQ + epsilon;
+    }
+
+    /**
+     * @return the quality shift of an optional covariate of a base, given the conditional prior of the base
+     */
+    static double covariateDeltaQ(final double conditionalPrior, final RecalDatum empiricalQualCov) {
+        return empiricalQualCov.getEmpiricalQuality(conditionalPrior) - conditionalPrior;
+    }
+
     /**
      * Constructs an array that maps particular quantized values to a rounded value in staticQuantizedQuals
      *
@@ -0,0 +1,148 @@
+package org.broadinstitute.hellbender.transformers;
+
+import org.broadinstitute.hellbender.utils.collections.NestedIntegerArray;
+import org.broadinstitute.hellbender.utils.recalibration.EventType;
+import org.broadinstitute.hellbender.utils.recalibration.RecalDatum;
+import org.broadinstitute.hellbender.utils.recalibration.RecalibrationTables;
+
+import java.io.Serializable;
+
+/**
+ * The base substitution tables of a recalibration report, precomputed for {@link BQSRReadTransformer}, so that
+ * recalibrating a base only indexes arrays instead of looking up {@link RecalDatum}s and computing their empirical
+ * qualities.
+ *
+ * The recalibrated quality of a base (see {@link BQSRReadTransformer#hierarchicalBayesianQualityEstimate}) is a
+ * conditional prior, which only depends on the read group and reported quality of the base, plus the quality shift
+ * of each optional covariate, which only depends on the read group, reported quality and covariate value. The
+ * combinations of the optional covariates are far too many for a table of final qualities, but these terms are
+ * computed here once for every cell of the tables, exactly as the transformer would compute them, and are summed in
+ * the same order, so the recalibrated qualities are identical to the bit.
+ *
+ * The shifts of a covariate are kept in a dense row for every read group and reported quality with data, indexed by
+ * the covariate value, and only as long as the largest value observed in the row.
+ */
+final class RecalibrationLookupTable implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final int BASE_SUBSTITUTION_INDEX = EventType.BASE_SUBSTITUTION.ordinal();
+
+    private final int numReadGroups;
+
+    /**
+     * Every non-negative byte is a row, so that reported qualities missing from the tables need no bounds check
+     */
+    private final int numQuals;
+
+    private final boolean[] hasReadGroup;
+
+    /**
+     * The conditional prior of every read group and reported quality, indexed by readGroup * numQuals + qual
+     */
+    private final double[] conditionalPriors;
+
+    /**
+     * The quality shifts of the optional covariates, indexed by covariate (from the first optional covariate),
+     * readGroup * numQuals + qual, and covariate value. Rows without data are null.
+     */
+    private final double[][][] covariateDeltas;
+
+    private final int specialCovariateCount;
+
+    /**
+     * @param tables the recalibration tables of a report
+     * @param totalCovariateCount the number of covariates
+     * @param specialCovariateCount the number of required covariates (read group and quality score)
+     * @param globalQScorePrior the global prior of the read group qualities, if positive, or else the reported
+     *                          quality of each read group is used
+     */
+    RecalibrationLookupTable(final RecalibrationTables tables, final int totalCovariateCount, final int specialCovariateCount, final double globalQScorePrior) {
+        final NestedIntegerArray<RecalDatum> readGroupTable = tables.getReadGroupTable();
+        final NestedIntegerArray<RecalDatum> qualityScoreTable = tables.getQualityScoreTable();
+        this.specialCovariateCount = specialCovariateCount;
+
+        numReadGroups = readGroupTable.getDimensions()[0];
+        numQuals = Math.max(Byte.MAX_VALUE + 1, qualityScoreTable.getDimensions()[1]);
+        hasReadGroup = new boolean[numReadGroups];
+        conditionalPriors = new double[numReadGroups * numQuals];
+        for ( int rgKey = 0; rgKey < numReadGroups; rgKey++ ) {
+            final RecalDatum empiricalQualRG = readGroupTable.get2Keys(rgKey, BASE_SUBSTITUTION_INDEX);
+            if ( empiricalQualRG == null ) {
+                continue;
+            }
+            hasReadGroup[rgKey] = true;
+            final double epsilon = globalQScorePrior > 0.0 ? globalQScorePrior : empiricalQualRG.getEstimatedQReported();
+            for ( int qual = 0; qual < numQuals; qual++ ) {
+                final RecalDatum empiricalQualQS = qualityScoreTable.get3Keys(rgKey, qual, BASE_SUBSTITUTION_INDEX);
+                conditionalPriors[rgKey * numQuals + qual] = BQSRReadTransformer.conditionalPrior(epsilon, empiricalQualRG, empiricalQualQS);
+            }
+        }
+
+        covariateDeltas = new double[totalCovariateCount - specialCovariateCount][][];
+        for ( int i = specialCovariateCount; i < totalCovariateCount; i++ ) {
+            covariateDeltas[i - specialCovariateCount] = computeCovariateDeltas(tables.getTable(i));
+        }
+    }
+
+    private double[][] computeCovariateDeltas(final NestedIntegerArray<RecalDatum> table) {
+        final double[][] rows = new double[conditionalPriors.length][];
+        final int[] rowLengths = new int[rows.length];
+        for ( final NestedIntegerArray.Leaf<RecalDatum> leaf : table.getAllLeaves() ) {
+            if ( isUsed(leaf) ) {
+                final int row = leaf.keys[0] * numQuals + leaf.keys[1];
+                rowLengths[row] = Math.max(rowLengths[row], leaf.keys[2] + 1);
+            }
+        }
+        for ( int row = 0; row < rows.length; row++ ) {
+            if ( rowLengths[row] > 0 ) {
+                rows[row] = new double[rowLengths[row]];
+            }
+        }
+        for ( final NestedIntegerArray.Leaf<RecalDatum> leaf : table.getAllLeaves() ) {
+            if ( isUsed(leaf) ) {
+                final int row = leaf.keys[0] * numQuals + leaf.keys[1];
+                rows[row][leaf.keys[2]] = BQSRReadTransformer.covariateDeltaQ(conditionalPriors[row], leaf.value);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * @return whether the transformer can look up the cell of leaf: a base substitution, in a read group with data
+     */
+    private boolean isUsed(final NestedIntegerArray.Leaf<RecalDatum> leaf) {
+        return leaf.keys[3] == BASE_SUBSTITUTION_INDEX && hasReadGroup[leaf.keys[0]];
+    }
+
+    /**
+     * @return whether the tables have data for the read group with key rgKey
+     */
+    boolean hasReadGroup(final int rgKey) {
+        return rgKey < numReadGroups && hasReadGroup[rgKey];
+    }
+
+    /**
+     * Compute the recalibrated quality of a base, as {@link BQSRReadTransformer#hierarchicalBayesianQualityEstimate}
+     * does from the datums of the tables.
+     *
+     * @param keySet the covariate keys of the base substitution at a base, in a read group with data
+     * @return the recalibrated quality, before rounding and quantization
+     */
+    double getRecalibratedQuality(final int[] keySet) {
+        final int row = keySet[0] * numQuals + keySet[1];
+        final double conditionalPrior = conditionalPriors[row];
+
+        double deltaQCovariates = 0.0;
+        for ( int i = 0; i < covariateDeltas.length; i++ ) {
+            final int key = keySet[i + specialCovariateCount];
+            if ( key >= 0 ) {
+                final double[] deltas = covariateDeltas[i][row];
+                // values that were not observed add nothing, as their datums would
+                if ( deltas != null && key < deltas.length ) {
+                    deltaQCovariates += deltas[key];
+                }
+            }
+        }
+        return conditionalPrior + deltaQCovariates;
+    }
+}
@@ -0,0 +1,329 @@
+package org.broadinstitute.hellbender.utils.fasta;
+
+import htsjdk.samtools.SAMException;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.reference.FastaSequenceIndex;
+import htsjdk.samtools.reference.FastaSequenceIndexEntry;
+import htsjdk.samtools.reference.ReferenceSequence;
+import htsjdk.samtools.reference.ReferenceSequenceFile;
+import htsjdk.samtools.reference.ReferenceSequenceFileFactory;
+import htsjdk.samtools.util.IOUtil;
+import htsjdk.samtools.util.StringUtil;
+import htsjdk.variant.utils.SAMSequenceDictionaryExtractor;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.BaseUtils;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An indexed fasta sequence file that memory-maps each contig of a local, uncompressed fasta, as an alternative to
+ * {@link CachingIndexedFastaSequenceFile} for tools that jump around the reference.
+ *
+ * There is no cache: each query copies the requested bases directly out of the mapped file (skipping line
+ * terminators), and normalizes only the copied bases. As with {@link CachingIndexedFastaSequenceFile}, bases are
+ * upper-cased unless preserveCase is set, and IUPAC bases are converted to Ns unless preserveIUPAC is set, so the
+ * bases returned by the two classes are identical.
+ *
+ * {@link #getSubsequenceAt} and {@link #getSequence} may be called concurrently from any number of threads, so a
+ * single instance may be shared by all the threads of a tool. The mappings are released by the garbage collector
+ * once the file is no longer referenced, so {@link #close} has no effect, and a shared instance may safely be
+ * closed by any of its users.
+ */
+public final class MemoryMappedFastaSequenceFile implements ReferenceSequenceFile {
+
+    private final Path fastaPath;
+
+    private final SAMSequenceDictionary sequenceDictionary;
+
+    /**
+     * If true, we will preserve the case of the original base in the genome
+     */
+    private final boolean preserveCase;
+
+    /**
+     * If true, we will preserve the IUPAC bases in the genome
+     */
+    private final boolean preserveIUPAC;
+
+    /**
+     * Mapped contigs, by name. Never modified after construction.
+     */
+    private final Map<String, MappedContig> contigs;
+
+    /**
+     * Index in the sequence dictionary of the contig to be returned by {@link #nextSequence}
+     */
+    private final AtomicInteger nextSequenceIndex = new AtomicInteger(0);
+
+    /**
+     * Memory-map the given indexed fasta sequence file. Throw an exception if the file cannot be mapped.
+     *
+     * Will convert all FASTA bases to upper case and all IUPAC bases to `N`.
+     *
+     * @param fasta The file to open.
+     */
+    public MemoryMappedFastaSequenceFile(final Path fasta) {
+        this(fasta, false);
+    }
+
+    /**
+     * Memory-map the given indexed fasta sequence file. Throw an exception if the file cannot be mapped.
+     *
+     * If {@code preserveAmbiguityCodesAndCapitalization} is {@code true}, will NOT convert IUPAC bases in the file to `N` and will NOT capitalize lower-case bases.
+     * NOTE: Most GATK tools do not support data created by setting {@code preserveAmbiguityCodesAndCapitalization} to {@code true}.
+     *
+     * @param fasta Fasta file to be used as reference. Must be local and uncompressed (see {@link #canMemoryMap}),
+     *              and must have companion .fai and .dict files.
+     * @param preserveAmbiguityCodesAndCapitalization Whether to preserve the original bases in the given reference file path or normalize them.
+     */
+    public MemoryMappedFastaSequenceFile(final Path fasta, final boolean preserveAmbiguityCodesAndCapitalization) {
+        this(fasta, preserveAmbiguityCodesAndCapitalization, preserveAmbiguityCodesAndCapitalization);
+    }
+
+    /**
+     * Memory-map the given indexed fasta sequence file. Throw an exception if the file cannot be mapped.
+     *
+     * NOTE: Most GATK tools do not support data created by setting {@code preserveCase} or {@code preserveIUPAC} to {@code true}.
+     *
+     * @param fasta Fasta file to be used as reference. Must be local and uncompressed (see {@link #canMemoryMap}),
+     *              and must have companion .fai and .dict files.
+     * @param preserveCase If true, we will keep the case of the underlying bases in the FASTA, otherwise everything is converted to upper case
+     * @param preserveIUPAC If true, we will keep the IUPAC bases in the FASTA, otherwise they are converted to Ns
+     */
+    public MemoryMappedFastaSequenceFile(final Path fasta, final boolean preserveCase, final boolean preserveIUPAC) {
+        Utils.nonNull(fasta);
+        checkFastaPath(fasta);
+        this.fastaPath = fasta;
+        this.preserveCase = preserveCase;
+        this.preserveIUPAC = preserveIUPAC;
+
+        try {
+            sequenceDictionary = SAMSequenceDictionaryExtractor.extractDictionary(ReferenceSequenceFileFactory.getDefaultDictionaryForReferenceSequence(fasta));
+            final FastaSequenceIndex index = new FastaSequenceIndex(ReferenceSequenceFileFactory.getFastaIndexFileName(fasta));
+
+            final Map<String, MappedContig> mappedContigs = new HashMap<>();
+            try ( final FileChannel channel = FileChannel.open(fasta, StandardOpenOption.READ) ) {
+                for ( final FastaSequenceIndexEntry entry : index ) {
+                    mappedContigs.put(entry.getContig(), new MappedContig(channel, entry, fasta));
+                }
+            }
+            contigs = Collections.unmodifiableMap(mappedContigs);
+        }
+        catch ( final UserException e ) {
+            throw e;
+        }
+        catch ( final Exception e ) {
+            throw new UserException.CouldNotReadInputFile(fasta, e);
+        }
+    }
+
+    /**
+     * Returns true if the given fasta can be memory-mapped by this class: it must be a regular file on the local
+     * file system, and must not be compressed.
+     *
+     * @param fasta Fasta file to be used as reference
+     */
+    public static boolean canMemoryMap(final Path fasta) {
+        Utils.nonNull(fasta);
+        if ( fasta.getFileSystem() != FileSystems.getDefault() || ! Files.isRegularFile(fasta) ) {
+            return false;
+        }
+        try {
+            return ! IOUtil.hasBlockCompressedExtension(fasta) && ! IOUtil.isBlockCompressed(fasta, true);
+        } catch ( final IOException e ) {
+            throw new UserException.CouldNotReadInputFile("Couldn't open fasta file: " + fasta.toUri().toString() + ".", e);
+        }
+    }
+
+    /**
+     * Check that the fasta and its companion files exist, and that the fasta can be memory-mapped
+     *
+     * @param fastaPath Fasta file to be used as reference
+     * @throws UserException If the given {@code fastaPath} is not good.
+     */
+    private static void checkFastaPath(final Path fastaPath) {
+        if ( ! Files.exists(fastaPath) ) {
+            throw new UserException.MissingReference("The specified fasta file (" + fastaPath.toUri() + ") does not exist.");
+        }
+
+        final Path indexPath = ReferenceSequenceFileFactory.getFastaIndexFileName(fastaPath);
+        final Path dictPath = ReferenceSequenceFileFactory.getDefaultDictionaryForReferenceSequence(fastaPath);
+        if ( ! Files.exists(indexPath) ) {
+            throw new UserException.MissingReferenceFaiFile(indexPath, fastaPath);
+        }
+        if ( ! Files.exists(dictPath) ) {
+            throw new UserException.MissingReferenceDictFile(dictPath, fastaPath);
+        }
+
+        if ( ! canMemoryMap(fastaPath) ) {
+            throw new UserException.CouldNotReadInputFile(fastaPath, "only uncompressed fasta files on the local file system can be memory-mapped");
+        }
+    }
+
+    /**
+     * Returns the sequence dictionary associated with this reference file
+     * @return a list of sequence records representing the sequences in this reference file
+     */
+    @Override
+    public SAMSequenceDictionary getSequenceDictionary() {
+        return sequenceDictionary;
+    }
+
+    /**
+     * Retrieves the next whole sequence from the file, in sequence dictionary order.
+     *
+     * @return a ReferenceSequence or null if at the end of the file
+     */
+    @Override
+    public ReferenceSequence nextSequence() {
+        final int sequenceIndex = nextSequenceIndex.getAndIncrement();
+        if ( sequenceIndex >= sequenceDictionary.size() ) {
+            return null;
+        }
+        return getSequence(sequenceDictionary.getSequence(sequenceIndex).getSequenceName());
+    }
+
+    /**
+     * Resets the ReferenceSequenceFile so that the next call to nextSequence() will return
+     * the first sequence in the file.
+     */
+    @Override
+    public void reset() {
+        nextSequenceIndex.set(0);
+    }
+
+    /**
+     * A {@link MemoryMappedFastaSequenceFile} is always indexed.
+     * @return true
+     */
+    @Override
+    public boolean isIndexed() {
+        return true;
+    }
+
+    /**
+     * Retrieves the complete sequence described by this contig.
+     *
+     * @param contig contig whose data should be returned.
+     * @return The full sequence associated with this contig.
+     */
+    @Override
+    public ReferenceSequence getSequence( final String contig ) {
+        final SAMSequenceRecord sequence = Utils.nonNull(sequenceDictionary.getSequence(contig), () -> "Contig: " + contig + " not found in sequence dictionary.");
+        return getSubsequenceAt(contig, 1L, sequence.getSequenceLength());
+    }
+
+    /**
+     * Gets the subsequence of the contig in the range [start,stop]
+     *
+     * May be called concurrently from multiple threads.
+     *
+     * @param contig Contig whose subsequence to retrieve.
+     * @param start inclusive, 1-based start of region.
+     * @param stop inclusive, 1-based stop of region.
+     * @return The partial reference sequence associated with this range.  If preserveCase is false, then
+     *         all of the bases in the ReferenceSequence returned by this method will be upper cased.
+     */
+    @Override
+    public ReferenceSequence getSubsequenceAt( final String contig, final long start, final long stop ) {
+        final SAMSequenceRecord contigInfo = sequenceDictionary.getSequence(contig);
+        if ( contigInfo == null ) {
+            throw new UserException.MissingContigInSequenceDictionary(contig, sequenceDictionary);
+        }
+        final MappedContig mappedContig = contigs.get(contig);
+        if ( mappedContig == null ) {
+            throw new SAMException("Unable to find entry for contig: " + contig);
+        }
+        if ( stop > mappedContig.length ) {
+            throw new SAMException("Query asks for data past end of contig. Query contig " + contig + " start:" + start + " stop:" + stop + " contigLength:" + mappedContig.length);
+        }
+        if ( start > stop + 1 ) {
+            throw new SAMException(String.format("Malformed query; start point %d lies after end point %d", start, stop));
+        }
+        Utils.validateArg(start >= 1, () -> "Query start must be >= 1 but was " + start);
+
+        final byte[] bases = mappedContig.getBases(start, stop);
+        if ( ! preserveCase ) StringUtil.toUpperCase(bases);
+        if ( ! preserveIUPAC ) BaseUtils.convertIUPACtoN(bases, true, false);
+        return new ReferenceSequence(contig, contigInfo.getSequenceIndex(), bases);
+    }
+
+    /**
+     * Does nothing: the mappings are released when this object is garbage collected.
+     */
+    @Override
+    public void close() {
+        // nothing to do
+    }
+
+    @Override
+    public String toString() {
+        return fastaPath.toUri().toString();
+    }
+
+    /**
+     * The bases of a single contig, mapped into memory, including line terminators.
+     */
+    private static final class MappedContig {
+        private final long length;
+        private final int basesPerLine;
+        private final int bytesPerLine;
+
+        /**
+         * Read-only mapping of the contig. Never read from directly, since buffer positions are not thread-safe:
+         * each query reads from its own duplicate.
+         */
+        private final ByteBuffer mappedBases;
+
+        private MappedContig( final FileChannel channel, final FastaSequenceIndexEntry entry, final Path fastaPath ) throws IOException {
+            this.length = entry.getSize();
+            this.basesPerLine = entry.getBasesPerLine();
+            this.bytesPerLine = entry.getBytesPerLine();
+
+            final long mappedSize = length == 0 ? 0 : byteOffsetOf(length - 1) + 1;
+            if ( mappedSize > Integer.MAX_VALUE ) {
+                throw new UserException.CouldNotReadInputFile(fastaPath, "contig " + entry.getContig() + " is too large to be memory-mapped");
+            }
+            this.mappedBases = channel.map(FileChannel.MapMode.READ_ONLY, entry.getLocation(), mappedSize);
+        }
+
+        /**
+         * @return the offset within the mapping of the base at the given 0-based position in the contig
+         */
+        private long byteOffsetOf( final long position ) {
+            return (position / basesPerLine) * bytesPerLine + position % basesPerLine;
+        }
+
+        /**
+         * @return a copy of the bases between 1-based positions start and stop, inclusive
+         */
+        private byte[] getBases( final long start, final long stop ) {
+            final byte[] bases = new byte[(int)(stop - start + 1)];
+            final ByteBuffer view = mappedBases.duplicate();
+
+            long position = start - 1;
+            int numCopied = 0;
+            while ( numCopied < bases.length ) {
+                final int offsetInLine = (int)(position % basesPerLine);
+                final int numToCopy = Math.min(basesPerLine - offsetInLine, bases.length - numCopied);
+                view.position((int)byteOffsetOf(position));
+                view.get(bases, numCopied, numToCopy);
+                numCopied += numToCopy;
+                position += numToCopy;
+            }
+            return bases;
+        }
+    }
+}
@@ -52,12 +52,23 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
     protected final GATKRead[][] readsBySampleIndex;
 
     /**
-     * Indexed per sample, allele and finally read (within sample).
+     * Indexed per sample, and then in a single flat array per sample, allele by allele.
      * <p>
-     *     valuesBySampleIndex[s][a][r] == lnLk(R_r | A_a) where R_r comes from Sample s.
+     *     valuesBySampleIndex[s][a * readCapacityBySampleIndex[s] + r] == lnLk(R_r | A_a) where R_r comes from Sample s.
      * </p>
+     * <p>
+     *     The likelihoods of each allele are contiguous, in a row of {@link #readCapacityBySampleIndex readCapacity}
+     *     entries of which only the first {@link #sampleReadCount} are in use. Reads are removed in place, without
+     *     reallocating the array.
+     * </p>
+     */
+    protected final double[][] valuesBySampleIndex;
+
+    /**
+     * The length of each allele's row in {@link #valuesBySampleIndex}, per sample. Never less than the number of reads
+     * in the sample.
      */
-    protected final double[][][] valuesBySampleIndex;
+    protected final int[] readCapacityBySampleIndex;
 
     /**
      * Sample list
@@ -141,7 +152,8 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
 
         readsBySampleIndex = new GATKRead[sampleCount][];
         readListBySampleIndex = (List<GATKRead>[])new List[sampleCount];
-        valuesBySampleIndex = new double[sampleCount][][];
+        valuesBySampleIndex = new double[sampleCount][];
+        readCapacityBySampleIndex = new int[sampleCount];
         referenceAlleleIndex = findReferenceAllele(alleles);
 
         readIndexBySampleIndex = new Object2IntMap[sampleCount];
@@ -152,17 +164,18 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
     }
 
 
-    // Internally used constructor.
+    // Internally used constructor. The read capacity of each sample in values must be its read count.
     @SuppressWarnings({"unchecked", "rawtypes"})
     ReadLikelihoods(final AlleleList alleles,
                             final SampleList samples,
                             final GATKRead[][] readsBySampleIndex,
                             final Object2IntMap<GATKRead>[] readIndex,
-                            final double[][][] values) {
+                            final double[][] values) {
         this.samples = samples;
         this.alleles = alleles;
         this.readsBySampleIndex = readsBySampleIndex;
         this.valuesBySampleIndex = values;
+        this.readCapacityBySampleIndex = Arrays.stream(readsBySampleIndex).mapToInt(sampleReads -> sampleReads.length).toArray();
         this.readIndexBySampleIndex = readIndex;
         final int sampleCount = samples.numberOfSamples();
         this.readListBySampleIndex = (List<GATKRead>[])new List[sampleCount];
@@ -190,8 +203,8 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
                 : reads.toArray(new GATKRead[reads.size()]);
         final int sampleReadCount = readsBySampleIndex[sampleIndex].length;
 
-        final double[][] sampleValues = new double[alleleCount][sampleReadCount];
-        valuesBySampleIndex[sampleIndex] = sampleValues;
+        valuesBySampleIndex[sampleIndex] = new double[alleleCount * sampleReadCount];
+        readCapacityBySampleIndex[sampleIndex] = sampleReadCount;
     }
 
     /**
@@ -211,9 +224,8 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
         final double conversionFactor = switchToNaturalLog ? Math.log(10) : 1;
 
         final int sampleCount = samples.numberOfSamples();
-        final int alleleCount = alleles.numberOfAlleles();
 
-        final double[][][] newLikelihoodValues = new double[sampleCount][alleleCount][];
+        final double[][] newLikelihoodValues = copyValues(conversionFactor);
 
         @SuppressWarnings({"unchecked", "rawtypes"})
         final Object2IntMap<GATKRead>[] newReadIndexBySampleIndex = new Object2IntMap[sampleCount];
@@ -221,9 +233,6 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
 
         for (int s = 0; s < sampleCount; s++) {
             newReadsBySampleIndex[s] = readsBySampleIndex[s].clone();
-            for (int a = 0; a < alleleCount; a++) {
-                newLikelihoodValues[s][a] = MathUtils.applyToArrayInPlace(valuesBySampleIndex[s][a].clone(), x -> x * conversionFactor);
-            }
         }
 
         // Finally we create the new read-likelihood
@@ -239,6 +248,30 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
     }
 
 
+    /**
+     * Copy the likelihoods of every sample, multiplied by a conversion factor, into new arrays in which the read
+     * capacity of each sample is its read count.
+     */
+    protected final double[][] copyValues(final double conversionFactor) {
+        final int sampleCount = samples.numberOfSamples();
+        final int alleleCount = alleles.numberOfAlleles();
+        final double[][] result = new double[sampleCount][];
+        for (int s = 0; s < sampleCount; s++) {
+            final double[] sampleValues = valuesBySampleIndex[s];
+            final int readCapacity = readCapacityBySampleIndex[s];
+            final int sampleReadCount = readsBySampleIndex[s].length;
+            final double[] newSampleValues = result[s] = new double[alleleCount * sampleReadCount];
+            for (int a = 0; a < alleleCount; a++) {
+                final int offset = a * readCapacity;
+                final int newOffset = a * sampleReadCount;
+                for (int r = 0; r < sampleReadCount; r++) {
+                    newSampleValues[newOffset + r] = sampleValues[offset + r] * conversionFactor;
+                }
+            }
+        }
+        return result;
+    }
+
     // Search for the reference allele, if not found the index is {@link MISSING_REF}.
     private static int findReferenceAllele(final AlleleList<?> alleles) {
         return IntStream.range(0, alleles.numberOfAlleles()).filter(i -> alleles.getAllele(i).isReference()).findAny().orElse(MISSING_REF);
@@ -378,7 +411,7 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
         }
 
         for (int s = 0; s < valuesBySampleIndex.length; s++) {
-            final double[][] sampleValues = valuesBySampleIndex[s];
+            final double[] sampleValues = valuesBySampleIndex[s];
             final int readCount = readsBySampleIndex[s].length;
             for (int r = 0; r < readCount; r++) {
                 normalizeLikelihoodsPerRead(maximumLikelihoodDifferenceCap, sampleValues, s, r);
@@ -388,18 +421,20 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
 
     // Does the normalizeLikelihoods job for each read.
     private void normalizeLikelihoodsPerRead(final double maximumBestAltLikelihoodDifference,
-                                             final double[][] sampleValues, final int sampleIndex, final int readIndex) {
+                                             final double[] sampleValues, final int sampleIndex, final int readIndex) {
 
         final BestAllele bestAlternativeAllele = searchBestAllele(sampleIndex,readIndex,false);
 
         final double worstLikelihoodCap = bestAlternativeAllele.likelihood + maximumBestAltLikelihoodDifference;
 
         final int alleleCount = alleles.numberOfAlleles();
+        final int readCapacity = readCapacityBySampleIndex[sampleIndex];
 
         // Guarantee to be the case by enclosing code.
         for (int a = 0; a < alleleCount; a++) {
-            if (sampleValues[a][readIndex] < worstLikelihoodCap) {
-                sampleValues[a][readIndex] = worstLikelihoodCap;
+            final int index = a * readCapacity + readIndex;
+            if (sampleValues[index] < worstLikelihoodCap) {
+                sampleValues[index] = worstLikelihoodCap;
             }
         }
 
@@ -456,18 +491,19 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
             return new BestAllele(sampleIndex, readIndex, -1, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY);
         }
 
-        final double[][] sampleValues = valuesBySampleIndex[sampleIndex];
+        final double[] sampleValues = valuesBySampleIndex[sampleIndex];
+        final int readCapacity = readCapacityBySampleIndex[sampleIndex];
         int bestAlleleIndex = canBeReference || referenceAlleleIndex != 0 ? 0 : 1;
 
         int secondBestIndex = 0;
-        double bestLikelihood = sampleValues[bestAlleleIndex][readIndex];
+        double bestLikelihood = sampleValues[bestAlleleIndex * readCapacity + readIndex];
         double secondBestLikelihood = Double.NEGATIVE_INFINITY;
 
         for (int a = bestAlleleIndex + 1; a < alleleCount; a++) {
             if (!canBeReference && referenceAlleleIndex == a) {
                 continue;
             }
-            final double candidateLikelihood = sampleValues[a][readIndex];
+            final double candidateLikelihood = sampleValues[a * readCapacity + readIndex];
             if (candidateLikelihood > bestLikelihood) {
                 secondBestIndex = bestAlleleIndex;
                 bestAlleleIndex = a;
@@ -483,7 +519,7 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
             double bestPriority = priorities.get()[bestAlleleIndex];
             double secondBestPriority = priorities.get()[secondBestIndex];
             for (int a = 0; a < alleleCount; a++) {
-                final double candidateLikelihood = sampleValues[a][readIndex];
+                final double candidateLikelihood = sampleValues[a * readCapacity + readIndex];
                 if (a == bestAlleleIndex || (!canBeReference && a == referenceAlleleIndex) || bestLikelihood - candidateLikelihood > getInformativeThreshold()) {
                     continue;
                 }
@@ -501,8 +537,8 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
             }
         }
 
-        bestLikelihood = sampleValues[bestAlleleIndex][readIndex];
-        secondBestLikelihood = secondBestIndex != bestAlleleIndex ? sampleValues[secondBestIndex][readIndex] : Double.NEGATIVE_INFINITY;
+        bestLikelihood = sampleValues[bestAlleleIndex * readCapacity + readIndex];
+        secondBestLikelihood = secondBestIndex != bestAlleleIndex ? sampleValues[secondBestIndex * readCapacity + readIndex] : Double.NEGATIVE_INFINITY;
 
         return new BestAllele(sampleIndex, readIndex, bestAlleleIndex, bestLikelihood, secondBestLikelihood);
     }
@@ -577,17 +613,16 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
             referenceAlleleIndex = oldAlleleCount + indexOfReferenceInAllelesToAdd.getAsInt();
         }
 
-        //copy old allele likelihoods and set new allele likelihoods to the default value
+        //extend each sample's likelihoods by rows for the new alleles, and set them to the default value
         for (int s = 0; s < samples.numberOfSamples(); s++) {
             final int sampleReadCount = readsBySampleIndex[s].length;
-            final double[][] newValuesBySampleIndex = Arrays.copyOf(valuesBySampleIndex[s], newAlleleCount);
+            final int readCapacity = readCapacityBySampleIndex[s];
+            if (valuesBySampleIndex[s].length < newAlleleCount * readCapacity) {
+                valuesBySampleIndex[s] = Arrays.copyOf(valuesBySampleIndex[s], newAlleleCount * readCapacity);
+            }
             for (int a = oldAlleleCount; a < newAlleleCount; a++) {
-                newValuesBySampleIndex[a] = new double[sampleReadCount];
-                if (defaultLikelihood != 0.0) {
-                    Arrays.fill(newValuesBySampleIndex[a], defaultLikelihood);
-                }
+                Arrays.fill(valuesBySampleIndex[s], a * readCapacity, a * readCapacity + sampleReadCount, defaultLikelihood);
             }
-            valuesBySampleIndex[s] = newValuesBySampleIndex;
         }
         return true;
     }
@@ -618,7 +653,7 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
         final int[] oldToNewAlleleIndexMap = oldToNewAlleleIndexMap(newToOldAlleleMap, oldAlleleCount, newAlleles);
 
         // We calculate the marginal likelihoods.
-        final double[][][] newLikelihoodValues = marginalLikelihoods(oldAlleleCount, newAlleleCount, oldToNewAlleleIndexMap, null);
+        final double[][] newLikelihoodValues = marginalLikelihoods(oldAlleleCount, newAlleleCount, oldToNewAlleleIndexMap, null);
 
         final int sampleCount = samples.numberOfSamples();
 
@@ -674,7 +709,7 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
         final int[][] readsToKeep = overlappingReadIndicesBySampleIndex(overlap);
         // We calculate the marginal likelihoods.
 
-        final double[][][] newLikelihoodValues = marginalLikelihoods(oldAlleleCount, newAlleleCount, oldToNewAlleleIndexMap, readsToKeep);
+        final double[][] newLikelihoodValues = marginalLikelihoods(oldAlleleCount, newAlleleCount, oldToNewAlleleIndexMap, readsToKeep);
 
         final int sampleCount = samples.numberOfSamples();
 
@@ -729,32 +764,34 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
     }
 
     // Calculate the marginal likelihoods considering the old -> new allele index mapping.
-    private double[][][] marginalLikelihoods(final int oldAlleleCount, final int newAlleleCount, final int[] oldToNewAlleleIndexMap, final int[][] readsToKeep) {
+    // The read capacity of each sample in the result is its new read count.
+    private double[][] marginalLikelihoods(final int oldAlleleCount, final int newAlleleCount, final int[] oldToNewAlleleIndexMap, final int[][] readsToKeep) {
 
         final int sampleCount = samples.numberOfSamples();
-        final double[][][] result = new double[sampleCount][][];
+        final double[][] result = new double[sampleCount][];
 
         for (int s = 0; s < sampleCount; s++) {
             final int sampleReadCount = readsBySampleIndex[s].length;
-            final double[][] oldSampleValues = valuesBySampleIndex[s];
+            final double[] oldSampleValues = valuesBySampleIndex[s];
+            final int oldReadCapacity = readCapacityBySampleIndex[s];
             final int[] sampleReadToKeep = readsToKeep == null || readsToKeep[s].length == sampleReadCount ? null : readsToKeep[s];
             final int newSampleReadCount = sampleReadToKeep == null ? sampleReadCount : sampleReadToKeep.length;
-            final double[][] newSampleValues = result[s] = new double[newAlleleCount][newSampleReadCount];
+            final double[] newSampleValues = result[s] = new double[newAlleleCount * newSampleReadCount];
             // We initiate all likelihoods to -Inf.
-            for (int a = 0; a < newAlleleCount; a++) {
-                Arrays.fill(newSampleValues[a], Double.NEGATIVE_INFINITY);
-            }
-            // For each old allele and read we update the new table keeping the maximum likelihood.
-            for (int r = 0; r < newSampleReadCount; r++) {
-                for (int a = 0; a < oldAlleleCount; a++) {
-                    final int oldReadIndex = newSampleReadCount == sampleReadCount ? r : sampleReadToKeep[r];
-                    final int newAlleleIndex = oldToNewAlleleIndexMap[a];
-                    if (newAlleleIndex == -1) {
-                        continue;
-                    }
-                    final double likelihood = oldSampleValues[a][oldReadIndex];
-                    if (likelihood > newSampleValues[newAlleleIndex][r]) {
-                        newSampleValues[newAlleleIndex][r] = likelihood;
+            Arrays.fill(newSampleValues, Double.NEGATIVE_INFINITY);
+            // For each old allele we update the new allele's row keeping the maximum likelihood for each read.
+            for (int a = 0; a < oldAlleleCount; a++) {
+                final int newAlleleIndex = oldToNewAlleleIndexMap[a];
+                if (newAlleleIndex == -1) {
+                    continue;
+                }
+                final int oldOffset = a * oldReadCapacity;
+                final int newOffset = newAlleleIndex * newSampleReadCount;
+                for (int r = 0; r < newSampleReadCount; r++) {
+                    final int oldReadIndex = sampleReadToKeep == null ? r : sampleReadToKeep[r];
+                    final double likelihood = oldSampleValues[oldOffset + oldReadIndex];
+                    if (likelihood > newSampleValues[newOffset + r]) {
+                        newSampleValues[newOffset + r] = likelihood;
                     }
                 }
             }
@@ -820,9 +857,10 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
         final double log10MaxLikelihoodForTrueAllele = maxErrorsForRead * log10QualPerBase;
 
         final int alleleCount = alleles.numberOfAlleles();
-        final double[][] sampleValues = valuesBySampleIndex[sampleIndex];
+        final double[] sampleValues = valuesBySampleIndex[sampleIndex];
+        final int readCapacity = readCapacityBySampleIndex[sampleIndex];
         for (int a = 0; a < alleleCount; a++) {
-            if (sampleValues[a][readIndex] >= log10MaxLikelihoodForTrueAllele) {
+            if (sampleValues[a * readCapacity + readIndex] >= log10MaxLikelihoodForTrueAllele) {
                 return false;
             }
         }
@@ -862,18 +900,23 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
         }
     }
 
-    // Extends the likelihood arrays-matrices.
+    // Extends the likelihood arrays-matrices, reallocating them only if the new reads don't fit in the read capacity.
     private void extendsLikelihoodArrays(final double initialLikelihood, final int sampleIndex, final int sampleReadCount, final int newSampleReadCount) {
-        final double[][] sampleValues = valuesBySampleIndex[sampleIndex];
         final int alleleCount = alleles.numberOfAlleles();
-        for (int a = 0; a < alleleCount; a++) {
-            sampleValues[a] = Arrays.copyOf(sampleValues[a], newSampleReadCount);
-        }
-        if (initialLikelihood != 0.0) // the default array new value.
-        {
+        final int readCapacity = readCapacityBySampleIndex[sampleIndex];
+        if (newSampleReadCount > readCapacity) {
+            final double[] oldSampleValues = valuesBySampleIndex[sampleIndex];
+            final double[] newSampleValues = new double[alleleCount * newSampleReadCount];
             for (int a = 0; a < alleleCount; a++) {
-                Arrays.fill(sampleValues[a], sampleReadCount, newSampleReadCount, initialLikelihood);
+                System.arraycopy(oldSampleValues, a * readCapacity, newSampleValues, a * newSampleReadCount, sampleReadCount);
             }
+            valuesBySampleIndex[sampleIndex] = newSampleValues;
+            readCapacityBySampleIndex[sampleIndex] = newSampleReadCount;
+        }
+        final double[] sampleValues = valuesBySampleIndex[sampleIndex];
+        final int newReadCapacity = readCapacityBySampleIndex[sampleIndex];
+        for (int a = 0; a < alleleCount; a++) {
+            Arrays.fill(sampleValues, a * newReadCapacity + sampleReadCount, a * newReadCapacity + newSampleReadCount, initialLikelihood);
         }
     }
 
@@ -952,13 +995,14 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
         final double[] qualifiedAlleleLikelihoods = new double[nonSymbolicAlleleCount];
         final Median medianCalculator = new Median();
         for (int s = 0; s < samples.numberOfSamples(); s++) {
-            final double[][] sampleValues = valuesBySampleIndex[s];
-            final int readCount = sampleValues[0].length;
+            final double[] sampleValues = valuesBySampleIndex[s];
+            final int readCapacity = readCapacityBySampleIndex[s];
+            final int readCount = readsBySampleIndex[s].length;
             for (int r = 0; r < readCount; r++) {
                 final BestAllele bestAllele = searchBestAllele(s, r, true);
                 int numberOfQualifiedAlleleLikelihoods = 0;
                 for (int i = 0; i < alleleCount; i++) {
-                    final double alleleLikelihood = sampleValues[i][r];
+                    final double alleleLikelihood = sampleValues[i * readCapacity + r];
                     if (i != nonRefAlleleIndex && alleleLikelihood < bestAllele.likelihood
                             && !Double.isNaN(alleleLikelihood) && allelesToConsider.indexOfAllele(alleles.getAllele(i)) != -1) {
                         qualifiedAlleleLikelihoods[numberOfQualifiedAlleleLikelihoods++] = alleleLikelihood;
@@ -969,7 +1013,7 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
                 // so the read is not informative at all given the existing alleles. Unless there is only one (or zero) concrete
                 // alleles with give the same (the best) likelihood to the NON-REF. When there is only one (or zero) concrete
                 // alleles we set the NON-REF likelihood to NaN.
-                sampleValues[nonRefAlleleIndex][r] = !Double.isNaN(nonRefLikelihood) ? nonRefLikelihood
+                sampleValues[nonRefAlleleIndex * readCapacity + r] = !Double.isNaN(nonRefLikelihood) ? nonRefLikelihood
                         : nonSymbolicAlleleCount <= 1 ? Double.NaN : bestAllele.likelihood;
             }
         }
@@ -1272,13 +1316,7 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
         Utils.skimArray(oldSampleReads,firstDeleted, newSampleReads, firstDeleted, removeIndex, firstDeleted);
 
         // Then we skim out the likelihoods of the removed reads.
-        final double[][] oldSampleValues = valuesBySampleIndex[sampleIndex];
-        final double[][] newSampleValues = new double[alleleCount][newSampleReadCount];
-        for (int a = 0; a < alleleCount; a++) {
-            System.arraycopy(oldSampleValues[a], 0, newSampleValues[a], 0, firstDeleted);
-            Utils.skimArray(oldSampleValues[a], firstDeleted, newSampleValues[a], firstDeleted, removeIndex, firstDeleted);
-        }
-        valuesBySampleIndex[sampleIndex] = newSampleValues;
+        removeSampleValues(sampleIndex, removeIndex, firstDeleted, sampleReadCount, alleleCount);
         readsBySampleIndex[sampleIndex] = newSampleReads;
         readListBySampleIndex[sampleIndex] = null; // reset the unmodifiable list.
     }
@@ -1330,17 +1368,27 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
         }
 
         // Then we skim out the likelihoods of the removed reads.
-        final double[][] oldSampleValues = valuesBySampleIndex[sampleIndex];
-        final double[][] newSampleValues = new double[alleleCount][newSampleReadCount];
-        for (int a = 0; a < alleleCount; a++) {
-            System.arraycopy(oldSampleValues[a],0,newSampleValues[a],0,firstDeleted);
-            Utils.skimArray(oldSampleValues[a], firstDeleted, newSampleValues[a], firstDeleted, removeIndex, firstDeleted);
-        }
-        valuesBySampleIndex[sampleIndex] = newSampleValues;
+        removeSampleValues(sampleIndex, removeIndex, firstDeleted, sampleReadCount, alleleCount);
         readsBySampleIndex[sampleIndex] = newSampleReads;
         readListBySampleIndex[sampleIndex] = null; // reset the unmodifiable list.
     }
 
+    // Skims out the likelihoods of the removed reads from each allele's row, in place. The read capacity is unchanged.
+    private void removeSampleValues(final int sampleIndex, final boolean[] removeIndex, final int firstDeleted,
+                                    final int sampleReadCount, final int alleleCount) {
+        final double[] sampleValues = valuesBySampleIndex[sampleIndex];
+        final int readCapacity = readCapacityBySampleIndex[sampleIndex];
+        for (int a = 0; a < alleleCount; a++) {
+            final int offset = a * readCapacity;
+            int nextReadIndex = firstDeleted;
+            for (int r = firstDeleted; r < sampleReadCount; r++) {
+                if (!removeIndex[r]) {
+                    sampleValues[offset + nextReadIndex++] = sampleValues[offset + r];
+                }
+            }
+        }
+    }
+
 
     private Object2IntMap<GATKRead> readIndexBySampleIndex(final int sampleIndex) {
         if (readIndexBySampleIndex[sampleIndex] == null) {
@@ -1389,16 +1437,16 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
 
         @Override
         public void set(final int alleleIndex, final int readIndex, final double value) {
-            Utils.validIndex(alleleIndex, valuesBySampleIndex[sampleIndex].length);
-            Utils.validIndex(readIndex, valuesBySampleIndex[sampleIndex][alleleIndex].length);
-            valuesBySampleIndex[sampleIndex][alleleIndex][readIndex] = value;
+            Utils.validIndex(alleleIndex, alleles.numberOfAlleles());
+            Utils.validIndex(readIndex, readsBySampleIndex[sampleIndex].length);
+            valuesBySampleIndex[sampleIndex][alleleIndex * readCapacityBySampleIndex[sampleIndex] + readIndex] = value;
         }
 
         @Override
         public double get(final int alleleIndex, final int readIndex) {
-            Utils.validIndex(alleleIndex, valuesBySampleIndex[sampleIndex].length);
-            Utils.validIndex(readIndex, valuesBySampleIndex[sampleIndex][alleleIndex].length);
-            return valuesBySampleIndex[sampleIndex][alleleIndex][readIndex];
+            Utils.validIndex(alleleIndex, alleles.numberOfAlleles());
+            Utils.validIndex(readIndex, readsBySampleIndex[sampleIndex].length);
+            return valuesBySampleIndex[sampleIndex][alleleIndex * readCapacityBySampleIndex[sampleIndex] + readIndex];
         }
 
         @Override
@@ -1438,8 +1486,8 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
         @Override
         public void copyAlleleLikelihoods(final int alleleIndex, final double[] dest, final int offset) {
             Utils.nonNull(dest);
-            Utils.validIndex(alleleIndex, valuesBySampleIndex[sampleIndex].length);
-            System.arraycopy(valuesBySampleIndex[sampleIndex][alleleIndex], 0, dest, offset, numberOfReads());
+            Utils.validIndex(alleleIndex, alleles.numberOfAlleles());
+            System.arraycopy(valuesBySampleIndex[sampleIndex], alleleIndex * readCapacityBySampleIndex[sampleIndex], dest, offset, numberOfReads());
         }
     }
 }
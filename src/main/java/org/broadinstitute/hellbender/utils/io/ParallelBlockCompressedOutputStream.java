@@ -0,0 +1,358 @@
+package org.broadinstitute.hellbender.utils.io;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import htsjdk.samtools.util.BlockCompressedFilePointerUtil;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import htsjdk.samtools.util.BlockCompressedStreamConstants;
+import htsjdk.samtools.util.zip.DeflaterFactory;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * A BGZF output stream that deflates blocks in parallel on a pool of background threads, and writes them to
+ * the underlying stream in order.
+ *
+ * The output is byte-for-byte identical to that of {@link BlockCompressedOutputStream} at the same compression
+ * level and with the same {@link DeflaterFactory}: data is split into blocks at exactly the same points
+ * (including on {@link #flush}), each block is deflated in the same way, and the stream is terminated with the
+ * same empty block on {@link #close}.
+ *
+ * Since blocks are written some time after their data is submitted, the compressed address of the block currently
+ * being filled is generally not yet known. {@link #getFilePointer} therefore returns a <em>provisional</em> virtual
+ * file pointer, in which the block address is replaced by the ordinal of the block within the stream. Provisional
+ * pointers sort in the same order as the real pointers, and can be converted into real virtual file pointers
+ * (identical to those {@link BlockCompressedOutputStream#getFilePointer} would have returned at the same point)
+ * via {@link #resolveFilePointer} once all earlier blocks have been written. Clients that build an index on the
+ * fly should hold on to their index entries until {@link #isFilePointerResolvable} returns true, so that
+ * compression is not stalled.
+ *
+ * This class is not thread-safe: all methods must be called from the same thread. Only the deflation of
+ * each block happens in the background.
+ */
+public final class ParallelBlockCompressedOutputStream extends OutputStream {
+
+    private static final int UNCOMPRESSED_BLOCK_SIZE = BlockCompressedStreamConstants.DEFAULT_UNCOMPRESSED_BLOCK_SIZE;
+    private static final int COMPRESSED_BUFFER_SIZE = BlockCompressedStreamConstants.MAX_COMPRESSED_BLOCK_SIZE - BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH;
+
+    /**
+     * Maximum number of blocks in flight (being deflated or waiting to be written) per compression thread
+     */
+    private static final int MAX_PENDING_BLOCKS_PER_THREAD = 4;
+
+    private final OutputStream out;
+    private final int compressionLevel;
+    private final DeflaterFactory deflaterFactory;
+    private final ExecutorService compressionPool;
+    private final int maxPendingBlocks;
+
+    /**
+     * Blocks that have been submitted for compression but not yet written, in stream order
+     */
+    private final Deque<Future<byte[]>> pendingBlocks = new ArrayDeque<>();
+
+    /**
+     * Deflaters and buffers that are not currently in use by a compression task
+     */
+    private final Queue<Deflater> idleDeflaters = new ConcurrentLinkedQueue<>();
+    private final Queue<byte[]> idleBuffers = new ConcurrentLinkedQueue<>();
+
+    private byte[] uncompressedBuffer = new byte[UNCOMPRESSED_BLOCK_SIZE];
+    private int numUncompressedBytes = 0;
+    private final byte[] singleByteArray = new byte[1];
+
+    /**
+     * Number of blocks submitted for compression, which is also the ordinal of the block currently being filled
+     */
+    private long numBlocksSubmitted = 0;
+
+    /**
+     * Number of blocks written to the underlying stream
+     */
+    private long numBlocksWritten = 0;
+
+    /**
+     * Compressed addresses of blocks {@link #firstRetainedBlock} through {@link #numBlocksWritten} (inclusive),
+     * for resolving provisional file pointers. The address of the next block to be written is always last.
+     */
+    private final Deque<Long> blockAddresses = new ArrayDeque<>();
+    private long firstRetainedBlock = 0;
+
+    private boolean closed = false;
+
+    /**
+     * Create a stream using the default {@link DeflaterFactory} as returned by {@link BlockCompressedOutputStream#getDefaultDeflaterFactory}
+     *
+     * @param out stream to write compressed blocks to
+     * @param compressionLevel deflate compression level (0-9)
+     * @param numThreads number of threads to use for compression (> 0)
+     */
+    public ParallelBlockCompressedOutputStream( final OutputStream out, final int compressionLevel, final int numThreads ) {
+        this(out, compressionLevel, BlockCompressedOutputStream.getDefaultDeflaterFactory(), numThreads);
+    }
+
+    /**
+     * @param out stream to write compressed blocks to
+     * @param compressionLevel deflate compression level (0-9)
+     * @param deflaterFactory factory for the deflaters used by the compression threads
+     * @param numThreads number of threads to use for compression (> 0)
+     */
+    public ParallelBlockCompressedOutputStream( final OutputStream out, final int compressionLevel, final DeflaterFactory deflaterFactory, final int numThreads ) {
+        Utils.nonNull(out);
+        Utils.nonNull(deflaterFactory);
+        Utils.validateArg(compressionLevel >= Deflater.NO_COMPRESSION && compressionLevel <= Deflater.BEST_COMPRESSION, "invalid compression level " + compressionLevel);
+        Utils.validateArg(numThreads > 0, "numThreads must be > 0");
+
+        this.out = out;
+        this.compressionLevel = compressionLevel;
+        this.deflaterFactory = deflaterFactory;
+        this.maxPendingBlocks = numThreads * MAX_PENDING_BLOCKS_PER_THREAD;
+        this.compressionPool = Executors.newFixedThreadPool(numThreads,
+                new ThreadFactoryBuilder().setNameFormat("bgzfCompression-thread-%d").setDaemon(true).build());
+        this.blockAddresses.add(0L);
+    }
+
+    @Override
+    public void write( final int b ) throws IOException {
+        singleByteArray[0] = (byte)b;
+        write(singleByteArray, 0, 1);
+    }
+
+    @Override
+    public void write( final byte[] bytes, int startIndex, int numBytes ) throws IOException {
+        Utils.validate(! closed, "stream has been closed");
+        while ( numBytes > 0 ) {
+            final int bytesToWrite = Math.min(uncompressedBuffer.length - numUncompressedBytes, numBytes);
+            System.arraycopy(bytes, startIndex, uncompressedBuffer, numUncompressedBytes, bytesToWrite);
+            numUncompressedBytes += bytesToWrite;
+            startIndex += bytesToWrite;
+            numBytes -= bytesToWrite;
+
+            // Like BlockCompressedOutputStream, we submit a block as soon as it fills up, so that the
+            // file pointer after a full block refers to the start of the next block
+            if ( numUncompressedBytes == uncompressedBuffer.length ) {
+                submitBlock();
+            }
+        }
+    }
+
+    /**
+     * Submit any buffered data as a (possibly short) block, wait for all blocks to be compressed and
+     * written, and flush the underlying stream.
+     */
+    @Override
+    public void flush() throws IOException {
+        Utils.validate(! closed, "stream has been closed");
+        submitBlock();
+        while ( ! pendingBlocks.isEmpty() ) {
+            writeNextBlock();
+        }
+        out.flush();
+    }
+
+    /**
+     * Flush all data, write the BGZF terminator block, and close the underlying stream and the compression threads.
+     */
+    @Override
+    public void close() throws IOException {
+        if ( closed ) {
+            return;
+        }
+        try {
+            flush();
+            out.write(BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK);
+            out.close();
+        } finally {
+            closed = true;
+            compressionPool.shutdownNow();
+            Deflater deflater;
+            while ( (deflater = idleDeflaters.poll()) != null ) {
+                deflater.end();
+            }
+        }
+    }
+
+    /**
+     * @return the provisional virtual file pointer of the next byte to be written, which must be converted into a real
+     *         virtual file pointer via {@link #resolveFilePointer}
+     */
+    public long getFilePointer() {
+        return BlockCompressedFilePointerUtil.makeFilePointer(numBlocksSubmitted, numUncompressedBytes);
+    }
+
+    /**
+     * @param provisionalFilePointer a provisional file pointer returned by {@link #getFilePointer}
+     * @return true if {@link #resolveFilePointer} can resolve this pointer without waiting for any compression
+     */
+    public boolean isFilePointerResolvable( final long provisionalFilePointer ) throws IOException {
+        final long block = BlockCompressedFilePointerUtil.getBlockAddress(provisionalFilePointer);
+        while ( block > numBlocksWritten && pendingBlocks.peekFirst().isDone() ) {
+            writeNextBlock();
+        }
+        return block <= numBlocksWritten;
+    }
+
+    /**
+     * Convert a provisional file pointer into a real BGZF virtual file pointer, waiting for earlier blocks to be
+     * compressed if necessary.
+     *
+     * Pointers must be resolved in non-decreasing order: once a pointer has been resolved, the block addresses needed
+     * to resolve pointers into earlier blocks are discarded.
+     *
+     * @param provisionalFilePointer a provisional file pointer returned by {@link #getFilePointer}
+     * @return the virtual file pointer that {@link BlockCompressedOutputStream#getFilePointer} would have returned
+     */
+    public long resolveFilePointer( final long provisionalFilePointer ) throws IOException {
+        final long block = BlockCompressedFilePointerUtil.getBlockAddress(provisionalFilePointer);
+        Utils.validateArg(block >= firstRetainedBlock && block <= numBlocksSubmitted,
+                () -> "file pointer " + provisionalFilePointer + " has already been released or does not belong to this stream");
+
+        while ( block > numBlocksWritten ) {
+            writeNextBlock();
+        }
+        while ( firstRetainedBlock < block ) {
+            blockAddresses.removeFirst();
+            ++firstRetainedBlock;
+        }
+        return BlockCompressedFilePointerUtil.makeFilePointer(blockAddresses.peekFirst(), BlockCompressedFilePointerUtil.getBlockOffset(provisionalFilePointer));
+    }
+
+    /**
+     * Hand the buffered data, if any, to a compression thread, then write any blocks that are already compressed,
+     * waiting if too many blocks are in flight.
+     */
+    private void submitBlock() throws IOException {
+        if ( numUncompressedBytes == 0 ) {
+            return;
+        }
+
+        final byte[] blockData = uncompressedBuffer;
+        final int blockLength = numUncompressedBytes;
+        pendingBlocks.addLast(compressionPool.submit(() -> compressBlock(blockData, blockLength)));
+        ++numBlocksSubmitted;
+
+        final byte[] idleBuffer = idleBuffers.poll();
+        uncompressedBuffer = idleBuffer != null ? idleBuffer : new byte[UNCOMPRESSED_BLOCK_SIZE];
+        numUncompressedBytes = 0;
+
+        while ( pendingBlocks.size() > maxPendingBlocks || (! pendingBlocks.isEmpty() && pendingBlocks.peekFirst().isDone()) ) {
+            writeNextBlock();
+        }
+    }
+
+    /**
+     * Write the oldest pending block, waiting for it to be compressed if necessary
+     */
+    private void writeNextBlock() throws IOException {
+        final byte[] compressedBlock;
+        try {
+            compressedBlock = pendingBlocks.removeFirst().get();
+        } catch ( final InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for block compression");
+        } catch ( final ExecutionException e ) {
+            throw new IOException("Error compressing block", e.getCause());
+        }
+
+        out.write(compressedBlock);
+        ++numBlocksWritten;
+        blockAddresses.addLast(blockAddresses.peekLast() + compressedBlock.length);
+    }
+
+    /**
+     * Deflate a block exactly as {@link BlockCompressedOutputStream} does, returning the complete gzip block.
+     * Called on a compression thread.
+     */
+    private byte[] compressBlock( final byte[] uncompressed, final int uncompressedLength ) {
+        final byte[] compressed = new byte[COMPRESSED_BUFFER_SIZE];
+
+        Deflater deflater = idleDeflaters.poll();
+        if ( deflater == null ) {
+            deflater = deflaterFactory.makeDeflater(compressionLevel, true);
+        }
+        int compressedLength;
+        try {
+            deflater.reset();
+            deflater.setInput(uncompressed, 0, uncompressedLength);
+            deflater.finish();
+            compressedLength = deflater.deflate(compressed, 0, compressed.length);
+            if ( ! deflater.finished() ) {
+                // The data did not compress well enough to fit in a block, so store it uncompressed instead
+                final Deflater noCompressionDeflater = new Deflater(Deflater.NO_COMPRESSION, true);
+                try {
+                    noCompressionDeflater.setInput(uncompressed, 0, uncompressedLength);
+                    noCompressionDeflater.finish();
+                    compressedLength = noCompressionDeflater.deflate(compressed, 0, compressed.length);
+                    if ( ! noCompressionDeflater.finished() ) {
+                        throw new IllegalStateException("Uncompressed block does not fit in a BGZF block");
+                    }
+                } finally {
+                    noCompressionDeflater.end();
+                }
+            }
+        } finally {
+            idleDeflaters.add(deflater);
+        }
+
+        final CRC32 crc32 = new CRC32();
+        crc32.update(uncompressed, 0, uncompressedLength);
+        idleBuffers.add(uncompressed);
+
+        return makeGzipBlock(compressed, compressedLength, uncompressedLength, crc32.getValue());
+    }
+
+    /**
+     * Wrap deflated data in a BGZF gzip block (header, data, CRC and uncompressed size)
+     */
+    private static byte[] makeGzipBlock( final byte[] compressed, final int compressedLength, final int uncompressedLength, final long crc ) {
+        final int totalBlockSize = compressedLength + BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH + BlockCompressedStreamConstants.BLOCK_FOOTER_LENGTH;
+        final byte[] block = new byte[totalBlockSize];
+        int offset = 0;
+
+        block[offset++] = BlockCompressedStreamConstants.GZIP_ID1;
+        block[offset++] = (byte)BlockCompressedStreamConstants.GZIP_ID2;
+        block[offset++] = BlockCompressedStreamConstants.GZIP_CM_DEFLATE;
+        block[offset++] = (byte)BlockCompressedStreamConstants.GZIP_FLG;
+        offset = putInt(block, offset, 0); // modification time
+        block[offset++] = (byte)BlockCompressedStreamConstants.GZIP_XFL;
+        block[offset++] = (byte)BlockCompressedStreamConstants.GZIP_OS_UNKNOWN;
+        offset = putShort(block, offset, BlockCompressedStreamConstants.GZIP_XLEN);
+        block[offset++] = BlockCompressedStreamConstants.BGZF_ID1;
+        block[offset++] = BlockCompressedStreamConstants.BGZF_ID2;
+        offset = putShort(block, offset, BlockCompressedStreamConstants.BGZF_LEN);
+        offset = putShort(block, offset, totalBlockSize - 1);
+
+        System.arraycopy(compressed, 0, block, offset, compressedLength);
+        offset += compressedLength;
+
+        offset = putInt(block, offset, (int)crc);
+        putInt(block, offset, uncompressedLength);
+        return block;
+    }
+
+    private static int putShort( final byte[] buffer, final int offset, final int value ) {
+        buffer[offset] = (byte)value;
+        buffer[offset + 1] = (byte)(value >>> 8);
+        return offset + 2;
+    }
+
+    private static int putInt( final byte[] buffer, final int offset, final int value ) {
+        buffer[offset] = (byte)value;
+        buffer[offset + 1] = (byte)(value >>> 8);
+        buffer[offset + 2] = (byte)(value >>> 16);
+        buffer[offset + 3] = (byte)(value >>> 24);
+        return offset + 4;
+    }
+}
@@ -0,0 +1,253 @@
+package org.broadinstitute.hellbender.utils.iterators;
+
+import htsjdk.samtools.*;
+import htsjdk.samtools.util.CloseableIterator;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.*;
+
+/**
+ * Merges coordinate-sorted iterators over several SAM/BAM/CRAM files into a single coordinate-sorted iterator,
+ * translating each record to the merged header as it goes. This is a replacement for htsjdk's
+ * {@link MergingSamRecordIterator} for coordinate-sorted inputs, with much less overhead per record when there are
+ * many inputs:
+ *
+ * -The k-way merge is a binary heap of input indices ordered by a primitive (contig index, start) key, computed once
+ *  per record as it enters the heap. The full {@link SAMRecordCoordinateComparator} is consulted only to break ties.
+ *
+ * -Everything needed to translate records to the merged header (in particular the read group and program group ID
+ *  remappings, which htsjdk looks up by hashing each record's source header) is computed once per set of inputs in a
+ *  {@link HeaderTranslation}, and shared by all iterators over those inputs.
+ *
+ * Records are translated exactly as {@link MergingSamRecordIterator} would translate them: their header is set to
+ * the merged header (re-resolving their contig indices against the merged sequence dictionary), and their read group
+ * and program group IDs are remapped if the input headers had colliding IDs.
+ *
+ * Records with equal coordinates are returned in the order given by {@link SAMRecordCoordinateComparator}, and then
+ * in the order of the inputs.
+ */
+public final class CoordinateMergingSamRecordIterator implements CloseableIterator<SAMRecord> {
+
+    /**
+     * Translation from each of a fixed list of input headers to a merged header. Build once, and reuse for
+     * every merge over the same inputs.
+     */
+    public static final class HeaderTranslation {
+        private final SAMFileHeader mergedHeader;
+
+        /**
+         * For each input, the full mapping from original to merged read group IDs, or null if no translation is needed
+         */
+        private final List<Map<String, String>> readGroupIds;
+
+        /**
+         * For each input, the full mapping from original to merged program group IDs, or null if no translation is needed
+         */
+        private final List<Map<String, String>> programGroupIds;
+
+        /**
+         * @param headerMerger merger of the input headers. Its merged header must be coordinate-sorted.
+         * @param inputHeaders headers of the inputs, in the order in which their iterators will be passed to
+         *                     {@link CoordinateMergingSamRecordIterator}. Must be the headers given to the headerMerger.
+         */
+        public HeaderTranslation( final SamFileHeaderMerger headerMerger, final List<SAMFileHeader> inputHeaders ) {
+            Utils.nonNull(headerMerger);
+            Utils.nonEmpty(inputHeaders, "inputHeaders must not be empty");
+            Utils.validateArg(headerMerger.getMergedHeader().getSortOrder() == SAMFileHeader.SortOrder.coordinate,
+                    "merged header must be coordinate-sorted");
+
+            this.mergedHeader = headerMerger.getMergedHeader();
+            this.readGroupIds = new ArrayList<>(inputHeaders.size());
+            this.programGroupIds = new ArrayList<>(inputHeaders.size());
+            for ( final SAMFileHeader header : inputHeaders ) {
+                Utils.nonNull(header);
+                if ( headerMerger.hasReadGroupCollisions() ) {
+                    final Map<String, String> ids = new HashMap<>();
+                    for ( final SAMReadGroupRecord readGroup : header.getReadGroups() ) {
+                        ids.put(readGroup.getId(), headerMerger.getReadGroupId(header, readGroup.getId()));
+                    }
+                    readGroupIds.add(ids);
+                } else {
+                    readGroupIds.add(null);
+                }
+                if ( headerMerger.hasProgramGroupCollisions() ) {
+                    final Map<String, String> ids = new HashMap<>();
+                    for ( final SAMProgramRecord programGroup : header.getProgramRecords() ) {
+                        ids.put(programGroup.getId(), headerMerger.getProgramGroupId(header, programGroup.getId()));
+                    }
+                    programGroupIds.add(ids);
+                } else {
+                    programGroupIds.add(null);
+                }
+            }
+        }
+
+        /**
+         * @return the merged header
+         */
+        public SAMFileHeader getMergedHeader() {
+            return mergedHeader;
+        }
+
+        /**
+         * @return the number of inputs
+         */
+        public int getNumInputs() {
+            return readGroupIds.size();
+        }
+
+        /**
+         * Translate a record from the given input to the merged header, in place
+         */
+        public void translate( final SAMRecord record, final int inputIndex ) {
+            record.setHeader(mergedHeader);
+            translateId(record, SAMTag.RG.name(), readGroupIds.get(inputIndex));
+            translateId(record, SAMTag.PG.name(), programGroupIds.get(inputIndex));
+        }
+
+        private static void translateId( final SAMRecord record, final String tag, final Map<String, String> ids ) {
+            if ( ids == null ) {
+                return;
+            }
+            final Object oldId = record.getAttribute(tag);
+            if ( oldId != null ) {
+                // as in MergingSamRecordIterator, an ID that isn't in the input header is removed
+                final String newId = ids.get(oldId.toString());
+                if ( ! oldId.equals(newId) ) {
+                    record.setAttribute(tag, newId);
+                }
+            }
+        }
+    }
+
+    private final HeaderTranslation translation;
+    private final List<CloseableIterator<SAMRecord>> inputs;
+    private final SAMRecordCoordinateComparator tieBreaker = new SAMRecordCoordinateComparator();
+
+    /**
+     * Binary min-heap of the indices of the inputs that have records left, ordered by {@link #lessThan}
+     */
+    private final int[] heap;
+    private int heapSize = 0;
+
+    /**
+     * The next record from each input (null if the input is exhausted), already translated to the merged header,
+     * and its merge key (see {@link #mergeKey})
+     */
+    private final SAMRecord[] heads;
+    private final long[] keys;
+
+    /**
+     * @param translation translation from the headers of the inputs to the merged header
+     * @param inputs coordinate-sorted iterators over each input, in the same order as the input headers in translation.
+     *               Records are modified in place as they are translated to the merged header.
+     */
+    public CoordinateMergingSamRecordIterator( final HeaderTranslation translation, final List<? extends CloseableIterator<SAMRecord>> inputs ) {
+        this.translation = Utils.nonNull(translation);
+        Utils.nonNull(inputs);
+        Utils.validateArg(inputs.size() == translation.getNumInputs(),
+                () -> "expected " + translation.getNumInputs() + " inputs but got " + inputs.size());
+
+        this.inputs = new ArrayList<>(inputs);
+        this.heap = new int[inputs.size()];
+        this.heads = new SAMRecord[inputs.size()];
+        this.keys = new long[inputs.size()];
+
+        for ( int i = 0; i < inputs.size(); ++i ) {
+            if ( advance(i) ) {
+                heap[heapSize++] = i;
+            }
+        }
+        for ( int i = heapSize / 2 - 1; i >= 0; --i ) {
+            siftDown(i);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return heapSize > 0;
+    }
+
+    @Override
+    public SAMRecord next() {
+        if ( heapSize == 0 ) {
+            throw new NoSuchElementException("next() called when there are no more records");
+        }
+        final int input = heap[0];
+        final SAMRecord record = heads[input];
+        if ( ! advance(input) ) {
+            heap[0] = heap[--heapSize];
+        }
+        if ( heapSize > 0 ) {
+            siftDown(0);
+        }
+        return record;
+    }
+
+    /**
+     * Closes all of the input iterators
+     */
+    @Override
+    public void close() {
+        for ( final CloseableIterator<SAMRecord> input : inputs ) {
+            input.close();
+        }
+        heapSize = 0;
+        Arrays.fill(heads, null);
+    }
+
+    /**
+     * Load the next record from the given input into {@link #heads}, along with its key
+     *
+     * @return false if the input is exhausted
+     */
+    private boolean advance( final int input ) {
+        final Iterator<SAMRecord> iterator = inputs.get(input);
+        if ( ! iterator.hasNext() ) {
+            heads[input] = null;
+            return false;
+        }
+        final SAMRecord record = iterator.next();
+        translation.translate(record, input);
+        heads[input] = record;
+        keys[input] = mergeKey(record);
+        return true;
+    }
+
+    /**
+     * @return a key that orders records by contig index in the merged header and then by start, with unmapped records
+     *         that have no position last
+     */
+    private static long mergeKey( final SAMRecord record ) {
+        final int contigIndex = record.getReferenceIndex();
+        final long contigKey = contigIndex == SAMRecord.NO_ALIGNMENT_REFERENCE_INDEX ? Integer.MAX_VALUE : contigIndex;
+        return (contigKey << 32) | (record.getAlignmentStart() & 0xFFFFFFFFL);
+    }
+
+    private boolean lessThan( final int input1, final int input2 ) {
+        if ( keys[input1] != keys[input2] ) {
+            return keys[input1] < keys[input2];
+        }
+        final int comparison = tieBreaker.compare(heads[input1], heads[input2]);
+        return comparison != 0 ? comparison < 0 : input1 < input2;
+    }
+
+    private void siftDown( int position ) {
+        final int input = heap[position];
+        while ( true ) {
+            int child = 2 * position + 1;
+            if ( child >= heapSize ) {
+                break;
+            }
+            if ( child + 1 < heapSize && lessThan(heap[child + 1], heap[child]) ) {
+                ++child;
+            }
+            if ( ! lessThan(heap[child], input) ) {
+                break;
+            }
+            heap[position] = heap[child];
+            position = child;
+        }
+        heap[position] = input;
+    }
+}
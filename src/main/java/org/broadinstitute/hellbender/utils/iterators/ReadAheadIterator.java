@@ -0,0 +1,251 @@
+package org.broadinstitute.hellbender.utils.iterators;
+
+import htsjdk.samtools.util.CloseableIterator;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Wraps an iterator so that its records are pulled (and optionally materialized) on a background thread, in batches,
+ * ahead of the client. Up to a fixed number of batches are buffered in a bounded queue, so that the work of producing
+ * records (eg., inflating and decoding BAM records) overlaps with the client's processing of earlier records.
+ *
+ * The wrapped iterator is accessed only by the background thread until this iterator is closed or exhausted, so it
+ * must not be used by any other thread in the meantime. {@link #close} stops the background thread but does not close
+ * the wrapped iterator, which remains the responsibility of its owner (and must only be closed after this iterator).
+ *
+ * Any exception thrown by the wrapped iterator or the materializer on the background thread is rethrown to the client
+ * once it has consumed all records produced before the failure.
+ */
+public final class ReadAheadIterator<T> implements CloseableIterator<T> {
+
+    private static final List<Object> END_OF_DATA = Collections.emptyList();
+
+    /**
+     * How long {@link #close} waits for the background thread before draining the queue again
+     */
+    private static final long PRODUCER_JOIN_WAIT_MILLIS = 10;
+
+    private final Iterator<T> wrappedIter;
+    private final Consumer<T> materializer;
+    private final int batchSize;
+    private final BlockingQueue<List<T>> batches;
+    private final Statistics stats;
+    private final Thread producer;
+
+    private volatile boolean closed = false;
+    private volatile Throwable producerFailure = null;
+
+    private List<T> currentBatch = Collections.emptyList();
+    private int currentBatchOffset = 0;
+    private boolean exhausted = false;
+
+    /**
+     * @param wrappedIter iterator to read ahead from; must not be used by any other thread until this iterator is closed
+     * @param materializer operation applied to each record on the background thread before it is queued
+     *                     (eg., forcing lazy decoding), may be null
+     * @param batchSize number of records handed to the client at a time (> 0)
+     * @param numBatches maximum number of batches buffered ahead of the client (> 0)
+     * @param stats statistics to update, may be shared by several iterators
+     * @param threadName name of the background thread
+     */
+    public ReadAheadIterator( final Iterator<T> wrappedIter, final Consumer<T> materializer, final int batchSize,
+                              final int numBatches, final Statistics stats, final String threadName ) {
+        Utils.nonNull(wrappedIter);
+        Utils.validateArg(batchSize > 0, "batchSize must be > 0");
+        Utils.validateArg(numBatches > 0, "numBatches must be > 0");
+
+        this.wrappedIter = wrappedIter;
+        this.materializer = materializer;
+        this.batchSize = batchSize;
+        this.batches = new ArrayBlockingQueue<>(numBatches);
+        this.stats = stats != null ? stats : new Statistics(numBatches);
+
+        this.producer = new Thread(this::produceBatches, threadName);
+        this.producer.setDaemon(true);
+        this.producer.start();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void produceBatches() {
+        try {
+            while ( ! closed && wrappedIter.hasNext() ) {
+                final List<T> batch = new ArrayList<>(batchSize);
+                while ( batch.size() < batchSize && wrappedIter.hasNext() ) {
+                    final T record = wrappedIter.next();
+                    if ( materializer != null ) {
+                        materializer.accept(record);
+                    }
+                    batch.add(record);
+                }
+                enqueue(batch);
+            }
+        } catch ( final InterruptedException e ) {
+            // interrupted from outside (eg., at shutdown), nothing more to produce
+            return;
+        } catch ( final Throwable t ) {
+            producerFailure = t;
+        }
+
+        try {
+            enqueue((List<T>)END_OF_DATA);
+        } catch ( final InterruptedException e ) {
+            // interrupted while waiting to signal the end of the data, which no one needs to see any more
+        }
+    }
+
+    private void enqueue( final List<T> batch ) throws InterruptedException {
+        if ( ! batches.offer(batch) ) {
+            // The client is slower than we are
+            stats.producerStalls.incrementAndGet();
+            batches.put(batch);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if ( currentBatchOffset < currentBatch.size() ) {
+            return true;
+        }
+        if ( exhausted ) {
+            return false;
+        }
+        Utils.validate(! closed, "iterator has been closed");
+
+        stats.queueDepthSum.addAndGet(batches.size());
+        List<T> nextBatch = batches.poll();
+        if ( nextBatch == null ) {
+            // We are waiting on the background thread
+            stats.consumerStalls.incrementAndGet();
+            try {
+                nextBatch = batches.take();
+            } catch ( final InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                throw new GATKException("Interrupted while waiting for records from the read-ahead thread", e);
+            }
+        }
+        stats.batchesConsumed.incrementAndGet();
+
+        if ( nextBatch == END_OF_DATA ) {
+            exhausted = true;
+            currentBatch = Collections.emptyList();
+            currentBatchOffset = 0;
+            if ( producerFailure != null ) {
+                if ( producerFailure instanceof RuntimeException ) {
+                    throw (RuntimeException)producerFailure;
+                }
+                if ( producerFailure instanceof Error ) {
+                    throw (Error)producerFailure;
+                }
+                throw new GATKException("Error reading ahead on a background thread", producerFailure);
+            }
+            return false;
+        }
+
+        currentBatch = nextBatch;
+        currentBatchOffset = 0;
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if ( ! hasNext() ) {
+            throw new NoSuchElementException("next() called when there are no more items");
+        }
+        return currentBatch.get(currentBatchOffset++);
+    }
+
+    /**
+     * Stop the background thread and wait for it to finish, discarding any buffered records. Does not close the
+     * wrapped iterator, which is safe to close once this method returns.
+     *
+     * The background thread is not interrupted, since interrupting a thread that is reading from an NIO channel closes
+     * the channel. Instead, the queue is drained until the thread sees that this iterator is closed and exits, so that
+     * it can never stay blocked waiting for room in the queue.
+     */
+    @Override
+    public void close() {
+        if ( closed ) {
+            return;
+        }
+        closed = true;
+        try {
+            while ( producer.isAlive() ) {
+                batches.clear();
+                producer.join(PRODUCER_JOIN_WAIT_MILLIS);
+            }
+        } catch ( final InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new GATKException("Interrupted while stopping the read-ahead thread", e);
+        }
+        batches.clear();
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("remove() not supported");
+    }
+
+    /**
+     * Queue statistics for one or more {@link ReadAheadIterator}s. Safe to read from any thread while iteration
+     * is in progress.
+     */
+    public static final class Statistics {
+        private final int maxQueueDepth;
+        private final AtomicLong batchesConsumed = new AtomicLong();
+        private final AtomicLong queueDepthSum = new AtomicLong();
+        private final AtomicLong consumerStalls = new AtomicLong();
+        private final AtomicLong producerStalls = new AtomicLong();
+
+        /**
+         * @param maxQueueDepth capacity, in batches, of the queues being measured (for display purposes)
+         */
+        public Statistics( final int maxQueueDepth ) {
+            this.maxQueueDepth = maxQueueDepth;
+        }
+
+        /**
+         * @return number of batches handed to the client so far
+         */
+        public long getBatchesConsumed() {
+            return batchesConsumed.get();
+        }
+
+        /**
+         * @return average number of batches already waiting in the queue when the client asked for the next one
+         */
+        public double getMeanQueueDepth() {
+            final long consumed = batchesConsumed.get();
+            return consumed == 0 ? 0.0 : queueDepthSum.get() / (double)consumed;
+        }
+
+        /**
+         * @return number of times the client had to wait for the background thread (reading is the bottleneck)
+         */
+        public long getConsumerStalls() {
+            return consumerStalls.get();
+        }
+
+        /**
+         * @return number of times the background thread had to wait for the client (the client is the bottleneck)
+         */
+        public long getProducerStalls() {
+            return producerStalls.get();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("read-ahead queue depth %.1f/%d batches, %d batches, %d consumer stalls, %d producer stalls",
+                    getMeanQueueDepth(), maxQueueDepth, getBatchesConsumed(), getConsumerStalls(), getProducerStalls());
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package org.broadinstitute.hellbender.utils.locusiterator;
+
+import htsjdk.samtools.CigarElement;
+import htsjdk.samtools.CigarOperator;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.pileup.PileupElement;
+import org.broadinstitute.hellbender.utils.pileup.ReadPileup;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The pileup at one locus, kept as parallel arrays of the alignment states of its reads instead of as
+ * {@link PileupElement} objects.
+ *
+ * The base, quality and offset of each element are available through primitive accessors, so that walking a pileup
+ * does not allocate anything. A {@link PileupElement} (or a whole {@link ReadPileup}) is only made when asked for.
+ *
+ * A compact pileup is filled by {@link LocusIteratorByState#nextCompactPileup()}, which reuses the same one for every
+ * locus, so its contents are only valid until the next call.
+ */
+public final class CompactPileup {
+    private static final int INITIAL_CAPACITY = 100;
+
+    private String contig;
+    private int position;
+    private int size = 0;
+
+    // the state of the alignment of each read at this locus, as in the PileupElement made from it
+    private GATKRead[] reads = new GATKRead[INITIAL_CAPACITY];
+    private int[] offsets = new int[INITIAL_CAPACITY];
+    private CigarElement[] cigarElements = new CigarElement[INITIAL_CAPACITY];
+    private int[] cigarElementIndices = new int[INITIAL_CAPACITY];
+    private int[] offsetsIntoCigarElements = new int[INITIAL_CAPACITY];
+
+    CompactPileup() { }
+
+    /**
+     * Empty this pileup, and move it to a new locus
+     */
+    void reset(final String contig, final int position) {
+        // don't hold on to the reads of the previous locus
+        Arrays.fill(reads, 0, size, null);
+        Arrays.fill(cigarElements, 0, size, null);
+        size = 0;
+        this.contig = contig;
+        this.position = position;
+    }
+
+    /**
+     * Add the current state of a read to this pileup
+     */
+    void add(final AlignmentStateMachine state) {
+        if ( size == reads.length ) {
+            grow();
+        }
+        reads[size] = state.getRead();
+        offsets[size] = state.getReadOffset();
+        cigarElements[size] = state.getCurrentCigarElement();
+        cigarElementIndices[size] = state.getCurrentCigarElementOffset();
+        offsetsIntoCigarElements[size] = state.getOffsetIntoCurrentCigarElement();
+        size++;
+    }
+
+    private void grow() {
+        final int capacity = 2 * reads.length;
+        reads = Arrays.copyOf(reads, capacity);
+        offsets = Arrays.copyOf(offsets, capacity);
+        cigarElements = Arrays.copyOf(cigarElements, capacity);
+        cigarElementIndices = Arrays.copyOf(cigarElementIndices, capacity);
+        offsetsIntoCigarElements = Arrays.copyOf(offsetsIntoCigarElements, capacity);
+    }
+
+    /**
+     * @return the number of elements in this pileup
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public String getContig() {
+        return contig;
+    }
+
+    /**
+     * @return the 1-based position of this pileup on its contig
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * @return a new interval of the one base of this pileup
+     */
+    public SimpleInterval getLocation() {
+        return new SimpleInterval(contig, position, position);
+    }
+
+    /**
+     * @return the read of the i-th element
+     */
+    public GATKRead getRead(final int i) {
+        return reads[Utils.validIndex(i, size)];
+    }
+
+    /**
+     * @return the offset into the bases of the read of the i-th element, as in {@link PileupElement#getOffset()}
+     */
+    public int getOffset(final int i) {
+        return offsets[Utils.validIndex(i, size)];
+    }
+
+    /**
+     * @return the operator of the cigar element aligning the read of the i-th element to this locus
+     */
+    public CigarOperator getCigarOperator(final int i) {
+        return cigarElements[Utils.validIndex(i, size)].getOperator();
+    }
+
+    /**
+     * @return whether the i-th element is a deletion, as in {@link PileupElement#isDeletion()}
+     */
+    public boolean isDeletion(final int i) {
+        return getCigarOperator(i) == CigarOperator.D;
+    }
+
+    /**
+     * @return the base of the i-th element, as in {@link PileupElement#getBase()}
+     */
+    public byte getBase(final int i) {
+        return isDeletion(i) ? PileupElement.DELETION_BASE : reads[i].getBase(offsets[i]);
+    }
+
+    /**
+     * @return the base quality of the i-th element, as in {@link PileupElement#getQual()}
+     */
+    public byte getQual(final int i) {
+        return isDeletion(i) ? PileupElement.DELETION_QUAL : reads[i].getBaseQuality(offsets[i]);
+    }
+
+    /**
+     * @return the mapping quality of the read of the i-th element
+     */
+    public int getMappingQual(final int i) {
+        return getRead(i).getMappingQuality();
+    }
+
+    /**
+     * @return a new PileupElement for the i-th element
+     */
+    public PileupElement makePileupElement(final int i) {
+        Utils.validIndex(i, size);
+        return new PileupElement(reads[i], offsets[i], cigarElements[i], cigarElementIndices[i], offsetsIntoCigarElements[i]);
+    }
+
+    /**
+     * @return a new list of PileupElements for all the elements, in order
+     */
+    public List<PileupElement> makePileupElements() {
+        final List<PileupElement> elements = new ArrayList<>(size);
+        for ( int i = 0; i < size; i++ ) {
+            elements.add(makePileupElement(i));
+        }
+        return elements;
+    }
+
+    /**
+     * @return a new ReadPileup with all the elements of this pileup, which stays valid after this pileup is reused
+     */
+    public ReadPileup makeReadPileup() {
+        return new ReadPileup(getLocation(), makePileupElements());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s:%d with %d elements", contig, position, size);
+    }
+}
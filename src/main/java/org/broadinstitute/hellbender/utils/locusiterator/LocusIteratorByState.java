@@ -3,14 +3,12 @@ package org.broadinstitute.hellbender.utils.locusiterator;
 import com.google.common.annotations.VisibleForTesting;
 import htsjdk.samtools.CigarOperator;
 import htsjdk.samtools.SAMFileHeader;
-import htsjdk.samtools.util.Locatable;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.broadinstitute.hellbender.engine.AlignmentContext;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.downsampling.DownsamplingMethod;
-import org.broadinstitute.hellbender.utils.pileup.PileupElement;
 import org.broadinstitute.hellbender.utils.pileup.ReadPileup;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.ReadUtils;
@@ -86,6 +84,11 @@ public final class LocusIteratorByState implements Iterator<AlignmentContext> {
      */
     private AlignmentContext nextAlignmentContext;
 
+    /**
+     * The pileup at the current locus, reused for every locus
+     */
+    private final CompactPileup pileup = new CompactPileup();
+
     // -----------------------------------------------------------------------------------------------------------------
     //
     // constructors and other basic operations
@@ -226,18 +229,6 @@ public final class LocusIteratorByState implements Iterator<AlignmentContext> {
         this.readStates = new ReadStateManager(samIterator, this.samples, downsamplingInfo, keepUniqueReadListInLIBS, header);
     }
 
-    /**
-     * Get the current location (i.e., the bp of the center of the pileup) of the pileup, or null if not anywhere yet
-     *
-     * Assumes that read states is updated to reflect the current pileup position, but not advanced to the
-     * next location.
-     *
-     * @return the location of the current pileup, or null if we're after all reads
-     */
-    private SimpleInterval getLocation() {
-        return readStates.isEmpty() ? null : readStates.getFirst().getLocation();
-    }
-
     // -----------------------------------------------------------------------------------------------------------------
     //
     // next() routine and associated collection operations
@@ -270,6 +261,21 @@ public final class LocusIteratorByState implements Iterator<AlignmentContext> {
         return currentAlignmentContext;
     }
 
+    /**
+     * Get the pileup at the next genomic position covered by at least one read, without making an AlignmentContext
+     * or any PileupElements for it.
+     *
+     * The same CompactPileup is returned for every position, so it is only valid until the next call, and the
+     * elements or ReadPileup of a position must be made from it before that if they are needed later.  This
+     * cannot be mixed with hasNext() and next(), which make the AlignmentContext of the next position.
+     *
+     * @return the pileup at the next position, or null if the reads are exhausted
+     */
+    public CompactPileup nextCompactPileup() {
+        Utils.validate(nextAlignmentContext == null, "the next alignment context has already been made by hasNext()");
+        return loadNextPileup() ? pileup : null;
+    }
+
     /**
      * Move this LIBS until we are over position
      *
@@ -311,46 +317,57 @@ public final class LocusIteratorByState implements Iterator<AlignmentContext> {
      * next entry.
      */
     private void lazyLoadNextAlignmentContext() {
-        while (nextAlignmentContext == null && readStates.hasNext()) {
-            readStates.collectPendingReads();
+        if (nextAlignmentContext == null && loadNextPileup()) {
+            final SimpleInterval location = pileup.getLocation();
+            nextAlignmentContext = new AlignmentContext(location, new ReadPileup(location, pileup.makePileupElements()));
+        }
+    }
 
-            final Locatable location = getLocation();
+    /**
+     * Fill the pileup with the reads at the next position covered by at least one read that is included in the pileup
+     *
+     * @return true if there is such a position, false if the reads are exhausted
+     */
+    private boolean loadNextPileup() {
+        while (readStates.hasNext()) {
+            readStates.collectPendingReads();
 
             // We don't need to keep the pileup elements separated by sample within this method,
             // since they are just going to get combined into one monolithic pileup anyway
-            // when we construct the final ReadPileup below. This optimization speeds up the
+            // when we construct the final ReadPileup. This optimization speeds up the
             // HaplotypeCaller by quite a bit!
-            final List<PileupElement> allPileupElements = new ArrayList<>(100);
-
-            for (final Map.Entry<String, PerSampleReadStateManager> sampleStatePair : readStates) {
-                final PerSampleReadStateManager readState = sampleStatePair.getValue();
-                final Iterator<AlignmentStateMachine> iterator = readState.iterator();
-
-                while (iterator.hasNext()) {
-                    // state object with the read/offset information
-                    final AlignmentStateMachine state = iterator.next();
-                    final GATKRead read = state.getRead();
-                    final CigarOperator op = state.getCigarOperator();
+            final AlignmentStateMachine first = readStates.getFirst();
+            if (first != null) {
+                // the location of the pileup: the current position of the left-most read
+                pileup.reset(first.getContig(), first.getGenomePosition());
 
-                    if (!includeReadsWithNsAtLoci && op == CigarOperator.N) {
-                        continue;
-                    }
+                for (final Map.Entry<String, PerSampleReadStateManager> sampleStatePair : readStates) {
+                    for (final AlignmentStateMachine state : sampleStatePair.getValue()) {
+                        final CigarOperator op = state.getCigarOperator();
 
-                    if (!dontIncludeReadInPileup(read, location.getStart())) {
-                        if (!includeReadsWithDeletionAtLoci && op == CigarOperator.D) {
+                        if (!includeReadsWithNsAtLoci && op == CigarOperator.N) {
                             continue;
                         }
 
-                        allPileupElements.add(state.makePileupElement());
+                        if (!dontIncludeReadInPileup(state.getRead(), pileup.getPosition())) {
+                            if (!includeReadsWithDeletionAtLoci && op == CigarOperator.D) {
+                                continue;
+                            }
+
+                            pileup.add(state);
+                        }
                     }
                 }
+            } else {
+                pileup.reset(null, 0);
             }
 
             readStates.updateReadStates(); // critical - must be called after we get the current state offsets and location
-            if (!allPileupElements.isEmpty()) { // if we got reads with non-D/N over the current position, we are done
-                nextAlignmentContext = new AlignmentContext(location, new ReadPileup(location, allPileupElements));
+            if (!pileup.isEmpty()) { // if we got reads with non-D/N over the current position, we are done
+                return true;
             }
         }
+        return false;
     }
 
     /**
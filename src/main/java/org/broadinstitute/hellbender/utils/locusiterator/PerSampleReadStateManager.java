@@ -7,6 +7,7 @@ import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.downsampling.Downsampler;
 import org.broadinstitute.hellbender.utils.downsampling.LevelingDownsampler;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -23,8 +24,10 @@ final class PerSampleReadStateManager implements Iterable<AlignmentStateMachine>
      *
      * The state machines must be ordered by the alignment start of their underlying reads, with the
      * lowest alignment starts on the left, and the largest on the right
+     *
+     * An array list, so that walking the states at every locus does not chase the nodes of a linked list
      */
-    private List<AlignmentStateMachine> readStatesByAlignmentStart = new LinkedList<>();
+    private ArrayList<AlignmentStateMachine> readStatesByAlignmentStart = new ArrayList<>();
 
     private final Downsampler<LinkedList<AlignmentStateMachine>> levelingDownsampler;
     private final int downsamplingTarget;
@@ -82,8 +85,8 @@ final class PerSampleReadStateManager implements Iterable<AlignmentStateMachine>
      * Flattens the grouped list of list of alignment state machines into a single list in order
      * @return a non-null list contains the state machines
      */
-    private LinkedList<AlignmentStateMachine> flattenByAlignmentStart(final List<LinkedList<AlignmentStateMachine>> grouped) {
-        final LinkedList<AlignmentStateMachine> flat = new LinkedList<>();
+    private ArrayList<AlignmentStateMachine> flattenByAlignmentStart(final List<LinkedList<AlignmentStateMachine>> grouped) {
+        final ArrayList<AlignmentStateMachine> flat = new ArrayList<>();
         for ( final List<AlignmentStateMachine> l : grouped ) {
             flat.addAll(l);
         }
@@ -181,21 +184,22 @@ final class PerSampleReadStateManager implements Iterable<AlignmentStateMachine>
      * @return the number of states we're removed after advancing
      */
     public int updateReadStates() {
-        int nRemoved = 0;
-        final Iterator<AlignmentStateMachine> it = iterator();
-        while (it.hasNext()) {
-            final AlignmentStateMachine state = it.next();
+        // compact the remaining states in place, as removing them one at a time from an array list would be quadratic
+        final int nStates = readStatesByAlignmentStart.size();
+        int nKept = 0;
+        for (int i = 0; i < nStates; i++) {
+            final AlignmentStateMachine state = readStatesByAlignmentStart.get(i);
             final CigarOperator op = state.stepForwardOnGenome();
-            if (op == null) {
-                // we discard the read only when we are past its end AND indel at the end of the read (if any) was
-                // already processed. Keeping the read state that returned null upon stepForwardOnGenome() is safe
-                // as the next call to stepForwardOnGenome() will return null again AND will clear hadIndel() flag.
-                it.remove();                                                // we've stepped off the end of the object
-                nRemoved++;
+            // we discard the read only when we are past its end AND indel at the end of the read (if any) was
+            // already processed. Keeping the read state that returned null upon stepForwardOnGenome() is safe
+            // as the next call to stepForwardOnGenome() will return null again AND will clear hadIndel() flag.
+            if (op != null) {
+                readStatesByAlignmentStart.set(nKept++, state);
             }
         }
+        readStatesByAlignmentStart.subList(nKept, nStates).clear();  // we've stepped off the end of the others
 
-        return nRemoved;
+        return nStates - nKept;
     }
 
     /**
@@ -0,0 +1,406 @@
+package org.broadinstitute.hellbender.utils.pairhmm;
+
+import org.broadinstitute.hellbender.utils.QualityUtils;
+import org.broadinstitute.hellbender.utils.genotyper.LikelihoodMatrix;
+import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.broadinstitute.hellbender.utils.pairhmm.PairHMMModel.*;
+
+/**
+ * Pure Java version of the LOGLESS_CACHING PairHMM, organized like the native AVX implementation so that it runs
+ * faster than {@link LoglessPairHMM} on machines where the native library is not available.
+ *
+ * -The match, insertion and deletion matrices are swept one anti-diagonal at a time. The cells of an anti-diagonal
+ *  don't depend on each other, so the inner loop is a straight pass over parallel arrays indexed by read position
+ *  (the haplotype is stored reversed, so that its bases are also read in increasing order), with no loop-carried
+ *  dependencies or data-dependent branches. Only the last three anti-diagonals of each matrix are kept, rather than
+ *  three full matrices.
+ *
+ * -Everything that depends only on the read (transition probabilities, and the prior of each base given each
+ *  possible haplotype base) is computed once per read, and shared by all of the haplotypes.
+ *
+ * -As in the native implementation, likelihoods are first computed in single precision, flushing tiny values to zero.
+ *  If the result is too small to be represented accurately in single precision, it is recomputed in double precision,
+ *  which gives exactly the same result as {@link LoglessPairHMM}.
+ */
+public final class AntiDiagonalLoglessPairHMM extends PairHMM {
+    // single precision initial condition, as in the native implementation (double precision uses LoglessPairHMM's)
+    static final float FLOAT_INITIAL_CONDITION = (float)Math.pow(2, 120);
+    static final double FLOAT_INITIAL_CONDITION_LOG10 = Math.log10(FLOAT_INITIAL_CONDITION);
+
+    /**
+     * Single precision values below this are flushed to zero. Far enough above the smallest normal float that
+     * multiplying by the smallest probabilities in the model doesn't produce subnormal numbers.
+     */
+    static final float FLOAT_FLUSH_THRESHOLD = 1e-28f;
+
+    /**
+     * Single precision results below this value (before removing the initial condition) are recomputed in double
+     * precision. Far enough above the flush threshold that flushed values can't noticeably change an accepted result.
+     */
+    static final float MIN_ACCEPTED_FLOAT = 1e-16f;
+
+    /**
+     * Row of the prior tables for each haplotype base that is always present: A, C, G, T and N. Other haplotype bases
+     * get rows of their own as they are seen.
+     */
+    private static final byte[] FIXED_ROW_BASES = {'A', 'C', 'G', 'T', 'N'};
+    private static final byte[] BASE_ROWS = new byte[256];
+    static {
+        Arrays.fill(BASE_ROWS, (byte)-1);
+        for (int row = 0; row < FIXED_ROW_BASES.length; row++) {
+            BASE_ROWS[FIXED_ROW_BASES[row]] = (byte)row;
+        }
+    }
+
+    private final boolean alwaysUseDoublePrecision;
+
+    // per read values, indexed by read position + 1 (position 0 is unused)
+    private int readLength;
+    private byte[] readBases, readQuals;
+    private double[] matchToMatchProb, indelToMatchProb, matchToInsertionProb, insertionToInsertionProb, matchToDeletionProb, deletionToDeletionProb;
+    private float[] matchToMatchProbFloat, indelToMatchProbFloat, matchToInsertionProbFloat, insertionToInsertionProbFloat, matchToDeletionProbFloat, deletionToDeletionProbFloat;
+
+    /**
+     * Prior of each read base given each haplotype base: the prior of read position i given a haplotype base with
+     * row r is at index r * paddedMaxReadLength + i. Looking the priors up, rather than comparing bases, keeps the
+     * inner loops free of hard to predict branches.
+     */
+    private double[] priors;
+    private float[] priorsFloat;
+
+    /**
+     * Haplotype bases that have rows after the fixed rows in the prior tables, for the current read
+     */
+    private byte[] extraRowBases = new byte[0];
+
+    // the current haplotype, reversed, as offsets of the rows of its bases in the prior tables
+    private int[] reversedHaplotypeRowOffsets;
+
+    // the last three anti-diagonals of the match, insertion and deletion matrices, indexed by read position + 1
+    private double[][] matchDiagonals, insertionDiagonals, deletionDiagonals;
+    private float[][] matchDiagonalsFloat, insertionDiagonalsFloat, deletionDiagonalsFloat;
+
+    /**
+     * Create a PairHMM that computes in single precision, falling back to double precision when necessary
+     */
+    public AntiDiagonalLoglessPairHMM() {
+        this(false);
+    }
+
+    /**
+     * @param alwaysUseDoublePrecision if true, always compute in double precision
+     */
+    public AntiDiagonalLoglessPairHMM(final boolean alwaysUseDoublePrecision) {
+        this.alwaysUseDoublePrecision = alwaysUseDoublePrecision;
+    }
+
+    @Override
+    public void doNotUseTristateCorrection() {
+        doNotUseTristateCorrection = true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void initialize( final int readMaxLength, final int haplotypeMaxLength ) {
+        super.initialize(readMaxLength, haplotypeMaxLength);
+
+        readBases = new byte[paddedMaxReadLength];
+        readQuals = new byte[paddedMaxReadLength];
+        matchToMatchProb = new double[paddedMaxReadLength];
+        indelToMatchProb = new double[paddedMaxReadLength];
+        matchToInsertionProb = new double[paddedMaxReadLength];
+        insertionToInsertionProb = new double[paddedMaxReadLength];
+        matchToDeletionProb = new double[paddedMaxReadLength];
+        deletionToDeletionProb = new double[paddedMaxReadLength];
+        matchToMatchProbFloat = new float[paddedMaxReadLength];
+        indelToMatchProbFloat = new float[paddedMaxReadLength];
+        matchToInsertionProbFloat = new float[paddedMaxReadLength];
+        insertionToInsertionProbFloat = new float[paddedMaxReadLength];
+        matchToDeletionProbFloat = new float[paddedMaxReadLength];
+        deletionToDeletionProbFloat = new float[paddedMaxReadLength];
+        priors = new double[FIXED_ROW_BASES.length * paddedMaxReadLength];
+        priorsFloat = new float[FIXED_ROW_BASES.length * paddedMaxReadLength];
+
+        reversedHaplotypeRowOffsets = new int[haplotypeMaxLength];
+
+        matchDiagonals = new double[3][paddedMaxReadLength];
+        insertionDiagonals = new double[3][paddedMaxReadLength];
+        deletionDiagonals = new double[3][paddedMaxReadLength];
+        matchDiagonalsFloat = new float[3][paddedMaxReadLength];
+        insertionDiagonalsFloat = new float[3][paddedMaxReadLength];
+        deletionDiagonalsFloat = new float[3][paddedMaxReadLength];
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Unlike the superclass, the per read values are only computed for the first haplotype of each read.
+     */
+    @Override
+    public void computeLog10Likelihoods(final LikelihoodMatrix<Haplotype> logLikelihoods,
+                                        final List<GATKRead> processedReads,
+                                        final Map<GATKRead, byte[]> gcp) {
+        if (processedReads.isEmpty()) {
+            return;
+        }
+        if (doProfiling) {
+            startTime = System.nanoTime();
+        }
+        final List<Haplotype> alleles = logLikelihoods.alleles();
+        final int readMaxLength = findMaxReadLength(processedReads);
+        int haplotypeMaxLength = 0;
+        for (final Haplotype allele : alleles) {
+            haplotypeMaxLength = Math.max(haplotypeMaxLength, allele.length());
+        }
+        if (!initialized || readMaxLength > maxReadLength || haplotypeMaxLength > maxHaplotypeLength) {
+            initialize(readMaxLength, haplotypeMaxLength);
+        }
+
+        final int alleleCount = alleles.size();
+        mLogLikelihoodArray = new double[processedReads.size() * alleleCount];
+        int idx = 0;
+        int readIndex = 0;
+        for (final GATKRead read : processedReads) {
+            final byte[] readBases = read.getBases();
+            final byte[] readQuals = read.getBaseQualities();
+            final byte[] readInsQuals = ReadUtils.getBaseInsertionQualities(read);
+            final byte[] readDelQuals = ReadUtils.getBaseDeletionQualities(read);
+            final byte[] overallGCP = gcp.get(read);
+            for (int a = 0; a < alleleCount; a++) {
+                final double lk = computeReadLikelihoodGivenHaplotypeLog10(alleles.get(a).getBases(),
+                        readBases, readQuals, readInsQuals, readDelQuals, overallGCP, a == 0, null);
+                logLikelihoods.set(a, readIndex, lk);
+                mLogLikelihoodArray[idx++] = lk;
+            }
+            readIndex++;
+        }
+        if (doProfiling) {
+            threadLocalPairHMMComputeTimeDiff = (System.nanoTime() - startTime);
+            pairHMMComputeTime.addAndGet(threadLocalPairHMMComputeTimeDiff);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected double subComputeReadLikelihoodGivenHaplotypeLog10( final byte[] haplotypeBases,
+                                                                  final byte[] readBases,
+                                                                  final byte[] readQuals,
+                                                                  final byte[] insertionGOP,
+                                                                  final byte[] deletionGOP,
+                                                                  final byte[] overallGCP,
+                                                                  final int hapStartIndex,
+                                                                  final boolean recacheReadValues,
+                                                                  final int nextHapStartIndex) {
+        if ( ! constantsAreInitialized || recacheReadValues ) {
+            initializeReadValues(readBases, readQuals, insertionGOP, deletionGOP, overallGCP);
+            constantsAreInitialized = true;
+        }
+
+        final int haplotypeLength = haplotypeBases.length;
+        for (int j = 0; j < haplotypeLength; j++) {
+            reversedHaplotypeRowOffsets[haplotypeLength - 1 - j] = priorRow(haplotypeBases[j]) * paddedMaxReadLength;
+        }
+
+        if ( ! alwaysUseDoublePrecision ) {
+            final float result = computeFloat(readBases.length, haplotypeLength);
+            if ( result >= MIN_ACCEPTED_FLOAT ) {
+                return Math.log10(result) - FLOAT_INITIAL_CONDITION_LOG10;
+            }
+        }
+        return Math.log10(computeDouble(readBases.length, haplotypeLength)) - LoglessPairHMM.INITIAL_CONDITION_LOG10;
+    }
+
+    /**
+     * Compute, for each base of the read, the transition probabilities and the priors given each possible haplotype
+     * base, in both single and double precision
+     */
+    private void initializeReadValues(final byte[] bases, final byte[] quals, final byte[] insertionGOP, final byte[] deletionGOP, final byte[] overallGCP) {
+        readLength = bases.length;
+        final double[] transitions = new double[TRANS_PROB_ARRAY_LENGTH];
+        for (int i = 1; i <= readLength; i++) {
+            readBases[i] = bases[i - 1];
+            readQuals[i] = quals[i - 1];
+
+            qualToTransProbs(transitions, insertionGOP[i - 1], deletionGOP[i - 1], overallGCP[i - 1]);
+            matchToMatchProb[i] = transitions[matchToMatch];
+            indelToMatchProb[i] = transitions[indelToMatch];
+            matchToInsertionProb[i] = transitions[matchToInsertion];
+            insertionToInsertionProb[i] = transitions[insertionToInsertion];
+            matchToDeletionProb[i] = transitions[matchToDeletion];
+            deletionToDeletionProb[i] = transitions[deletionToDeletion];
+
+            matchToMatchProbFloat[i] = (float)matchToMatchProb[i];
+            indelToMatchProbFloat[i] = (float)indelToMatchProb[i];
+            matchToInsertionProbFloat[i] = (float)matchToInsertionProb[i];
+            insertionToInsertionProbFloat[i] = (float)insertionToInsertionProb[i];
+            matchToDeletionProbFloat[i] = (float)matchToDeletionProb[i];
+            deletionToDeletionProbFloat[i] = (float)deletionToDeletionProb[i];
+        }
+
+        for (int row = 0; row < FIXED_ROW_BASES.length; row++) {
+            fillPriorRow(row, FIXED_ROW_BASES[row]);
+        }
+        extraRowBases = new byte[0];
+    }
+
+    /**
+     * @return the row of the prior tables for the given haplotype base, creating it if necessary
+     */
+    private int priorRow(final byte haplotypeBase) {
+        final int row = BASE_ROWS[haplotypeBase & 0xFF];
+        if (row >= 0) {
+            return row;
+        }
+        for (int extraRow = 0; extraRow < extraRowBases.length; extraRow++) {
+            if (extraRowBases[extraRow] == haplotypeBase) {
+                return FIXED_ROW_BASES.length + extraRow;
+            }
+        }
+        final int newRow = FIXED_ROW_BASES.length + extraRowBases.length;
+        extraRowBases = Arrays.copyOf(extraRowBases, extraRowBases.length + 1);
+        extraRowBases[extraRowBases.length - 1] = haplotypeBase;
+        if (priors.length < (newRow + 1) * paddedMaxReadLength) {
+            priors = Arrays.copyOf(priors, (newRow + 1) * paddedMaxReadLength);
+            priorsFloat = Arrays.copyOf(priorsFloat, (newRow + 1) * paddedMaxReadLength);
+        }
+        fillPriorRow(newRow, haplotypeBase);
+        return newRow;
+    }
+
+    /**
+     * Fill in the priors of the current read given the haplotype base y, exactly as {@link LoglessPairHMM} computes them
+     */
+    private void fillPriorRow(final int row, final byte y) {
+        final int offset = row * paddedMaxReadLength;
+        for (int i = 1; i <= readLength; i++) {
+            final byte x = readBases[i];
+            final byte qual = readQuals[i];
+            priors[offset + i] = ( x == y || x == (byte) 'N' || y == (byte) 'N' ?
+                    QualityUtils.qualToProb(qual) : (QualityUtils.qualToErrorProb(qual) / (doNotUseTristateCorrection ? 1.0 : LoglessPairHMM.TRISTATE_CORRECTION)) );
+            priorsFloat[offset + i] = (float)priors[offset + i];
+        }
+    }
+
+    /**
+     * Sweep the matrices in single precision.
+     *
+     * Cell (i, j) of the matrices is at index i of anti-diagonal i + j. Row 0 of the deletion matrix holds the initial
+     * condition (free deletions before the start of the read), and column 0 of every matrix is 0, as in {@link LoglessPairHMM}.
+     *
+     * @return the sum of the last rows of the match and insertion matrices, not yet divided by the initial condition
+     */
+    private float computeFloat(final int readLength, final int haplotypeLength) {
+        final float initialValue = FLOAT_INITIAL_CONDITION / haplotypeLength;
+        final int[] haplotypeRowOffsets = reversedHaplotypeRowOffsets;
+        final float[] priors = priorsFloat;
+        final float[] matchToMatch = matchToMatchProbFloat, indelToMatch = indelToMatchProbFloat;
+        final float[] matchToInsertion = matchToInsertionProbFloat, insertionToInsertion = insertionToInsertionProbFloat;
+        final float[] matchToDeletion = matchToDeletionProbFloat, deletionToDeletion = deletionToDeletionProbFloat;
+
+        float[] match2 = matchDiagonalsFloat[0], match1 = matchDiagonalsFloat[1], match = matchDiagonalsFloat[2];
+        float[] insertion2 = insertionDiagonalsFloat[0], insertion1 = insertionDiagonalsFloat[1], insertion = insertionDiagonalsFloat[2];
+        float[] deletion2 = deletionDiagonalsFloat[0], deletion1 = deletionDiagonalsFloat[1], deletion = deletionDiagonalsFloat[2];
+
+        float finalSumProbabilities = 0.0f;
+        for (int d = 0; d <= readLength + haplotypeLength; d++) {
+            if (d <= haplotypeLength) {
+                match[0] = 0.0f;
+                insertion[0] = 0.0f;
+                deletion[0] = initialValue;
+            }
+            if (d >= 1 && d <= readLength) {
+                match[d] = 0.0f;
+                insertion[d] = 0.0f;
+                deletion[d] = 0.0f;
+            }
+
+            // haplotype base j - 1 of cell (i, j) is at index haplotypeLength - d + i of the reversed haplotype
+            final int haplotypeOffset = haplotypeLength - d;
+            final int iEnd = Math.min(readLength, d - 1);
+            for (int i = Math.max(1, d - haplotypeLength); i <= iEnd; i++) {
+                final float prior = priors[haplotypeRowOffsets[haplotypeOffset + i] + i];
+                final float m = prior * ( match2[i - 1] * matchToMatch[i] +
+                        insertion2[i - 1] * indelToMatch[i] +
+                        deletion2[i - 1] * indelToMatch[i] );
+                final float ins = match1[i - 1] * matchToInsertion[i] + insertion1[i - 1] * insertionToInsertion[i];
+                final float del = match1[i] * matchToDeletion[i] + deletion1[i] * deletionToDeletion[i];
+                // flush tiny values to zero, as the native implementation does, to keep subnormal numbers (which are
+                // very slow) out of the computation
+                match[i] = m < FLOAT_FLUSH_THRESHOLD ? 0.0f : m;
+                insertion[i] = ins < FLOAT_FLUSH_THRESHOLD ? 0.0f : ins;
+                deletion[i] = del < FLOAT_FLUSH_THRESHOLD ? 0.0f : del;
+            }
+            if (iEnd == readLength && d > readLength) {
+                finalSumProbabilities += match[readLength] + insertion[readLength];
+            }
+
+            final float[] oldMatch = match2, oldInsertion = insertion2, oldDeletion = deletion2;
+            match2 = match1; match1 = match; match = oldMatch;
+            insertion2 = insertion1; insertion1 = insertion; insertion = oldInsertion;
+            deletion2 = deletion1; deletion1 = deletion; deletion = oldDeletion;
+        }
+        return finalSumProbabilities;
+    }
+
+    /**
+     * Sweep the matrices in double precision. Identical to {@link #computeFloat}, apart from the precision and the
+     * initial condition.
+     */
+    private double computeDouble(final int readLength, final int haplotypeLength) {
+        final double initialValue = LoglessPairHMM.INITIAL_CONDITION / haplotypeLength;
+        final int[] haplotypeRowOffsets = reversedHaplotypeRowOffsets;
+        final double[] priors = this.priors;
+        final double[] matchToMatch = matchToMatchProb, indelToMatch = indelToMatchProb;
+        final double[] matchToInsertion = matchToInsertionProb, insertionToInsertion = insertionToInsertionProb;
+        final double[] matchToDeletion = matchToDeletionProb, deletionToDeletion = deletionToDeletionProb;
+
+        double[] match2 = matchDiagonals[0], match1 = matchDiagonals[1], match = matchDiagonals[2];
+        double[] insertion2 = insertionDiagonals[0], insertion1 = insertionDiagonals[1], insertion = insertionDiagonals[2];
+        double[] deletion2 = deletionDiagonals[0], deletion1 = deletionDiagonals[1], deletion = deletionDiagonals[2];
+
+        double finalSumProbabilities = 0.0;
+        for (int d = 0; d <= readLength + haplotypeLength; d++) {
+            if (d <= haplotypeLength) {
+                match[0] = 0.0;
+                insertion[0] = 0.0;
+                deletion[0] = initialValue;
+            }
+            if (d >= 1 && d <= readLength) {
+                match[d] = 0.0;
+                insertion[d] = 0.0;
+                deletion[d] = 0.0;
+            }
+
+            final int haplotypeOffset = haplotypeLength - d;
+            final int iEnd = Math.min(readLength, d - 1);
+            for (int i = Math.max(1, d - haplotypeLength); i <= iEnd; i++) {
+                final double prior = priors[haplotypeRowOffsets[haplotypeOffset + i] + i];
+                match[i] = prior * ( match2[i - 1] * matchToMatch[i] +
+                        insertion2[i - 1] * indelToMatch[i] +
+                        deletion2[i - 1] * indelToMatch[i] );
+                insertion[i] = match1[i - 1] * matchToInsertion[i] + insertion1[i - 1] * insertionToInsertion[i];
+                deletion[i] = match1[i] * matchToDeletion[i] + deletion1[i] * deletionToDeletion[i];
+            }
+            if (iEnd == readLength && d > readLength) {
+                finalSumProbabilities += match[readLength] + insertion[readLength];
+            }
+
+            final double[] oldMatch = match2, oldInsertion = insertion2, oldDeletion = deletion2;
+            match2 = match1; match1 = match; match = oldMatch;
+            insertion2 = insertion1; insertion1 = insertion; insertion = oldInsertion;
+            deletion2 = deletion1; deletion1 = deletion; deletion = oldDeletion;
+        }
+        return finalSumProbabilities;
+    }
+}
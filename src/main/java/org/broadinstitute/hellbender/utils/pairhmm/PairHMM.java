@@ -17,6 +17,7 @@ import java.io.Closeable;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 
 /**
@@ -51,6 +52,13 @@ public abstract class PairHMM implements Closeable{
             logger.info("Using the non-hardware-accelerated Java LOGLESS_CACHING PairHMM implementation");
             return hmm;
         }),
+        /* Pure Java version of LOGLESS_CACHING that sweeps anti-diagonals in single precision (falling back to double precision
+           when needed), as the native implementations do. Faster than LOGLESS_CACHING, and needs no native library */
+        ANTIDIAGONAL_LOGLESS_CACHING(args -> {
+            final AntiDiagonalLoglessPairHMM hmm = new AntiDiagonalLoglessPairHMM(args != null && args.useDoublePrecision);
+            logger.info("Using the non-hardware-accelerated Java ANTIDIAGONAL_LOGLESS_CACHING PairHMM implementation");
+            return hmm;
+        }),
         /* Optimized AVX implementation of LOGLESS_CACHING called through JNI. Throws if AVX is not available */
         AVX_LOGLESS_CACHING(args -> {
             // Constructor will throw a UserException if AVX is not available
@@ -76,7 +84,7 @@ public abstract class PairHMM implements Closeable{
            Order of precedence:
             1. AVX_LOGLESS_CACHING_OMP
             2. AVX_LOGLESS_CACHING
-            3. LOGLESS_CACHING
+            3. ANTIDIAGONAL_LOGLESS_CACHING, in double precision
          */
         FASTEST_AVAILABLE(args -> {
             // This try block is temporarily commented out becuase FPGA support is experimental for the time being. Once
@@ -105,8 +113,9 @@ public abstract class PairHMM implements Closeable{
             }
             catch ( UserException.HardwareFeatureException e ) {
                 logger.warn("***WARNING: Machine does not have the AVX instruction set support needed for the accelerated AVX PairHmm. " +
-                            "Falling back to the MUCH slower LOGLESS_CACHING implementation!");
-                return new LoglessPairHMM();
+                            "Falling back to the slower Java ANTIDIAGONAL_LOGLESS_CACHING implementation!");
+                // in double precision, which gives exactly the same results as LOGLESS_CACHING
+                return new AntiDiagonalLoglessPairHMM(true);
             }
         });
 
@@ -135,7 +144,7 @@ public abstract class PairHMM implements Closeable{
 
     //profiling information
     protected static Boolean doProfiling = true;
-    protected static long pairHMMComputeTime = 0;
+    protected static final AtomicLong pairHMMComputeTime = new AtomicLong(); // PairHMMs may run concurrently on several threads
     protected long threadLocalPairHMMComputeTimeDiff = 0;
     protected long startTime = 0;
 
@@ -252,9 +261,7 @@ public abstract class PairHMM implements Closeable{
         }
         if(doProfiling) {
             threadLocalPairHMMComputeTimeDiff = (System.nanoTime() - startTime);
-            {
-                pairHMMComputeTime += threadLocalPairHMMComputeTimeDiff;
-            }
+            pairHMMComputeTime.addAndGet(threadLocalPairHMMComputeTimeDiff);
         }
     }
 
@@ -375,6 +382,6 @@ public abstract class PairHMM implements Closeable{
     @Override
     public void close() {
         if(doProfiling)
-            logger.info("Total compute time in PairHMM computeLogLikelihoods() : "+(pairHMMComputeTime*1e-9));
+            logger.info("Total compute time in PairHMM computeLogLikelihoods() : "+(pairHMMComputeTime.get()*1e-9));
     }
 }
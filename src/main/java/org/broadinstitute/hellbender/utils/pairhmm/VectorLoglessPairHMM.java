@@ -165,7 +165,7 @@ public final class VectorLoglessPairHMM extends LoglessPairHMM {
         }
         if (doProfiling) {
             threadLocalPairHMMComputeTimeDiff = (System.nanoTime() - startTime);
-            pairHMMComputeTime += threadLocalPairHMMComputeTimeDiff;
+            pairHMMComputeTime.addAndGet(threadLocalPairHMMComputeTimeDiff);
             pairHMMSetupTime += threadLocalSetupTimeDiff;
         }
     }
@@ -2,6 +2,7 @@ package org.broadinstitute.hellbender.utils.read;
 
 import htsjdk.samtools.*;
 import htsjdk.samtools.cram.build.CramIO;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
 import org.apache.commons.lang3.tuple.MutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.logging.log4j.LogManager;
@@ -1149,9 +1150,37 @@ public final class ReadUtils {
         final boolean preSorted,
         boolean createOutputBamIndex,
         final boolean createMD5)
+    {
+        return createCommonSAMWriter(outputPath, referenceFile, header, preSorted, createOutputBamIndex, createMD5, 1);
+    }
+
+    /**
+     * Create a common SAMFileWriter for use with GATK tools, compressing BAM output on multiple threads.
+     *
+     * @param outputPath - if this file has a .cram extension then a reference is required. Can not be null.
+     * @param referenceFile - the reference source to use. Can not be null if a output file has a .cram extension.
+     * @param header - header to be used for the output writer
+     * @param preSorted - if true then the records must already be sorted to match the header sort order
+     * @param createOutputBamIndex - if true an index will be created for .BAM and .CRAM files
+     * @param createMD5 - if true an MD5 file will be created
+     * @param compressionThreads - number of threads to use for compressing .BAM output. If > 1, a
+     *                             {@link ParallelBAMFileWriter} is used, which produces identical output.
+     *                             Has no effect on other formats.
+     *
+     * @return SAMFileWriter
+     */
+    public static SAMFileWriter createCommonSAMWriter(
+        final Path outputPath,
+        final Path referenceFile,
+        final SAMFileHeader header,
+        final boolean preSorted,
+        boolean createOutputBamIndex,
+        final boolean createMD5,
+        final int compressionThreads)
     {
         Utils.nonNull(outputPath);
         Utils.nonNull(header);
+        Utils.validateArg(compressionThreads > 0, "compressionThreads must be > 0");
 
         if (createOutputBamIndex && header.getSortOrder() != SAMFileHeader.SortOrder.coordinate) {
             logger.warn("Skipping index file creation for: " +
@@ -1159,6 +1188,11 @@ public final class ReadUtils {
             createOutputBamIndex = false;
         }
 
+        if (compressionThreads > 1 && outputPath.toString().endsWith(BamFileIoUtils.BAM_FILE_EXTENSION)) {
+            return ParallelBAMFileWriter.create(header.clone(), preSorted, outputPath, createOutputBamIndex, createMD5,
+                    BlockCompressedOutputStream.getDefaultCompressionLevel(), compressionThreads);
+        }
+
         final SAMFileWriterFactory factory = new SAMFileWriterFactory().setCreateIndex(createOutputBamIndex).setCreateMd5File(createMD5);
         return ReadUtils.createCommonSAMWriterFromFactory(factory, outputPath, referenceFile, header, preSorted);
     }
@@ -1,6 +1,8 @@
 package org.broadinstitute.hellbender.utils.read;
 
 import htsjdk.samtools.SAMFileWriter;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.runtime.MetricsRegistry;
 
 /**
  * A GATKRead writer that writes to a SAM/BAM file.
@@ -11,18 +13,37 @@ import htsjdk.samtools.SAMFileWriter;
 public final class SAMFileGATKReadWriter implements GATKReadWriter {
 
     private final SAMFileWriter samWriter;
+    private final MetricsRegistry.Timer addTimer;
+    private final MetricsRegistry.Timer closeTimer;
 
     public SAMFileGATKReadWriter( final SAMFileWriter samWriter ) {
+        this(samWriter, MetricsRegistry.DISABLED, null);
+    }
+
+    /**
+     * @param samWriter writer to write to
+     * @param registry registry in which to record the time spent adding reads and closing the writer, under the names
+     *                 "writer.&lt;name&gt;.add" and "writer.&lt;name&gt;.close"
+     * @param name name for this writer in the registry (eg., the output file name). May be null if registry is disabled.
+     */
+    public SAMFileGATKReadWriter( final SAMFileWriter samWriter, final MetricsRegistry registry, final String name ) {
+        Utils.nonNull(registry);
         this.samWriter = samWriter;
+        this.addTimer = registry.timer("writer." + name + ".add");
+        this.closeTimer = registry.timer("writer." + name + ".close");
     }
 
     @Override
     public void addRead( GATKRead read ) {
+        final long start = addTimer.start();
         samWriter.addAlignment(read.convertToSAMRecord(samWriter.getFileHeader()));
+        addTimer.stop(start);
     }
 
     @Override
     public void close() {
+        final long start = closeTimer.start();
         samWriter.close();
+        closeTimer.stop(start);
     }
 }
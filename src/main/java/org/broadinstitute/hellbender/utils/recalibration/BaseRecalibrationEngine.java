@@ -22,7 +22,6 @@ import org.broadinstitute.hellbender.utils.read.AlignmentUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.ReadUtils;
 import org.broadinstitute.hellbender.utils.recalibration.covariates.Covariate;
-import org.broadinstitute.hellbender.utils.recalibration.covariates.CovariateKeyCache;
 import org.broadinstitute.hellbender.utils.recalibration.covariates.ReadCovariates;
 import org.broadinstitute.hellbender.utils.recalibration.covariates.StandardCovariateList;
 
@@ -33,7 +32,11 @@ public final class BaseRecalibrationEngine implements Serializable {
     private static final long serialVersionUID = 1L;
 
     protected static final Logger logger = LogManager.getLogger(BaseRecalibrationEngine.class);
-    private final CovariateKeyCache keyCache;
+
+    /**
+     * Buffers for the arrays computed for every read. An engine is only used by one thread.
+     */
+    private final RecalibrationScratch scratch;
 
     /*
      * Every call to EventType.values() (or any enum type) creates a new array instance but they are all equal (ie contain identical elements).
@@ -96,7 +99,7 @@ public final class BaseRecalibrationEngine implements Serializable {
             throw new UserException("Number of read groups must be >= 1, but is " + numReadGroups);
         }
         recalTables = new RecalibrationTables(covariates, numReadGroups);
-        keyCache = new CovariateKeyCache();
+        scratch = new RecalibrationScratch();
         cachedEventTypes = recalArgs.computeIndelBQSRTables ? EventType.values() : new EventType[]{EventType.BASE_SUBSTITUTION};
     }
 
@@ -121,26 +124,25 @@ public final class BaseRecalibrationEngine implements Serializable {
 
         RecalUtils.parsePlatformForRead(read, readsHeader, recalArgs);
 
-        int[] isSNP = new int[read.getLength()];
-        int[] isInsertion = new int[isSNP.length];
-        int[] isDeletion = new int[isSNP.length];
+        // the arrays of the last read of the same length, reused rather than allocated for every read
+        final RecalibrationScratch.ReadArrays arrays = scratch.getReadArrays(read.getLength());
 
         //Note: this function modifies the isSNP, isInsertion and isDeletion arguments so it can't be skipped, BAQ or no BAQ
-        final int nErrors = calculateIsSNPOrIndel(read, refDS, isSNP, isInsertion, isDeletion);
+        final int nErrors = calculateIsSNPOrIndel(read, refDS, arrays.isSNP, arrays.isInsertion, arrays.isDeletion);
 
         // note for efficiency reasons we don't compute the BAQ array unless we actually have
         // some error to marginalize over.  For ILMN data ~85% of reads have no error
-        final byte[] baqArray = (nErrors == 0 || !recalArgs.enableBAQ) ? flatBAQArray(read) : calculateBAQArray(read, refDS);
+        final byte[] baqArray = (nErrors == 0 || !recalArgs.enableBAQ) ? arrays.flatBAQ : calculateBAQArray(read, refDS);
 
         if( baqArray != null ) { // some reads just can't be BAQ'ed
-            final ReadCovariates covariates = RecalUtils.computeCovariates(read, readsHeader, this.covariates, true, keyCache);
-            final boolean[] skip = calculateSkipArray(read, knownSites); // skip known sites of variation as well as low quality and non-regular bases
-            final double[] snpErrors = calculateFractionalErrorArray(isSNP, baqArray);
-            final double[] insertionErrors = calculateFractionalErrorArray(isInsertion, baqArray);
-            final double[] deletionErrors = calculateFractionalErrorArray(isDeletion, baqArray);
+            final ReadCovariates covariates = RecalUtils.computeCovariates(read, readsHeader, this.covariates, true, scratch);
+            calculateSkipArray(read, knownSites, arrays.knownSites, arrays.skip); // skip known sites of variation as well as low quality and non-regular bases
+            calculateFractionalErrorArray(arrays.isSNP, baqArray, arrays.snpErrors);
+            calculateFractionalErrorArray(arrays.isInsertion, baqArray, arrays.insertionErrors);
+            calculateFractionalErrorArray(arrays.isDeletion, baqArray, arrays.deletionErrors);
 
             // aggregate all of the info into our info object, and update the data
-            final ReadRecalibrationInfo info = new ReadRecalibrationInfo(read, covariates, skip, snpErrors, insertionErrors, deletionErrors);
+            final ReadRecalibrationInfo info = new ReadRecalibrationInfo(read, covariates, arrays.skip, arrays.snpErrors, arrays.insertionErrors, arrays.deletionErrors);
             updateRecalTablesForRead(info);
         }
 
@@ -237,14 +239,20 @@ public final class BaseRecalibrationEngine implements Serializable {
 
     /**
      * Update the recalibration statistics using the information in recalInfo
+     *
+     * The observations are counted in the flat tables of recalTables, which are only turned into RecalDatums
+     * when the tables are finalized.
+     *
+     * Package-private for benchmarking.
+     *
      * @param recalInfo data structure holding information about the recalibration values for a single read
      */
-    private void updateRecalTablesForRead( final ReadRecalibrationInfo recalInfo ) {
+    void updateRecalTablesForRead( final ReadRecalibrationInfo recalInfo ) {
         Utils.validate(!finalized, "FinalizeData() has already been called");
 
         final GATKRead read = recalInfo.getRead();
         final ReadCovariates readCovariates = recalInfo.getCovariatesValues();
-        final NestedIntegerArray<RecalDatum> qualityScoreTable = recalTables.getQualityScoreTable();
+        final FlatRecalibrationTable qualityScoreCounts = recalTables.getQualityScoreCounts();
 
         final int nCovariates = covariates.size();
         final int nSpecialCovariates = covariates.numberOfSpecialCovariates();
@@ -261,12 +269,12 @@ public final class BaseRecalibrationEngine implements Serializable {
                     final int key0 = keys[0];
                     final int key1 = keys[1];
 
-                    RecalUtils.incrementDatumOrPutIfNecessary3keys(qualityScoreTable, qual, isError, key0, key1, eventIndex);
+                    qualityScoreCounts.increment(qual, isError, key0, key1, eventIndex);
 
                     for (int i = nSpecialCovariates; i < nCovariates; i++) {
                         final int keyi = keys[i];
                         if (keyi >= 0) {
-                            RecalUtils.incrementDatumOrPutIfNecessary4keys(recalTables.getTable(i), qual, isError, key0, key1, keyi, eventIndex);
+                            recalTables.getCounts(i).increment(qual, isError, key0, key1, keyi, eventIndex);
                         }
                     }
                 }
@@ -316,19 +324,28 @@ public final class BaseRecalibrationEngine implements Serializable {
         return read;
     }
 
-    private boolean[] calculateSkipArray( final GATKRead read, final Iterable<? extends Locatable> knownSites ) {
+    /**
+     * Fill skip with the offsets of read to skip, using knownSitesArray (of read length, and all false) to compute the known sites
+     */
+    private void calculateSkipArray( final GATKRead read, final Iterable<? extends Locatable> knownSites, final boolean[] knownSitesArray, final boolean[] skip ) {
         final int readLength = read.getLength();
-        final boolean[] skip = new boolean[readLength];
-        final boolean[] knownSitesArray = calculateKnownSites(read, knownSites);
+        calculateKnownSites(read, knownSites, knownSitesArray);
         for(int i = 0; i < readLength; i++ ) {
             skip[i] = !BaseUtils.isRegularBase(read.getBase(i)) || read.getBaseQuality(i) < recalArgs.PRESERVE_QSCORES_LESS_THAN || knownSitesArray[i];
         }
-        return skip;
     }
 
     protected boolean[] calculateKnownSites( final GATKRead read, final Iterable<? extends Locatable> knownSites ) {
+        final boolean[] knownSitesArray = new boolean[read.getLength()];//initializes to all false
+        calculateKnownSites(read, knownSites, knownSitesArray);
+        return knownSitesArray;
+    }
+
+    /**
+     * Set the offsets of read covered by knownSites in knownSitesArray, which must be of read length and all false
+     */
+    private static void calculateKnownSites( final GATKRead read, final Iterable<? extends Locatable> knownSites, final boolean[] knownSitesArray ) {
         final int readLength = read.getLength();
-        final boolean[] knownSitesArray = new boolean[readLength];//initializes to all false
         final Cigar cigar = read.getCigar();
         final int softStart = read.getSoftStart();
         final int softEnd = read.getSoftEnd();
@@ -353,7 +370,6 @@ public final class BaseRecalibrationEngine implements Serializable {
 
             Arrays.fill(knownSitesArray, Math.max(0, featureStartOnRead), Math.min(readLength, featureEndOnRead + 1), true);
         }
-        return knownSitesArray;
     }
 
     /**
@@ -430,13 +446,25 @@ public final class BaseRecalibrationEngine implements Serializable {
     }
 
     public static double[] calculateFractionalErrorArray( final int[] errorArray, final byte[] baqArray ) {
+        final double[] fractionalErrors = new double[baqArray.length];
+        calculateFractionalErrorArray(errorArray, baqArray, fractionalErrors);
+        return fractionalErrors;
+    }
+
+    /**
+     * Like {@link #calculateFractionalErrorArray(int[], byte[])}, but writes the fractional errors into fractionalErrors,
+     * which must be as long as errorArray and baqArray, instead of a new array.
+     */
+    public static void calculateFractionalErrorArray( final int[] errorArray, final byte[] baqArray, final double[] fractionalErrors ) {
         if ( errorArray.length != baqArray.length ) {
             throw new GATKException("Array length mismatch detected. Malformed read?");
         }
+        if( fractionalErrors.length != errorArray.length ) {
+            throw new GATKException("Output array length mismatch detected. Malformed read?");
+        }
 
         final int BLOCK_START_UNSET = -1;
 
-        final double[] fractionalErrors = new double[baqArray.length];
         boolean inBlock = false;
         int blockStartIndex = BLOCK_START_UNSET;
         int i;
@@ -457,10 +485,6 @@ public final class BaseRecalibrationEngine implements Serializable {
         if( inBlock ) {
             calculateAndStoreErrorsInBlock(i-1, blockStartIndex, errorArray, fractionalErrors);
         }
-        if( fractionalErrors.length != errorArray.length ) {
-            throw new GATKException("Output array length mismatch detected. Malformed read?");
-        }
-        return fractionalErrors;
     }
 
     private static void calculateAndStoreErrorsInBlock( final int i,
@@ -483,7 +507,14 @@ public final class BaseRecalibrationEngine implements Serializable {
      * // TODO -- could be optimized avoiding this function entirely by using this inline if the calculation code above
      */
     protected static byte[] flatBAQArray(final GATKRead read) {
-        final byte[] baq = new byte[read.getLength()];
+        return flatBAQArray(read.getLength());
+    }
+
+    /**
+     * @return a BAQ-style array of length NO_BAQ_UNCERTAINTY values
+     */
+    static byte[] flatBAQArray(final int length) {
+        final byte[] baq = new byte[length];
         Arrays.fill(baq, NO_BAQ_UNCERTAINTY);
         return baq;
     }
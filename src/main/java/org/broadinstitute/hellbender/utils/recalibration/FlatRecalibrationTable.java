@@ -0,0 +1,217 @@
+package org.broadinstitute.hellbender.utils.recalibration;
+
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * The observation counts and error sums of one recalibration table, accumulated in flat primitive arrays instead of
+ * a tree of {@link RecalDatum}s.
+ *
+ * The keys of a cell are flattened into a single offset, as into a row-major array with the table's dimensions. Most
+ * cells of the covariate tables are never observed (the context table has 4^8 indel contexts for every read group,
+ * quality and event type), so the offsets are not used directly as array indices, but are kept in an open-addressing
+ * hash table with linear probing. Its offsets, observation counts, error sums and reported qualities are parallel
+ * arrays, so counting an observation only hashes the offset and updates a slot in place, without allocating.
+ *
+ * The error sums are kept multiplied by {@link RecalDatum#MULTIPLIER}, as RecalDatum keeps them, so that the
+ * RecalDatums made from the counts at report time (see {@link #forEachCell}) hold exactly the same values as if the
+ * observations had been counted in RecalDatums.
+ */
+final class FlatRecalibrationTable implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final long EMPTY = -1L;
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * Consumer of the cells of a table: their keys, observation count, error sum (multiplied by
+     * {@link RecalDatum#MULTIPLIER}) and reported quality
+     */
+    @FunctionalInterface
+    interface CellConsumer {
+        void accept(int[] keys, long numObservations, double scaledMismatches, byte reportedQuality);
+    }
+
+    private final int[] dimensions;
+
+    private long[] offsets;
+    private long[] numObservations;
+    private double[] scaledMismatches;
+    private byte[] reportedQualities;
+
+    private int size;
+
+    public FlatRecalibrationTable(final int... dimensions) {
+        Utils.validateArg(dimensions.length == 3 || dimensions.length == 4, "A FlatRecalibrationTable must have 3 or 4 dimensions");
+        long numCells = 1;
+        for ( final int dimension : dimensions ) {
+            Utils.validateArg(dimension > 0, "Dimensions must be positive");
+            Utils.validateArg(numCells <= Long.MAX_VALUE / dimension, "Too many cells for a FlatRecalibrationTable");
+            numCells *= dimension;
+        }
+        this.dimensions = Arrays.copyOf(dimensions, dimensions.length);
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @return the dimensions of this table.  DO NOT MODIFY
+     */
+    public int[] getDimensions() {
+        return dimensions;
+    }
+
+    /**
+     * @return the number of cells with at least one observation
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Count an observation in the cell with the given 3 keys.
+     *
+     * Note: we intentionally do not use varargs here to avoid the performance cost of allocating an array on every call.
+     *
+     * @param qual qual for this event, recorded as the reported quality of the cell if this is its first observation
+     * @param isError error value for this event
+     * @param key0, key1, key2 location in table of the cell
+     */
+    public void increment(final byte qual, final double isError, final int key0, final int key1, final int key2) {
+        Utils.validateArg(dimensions.length == 3, "Exactly 3 keys should be passed to this table");
+        checkKey(key0, 0);
+        checkKey(key1, 1);
+        checkKey(key2, 2);
+        increment((((long) key0 * dimensions[1]) + key1) * dimensions[2] + key2, 1L, isError * RecalDatum.MULTIPLIER, qual);
+    }
+
+    /**
+     * Count an observation in the cell with the given 4 keys.
+     *
+     * Note: we intentionally do not use varargs here to avoid the performance cost of allocating an array on every call.
+     *
+     * @param qual qual for this event, recorded as the reported quality of the cell if this is its first observation
+     * @param isError error value for this event
+     * @param key0, key1, key2, key3 location in table of the cell
+     */
+    public void increment(final byte qual, final double isError, final int key0, final int key1, final int key2, final int key3) {
+        Utils.validateArg(dimensions.length == 4, "Exactly 4 keys should be passed to this table");
+        checkKey(key0, 0);
+        checkKey(key1, 1);
+        checkKey(key2, 2);
+        checkKey(key3, 3);
+        increment(((((long) key0 * dimensions[1]) + key1) * dimensions[2] + key2) * dimensions[3] + key3, 1L, isError * RecalDatum.MULTIPLIER, qual);
+    }
+
+    /**
+     * Add all the counts of other into this table. A cell keeps its reported quality if it was already observed here.
+     */
+    public void add(final FlatRecalibrationTable other) {
+        Utils.nonNull(other);
+        Utils.validateArg(Arrays.equals(dimensions, other.dimensions),
+                "Table " + Utils.join(",", dimensions) + " not equal to " + Utils.join(",", other.dimensions));
+        for ( int slot = 0; slot < other.offsets.length; slot++ ) {
+            if ( other.offsets[slot] != EMPTY ) {
+                increment(other.offsets[slot], other.numObservations[slot], other.scaledMismatches[slot], other.reportedQualities[slot]);
+            }
+        }
+    }
+
+    /**
+     * Pass every cell with at least one observation to consumer, in no particular order.
+     *
+     * The keys array is reused from one cell to the next.
+     */
+    public void forEachCell(final CellConsumer consumer) {
+        Utils.nonNull(consumer);
+        final int[] keys = new int[dimensions.length];
+        for ( int slot = 0; slot < offsets.length; slot++ ) {
+            if ( offsets[slot] != EMPTY ) {
+                long offset = offsets[slot];
+                for ( int i = dimensions.length - 1; i >= 0; i-- ) {
+                    keys[i] = (int) (offset % dimensions[i]);
+                    offset /= dimensions[i];
+                }
+                consumer.accept(keys, numObservations[slot], scaledMismatches[slot], reportedQualities[slot]);
+            }
+        }
+    }
+
+    /**
+     * Remove all the counts from this table
+     */
+    public void clear() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    private void checkKey(final int key, final int dimension) {
+        if ( key < 0 || key >= dimensions[dimension] ) {
+            throw new IllegalArgumentException("Key " + key + " is out of range for dimension " + dimension + " (max is " + (dimensions[dimension] - 1) + ")");
+        }
+    }
+
+    private void increment(final long offset, final long incObservations, final double incScaledMismatches, final byte qual) {
+        final int slot = findSlot(offset);
+        if ( offsets[slot] == EMPTY ) {
+            offsets[slot] = offset;
+            reportedQualities[slot] = qual;
+            size++;
+        }
+        numObservations[slot] += incObservations;
+        scaledMismatches[slot] += incScaledMismatches;
+
+        // keep the table at most half full, so that probe sequences stay short
+        if ( size > offsets.length / 2 ) {
+            rehash(offsets.length * 2);
+        }
+    }
+
+    /**
+     * @return the slot holding offset, or the empty slot where it should be inserted
+     */
+    private int findSlot(final long offset) {
+        final int mask = offsets.length - 1;
+        int slot = hash(offset) & mask;
+        while ( offsets[slot] != offset && offsets[slot] != EMPTY ) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int hash(final long offset) {
+        final long h = offset * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void rehash(final int capacity) {
+        final long[] oldOffsets = offsets;
+        final long[] oldNumObservations = numObservations;
+        final double[] oldScaledMismatches = scaledMismatches;
+        final byte[] oldReportedQualities = reportedQualities;
+        allocate(capacity);
+        for ( int oldSlot = 0; oldSlot < oldOffsets.length; oldSlot++ ) {
+            if ( oldOffsets[oldSlot] != EMPTY ) {
+                final int slot = findSlot(oldOffsets[oldSlot]);
+                offsets[slot] = oldOffsets[oldSlot];
+                numObservations[slot] = oldNumObservations[oldSlot];
+                scaledMismatches[slot] = oldScaledMismatches[oldSlot];
+                reportedQualities[slot] = oldReportedQualities[oldSlot];
+                size++;
+            }
+        }
+    }
+
+    private void allocate(final int capacity) {
+        offsets = new long[capacity];
+        Arrays.fill(offsets, EMPTY);
+        numObservations = new long[capacity];
+        scaledMismatches = new double[capacity];
+        reportedQualities = new byte[capacity];
+        size = 0;
+    }
+}
@@ -38,7 +38,7 @@ public final class ReadRecalibrationInfo {
         }
 
         this.read = read;
-        this.baseQuals = read.getBaseQualities();
+        this.baseQuals = read.getBaseQualitiesNoCopy(); // only read, so there is no need for a copy
         this.length = baseQuals.length;
         this.covariates = covariates;
         this.skips = skips;
@@ -16,7 +16,7 @@ public final class RecalDatum implements Serializable {
     public static final byte MAX_RECALIBRATED_Q_SCORE = SAMUtils.MAX_PHRED_SCORE;
     private static final double UNINITIALIZED = -1.0;
     private static final long serialVersionUID = 1L;
-    private static final double MULTIPLIER = 100000.0;  //See discussion in numMismatches about what the multiplier is.
+    static final double MULTIPLIER = 100000.0;  //See discussion in numMismatches about what the multiplier is.
 
     /**
      * estimated reported quality score based on combined data's individual q-reporteds and number of observations
@@ -74,6 +74,20 @@ public final class RecalDatum implements Serializable {
         empiricalQuality = UNINITIALIZED;
     }
 
+    /**
+     * Create a new RecalDatum from counts accumulated outside of a RecalDatum (see {@link FlatRecalibrationTable}),
+     * with the mismatches already multiplied by {@link #MULTIPLIER}, so that they are stored exactly as summed
+     *
+     * @param numObservations    observations
+     * @param scaledMismatches   mismatches, multiplied by {@link #MULTIPLIER}
+     * @param reportedQuality    Qreported
+     */
+    static RecalDatum fromScaledCounts(final long numObservations, final double scaledMismatches, final byte reportedQuality) {
+        final RecalDatum datum = new RecalDatum(0L, 0.0, reportedQuality);
+        datum.incrementScaled(numObservations, scaledMismatches);
+        return datum;
+    }
+
     /**
      * Copy copy into this recal datum, overwriting all of this objects data
      * @param copy  RecalDatum to copy
@@ -216,6 +230,15 @@ public final class RecalDatum implements Serializable {
         empiricalQuality = UNINITIALIZED;
     }
 
+    /**
+     * Increment the observations and mismatches, with the mismatches already multiplied by {@link #MULTIPLIER}
+     */
+    final void incrementScaled(final long incObservations, final double incScaledMismatches) {
+        numObservations += incObservations;
+        numMismatches += incScaledMismatches;
+        empiricalQuality = UNINITIALIZED;
+    }
+
     public final void increment(final boolean isError) {
         increment(1, isError ? 1.0 : 0.0);
     }
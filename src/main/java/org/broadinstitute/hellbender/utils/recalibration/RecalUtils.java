@@ -528,6 +528,25 @@ public final class RecalUtils {
         return readCovariates;
     }
 
+    /**
+     * Computes all requested covariates for every offset in the given read, like
+     * {@link #computeCovariates(GATKRead, SAMFileHeader, StandardCovariateList, boolean, CovariateKeyCache)},
+     * but in the buffers of scratch, so that no arrays are allocated once reads of this length have been seen.
+     *
+     * @param read                The read for which to compute covariate values.
+     * @param header              SAM header for the read
+     * @param covariates          The list of requested covariates.
+     * @param recordIndelValues   should we compute covariates for indel BQSR?
+     * @param scratch             reusable buffers, owned by the calling thread
+     * @return a matrix with all the covariates calculated for every base in the read, valid until the next read of
+     *         the same length is processed with scratch
+     */
+    public static ReadCovariates computeCovariates(final GATKRead read, final SAMFileHeader header, final StandardCovariateList covariates, final boolean recordIndelValues, final RecalibrationScratch scratch) {
+        final ReadCovariates readCovariates = scratch.getReadCovariates(read.getLength(), covariates.size());
+        covariates.recordAllValuesInStorage(read, header, readCovariates, recordIndelValues, scratch);
+        return readCovariates;
+    }
+
     /**
      * Computes all requested covariates for every offset in the given read
      * by calling covariate.getValues(..).
@@ -0,0 +1,129 @@
+package org.broadinstitute.hellbender.utils.recalibration;
+
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.ReadCovariates;
+
+import java.util.Arrays;
+
+/**
+ * Reusable buffers for computing the covariates and errors of one read at a time, so that the recalibration of a
+ * read does not allocate any new arrays once reads of its length have been seen.
+ *
+ * The {@link ReadCovariates} and the per-read arrays of {@link BaseRecalibrationEngine} must be exactly as long as
+ * the read, so they are kept for each read length up to {@link #MAX_CACHED_READ_LENGTH} (longer reads get new arrays
+ * every time). The buffers of the context covariate only need to be at least as long as the read, and grow as needed.
+ *
+ * The arrays handed out by a scratch are overwritten by the next read of the same length, so a scratch must only be
+ * used by one thread, for one read at a time.
+ */
+public final class RecalibrationScratch {
+
+    /**
+     * The longest read length for which the arrays are kept
+     */
+    public static final int MAX_CACHED_READ_LENGTH = 500;
+
+    /**
+     * The arrays used by {@link BaseRecalibrationEngine} to process a read of a given length
+     */
+    static final class ReadArrays {
+        final int[] isSNP, isInsertion, isDeletion;
+        final boolean[] skip, knownSites;
+        final double[] snpErrors, insertionErrors, deletionErrors;
+        final byte[] flatBAQ;
+
+        private ReadArrays(final int readLength) {
+            isSNP = new int[readLength];
+            isInsertion = new int[readLength];
+            isDeletion = new int[readLength];
+            skip = new boolean[readLength];
+            knownSites = new boolean[readLength];
+            snpErrors = new double[readLength];
+            insertionErrors = new double[readLength];
+            deletionErrors = new double[readLength];
+            // never modified, as the BAQ arrays are only read
+            flatBAQ = BaseRecalibrationEngine.flatBAQArray(readLength);
+        }
+
+        /**
+         * Reset the arrays that are only partially written for every read
+         */
+        private void clear() {
+            Arrays.fill(isSNP, 0);
+            Arrays.fill(isInsertion, 0);
+            Arrays.fill(isDeletion, 0);
+            Arrays.fill(knownSites, false);
+        }
+    }
+
+    private final ReadCovariates[] readCovariatesByLength = new ReadCovariates[MAX_CACHED_READ_LENGTH + 1];
+    private final ReadArrays[] readArraysByLength = new ReadArrays[MAX_CACHED_READ_LENGTH + 1];
+
+    private byte[] contextBases = new byte[0];
+    private int[] mismatchContextKeys = new int[0];
+    private int[] indelContextKeys = new int[0];
+
+    /**
+     * @return a ReadCovariates for a read of readLength bases, holding the keys of the previous read of the same length
+     */
+    public ReadCovariates getReadCovariates(final int readLength, final int numberOfCovariates) {
+        Utils.validateArg(readLength >= 0, "readLength must be non-negative");
+        if ( readLength > MAX_CACHED_READ_LENGTH ) {
+            return new ReadCovariates(readLength, numberOfCovariates);
+        }
+        ReadCovariates readCovariates = readCovariatesByLength[readLength];
+        if ( readCovariates == null || readCovariates.getNumberOfCovariates() != numberOfCovariates ) {
+            readCovariates = new ReadCovariates(readLength, numberOfCovariates);
+            readCovariatesByLength[readLength] = readCovariates;
+        }
+        return readCovariates;
+    }
+
+    /**
+     * @return the arrays to process a read of readLength bases, with no SNPs, indels or known sites
+     */
+    ReadArrays getReadArrays(final int readLength) {
+        Utils.validateArg(readLength >= 0, "readLength must be non-negative");
+        if ( readLength > MAX_CACHED_READ_LENGTH ) {
+            return new ReadArrays(readLength);
+        }
+        ReadArrays readArrays = readArraysByLength[readLength];
+        if ( readArrays == null ) {
+            readArrays = new ReadArrays(readLength);
+            readArraysByLength[readLength] = readArrays;
+        } else {
+            readArrays.clear();
+        }
+        return readArrays;
+    }
+
+    /**
+     * @return a buffer of at least length bases for the context covariate
+     */
+    public byte[] getContextBases(final int length) {
+        if ( contextBases.length < length ) {
+            contextBases = new byte[length];
+        }
+        return contextBases;
+    }
+
+    /**
+     * @return a buffer of at least length keys for the mismatch contexts of the context covariate
+     */
+    public int[] getMismatchContextKeys(final int length) {
+        if ( mismatchContextKeys.length < length ) {
+            mismatchContextKeys = new int[length];
+        }
+        return mismatchContextKeys;
+    }
+
+    /**
+     * @return a buffer of at least length keys for the indel contexts of the context covariate
+     */
+    public int[] getIndelContextKeys(final int length) {
+        if ( indelContextKeys.length < length ) {
+            indelContextKeys = new int[length];
+        }
+        return indelContextKeys;
+    }
+}
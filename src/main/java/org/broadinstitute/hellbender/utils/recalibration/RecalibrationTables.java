@@ -14,6 +14,11 @@ import java.util.Map;
 
 /**
  * Utility class to facilitate base quality score recalibration.
+ *
+ * The quality score and additional covariate tables are accumulated as primitive counts in
+ * {@link FlatRecalibrationTable}s (see {@link #getQualityScoreCounts()} and {@link #getCounts(int)}). The
+ * {@link RecalDatum} tables are only filled from those counts when they are first accessed, typically to finalize
+ * and report the tables, so that counting an observation does not need to allocate or walk a tree of RecalDatums.
  */
 public final class RecalibrationTables implements Serializable, Iterable<NestedIntegerArray<RecalDatum>> {
     private static final long serialVersionUID = 1L;
@@ -34,6 +39,8 @@ public final class RecalibrationTables implements Serializable, Iterable<NestedI
     private final Map<Covariate, NestedIntegerArray<RecalDatum>> covariateToTable;
     private final Map<NestedIntegerArray<RecalDatum>, Covariate> tableToCovariate;
 
+    // counts not yet added to the tables of RecalDatums, by table index (there are none for the read group table)
+    private final FlatRecalibrationTable[] counts;
 
 
     public RecalibrationTables(final StandardCovariateList covariates) {
@@ -49,6 +56,7 @@ public final class RecalibrationTables implements Serializable, Iterable<NestedI
 
         this.qualDimension = covariates.getQualityScoreCovariate().maximumKeyValue() + 1;
         this.numReadGroups = numReadGroups;
+        this.counts = new FlatRecalibrationTable[covariates.size()];
 
         //two special tables
         this.readGroupTable = new NestedIntegerArray<>(numReadGroups, eventDimension);
@@ -60,6 +68,7 @@ public final class RecalibrationTables implements Serializable, Iterable<NestedI
         allTables.add(qualityScoreTable);
         covariateToTable.put(covariates.getQualityScoreCovariate(), qualityScoreTable);
         tableToCovariate.put(qualityScoreTable, covariates.getQualityScoreCovariate());
+        counts[allTables.size() - 1] = new FlatRecalibrationTable(numReadGroups, qualDimension, eventDimension);
 
         //Non-special tables
         for (Covariate cov : covariates.getAdditionalCovariates()){
@@ -68,10 +77,51 @@ public final class RecalibrationTables implements Serializable, Iterable<NestedI
             allTables.add(table);
             covariateToTable.put(cov, table);
             tableToCovariate.put(table, cov);
+            counts[allTables.size() - 1] = new FlatRecalibrationTable(numReadGroups, qualDimension, cov.maximumKeyValue() + 1, eventDimension);
+        }
+    }
+
+    /**
+     * @return the counts of observations in the quality score table that have not yet been added to its RecalDatums
+     */
+    FlatRecalibrationTable getQualityScoreCounts() {
+        return counts[1];
+    }
+
+    /**
+     * @return the counts of observations in the table at index that have not yet been added to its RecalDatums
+     */
+    FlatRecalibrationTable getCounts(final int index) {
+        Utils.validateArg(index > 0 && index < counts.length, "There are no counts for the read group table");
+        return counts[index];
+    }
+
+    /**
+     * Add the counts accumulated in the flat tables to the RecalDatums of the tables, and clear them
+     */
+    private void flushCounts() {
+        for ( int i = 1; i < counts.length; i++ ) {
+            if ( counts[i].isEmpty() ) {
+                continue;
+            }
+            final NestedIntegerArray<RecalDatum> table = allTables.get(i);
+            counts[i].forEachCell((keys, numObservations, scaledMismatches, reportedQuality) -> {
+                final RecalDatum existingDatum = table.get(keys);
+                if ( existingDatum == null ) {
+                    table.put(RecalDatum.fromScaledCounts(numObservations, scaledMismatches, reportedQuality), keys);
+                } else {
+                    // the existing datum may be shared with the tables it was combined from, so don't modify it
+                    final RecalDatum datum = new RecalDatum(existingDatum);
+                    datum.incrementScaled(numObservations, scaledMismatches);
+                    table.put(datum, keys);
+                }
+            });
+            counts[i].clear();
         }
     }
 
     public NestedIntegerArray<RecalDatum> getTableForCovariate(Covariate cov) {
+        flushCounts();
         return covariateToTable.get(cov);
     }
 
@@ -96,10 +146,12 @@ public final class RecalibrationTables implements Serializable, Iterable<NestedI
     }
 
     public NestedIntegerArray<RecalDatum> getReadGroupTable() {
+        flushCounts();
         return readGroupTable;
     }
 
     public NestedIntegerArray<RecalDatum> getQualityScoreTable() {
+        flushCounts();
         return qualityScoreTable;
     }
 
@@ -109,6 +161,7 @@ public final class RecalibrationTables implements Serializable, Iterable<NestedI
 
     @Override
     public Iterator<NestedIntegerArray<RecalDatum>> iterator() {
+        flushCounts();
         return allTables.iterator();
     }
 
@@ -116,6 +169,9 @@ public final class RecalibrationTables implements Serializable, Iterable<NestedI
      * @return true if all the tables contain no RecalDatums
      */
     public boolean isEmpty() {
+        for( int i = 1; i < counts.length; i++ ) {
+            if( !counts[i].isEmpty() ) { return false; }
+        }
         for( final NestedIntegerArray<RecalDatum> table : allTables ) {
             if( !table.getAllValues().isEmpty() ) { return false; }
         }
@@ -133,6 +189,8 @@ public final class RecalibrationTables implements Serializable, Iterable<NestedI
 
     /**
      * Merge all of the tables from toMerge into into this set of tables
+     *
+     * Counts not yet added to the RecalDatums of toMerge are added to the counts of this set of tables.
      */
     public RecalibrationTables combine(final RecalibrationTables toMerge) {
         if ( numTables() != toMerge.numTables() )
@@ -142,6 +200,9 @@ public final class RecalibrationTables implements Serializable, Iterable<NestedI
             final NestedIntegerArray<RecalDatum> myTable = this.allTables.get(i);
             final NestedIntegerArray<RecalDatum> otherTable = toMerge.allTables.get(i);
             RecalUtils.combineTables(myTable, otherTable);
+            if ( i > 0 ) {
+                counts[i].add(toMerge.counts[i]);
+            }
         }
 
         return this;
@@ -180,10 +241,12 @@ public final class RecalibrationTables implements Serializable, Iterable<NestedI
 
     //XXX this should not be accessible by index
     public NestedIntegerArray<RecalDatum> getTable(int index) {
+        flushCounts();
         return allTables.get(index);
     }
 
     public List<NestedIntegerArray<RecalDatum>> getAdditionalTables() {
+        flushCounts();
         return additionalTables;
     }
 }
@@ -2,6 +2,7 @@ package org.broadinstitute.hellbender.utils.recalibration.covariates;
 
 import htsjdk.samtools.SAMFileHeader;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.recalibration.RecalibrationScratch;
 
 import java.io.Serializable;
 
@@ -24,6 +25,20 @@ public interface Covariate extends Serializable {
      */
     public void recordValues(final GATKRead read, final SAMFileHeader header, final ReadCovariates values, final boolean recordIndelValues);
 
+    /**
+     * Calculates covariate values for all positions in the read, using the buffers of scratch for any temporary
+     * per-read arrays. The default implementation does not need any.
+     *
+     * @param read   the read to calculate the covariates on.
+     * @param header SAM header for the read
+     * @param values the object to record the covariate values for every base in the read.
+     * @param recordIndelValues indicates whether values of the covariate are to be recorded for indels
+     * @param scratch reusable buffers, owned by the calling thread
+     */
+    default void recordValues(final GATKRead read, final SAMFileHeader header, final ReadCovariates values, final boolean recordIndelValues, final RecalibrationScratch scratch) {
+        recordValues(read, header, values, recordIndelValues);
+    }
+
     /**
      * Converts the internal representation of the key to String format for file output.
      *
@@ -1,6 +1,7 @@
 package org.broadinstitute.hellbender.utils.recalibration.covariates;
 
 import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMUtils;
 import org.broadinstitute.hellbender.utils.recalibration.RecalibrationArgumentCollection;
 import org.broadinstitute.hellbender.utils.QualityUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
@@ -19,13 +20,14 @@ public final class QualityScoreCovariate implements Covariate {
     @Override
     public void recordValues(final GATKRead read, final SAMFileHeader header, final ReadCovariates values, final boolean recordIndelValues) {
         final int baseQualityCount = read.getBaseQualityCount();
-        final byte[] baseInsertionQualities = recordIndelValues ? ReadUtils.getBaseInsertionQualities(read) : null;
-        final byte[] baseDeletionQualities = recordIndelValues ? ReadUtils.getBaseDeletionQualities(read) : null;
 
         //note: duplicate the loop to avoid checking recordIndelValues on every iteration
         if (recordIndelValues) {
+            // decode the indel qualities from their tags base by base, rather than into new arrays (or arrays of the default quality) for every read
+            final String baseInsertionQualities = read.getAttributeAsString(ReadUtils.BQSR_BASE_INSERTION_QUALITIES);
+            final String baseDeletionQualities = read.getAttributeAsString(ReadUtils.BQSR_BASE_DELETION_QUALITIES);
             for (int i = 0; i < baseQualityCount; i++) {
-                values.addCovariate(read.getBaseQuality(i), baseInsertionQualities[i], baseDeletionQualities[i], i);
+                values.addCovariate(read.getBaseQuality(i), indelQuality(baseInsertionQualities, i), indelQuality(baseDeletionQualities, i), i);
             }
         } else {
             for (int i = 0; i < baseQualityCount; i++) {
@@ -34,6 +36,13 @@ public final class QualityScoreCovariate implements Covariate {
         }
     }
 
+    /**
+     * @return the quality at offset in the given fastq-encoded indel qualities, or the default indel quality if there are none
+     */
+    private static byte indelQuality(final String fastqQualities, final int offset) {
+        return fastqQualities == null ? ReadUtils.DEFAULT_INSERTION_DELETION_QUAL : (byte) SAMUtils.fastqToPhred(fastqQualities.charAt(offset));
+    }
+
     @Override
     public String formatKey(final int key) {
         return String.format("%d", key);
@@ -16,6 +16,8 @@ public final class ReadCovariates {
      */
     private final int[][][] keys;
 
+    private final int numberOfCovariates;
+
     /**
      * The index of the current covariate, used by addCovariate
      */
@@ -28,6 +30,7 @@ public final class ReadCovariates {
      */
     public ReadCovariates(final int readLength, final int numberOfCovariates, final CovariateKeyCache keysCache) {
         Utils.nonNull(keysCache);
+        this.numberOfCovariates = numberOfCovariates;
         final int[][][] cachedKeys = keysCache.get(readLength);
         if ( cachedKeys == null ) {
             if ( logger.isDebugEnabled() ) logger.debug("Keys cache miss for length " + readLength + " cache size " + keysCache.size());
@@ -38,6 +41,19 @@ public final class ReadCovariates {
         }
     }
 
+    /**
+     * Create a ReadCovariates with its own keys, for a caller that reuses it for many reads of the same length
+     * (see {@link org.broadinstitute.hellbender.utils.recalibration.RecalibrationScratch})
+     */
+    public ReadCovariates(final int readLength, final int numberOfCovariates) {
+        keys = new int[EventType.values().length][readLength][numberOfCovariates];
+        this.numberOfCovariates = numberOfCovariates;
+    }
+
+    public int getNumberOfCovariates() {
+        return numberOfCovariates;
+    }
+
     public void setCovariateIndex(final int index) {
         currentCovariateIndex = index;
     }
@@ -78,8 +78,12 @@ public final class ReadGroupCovariate implements Covariate {
     }
 
     private int keyForReadGroup(final String readGroupId) {
-        Utils.validate(readGroupLookupTable.containsKey(readGroupId), () -> "The covariates table is missing " + RecalUtils.READGROUP_COLUMN_NAME + " " + readGroupId + " in " + RecalUtils.READGROUP_REPORT_TABLE_TITLE);
-        return readGroupLookupTable.get(readGroupId);
+        // Note: not Utils.validate, as its message supplier would capture readGroupId, and be allocated for every read
+        final Integer key = readGroupLookupTable.get(readGroupId);
+        if (key == null) {
+            throw new IllegalStateException("The covariates table is missing " + RecalUtils.READGROUP_COLUMN_NAME + " " + readGroupId + " in " + RecalUtils.READGROUP_REPORT_TABLE_TITLE);
+        }
+        return key;
     }
 
     @Override
@@ -2,6 +2,7 @@ package org.broadinstitute.hellbender.utils.recalibration.covariates;
 
 import htsjdk.samtools.SAMFileHeader;
 import org.broadinstitute.hellbender.utils.recalibration.RecalibrationArgumentCollection;
+import org.broadinstitute.hellbender.utils.recalibration.RecalibrationScratch;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 
 import java.io.Serializable;
@@ -134,6 +135,18 @@ public final class StandardCovariateList implements Iterable<Covariate>, Seriali
         }
     }
 
+    /**
+     * For each covariate compute the values for all positions in this read and
+     * record the values in the provided storage object, using the buffers of scratch.
+     */
+    public void recordAllValuesInStorage(final GATKRead read, final SAMFileHeader header, final ReadCovariates resultsStorage, final boolean recordIndelValues, final RecalibrationScratch scratch) {
+        for (int i = 0, n = allCovariates.size(); i < n; i++) {
+            final Covariate cov = allCovariates.get(i);
+            resultsStorage.setCovariateIndex(i);
+            cov.recordValues(read, header, resultsStorage, recordIndelValues, scratch);
+        }
+    }
+
     /**
      * Retrieves a covariate by the parsed name {@link Covariate#parseNameForReport()} or null
      * if no covariate with that name exists in the list.
@@ -0,0 +1,473 @@
+package org.broadinstitute.hellbender.utils.runtime;
+
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * A registry of named runtime metrics (counters, timers and histograms) used to find out where a tool spends
+ * its time without attaching a profiler.
+ *
+ * Metrics are created on first use by name via {@link #counter}, {@link #timer} and {@link #histogram}; asking
+ * for the same name again returns the same metric, so that eg. all the traversal threads of a tool contribute
+ * to a single timer. All metrics are safe to update from multiple threads.
+ *
+ * The {@link #DISABLED} registry hands out shared metrics that record nothing, so that instrumented code does not
+ * need to check whether metrics are enabled. Disabled timers do not even read the clock.
+ *
+ * The contents of a registry can be written as JSON or as a tab-separated table (see {@link #write}), or summarized
+ * in a single line suitable for the progress log (see {@link #getSummary}).
+ */
+public class MetricsRegistry {
+
+    /**
+     * A registry that records nothing
+     */
+    public static final MetricsRegistry DISABLED = new DisabledMetricsRegistry();
+
+    private static final double NANOS_PER_MILLISECOND = 1e6;
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private final Map<String, Metric> metrics = new ConcurrentHashMap<>();
+
+    /**
+     * @return true if this registry records metrics (ie., it is not {@link #DISABLED})
+     */
+    public boolean isEnabled() {
+        return true;
+    }
+
+    /**
+     * @param name name of the counter
+     * @return the counter with the given name, created if necessary
+     */
+    public Counter counter( final String name ) {
+        return getOrCreate(name, Counter.class, Counter::new);
+    }
+
+    /**
+     * @param name name of the timer
+     * @return the timer with the given name, created if necessary
+     */
+    public Timer timer( final String name ) {
+        return getOrCreate(name, Timer.class, Timer::new);
+    }
+
+    /**
+     * @param name name of the histogram
+     * @return the histogram with the given name, created if necessary
+     */
+    public Histogram histogram( final String name ) {
+        return getOrCreate(name, Histogram.class, Histogram::new);
+    }
+
+    private <M extends Metric> M getOrCreate( final String name, final Class<M> type, final Function<String, M> constructor ) {
+        Utils.nonNull(name, "metric name cannot be null");
+        final Metric metric = metrics.computeIfAbsent(name, constructor);
+        Utils.validateArg(metric.getClass() == type, () -> "Metric " + name + " is a " + metric.getType() + ", not a " + type.getSimpleName().toLowerCase());
+        return type.cast(metric);
+    }
+
+    /**
+     * @return all metrics in this registry, sorted by name
+     */
+    public List<Metric> getMetrics() {
+        return metrics.values().stream().sorted(Comparator.comparing(Metric::getName)).collect(Collectors.toList());
+    }
+
+    /**
+     * Summarize the timers that account for the most time so far, eg. "Time: apply 12.1s, readFilter.X 1.2s"
+     *
+     * @param maxTimers maximum number of timers to include (> 0)
+     * @return a one-line summary, or null if no time has been recorded yet
+     */
+    public String getSummary( final int maxTimers ) {
+        Utils.validateArg(maxTimers > 0, "maxTimers must be > 0");
+        final List<Timer> busiestTimers = metrics.values().stream()
+                .filter(metric -> metric instanceof Timer && ((Timer)metric).getCount() > 0)
+                .map(metric -> (Timer)metric)
+                .sorted(Comparator.comparingLong(Timer::getTotalNanos).reversed())
+                .limit(maxTimers)
+                .collect(Collectors.toList());
+        if ( busiestTimers.isEmpty() ) {
+            return null;
+        }
+        return "Time: " + busiestTimers.stream()
+                .map(timer -> String.format("%s %.1fs", timer.getName(), timer.getTotalNanos() / NANOS_PER_SECOND))
+                .collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Write all metrics to a file: as JSON if the file name ends with .json, otherwise as a tab-separated table.
+     *
+     * @param outputPath file to write
+     */
+    public void write( final Path outputPath ) {
+        Utils.nonNull(outputPath);
+        try ( final Writer writer = Files.newBufferedWriter(outputPath) ) {
+            if ( outputPath.toString().toLowerCase().endsWith(".json") ) {
+                writeJson(writer);
+            } else {
+                writeTsv(writer);
+            }
+        } catch ( final IOException e ) {
+            throw new UserException.CouldNotCreateOutputFile(outputPath.toString(), "Unable to write runtime metrics", e);
+        }
+    }
+
+    /**
+     * Write all metrics as a JSON object of the form {"name": {"type": "timer", "count": 2, ...}, ...}. Timer values
+     * are in milliseconds.
+     */
+    public void writeJson( final Writer writer ) {
+        final PrintWriter out = new PrintWriter(writer);
+        out.println("{");
+        final List<Metric> allMetrics = getMetrics();
+        for ( int i = 0; i < allMetrics.size(); ++i ) {
+            final Metric metric = allMetrics.get(i);
+            out.print("  " + jsonString(metric.getName()) + ": {\"type\": " + jsonString(metric.getType()));
+            for ( final Map.Entry<String, Number> value : metric.getValues().entrySet() ) {
+                out.print(", " + jsonString(value.getKey()) + ": " + value.getValue());
+            }
+            out.println(i + 1 < allMetrics.size() ? "}," : "}");
+        }
+        out.println("}");
+        out.flush();
+    }
+
+    /**
+     * Write all metrics as a tab-separated table with one row per metric. Timer values are in milliseconds.
+     */
+    public void writeTsv( final Writer writer ) {
+        final PrintWriter out = new PrintWriter(writer);
+        final List<String> valueColumns = Arrays.asList(Histogram.COUNT, Histogram.TOTAL, Histogram.MEAN, Histogram.MIN,
+                                                        Histogram.MAX, Histogram.P50, Histogram.P90, Histogram.P99);
+        out.println("name\ttype\t" + String.join("\t", valueColumns));
+        for ( final Metric metric : getMetrics() ) {
+            final Map<String, Number> values = metric.getValues();
+            out.print(metric.getName() + "\t" + metric.getType());
+            for ( final String column : valueColumns ) {
+                out.print("\t" + (values.containsKey(column) ? values.get(column) : ""));
+            }
+            out.println();
+        }
+        out.flush();
+    }
+
+    private static String jsonString( final String value ) {
+        final StringBuilder builder = new StringBuilder("\"");
+        for ( final char c : value.toCharArray() ) {
+            if ( c == '"' || c == '\\' ) {
+                builder.append('\\').append(c);
+            } else if ( c < 0x20 ) {
+                builder.append(String.format("\\u%04x", (int)c));
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.append('"').toString();
+    }
+
+    /**
+     * Base class for all metrics
+     */
+    public abstract static class Metric {
+        private final String name;
+
+        private Metric( final String name ) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the kind of metric this is ("counter", "timer" or "histogram")
+         */
+        public abstract String getType();
+
+        /**
+         * @return the current values of this metric, by name, in output order
+         */
+        public abstract Map<String, Number> getValues();
+    }
+
+    /**
+     * A count of events
+     */
+    public static class Counter extends Metric {
+        private final LongAdder count = new LongAdder();
+
+        private Counter( final String name ) {
+            super(name);
+        }
+
+        public void increment() {
+            count.increment();
+        }
+
+        public void add( final long amount ) {
+            count.add(amount);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        @Override
+        public String getType() {
+            return "counter";
+        }
+
+        @Override
+        public Map<String, Number> getValues() {
+            return Collections.singletonMap(Histogram.COUNT, getCount());
+        }
+    }
+
+    /**
+     * The distribution of a non-negative quantity. Values are counted in power-of-two buckets, so percentiles are
+     * approximate (they are reported as the upper bound of the bucket in which they fall, capped at the maximum).
+     */
+    public static class Histogram extends Metric {
+        private static final String COUNT = "count";
+        private static final String TOTAL = "total";
+        private static final String MEAN = "mean";
+        private static final String MIN = "min";
+        private static final String MAX = "max";
+        private static final String P50 = "p50";
+        private static final String P90 = "p90";
+        private static final String P99 = "p99";
+
+        /**
+         * Bucket i holds values whose highest set bit is bit i - 1 (bucket 0 holds zeros)
+         */
+        private final AtomicLongArray buckets = new AtomicLongArray(Long.SIZE + 1);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+        private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+        private Histogram( final String name ) {
+            super(name);
+        }
+
+        /**
+         * @param value value to record (negative values are recorded as 0)
+         */
+        public void record( final long value ) {
+            final long nonNegativeValue = Math.max(value, 0L);
+            buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(nonNegativeValue));
+            count.increment();
+            total.add(nonNegativeValue);
+            min.accumulateAndGet(nonNegativeValue, Math::min);
+            max.accumulateAndGet(nonNegativeValue, Math::max);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getTotal() {
+            return total.sum();
+        }
+
+        /**
+         * @return the smallest value recorded, or 0 if there are none
+         */
+        public long getMin() {
+            return getCount() > 0 ? min.get() : 0L;
+        }
+
+        /**
+         * @return the largest value recorded, or 0 if there are none
+         */
+        public long getMax() {
+            return getCount() > 0 ? max.get() : 0L;
+        }
+
+        public double getMean() {
+            final long n = getCount();
+            return n > 0 ? (double)getTotal() / n : 0.0;
+        }
+
+        /**
+         * @param percentile percentile to estimate, in [0, 100]
+         * @return an upper bound on the given percentile of the recorded values, or 0 if there are none
+         */
+        public long getPercentile( final double percentile ) {
+            Utils.validateArg(percentile >= 0.0 && percentile <= 100.0, "percentile must be in [0, 100]");
+            long remaining = (long)Math.ceil(getCount() * percentile / 100.0);
+            for ( int i = 0; i < buckets.length(); ++i ) {
+                remaining -= buckets.get(i);
+                if ( remaining <= 0 ) {
+                    final long bucketUpperBound = i == 0 ? 0L : i >= Long.SIZE - 1 ? Long.MAX_VALUE : (1L << i) - 1;
+                    return Math.min(bucketUpperBound, getMax());
+                }
+            }
+            return getMax();
+        }
+
+        @Override
+        public String getType() {
+            return "histogram";
+        }
+
+        @Override
+        public Map<String, Number> getValues() {
+            return getValues(1.0);
+        }
+
+        /**
+         * @param unit divide all values other than the count by this amount (1.0 to report values as recorded)
+         */
+        Map<String, Number> getValues( final double unit ) {
+            final Map<String, Number> values = new LinkedHashMap<>();
+            values.put(COUNT, getCount());
+            values.put(TOTAL, inUnits(getTotal(), unit));
+            values.put(MEAN, getMean() / unit);
+            values.put(MIN, inUnits(getMin(), unit));
+            values.put(MAX, inUnits(getMax(), unit));
+            values.put(P50, inUnits(getPercentile(50), unit));
+            values.put(P90, inUnits(getPercentile(90), unit));
+            values.put(P99, inUnits(getPercentile(99), unit));
+            return values;
+        }
+
+        private static Number inUnits( final long value, final double unit ) {
+            return unit == 1.0 ? (Number)value : (Number)(value / unit);
+        }
+    }
+
+    /**
+     * The distribution of the durations of some operation, in nanoseconds. Usage:
+     *
+     * <pre>
+     *     final long start = timer.start();
+     *     doSomething();
+     *     timer.stop(start);
+     * </pre>
+     */
+    public static class Timer extends Histogram {
+        private Timer( final String name ) {
+            super(name);
+        }
+
+        /**
+         * @return the start time of an operation, to be passed to {@link #stop}
+         */
+        public long start() {
+            return System.nanoTime();
+        }
+
+        /**
+         * Record the duration of an operation
+         *
+         * @param startNanos value returned by {@link #start} at the start of the operation
+         */
+        public void stop( final long startNanos ) {
+            record(System.nanoTime() - startNanos);
+        }
+
+        /**
+         * @return total time recorded, in nanoseconds
+         */
+        public long getTotalNanos() {
+            return getTotal();
+        }
+
+        /**
+         * Wrap an iterator so that the time spent in its {@code hasNext} and {@code next} methods is recorded by this
+         * timer, eg. to time decoding of records from a data source.
+         *
+         * @param iterator iterator to time
+         * @return an iterator over the same elements
+         */
+        public <T> Iterator<T> timeIterator( final Iterator<T> iterator ) {
+            Utils.nonNull(iterator);
+            return new Iterator<T>() {
+                @Override
+                public boolean hasNext() {
+                    final long start = start();
+                    final boolean hasNext = iterator.hasNext();
+                    stop(start);
+                    return hasNext;
+                }
+
+                @Override
+                public T next() {
+                    final long start = start();
+                    final T next = iterator.next();
+                    stop(start);
+                    return next;
+                }
+            };
+        }
+
+        @Override
+        public String getType() {
+            return "timer";
+        }
+
+        /**
+         * @return the values of this timer, in milliseconds
+         */
+        @Override
+        public Map<String, Number> getValues() {
+            return getValues(NANOS_PER_MILLISECOND);
+        }
+    }
+
+    /**
+     * Registry returned by {@link #DISABLED}: all metrics are shared and record nothing
+     */
+    private static final class DisabledMetricsRegistry extends MetricsRegistry {
+        private static final Counter DISABLED_COUNTER = new Counter("disabled") {
+            @Override public void increment() { }
+            @Override public void add( final long amount ) { }
+        };
+
+        private static final Histogram DISABLED_HISTOGRAM = new Histogram("disabled") {
+            @Override public void record( final long value ) { }
+        };
+
+        private static final Timer DISABLED_TIMER = new Timer("disabled") {
+            @Override public long start() { return 0L; }
+            @Override public void stop( final long startNanos ) { }
+            @Override public <T> Iterator<T> timeIterator( final Iterator<T> iterator ) { return Utils.nonNull(iterator); }
+        };
+
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public Counter counter( final String name ) {
+            return DISABLED_COUNTER;
+        }
+
+        @Override
+        public Timer timer( final String name ) {
+            return DISABLED_TIMER;
+        }
+
+        @Override
+        public Histogram histogram( final String name ) {
+            return DISABLED_HISTOGRAM;
+        }
+    }
+}
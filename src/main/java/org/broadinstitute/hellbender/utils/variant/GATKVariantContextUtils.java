@@ -23,6 +23,7 @@ import org.broadinstitute.hellbender.utils.BaseUtils;
 import org.broadinstitute.hellbender.utils.MathUtils;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.param.ParamUtils;
+import org.broadinstitute.hellbender.utils.variant.writers.ParallelCompressionVCFWriter;
 
 import java.io.Serializable;
 import java.util.*;
@@ -88,8 +89,37 @@ public final class GATKVariantContextUtils {
             final SAMSequenceDictionary referenceDictionary,
             final boolean createMD5,
             final Options... options)
+    {
+        return createVCFWriter(outPath, referenceDictionary, createMD5, 1, options);
+    }
+
+    /**
+     * Creates a VariantContextWriter whose outputFile type is based on the extension of the output file name,
+     * compressing block-compressed VCF output on multiple threads. See
+     * {@link #createVCFWriter(Path, SAMSequenceDictionary, boolean, Options...)}.
+     *
+     * @param outPath output Path for this writer. May not be null.
+     * @param referenceDictionary required if on the fly indexing is set, otherwise can be null
+     * @param createMD5 true if an md5 file should be created
+     * @param compressionThreads number of threads to use for compressing .vcf.gz output. If > 1, a
+     *                           {@link ParallelCompressionVCFWriter} is used, which produces identical output.
+     *                           Has no effect on other formats, or if asynchronous writing is requested.
+     * @param options variable length list of additional Options to be set for this writer
+     * @returns VariantContextWriter must be closed by the caller
+     */
+    public static VariantContextWriter createVCFWriter(
+            final Path outPath,
+            final SAMSequenceDictionary referenceDictionary,
+            final boolean createMD5,
+            final int compressionThreads,
+            final Options... options)
     {
         Utils.nonNull(outPath);
+        Utils.validateArg(compressionThreads > 0, "compressionThreads must be > 0");
+
+        if (compressionThreads > 1 && ParallelCompressionVCFWriter.canWrite(outPath, options)) {
+            return ParallelCompressionVCFWriter.create(outPath, referenceDictionary, createMD5, compressionThreads, options);
+        }
 
         VariantContextWriterBuilder vcWriterBuilder =
                 new VariantContextWriterBuilder().clearOptions().setOutputPath(outPath);
@@ -0,0 +1,191 @@
+package org.broadinstitute.hellbender.utils.variant.writers;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import htsjdk.samtools.util.IOUtil;
+import htsjdk.samtools.util.Md5CalculatingOutputStream;
+import htsjdk.samtools.util.RuntimeIOException;
+import htsjdk.tribble.index.IndexCreator;
+import htsjdk.tribble.index.tabix.TabixFormat;
+import htsjdk.tribble.index.tabix.TabixIndexCreator;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.writer.Options;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.variantcontext.writer.VariantContextWriterBuilder;
+import htsjdk.variant.vcf.VCFHeader;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.io.ParallelBlockCompressedOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * A block-compressed VCF (.vcf.gz) writer that compresses its output on multiple threads via a
+ * {@link ParallelBlockCompressedOutputStream}.
+ *
+ * VCF encoding is delegated to an htsjdk VCF writer over the parallel stream. If requested, a tabix index is built on
+ * the fly here rather than by htsjdk, since index entries must be held until the compressed addresses of the blocks
+ * they point into are known. The output and index are byte-for-byte identical to those of the writer created by
+ * {@link VariantContextWriterBuilder} for the same path and options.
+ */
+public final class ParallelCompressionVCFWriter implements VariantContextWriter {
+
+    private final VariantContextWriter vcfWriter;
+    private final ParallelBlockCompressedOutputStream blockCompressedOutputStream;
+    private final Path outputPath;
+    private final SAMSequenceDictionary refDict;
+    private final IndexCreator indexCreator;
+
+    /**
+     * Variants written but not yet indexed, because the addresses of the blocks they occupy are not yet known
+     */
+    private final Deque<PendingIndexEntry> pendingIndexEntries = new ArrayDeque<>();
+
+    private ParallelCompressionVCFWriter( final VariantContextWriter vcfWriter, final ParallelBlockCompressedOutputStream blockCompressedOutputStream,
+                                          final Path outputPath, final SAMSequenceDictionary refDict, final IndexCreator indexCreator ) {
+        this.vcfWriter = vcfWriter;
+        this.blockCompressedOutputStream = blockCompressedOutputStream;
+        this.outputPath = outputPath;
+        this.refDict = refDict;
+        this.indexCreator = indexCreator;
+    }
+
+    /**
+     * Returns true if this writer can handle output to the given path with the given options: the output
+     * must be block-compressed VCF, and asynchronous writing must not be requested.
+     */
+    public static boolean canWrite( final Path outputPath, final Options... options ) {
+        Utils.nonNull(outputPath);
+        for ( final Options option : options ) {
+            if ( option == Options.USE_ASYNC_IO || option == Options.FORCE_BCF ) {
+                return false;
+            }
+        }
+        return VariantContextWriterBuilder.determineOutputTypeFromFile(outputPath) == VariantContextWriterBuilder.OutputType.BLOCK_COMPRESSED_VCF;
+    }
+
+    /**
+     * Create a writer for a block-compressed VCF file.
+     *
+     * @param outputPath output file, must be block-compressed VCF (see {@link #canWrite})
+     * @param refDict reference dictionary for the index, may be null
+     * @param createMD5 if true, create an MD5 file alongside the output
+     * @param compressionThreads number of threads to use for compression (> 0)
+     * @param options htsjdk writer options. {@link Options#INDEX_ON_THE_FLY} creates a tabix index.
+     * @return a new writer
+     */
+    public static ParallelCompressionVCFWriter create( final Path outputPath, final SAMSequenceDictionary refDict, final boolean createMD5,
+                                                       final int compressionThreads, final Options... options ) {
+        Utils.validateArg(canWrite(outputPath, options), () -> "Parallel compression is not supported for " + outputPath + " with options " + Arrays.toString(options));
+
+        final ParallelBlockCompressedOutputStream blockCompressedOutputStream;
+        try {
+            OutputStream out = IOUtil.maybeBufferOutputStream(Files.newOutputStream(outputPath));
+            if ( createMD5 ) {
+                out = new Md5CalculatingOutputStream(out, IOUtil.addExtension(outputPath, ".md5"));
+            }
+            blockCompressedOutputStream = new ParallelBlockCompressedOutputStream(out, BlockCompressedOutputStream.getDefaultCompressionLevel(), compressionThreads);
+        } catch ( final IOException e ) {
+            throw new RuntimeIOException("File not found: " + outputPath, e);
+        }
+
+        VariantContextWriterBuilder builder = new VariantContextWriterBuilder()
+                .clearOptions()
+                .setOutputVCFStream(blockCompressedOutputStream);
+        if ( refDict != null ) {
+            builder = builder.setReferenceDictionary(refDict);
+        }
+
+        IndexCreator indexCreator = null;
+        for ( final Options option : options ) {
+            if ( option == Options.INDEX_ON_THE_FLY ) {
+                // htsjdk refuses to index stream output, so we build the index ourselves
+                indexCreator = refDict != null ? new TabixIndexCreator(refDict, TabixFormat.VCF) : new TabixIndexCreator(TabixFormat.VCF);
+            } else {
+                builder = builder.setOption(option);
+            }
+        }
+
+        return new ParallelCompressionVCFWriter(builder.build(), blockCompressedOutputStream, outputPath, refDict, indexCreator);
+    }
+
+    @Override
+    public void writeHeader( final VCFHeader header ) {
+        vcfWriter.writeHeader(header);
+    }
+
+    @Override
+    public void setHeader( final VCFHeader header ) {
+        vcfWriter.setHeader(header);
+    }
+
+    @Override
+    public void add( final VariantContext vc ) {
+        if ( indexCreator == null ) {
+            vcfWriter.add(vc);
+            return;
+        }
+
+        final long position = blockCompressedOutputStream.getFilePointer();
+        vcfWriter.add(vc);
+        pendingIndexEntries.addLast(new PendingIndexEntry(vc, position));
+        try {
+            indexPendingVariants(false);
+        } catch ( final IOException e ) {
+            throw new RuntimeIOException("Unable to write the VCF object to " + outputPath, e);
+        }
+    }
+
+    /**
+     * Pass pending variants to the index creator, in order, with their real file offsets
+     *
+     * @param waitForCompression if true, index all pending variants, waiting for compression as necessary.
+     *                           Otherwise, index only those variants whose offsets can be resolved immediately.
+     */
+    private void indexPendingVariants( final boolean waitForCompression ) throws IOException {
+        while ( ! pendingIndexEntries.isEmpty() &&
+                (waitForCompression || blockCompressedOutputStream.isFilePointerResolvable(pendingIndexEntries.peekFirst().position)) ) {
+            final PendingIndexEntry entry = pendingIndexEntries.removeFirst();
+            indexCreator.addFeature(entry.vc, blockCompressedOutputStream.resolveFilePointer(entry.position));
+        }
+    }
+
+    @Override
+    public boolean checkError() {
+        return vcfWriter.checkError();
+    }
+
+    /**
+     * Close the output (which also shuts down the compression threads), then write the index, if any
+     */
+    @Override
+    public void close() {
+        vcfWriter.close();
+
+        if ( indexCreator != null ) {
+            try {
+                indexPendingVariants(true);
+                indexCreator.setIndexSequenceDictionary(refDict);
+                indexCreator.finalizeIndex(blockCompressedOutputStream.resolveFilePointer(blockCompressedOutputStream.getFilePointer()))
+                        .writeBasedOnFeaturePath(outputPath);
+            } catch ( final IOException e ) {
+                throw new RuntimeIOException("Unable to close index for " + outputPath, e);
+            }
+        }
+    }
+
+    private static final class PendingIndexEntry {
+        private final VariantContext vc;
+        private final long position;
+
+        private PendingIndexEntry( final VariantContext vc, final long position ) {
+            this.vc = vc;
+            this.position = position;
+        }
+    }
+}
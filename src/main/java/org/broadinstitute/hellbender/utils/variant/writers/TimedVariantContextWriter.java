@@ -0,0 +1,61 @@
+package org.broadinstitute.hellbender.utils.variant.writers;
+
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.vcf.VCFHeader;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.runtime.MetricsRegistry;
+
+/**
+ * A VariantContextWriter that records the time spent adding variants to, and closing, an underlying writer,
+ * under the names "writer.&lt;name&gt;.add" and "writer.&lt;name&gt;.close" in a {@link MetricsRegistry}.
+ */
+public final class TimedVariantContextWriter implements VariantContextWriter {
+
+    private final VariantContextWriter underlyingWriter;
+    private final MetricsRegistry.Timer addTimer;
+    private final MetricsRegistry.Timer closeTimer;
+
+    /**
+     * @param underlyingWriter writer to delegate to
+     * @param registry registry in which to record metrics
+     * @param name name for this writer in the registry (eg., the output file name)
+     */
+    public TimedVariantContextWriter( final VariantContextWriter underlyingWriter, final MetricsRegistry registry, final String name ) {
+        Utils.nonNull(underlyingWriter);
+        Utils.nonNull(registry);
+        Utils.nonNull(name);
+        this.underlyingWriter = underlyingWriter;
+        this.addTimer = registry.timer("writer." + name + ".add");
+        this.closeTimer = registry.timer("writer." + name + ".close");
+    }
+
+    @Override
+    public void writeHeader( final VCFHeader header ) {
+        underlyingWriter.writeHeader(header);
+    }
+
+    @Override
+    public void setHeader( final VCFHeader header ) {
+        underlyingWriter.setHeader(header);
+    }
+
+    @Override
+    public void add( final VariantContext vc ) {
+        final long start = addTimer.start();
+        underlyingWriter.add(vc);
+        addTimer.stop(start);
+    }
+
+    @Override
+    public boolean checkError() {
+        return underlyingWriter.checkError();
+    }
+
+    @Override
+    public void close() {
+        final long start = closeTimer.start();
+        underlyingWriter.close();
+        closeTimer.stop(start);
+    }
+}
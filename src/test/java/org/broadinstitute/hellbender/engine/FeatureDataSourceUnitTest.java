@@ -677,4 +677,168 @@ public final class FeatureDataSourceUnitTest extends GATKBaseTest {
      * End of direct testing on the FeatureCache inner class
      *********************************************************/
 
+    /**
+     * Re-run the queries from the SingleDataSourceMultipleQueriesTestData DataProvider, in their original order and
+     * in reverse, with the multi-window cache enabled
+     */
+    @Test(dataProvider = "SingleDataSourceMultipleQueriesTestData")
+    public void testSingleDataSourceMultipleQueriesWithMultiWindowCache( final List<Pair<SimpleInterval, List<String>>> testQueries ) {
+        final List<Pair<SimpleInterval, List<String>>> reversedQueries = new ArrayList<>(testQueries);
+        Collections.reverse(reversedQueries);
+
+        for ( final List<Pair<SimpleInterval, List<String>>> queries : Arrays.asList(testQueries, reversedQueries) ) {
+            for ( final int maxCachedFeatures : Arrays.asList(1, 5, 1000) ) {
+                try (final FeatureDataSource<VariantContext> featureSource = new FeatureDataSource<>(QUERY_TEST_VCF, null, 50)) {
+                    featureSource.setMultiWindowCache(maxCachedFeatures);
+
+                    for ( final Pair<SimpleInterval, List<String>> testQuery : queries ) {
+                        checkVariantQueryResults(featureSource.queryAndPrefetch(testQuery.getLeft()), testQuery.getRight(), testQuery.getLeft());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testHandleInvalidMultiWindowCacheSize() {
+        try (final FeatureDataSource<VariantContext> featureSource = new FeatureDataSource<>(QUERY_TEST_VCF)) {
+            featureSource.setMultiWindowCache(-1);
+        }
+    }
+
+    /**
+     * Re-run the queries from the SingleDataSourceMultipleQueriesTestData DataProvider, in their original order and
+     * in reverse, with streaming queries enabled. Reversed queries force the stream to restart on every query.
+     */
+    @Test(dataProvider = "SingleDataSourceMultipleQueriesTestData")
+    public void testSingleDataSourceMultipleQueriesWithStreaming( final List<Pair<SimpleInterval, List<String>>> testQueries ) {
+        final List<Pair<SimpleInterval, List<String>>> reversedQueries = new ArrayList<>(testQueries);
+        Collections.reverse(reversedQueries);
+
+        for ( final List<Pair<SimpleInterval, List<String>>> queries : Arrays.asList(testQueries, reversedQueries) ) {
+            for ( final int maxBufferedFeatures : Arrays.asList(1, 5, 1000) ) {
+                try (final FeatureDataSource<VariantContext> featureSource = new FeatureDataSource<>(QUERY_TEST_VCF)) {
+                    featureSource.setStreamingQueries(maxBufferedFeatures);
+
+                    for ( final Pair<SimpleInterval, List<String>> testQuery : queries ) {
+                        checkVariantQueryResults(featureSource.queryAndPrefetch(testQuery.getLeft()), testQuery.getRight(), testQuery.getLeft());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testStreamingQueriesInterleavedWithIteration() {
+        try (final FeatureDataSource<VariantContext> featureSource = new FeatureDataSource<>(QUERY_TEST_VCF)) {
+            featureSource.setStreamingQueries(2);
+
+            final SimpleInterval firstQuery = new SimpleInterval("1", 100, 200);
+            checkVariantQueryResults(featureSource.queryAndPrefetch(firstQuery), Arrays.asList("a", "b", "c"), firstQuery);
+
+            // Iterating over the whole file stops the stream, which must be restarted by the next query
+            int numRecords = 0;
+            for ( final VariantContext ignored : featureSource ) {
+                ++numRecords;
+            }
+            Assert.assertEquals(numRecords, 26, "Wrong number of records in iteration over " + QUERY_TEST_VCF);
+
+            final SimpleInterval secondQuery = new SimpleInterval("1", 150, 250);
+            checkVariantQueryResults(featureSource.queryAndPrefetch(secondQuery), Arrays.asList("b", "c", "d"), secondQuery);
+            final SimpleInterval thirdQuery = new SimpleInterval("2", 500, 600);
+            checkVariantQueryResults(featureSource.queryAndPrefetch(thirdQuery), Arrays.asList("p", "q"), thirdQuery);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testHandleInvalidStreamingBufferSize() {
+        try (final FeatureDataSource<VariantContext> featureSource = new FeatureDataSource<>(QUERY_TEST_VCF)) {
+            featureSource.setStreamingQueries(-1);
+        }
+    }
+
+    /*********************************************************
+     * Direct testing on the MultiWindowFeatureCache class
+     *********************************************************/
+
+    @Test
+    public void testMultiWindowCacheHitsAndMisses() {
+        final MultiWindowFeatureCache<ArtificialTestFeature> cache = new MultiWindowFeatureCache<>(100);
+        final List<ArtificialTestFeature> window1 = Arrays.asList(new ArtificialTestFeature("1", 1, 100), new ArtificialTestFeature("1", 150, 200));
+        final List<ArtificialTestFeature> window2 = Arrays.asList(new ArtificialTestFeature("2", 500, 600));
+
+        Assert.assertNull(cache.getCachedFeatures(new SimpleInterval("1", 1, 10)), "Unexpected cache hit on empty cache");
+        Assert.assertEquals(cache.fill(window1.iterator(), new SimpleInterval("1", 1, 300), new SimpleInterval("1", 1, 10)),
+                            window1.subList(0, 1), "Wrong Features returned by fill()");
+        Assert.assertNull(cache.getCachedFeatures(new SimpleInterval("2", 550, 560)), "Unexpected cache hit on uncached contig");
+        Assert.assertEquals(cache.fill(window2.iterator(), new SimpleInterval("2", 550, 700), new SimpleInterval("2", 550, 560)),
+                            window2, "Wrong Features returned by fill()");
+
+        // Queries may move backwards and between contigs, as long as they fall within a cached window
+        Assert.assertEquals(cache.getCachedFeatures(new SimpleInterval("1", 120, 300)), window1.subList(1, 2));
+        Assert.assertEquals(cache.getCachedFeatures(new SimpleInterval("2", 600, 700)), window2);
+        Assert.assertEquals(cache.getCachedFeatures(new SimpleInterval("1", 50, 160)), window1);
+        Assert.assertEquals(cache.getCachedFeatures(new SimpleInterval("1", 101, 149)), Collections.emptyList());
+        Assert.assertNull(cache.getCachedFeatures(new SimpleInterval("1", 250, 301)), "Unexpected cache hit for query extending past window");
+
+        Assert.assertEquals(cache.getNumWindows(), 2);
+        Assert.assertEquals(cache.getNumCachedFeatures(), 3);
+        Assert.assertEquals(cache.getNumCacheHits(), 4);
+        Assert.assertEquals(cache.getNumCacheMisses(), 3);
+        Assert.assertEquals(cache.getNumEvictions(), 0);
+    }
+
+    @Test
+    public void testMultiWindowCacheFindsLongFeatures() {
+        final MultiWindowFeatureCache<ArtificialTestFeature> cache = new MultiWindowFeatureCache<>(100);
+        final List<ArtificialTestFeature> features = Arrays.asList(new ArtificialTestFeature("1", 1, 1000), new ArtificialTestFeature("1", 10, 20),
+                                                                   new ArtificialTestFeature("1", 500, 510), new ArtificialTestFeature("1", 900, 950));
+        cache.fill(features.iterator(), new SimpleInterval("1", 100, 1000), new SimpleInterval("1", 100, 100));
+
+        Assert.assertEquals(cache.getCachedFeatures(new SimpleInterval("1", 505, 600)), Arrays.asList(features.get(0), features.get(2)));
+        Assert.assertEquals(cache.getCachedFeatures(new SimpleInterval("1", 960, 1000)), features.subList(0, 1));
+    }
+
+    @Test
+    public void testMultiWindowCacheEviction() {
+        final MultiWindowFeatureCache<ArtificialTestFeature> cache = new MultiWindowFeatureCache<>(3);
+        final SimpleInterval window1 = new SimpleInterval("1", 1, 100);
+        final SimpleInterval window2 = new SimpleInterval("1", 201, 300);
+        final SimpleInterval window3 = new SimpleInterval("1", 401, 500);
+
+        cache.fill(Arrays.asList(new ArtificialTestFeature("1", 10, 20)).iterator(), window1, window1);
+        cache.fill(Arrays.asList(new ArtificialTestFeature("1", 210, 220)).iterator(), window2, window2);
+        cache.fill(Collections.<ArtificialTestFeature>emptyList().iterator(), window3, window3);
+        Assert.assertEquals(cache.getNumWindows(), 3);
+        Assert.assertEquals(cache.getNumEvictions(), 0);
+
+        // Use window1, so that window2 becomes the least recently used and is evicted when we exceed capacity
+        Assert.assertNotNull(cache.getCachedFeatures(window1));
+        cache.fill(Arrays.asList(new ArtificialTestFeature("1", 610, 620)).iterator(), new SimpleInterval("1", 601, 700), new SimpleInterval("1", 601, 700));
+        Assert.assertEquals(cache.getNumWindows(), 3);
+        Assert.assertEquals(cache.getNumCachedFeatures(), 3);
+        Assert.assertEquals(cache.getNumEvictions(), 1);
+        Assert.assertNull(cache.getCachedFeatures(window2), "Least recently used window should have been evicted");
+        Assert.assertNotNull(cache.getCachedFeatures(window1));
+        Assert.assertNotNull(cache.getCachedFeatures(window3));
+
+        // A window larger than the cache evicts everything else, but is itself retained
+        final List<ArtificialTestFeature> bigWindow = Arrays.asList(new ArtificialTestFeature("2", 1, 10), new ArtificialTestFeature("2", 2, 10),
+                                                                    new ArtificialTestFeature("2", 3, 10), new ArtificialTestFeature("2", 4, 10));
+        cache.fill(bigWindow.iterator(), new SimpleInterval("2", 1, 10), new SimpleInterval("2", 1, 10));
+        Assert.assertEquals(cache.getNumWindows(), 1);
+        Assert.assertEquals(cache.getNumCachedFeatures(), 4);
+        Assert.assertEquals(cache.getCachedFeatures(new SimpleInterval("2", 5, 10)), bigWindow);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testMultiWindowCacheRejectsQueryOutsideWindow() {
+        final MultiWindowFeatureCache<ArtificialTestFeature> cache = new MultiWindowFeatureCache<>(10);
+        cache.fill(Collections.<ArtificialTestFeature>emptyList().iterator(), new SimpleInterval("1", 1, 100), new SimpleInterval("1", 50, 101));
+    }
+
+    /*********************************************************
+     * End of direct testing on the MultiWindowFeatureCache class
+     *********************************************************/
+
 }
@@ -6,11 +6,15 @@ import org.broadinstitute.hellbender.cmdline.TestProgramGroup;
 import org.broadinstitute.hellbender.engine.filters.CountingReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.transformers.ReadTransformer;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * @author Daniel Gomez-Sanchez (magicDGS)
@@ -110,4 +114,66 @@ public class ReadWalkerUnitTest extends CommandLineProgramTest {
         Assert.assertEquals(tool.totalReads, 5);
     }
 
-}
\ No newline at end of file
+    @CommandLineProgramProperties(
+            summary = "Dummy that records the reads it sees, optionally in batches",
+            oneLineSummary = "empty class",
+            programGroup = TestProgramGroup.class
+    )
+    private static class TestBatchedReadWalker extends ReadWalker {
+        private final int batchSize;
+        public final List<String> readNames = new ArrayList<>();
+        public final List<Integer> batchSizes = new ArrayList<>();
+
+        TestBatchedReadWalker(final int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public int getReadBatchSize() {
+            return batchSize;
+        }
+
+        @Override
+        public void apply(GATKRead read, ReferenceContext referenceContext, FeatureContext featureContext) {
+            readNames.add(read.getName());
+        }
+
+        @Override
+        public void applyBatch(final ReadBatch batch) {
+            batchSizes.add(batch.size());
+
+            // reference bases for each read must agree with those fetched once for the whole batch
+            final SimpleInterval spanningInterval = batch.getSpanningInterval();
+            if ( spanningInterval != null ) {
+                final byte[] spanningBases = batch.getSpanningReferenceContext().getBases();
+                for ( int i = 0; i < batch.size(); ++i ) {
+                    final byte[] readBases = batch.getReferenceContext(i).getBases();
+                    final int offset = batch.getReadInterval(i).getStart() - spanningInterval.getStart();
+                    Assert.assertEquals(Arrays.copyOfRange(spanningBases, offset, offset + readBases.length), readBases);
+                }
+            }
+            super.applyBatch(batch);
+        }
+    }
+
+    @Test
+    public void testBatchedTraversal() {
+        final String[] args = {
+                "-I", getTestDataDir()+ "/print_reads.sorted.bam",
+                "-R", getTestDataDir()+ "/print_reads.fasta"
+        };
+
+        final TestBatchedReadWalker unbatched = new TestBatchedReadWalker(0);
+        unbatched.instanceMain(args);
+        Assert.assertTrue(unbatched.batchSizes.isEmpty());
+        Assert.assertFalse(unbatched.readNames.isEmpty());
+
+        final TestBatchedReadWalker batched = new TestBatchedReadWalker(3);
+        batched.instanceMain(args);
+        Assert.assertEquals(batched.readNames, unbatched.readNames);
+        Assert.assertEquals(batched.batchSizes.stream().mapToInt(Integer::intValue).sum(), unbatched.readNames.size());
+        for ( int i = 0; i < batched.batchSizes.size() - 1; ++i ) {
+            Assert.assertEquals(batched.batchSizes.get(i).intValue(), 3, "all but the last batch should be full");
+        }
+    }
+}
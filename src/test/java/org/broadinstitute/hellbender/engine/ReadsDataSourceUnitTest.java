@@ -250,6 +250,34 @@ public final class ReadsDataSourceUnitTest extends GATKBaseTest {
         }
     }
 
+    @Test(dataProvider = "MultipleFilesCompleteTraversalData")
+    public void testMultipleFilesCompleteTraversalWithReadAhead(final List<Path> samFiles, final List<String> expectedReadNames) {
+        try (ReadsDataSource readsSource = new ReadsDataSource(samFiles)) {
+            // Use tiny batches so that the traversal spans many of them
+            readsSource.setReadAhead(2, 3);
+
+            // Traverse twice, to make sure a second traversal starts cleanly after the first
+            for ( int traversal = 1; traversal <= 2; ++traversal ) {
+                final List<String> readNames = new ArrayList<>();
+                for ( GATKRead read : readsSource ) {
+                    readNames.add(read.getName());
+                }
+                Assert.assertEquals(readNames, expectedReadNames, "Wrong reads returned in read-ahead traversal #" + traversal + " of " + samFiles);
+            }
+
+            Assert.assertTrue(readsSource.getReadAheadStatistics().getBatchesConsumed() > 0, "read-ahead statistics not updated");
+
+            // Abandon a traversal part-way through, and make sure the next one is unaffected
+            final Iterator<GATKRead> partialTraversal = readsSource.iterator();
+            partialTraversal.next();
+            final List<String> readNames = new ArrayList<>();
+            for ( GATKRead read : readsSource ) {
+                readNames.add(read.getName());
+            }
+            Assert.assertEquals(readNames, expectedReadNames, "Wrong reads returned after an abandoned read-ahead traversal of " + samFiles);
+        }
+    }
+
     @DataProvider(name = "MultipleFilesTraversalWithIntervalsData")
     public Object[][] getMultipleFilesTraversalWithIntervalsData() {
         // Files, with intervals, and expected read names in the expected order
@@ -74,6 +74,15 @@ public final class ReferenceDataSourceUnitTest extends GATKBaseTest {
     }
 
 
+    @Test(dataProvider = "ReferenceIntervalDataProvider")
+    public void testOfMemoryMappedIfPossible(final Path testReference, final SimpleInterval interval, final String expectedBases ) {
+        // a compressed fasta can't be memory-mapped, so is read through a cache instead
+        try (ReferenceDataSource reference = ReferenceDataSource.ofMemoryMappedIfPossible(testReference))  {
+            Assert.assertEquals(reference instanceof ReferenceMemoryMappedSource, testReference.equals(TEST_REFERENCE));
+            Assert.assertEquals(new String(reference.queryAndPrefetch(interval).getBases()), expectedBases);
+        }
+    }
+
     @Test(dataProvider = "ReferenceIntervalDataProvider")
     public void testQueryAndPrefetch(final Path testReference, final SimpleInterval interval, final String expectedBases ) {
         try (ReferenceDataSource reference = new ReferenceFileSource(testReference))  {
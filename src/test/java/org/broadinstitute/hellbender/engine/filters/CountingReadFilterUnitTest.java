@@ -3,6 +3,7 @@ package org.broadinstitute.hellbender.engine.filters;
 import htsjdk.samtools.SAMFileHeader;
 import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.runtime.MetricsRegistry;
 import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
@@ -304,5 +305,23 @@ public final class CountingReadFilterUnitTest {
         Assert.assertTrue(andFilter.rhs.delegateFilter.getClass() == ReadFilterLibrary.MAPPED.getClass());
     }
 
-}
 
+    @Test
+    public void testRuntimeMetrics() {
+        final MetricsRegistry registry = new MetricsRegistry();
+        final CountingReadFilter filter = new CountingReadFilter(ReadFilterLibrary.ALLOW_ALL_READS)
+                .and(new CountingReadFilter(ReadFilterLibrary.MAPPED).negate());
+        filter.enableRuntimeMetrics(registry);
+
+        final GATKRead unmappedRead = ArtificialReadUtils.createArtificialUnmappedRead(header, new byte[]{'A'}, new byte[]{30});
+        Assert.assertFalse(filter.test(goodRead));
+        Assert.assertFalse(filter.test(endBad));
+        Assert.assertTrue(filter.test(unmappedRead));
+
+        Assert.assertEquals(filter.getFilteredCount(), 2);
+        Assert.assertEquals(registry.timer("readFilter.AllowAllReadsReadFilter").getCount(), 3);
+        Assert.assertEquals(registry.counter("readFilter.AllowAllReadsReadFilter.filtered").getCount(), 0);
+        Assert.assertEquals(registry.timer("readFilter.MappedReadFilter").getCount(), 3);
+        Assert.assertEquals(registry.counter("readFilter.MappedReadFilter.filtered").getCount(), 1);
+    }
+}
@@ -9,6 +9,8 @@ import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.mockito.ArgumentMatchers.refEq;
 import static org.mockito.Mockito.mock;
@@ -138,6 +140,16 @@ public final class ExcessHetUnitTest extends GATKBaseTest {
         Assert.assertEquals(annots.keySet(), Collections.singleton(GATKVCFConstants.EXCESS_HET_KEY), "annots");
         Assert.assertEquals(annots.values().size(), 1, "size");
         Assert.assertEquals(Double.parseDouble((String)annots.values().iterator().next()), result, DELTA_PRECISION, "het");
+
+        //test a Pedigree File set after construction, as by the annotation plugin, and read on first use by several threads at once
+        final ExcessHet sharedAnnotation = new ExcessHet();
+        sharedAnnotation.setPedigreeFile(getTestFile("testPedigree.ped"));
+        final List<Object> values = IntStream.range(0, 100).parallel()
+                .mapToObj(i -> sharedAnnotation.annotate(null, test2, null).get(GATKVCFConstants.EXCESS_HET_KEY))
+                .collect(Collectors.toList());
+        for (final Object value : values) {
+            Assert.assertEquals(Double.parseDouble((String)value), result, DELTA_PRECISION, "het");
+        }
     }
     
     @Test
@@ -518,6 +518,62 @@ public class HaplotypeCallerIntegrationTest extends CommandLineProgramTest {
         IntegrationTestSpec.assertEqualTextFiles(assemblyRegionOut, expectedAssemblyRegionOut);
     }
 
+    @DataProvider(name="multithreadedTraversalModes")
+    public Object[][] getMultithreadedTraversalModes() {
+        return new Object[][] {
+                { ReferenceConfidenceMode.NONE, ".vcf" },
+                { ReferenceConfidenceMode.GVCF, ".g.vcf" }
+        };
+    }
+
+    /*
+     * Test that multithreaded traversal produces the same output as single-threaded traversal when
+     * each traversal interval falls in its own shard
+     */
+    @Test(dataProvider = "multithreadedTraversalModes")
+    public void testMultithreadedTraversalMatchesSingleThreaded(final ReferenceConfidenceMode mode, final String extension) throws Exception {
+        final File singleThreadedOutput = createTempFile("testMultithreadedTraversal.singleThreaded", extension);
+        final File multithreadedOutput = createTempFile("testMultithreadedTraversal.multithreaded", extension);
+
+        for ( final File output : Arrays.asList(singleThreadedOutput, multithreadedOutput) ) {
+            Utils.resetRandomGenerator();
+            final ArgumentsBuilder args = new ArgumentsBuilder();
+            args.addArgument("I", NA12878_20_21_WGS_bam)
+                    .addArgument("R", b37_reference_20_21)
+                    .addArgument("L", "20:10000000-10020000")
+                    .addArgument("L", "20:10040000-10060000")
+                    .addArgument("L", "20:10080000-10100000")
+                    .addArgument("O", output.getAbsolutePath())
+                    .addArgument("pairHMM", "AVX_LOGLESS_CACHING")
+                    .addArgument("ERC", mode.toString())
+                    .addArgument(StandardArgumentDefinitions.ADD_OUTPUT_VCF_COMMANDLINE, "false");
+            if ( output == multithreadedOutput ) {
+                args.addArgument(AssemblyRegionWalker.TRAVERSAL_THREADS_LONG_NAME, "3")
+                        .addArgument(AssemblyRegionWalker.PARALLEL_SHARD_SIZE_LONG_NAME, "20001");
+            }
+            runCommandLine(args);
+        }
+
+        IntegrationTestSpec.assertEqualTextFiles(multithreadedOutput, singleThreadedOutput);
+    }
+
+    @Test(expectedExceptions = CommandLineException.BadArgumentValue.class)
+    public void testMultithreadedTraversalNotAllowedWithBamout() {
+        final File output = createTempFile("testMultithreadedTraversalNotAllowedWithBamout", ".vcf");
+        final File bamOutput = createTempFile("testMultithreadedTraversalNotAllowedWithBamout", ".bam");
+
+        final String[] args = {
+                "-I", NA12878_20_21_WGS_bam,
+                "-R", b37_reference_20_21,
+                "-L", "20:10000000-10010000",
+                "-O", output.getAbsolutePath(),
+                "-bamout", bamOutput.getAbsolutePath(),
+                "--" + AssemblyRegionWalker.TRAVERSAL_THREADS_LONG_NAME, "2"
+        };
+
+        runCommandLine(args);
+    }
+
     @DataProvider(name="outputFileVariations")
     public Object[][] getOutputFileVariations() {
         return new Object[][]{
@@ -0,0 +1,246 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
+
+import htsjdk.samtools.SAMFileHeader;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedAlleleList;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedSampleList;
+import org.broadinstitute.hellbender.utils.genotyper.LikelihoodMatrix;
+import org.broadinstitute.hellbender.utils.genotyper.ReadLikelihoods;
+import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+import org.broadinstitute.hellbender.utils.pairhmm.LoglessPairHMM;
+import org.broadinstitute.hellbender.utils.pairhmm.PairHMM;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+public final class PairHMMLikelihoodCacheUnitTest extends GATKBaseTest {
+    private static final String SAMPLE = "sample";
+    private static final byte[] BASES = "ACGT".getBytes();
+    private static final SAMFileHeader HEADER = ArtificialReadUtils.createArtificialSamHeader(2, 1, 10000);
+
+    private final Random random = new Random(13);
+
+    private byte[] randomBases(final int length) {
+        final byte[] bases = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bases[i] = BASES[random.nextInt(BASES.length)];
+        }
+        return bases;
+    }
+
+    private GATKRead randomRead(final String contig, final int start, final int length) {
+        final byte[] quals = new byte[length];
+        for (int i = 0; i < length; i++) {
+            quals[i] = (byte)(10 + random.nextInt(30));
+        }
+        return ArtificialReadUtils.createArtificialRead(HEADER, "read" + random.nextInt(), contig, start, randomBases(length), quals, length + "M");
+    }
+
+    private static GATKRead copyOf(final GATKRead read) {
+        final GATKRead copy = read.deepCopy();
+        copy.setName(read.getName() + "_copy");
+        return copy;
+    }
+
+    /**
+     * Compute the likelihoods of the reads given the haplotypes both with the cache and without it, check that they're
+     * the same, and return them
+     */
+    private static LikelihoodMatrix<Haplotype> computeAndCompare(final PairHMMLikelihoodCache cache, final List<GATKRead> reads, final List<Haplotype> haplotypes) {
+        return computeAndCompare(cache, reads, haplotypes, PairHMM.Implementation.LOGLESS_CACHING.makeNewHMM(null));
+    }
+
+    private static LikelihoodMatrix<Haplotype> computeAndCompare(final PairHMMLikelihoodCache cache, final List<GATKRead> reads, final List<Haplotype> haplotypes,
+                                                                 final PairHMM cachedPairHMM) {
+        final Map<String, List<GATKRead>> perSampleReads = Collections.singletonMap(SAMPLE, reads);
+        final Map<GATKRead, byte[]> gapContinuationPenalties = new HashMap<>();
+        for (final GATKRead read : reads) {
+            final byte[] gcp = new byte[read.getLength()];
+            Arrays.fill(gcp, (byte) 10);
+            gapContinuationPenalties.put(read, gcp);
+        }
+        final int maxReadLength = reads.stream().mapToInt(GATKRead::getLength).max().getAsInt();
+        final int maxHaplotypeLength = haplotypes.stream().mapToInt(Haplotype::length).max().getAsInt();
+
+        final PairHMM pairHMM = PairHMM.Implementation.LOGLESS_CACHING.makeNewHMM(null);
+        pairHMM.initialize(haplotypes, perSampleReads, maxReadLength, maxHaplotypeLength);
+        final LikelihoodMatrix<Haplotype> expected = new ReadLikelihoods<>(new IndexedSampleList(SAMPLE), new IndexedAlleleList<>(haplotypes), perSampleReads).sampleMatrix(0);
+        pairHMM.computeLog10Likelihoods(expected, reads, gapContinuationPenalties);
+
+        cachedPairHMM.initialize(haplotypes, perSampleReads, maxReadLength, maxHaplotypeLength);
+        final LikelihoodMatrix<Haplotype> actual = new ReadLikelihoods<>(new IndexedSampleList(SAMPLE), new IndexedAlleleList<>(haplotypes), perSampleReads).sampleMatrix(0);
+        cache.computeLog10Likelihoods(cachedPairHMM::computeLog10Likelihoods, actual, reads, gapContinuationPenalties);
+
+        for (int h = 0; h < haplotypes.size(); h++) {
+            for (int r = 0; r < reads.size(); r++) {
+                Assert.assertEquals(actual.get(h, r), expected.get(h, r), "read " + r + ", haplotype " + h);
+            }
+        }
+        return actual;
+    }
+
+    @Test
+    public void testReusesLikelihoods() {
+        final PairHMMLikelihoodCache cache = new PairHMMLikelihoodCache(1000);
+        final List<GATKRead> reads = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            reads.add(randomRead("1", 100 + 5 * i, 30 + i));
+        }
+        final List<Haplotype> haplotypes = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            haplotypes.add(new Haplotype(randomBases(80), i == 0));
+        }
+
+        computeAndCompare(cache, reads, haplotypes);
+        Assert.assertEquals(cache.getPairsLookedUp(), 30);
+        Assert.assertEquals(cache.getPairsFound(), 0);
+        Assert.assertEquals(cache.size(), 10);
+
+        // the same reads (as different objects) and the same haplotypes (one no longer the reference), plus two new
+        // reads: only the new reads need the PairHMM
+        final List<GATKRead> overlappingReads = new ArrayList<>();
+        for (final GATKRead read : reads) {
+            overlappingReads.add(copyOf(read));
+        }
+        overlappingReads.add(randomRead("1", 160, 40));
+        overlappingReads.add(randomRead("1", 170, 40));
+        final List<Haplotype> sameHaplotypes = new ArrayList<>();
+        for (final Haplotype haplotype : haplotypes) {
+            sameHaplotypes.add(new Haplotype(haplotype.getBases(), false));
+        }
+        computeAndCompare(cache, overlappingReads, sameHaplotypes);
+        Assert.assertEquals(cache.getPairsLookedUp(), 30 + 36);
+        Assert.assertEquals(cache.getPairsFound(), 30);
+        Assert.assertEquals(cache.size(), 12);
+
+        // a new haplotype means every read must be recomputed given all of the haplotypes
+        final List<Haplotype> moreHaplotypes = new ArrayList<>(sameHaplotypes);
+        moreHaplotypes.add(new Haplotype(randomBases(70), false));
+        computeAndCompare(cache, overlappingReads, moreHaplotypes);
+        Assert.assertEquals(cache.getPairsLookedUp(), 30 + 36 + 48);
+        Assert.assertEquals(cache.getPairsFound(), 30);
+        Assert.assertTrue(cache.getEstimatedNanosSaved() >= 0);
+
+        // ...after which they are all in the cache
+        computeAndCompare(cache, overlappingReads, moreHaplotypes);
+        Assert.assertEquals(cache.getPairsFound(), 30 + 48);
+
+        // a read with the same bases but different qualities is a different read
+        final GATKRead requalified = copyOf(reads.get(0));
+        final byte[] quals = requalified.getBaseQualities();
+        quals[0]++;
+        requalified.setBaseQualities(quals);
+        computeAndCompare(cache, Collections.singletonList(requalified), moreHaplotypes);
+        Assert.assertEquals(cache.getPairsFound(), 30 + 48);
+    }
+
+    @Test
+    public void testPairHMMGivenAllHaplotypes() {
+        final PairHMMLikelihoodCache cache = new PairHMMLikelihoodCache(1000);
+        final List<GATKRead> reads = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            reads.add(randomRead("1", 100 + 5 * i, 30 + i));
+        }
+        final List<Haplotype> haplotypes = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            haplotypes.add(new Haplotype(randomBases(80), i == 0));
+        }
+        computeAndCompare(cache, reads, haplotypes, new AllHaplotypesPairHMM());
+
+        // every read is cached given all but one of the haplotypes
+        final List<Haplotype> moreHaplotypes = new ArrayList<>(haplotypes);
+        moreHaplotypes.add(new Haplotype(randomBases(75), false));
+        computeAndCompare(cache, reads, moreHaplotypes, new AllHaplotypesPairHMM());
+        Assert.assertEquals(cache.getPairsFound(), 0);
+
+        // some reads are cached given every haplotype, and one is not cached at all
+        final List<GATKRead> moreReads = new ArrayList<>(reads.subList(2, reads.size()));
+        moreReads.add(randomRead("1", 140, 35));
+        computeAndCompare(cache, moreReads, moreHaplotypes, new AllHaplotypesPairHMM());
+        Assert.assertEquals(cache.getPairsFound(), 4 * 4);
+    }
+
+    @Test
+    public void testEvictsReadsBehindTraversal() {
+        final PairHMMLikelihoodCache cache = new PairHMMLikelihoodCache(1000);
+        final List<Haplotype> haplotypes = Arrays.asList(new Haplotype(randomBases(60), true), new Haplotype(randomBases(60), false));
+
+        final List<GATKRead> reads = Arrays.asList(randomRead("1", 100, 30), randomRead("1", 120, 30), randomRead("1", 140, 30));
+        computeAndCompare(cache, reads, haplotypes);
+        Assert.assertEquals(cache.size(), 3);
+
+        // the first read ends at 129, before the start of the next region's reads
+        computeAndCompare(cache, Arrays.asList(randomRead("1", 130, 30), copyOf(reads.get(2))), haplotypes);
+        Assert.assertEquals(cache.size(), 3);
+        Assert.assertEquals(cache.getPairsFound(), 2);
+
+        // nothing on the previous contig can be reused
+        computeAndCompare(cache, Collections.singletonList(randomRead("2", 100, 30)), haplotypes);
+        Assert.assertEquals(cache.size(), 1);
+    }
+
+    @Test
+    public void testMaxReads() {
+        final PairHMMLikelihoodCache cache = new PairHMMLikelihoodCache(2);
+        final List<Haplotype> haplotypes = Collections.singletonList(new Haplotype(randomBases(60), true));
+        final List<GATKRead> reads = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            reads.add(randomRead("1", 100, 30));
+        }
+        computeAndCompare(cache, reads, haplotypes);
+        Assert.assertEquals(cache.size(), 2);
+
+        // only the two most recent reads are left
+        computeAndCompare(cache, reads, haplotypes);
+        Assert.assertEquals(cache.getPairsFound(), 0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNonPositiveSize() {
+        new PairHMMLikelihoodCache(0);
+    }
+
+    /**
+     * Lays out its results as {@link org.broadinstitute.hellbender.utils.pairhmm.VectorLoglessPairHMM} does: the
+     * likelihoods of each read given every haplotype it was initialized with, in the order of initialization, in an
+     * array sized for the haplotypes of the matrix it is given
+     */
+    private static final class AllHaplotypesPairHMM extends LoglessPairHMM {
+        private List<Haplotype> haplotypes;
+        private final Map<Haplotype, Integer> haplotypeIndices = new HashMap<>();
+
+        @Override
+        public void initialize(final List<Haplotype> haplotypes, final Map<String, List<GATKRead>> perSampleReadList, final int readMaxLength, final int haplotypeMaxLength) {
+            super.initialize(haplotypes, perSampleReadList, readMaxLength, haplotypeMaxLength);
+            this.haplotypes = haplotypes;
+            haplotypeIndices.clear();
+            for (int h = 0; h < haplotypes.size(); h++) {
+                haplotypeIndices.put(haplotypes.get(h), h);
+            }
+        }
+
+        @Override
+        public void computeLog10Likelihoods(final LikelihoodMatrix<Haplotype> logLikelihoods, final List<GATKRead> processedReads, final Map<GATKRead, byte[]> gcp) {
+            final Map<String, List<GATKRead>> perSampleReads = Collections.singletonMap(SAMPLE, processedReads);
+            final LikelihoodMatrix<Haplotype> allHaplotypeLikelihoods = new ReadLikelihoods<>(new IndexedSampleList(SAMPLE), new IndexedAlleleList<>(haplotypes), perSampleReads).sampleMatrix(0);
+            super.computeLog10Likelihoods(allHaplotypeLikelihoods, processedReads, gcp);
+
+            final int numHaplotypes = logLikelihoods.numberOfAlleles();
+            final double[] results = new double[processedReads.size() * numHaplotypes];
+            int i = 0;
+            for (int r = 0; r < processedReads.size(); r++) {
+                for (int h = 0; h < haplotypes.size(); h++) {
+                    results[i++] = allHaplotypeLikelihoods.get(h, r);
+                }
+            }
+            for (int r = 0; r < processedReads.size(); r++) {
+                for (int h = 0; h < numHaplotypes; h++) {
+                    logLikelihoods.set(h, r, results[r * numHaplotypes + haplotypeIndices.get(logLikelihoods.getAllele(h))]);
+                }
+            }
+        }
+    }
+}
@@ -7,6 +7,8 @@ import htsjdk.variant.variantcontext.Allele;
 import org.broadinstitute.gatk.nativebindings.pairhmm.PairHMMNativeArguments;
 import org.broadinstitute.hellbender.utils.MathUtils;
 import org.broadinstitute.hellbender.utils.QualityUtils;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.genotyper.IndexedSampleList;
 import org.broadinstitute.hellbender.utils.genotyper.LikelihoodMatrix;
 import org.broadinstitute.hellbender.utils.genotyper.ReadLikelihoods;
@@ -17,6 +19,7 @@ import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.GATKBaseTest;
 import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
@@ -43,6 +46,13 @@ public final class PairHMMLikelihoodCalculationEngineUnitTest extends GATKBaseTe
         ATCATC = Allele.create("ATCATC");
     }
 
+    @AfterMethod
+    public void resetLikelihoodsOutput() {
+        // the flag is static, and writing likelihoods to a file keeps the engine from running samples concurrently
+        PairHMMLikelihoodCalculationEngine.writeLikelihoodsToFile = false;
+        new File(PairHMMLikelihoodCalculationEngine.LIKELIHOODS_FILENAME).delete();
+    }
+
     @Test
     public void testNormalizeDiploidLikelihoodMatrixFromLog10() {
         double[][] log10_likelihoodMatrix = {
@@ -207,4 +217,122 @@ public final class PairHMMLikelihoodCalculationEngineUnitTest extends GATKBaseTe
             new File(PairHMMLikelihoodCalculationEngine.LIKELIHOODS_FILENAME).delete();
         }
     }
+
+    @Test
+    public void testComputeLikelihoodsWithCache() {
+        final LikelihoodEngineArgumentCollection LEAC = new LikelihoodEngineArgumentCollection();
+        final double log10MismappingRate = MathUtils.logToLog10(QualityUtils.qualToErrorProbLog10(LEAC.phredScaledGlobalReadMismappingRate));
+        final ReadLikelihoodCalculationEngine uncached = new PairHMMLikelihoodCalculationEngine((byte) 10, new PairHMMNativeArguments(),
+                PairHMM.Implementation.LOGLESS_CACHING, log10MismappingRate, PairHMMLikelihoodCalculationEngine.PCRErrorModel.CONSERVATIVE,
+                PairHMM.BASE_QUALITY_SCORE_THRESHOLD, 0);
+        final ReadLikelihoodCalculationEngine cached = new PairHMMLikelihoodCalculationEngine((byte) 10, new PairHMMNativeArguments(),
+                PairHMM.Implementation.LOGLESS_CACHING, log10MismappingRate, PairHMMLikelihoodCalculationEngine.PCRErrorModel.CONSERVATIVE,
+                PairHMM.BASE_QUALITY_SCORE_THRESHOLD, 100);
+
+        final int n = 10;
+        final GATKRead read1 = ArtificialReadUtils.createArtificialRead(TextCigarCodec.decode(n + "M"));
+        read1.setMappingQuality(60);
+        final GATKRead read2 = ArtificialReadUtils.createArtificialRead(Strings.repeat("AC", n / 2).getBytes(), Utils.dupBytes((byte) 30, n), n + "M");
+        final SampleList samples = new IndexedSampleList("sample1");
+        final Map<String, List<GATKRead>> perSampleReadList = Collections.singletonMap("sample1", Arrays.asList(read1, read2));
+
+        final AssemblyResultSet assemblyResultSet = new AssemblyResultSet();
+        final byte[] bases = Strings.repeat("A", n + 1).getBytes();
+        final Haplotype hap1 = new Haplotype(bases, true);
+        hap1.setGenomeLocation(read1);
+        assemblyResultSet.add(hap1);
+        final byte[] basesModified = bases.clone();
+        basesModified[5] = 'C';
+        final Haplotype hap2 = new Haplotype(basesModified, false);
+        hap2.setGenomeLocation(read1);
+        assemblyResultSet.add(hap2);
+
+        final LikelihoodMatrix<Haplotype> expected = uncached.computeReadLikelihoods(assemblyResultSet, samples, perSampleReadList).sampleMatrix(0);
+        // the second time around, every likelihood comes from the cache
+        for (int i = 0; i < 2; i++) {
+            final LikelihoodMatrix<Haplotype> actual = cached.computeReadLikelihoods(assemblyResultSet, samples, perSampleReadList).sampleMatrix(0);
+            for (int h = 0; h < expected.numberOfAlleles(); h++) {
+                for (int r = 0; r < expected.numberOfReads(); r++) {
+                    Assert.assertEquals(actual.get(h, r), expected.get(h, r));
+                }
+            }
+        }
+        uncached.close();
+        cached.close();
+    }
+
+    @DataProvider(name = "javaPairHMMThreads")
+    public Object[][] javaPairHMMThreads() {
+        return new Object[][] {
+                {PairHMM.Implementation.LOGLESS_CACHING, 2, 0},
+                {PairHMM.Implementation.LOGLESS_CACHING, 4, 0},
+                {PairHMM.Implementation.LOGLESS_CACHING, 4, 100},
+                {PairHMM.Implementation.ANTIDIAGONAL_LOGLESS_CACHING, 3, 0},
+        };
+    }
+
+    @Test(dataProvider = "javaPairHMMThreads")
+    public void testComputeLikelihoodsOnSeveralThreads(final PairHMM.Implementation hmmType, final int threads, final int cacheSize) {
+        final LikelihoodEngineArgumentCollection LEAC = new LikelihoodEngineArgumentCollection();
+        final double log10MismappingRate = MathUtils.logToLog10(QualityUtils.qualToErrorProbLog10(LEAC.phredScaledGlobalReadMismappingRate));
+        try (final ReadLikelihoodCalculationEngine singleThreaded = new PairHMMLikelihoodCalculationEngine((byte) 10, new PairHMMNativeArguments(),
+                hmmType, log10MismappingRate, PairHMMLikelihoodCalculationEngine.PCRErrorModel.CONSERVATIVE,
+                PairHMM.BASE_QUALITY_SCORE_THRESHOLD, 0, 1);
+             final ReadLikelihoodCalculationEngine multiThreaded = new PairHMMLikelihoodCalculationEngine((byte) 10, new PairHMMNativeArguments(),
+                hmmType, log10MismappingRate, PairHMMLikelihoodCalculationEngine.PCRErrorModel.CONSERVATIVE,
+                PairHMM.BASE_QUALITY_SCORE_THRESHOLD, cacheSize, threads)) {
+            final Random random = new Random(threads);
+            final byte[] alphabet = "ACGT".getBytes();
+            final AssemblyResultSet assemblyResultSet = new AssemblyResultSet();
+            final byte[] refBases = new byte[60];
+            for (int i = 0; i < refBases.length; i++) {
+                refBases[i] = alphabet[random.nextInt(4)];
+            }
+            for (int h = 0; h < 5; h++) {
+                final byte[] bases = refBases.clone();
+                if (h > 0) {
+                    bases[random.nextInt(bases.length)] = alphabet[random.nextInt(4)];
+                }
+                final Haplotype haplotype = new Haplotype(bases, h == 0);
+                haplotype.setGenomeLocation(new SimpleInterval("1", 1, bases.length));
+                assemblyResultSet.add(haplotype);
+            }
+
+            // samples with no reads, a few reads, and many reads
+            final String[] sampleNames = {"sample1", "sample2", "sample3", "sample4"};
+            final int[] readCounts = {0, 3, 40, 101};
+            final Map<String, List<GATKRead>> perSampleReadList = new LinkedHashMap<>();
+            for (int s = 0; s < sampleNames.length; s++) {
+                final List<GATKRead> reads = new ArrayList<>();
+                for (int r = 0; r < readCounts[s]; r++) {
+                    final int length = 20 + random.nextInt(20);
+                    final int start = random.nextInt(refBases.length - length);
+                    final byte[] bases = Arrays.copyOfRange(refBases, start, start + length);
+                    bases[random.nextInt(length)] = alphabet[random.nextInt(4)];
+                    final byte[] quals = new byte[length];
+                    for (int i = 0; i < length; i++) {
+                        quals[i] = (byte) (10 + random.nextInt(30));
+                    }
+                    final GATKRead read = ArtificialReadUtils.createArtificialRead(bases, quals, length + "M");
+                    read.setMappingQuality(60);
+                    reads.add(read);
+                }
+                perSampleReadList.put(sampleNames[s], reads);
+            }
+            final SampleList samples = new IndexedSampleList(sampleNames);
+
+            final ReadLikelihoods<Haplotype> expected = singleThreaded.computeReadLikelihoods(assemblyResultSet, samples, perSampleReadList);
+            final ReadLikelihoods<Haplotype> actual = multiThreaded.computeReadLikelihoods(assemblyResultSet, samples, perSampleReadList);
+            for (int s = 0; s < sampleNames.length; s++) {
+                final LikelihoodMatrix<Haplotype> expectedMatrix = expected.sampleMatrix(s);
+                final LikelihoodMatrix<Haplotype> actualMatrix = actual.sampleMatrix(s);
+                Assert.assertEquals(actualMatrix.numberOfReads(), expectedMatrix.numberOfReads());
+                for (int h = 0; h < expectedMatrix.numberOfAlleles(); h++) {
+                    for (int r = 0; r < expectedMatrix.numberOfReads(); r++) {
+                        Assert.assertEquals(actualMatrix.get(h, r), expectedMatrix.get(h, r));
+                    }
+                }
+            }
+        }
+    }
 }
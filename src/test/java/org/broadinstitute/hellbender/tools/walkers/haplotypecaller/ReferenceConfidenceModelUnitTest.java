@@ -571,6 +571,74 @@ public final class ReferenceConfidenceModelUnitTest extends GATKBaseTest {
         }
     }
 
+    /**
+     * @return a region over ref with 200 random reads: matches with a few mismatches, and some insertions,
+     *         deletions and soft clips
+     */
+    private RefConfData makeRandomReadsData(final String ref, final int seed) {
+        final Random random = new Random(seed);
+        final RefConfData data = new RefConfData(ref, 10);
+        final List<GATKRead> reads = new ArrayList<>();
+        for ( int i = 0; i < 200; i++ ) {
+            final int start = random.nextInt(ref.length() - 60);
+            final String bases;
+            final String cigar;
+            switch ( random.nextInt(4) ) {
+                case 0: bases = ref.substring(start, start + 20) + "TT" + ref.substring(start + 20, start + 48); cigar = "20M2I28M"; break;
+                case 1: bases = ref.substring(start, start + 20) + ref.substring(start + 22, start + 52); cigar = "20M2D30M"; break;
+                case 2: bases = "GGGGG" + ref.substring(start + 5, start + 50); cigar = "5S45M"; break;
+                default: bases = ref.substring(start, start + 50); cigar = "50M";
+            }
+            final byte[] readBases = bases.getBytes();
+            final byte[] quals = new byte[readBases.length];
+            for ( int j = 0; j < readBases.length; j++ ) {
+                quals[j] = (byte) (5 + random.nextInt(35));
+                if ( random.nextInt(50) == 0 ) {
+                    readBases[j] = (byte) "ACGT".charAt(random.nextInt(4));
+                }
+            }
+            final int alignmentStart = cigar.startsWith("5S") ? start + 5 : start;
+            final GATKRead read = ArtificialReadUtils.createArtificialRead(header, "read " + i, 0, alignmentStart + data.getStart(), readBases, quals, cigar);
+            read.setReadGroup(rg.getId());
+            reads.add(read);
+        }
+        reads.sort(Comparator.comparingInt(GATKRead::getStart));
+        reads.forEach(data.getActiveRegion()::add);
+        return data;
+    }
+
+    @Test
+    public void testRefConfidenceOnSeveralThreads() {
+        final Random random = new Random(13);
+        final StringBuilder ref = new StringBuilder();
+        for ( int i = 0; i < 300; i++ ) {
+            ref.append("ACGT".charAt(random.nextInt(4)));
+        }
+        final PloidyModel ploidyModel = new HomogeneousPloidyModel(samples,2);
+        final RefConfData refData = new RefConfData(ref.toString(), 10);
+        final int start = refData.getStart();
+        final VariantContext vcSNP = GATKVariantContextUtils.makeFromAlleles("test", "1", start + 60, Arrays.asList(ref.substring(60, 61), ref.charAt(60) == 'A' ? "C" : "A"));
+        final VariantContext vcDel = GATKVariantContextUtils.makeFromAlleles("test", "1", start + 149, Arrays.asList(ref.substring(149, 153), ref.substring(149, 150)));
+        final List<VariantContext> calls = Arrays.asList(vcSNP, vcDel);
+
+        for ( final int threads : Arrays.asList(2, 4) ) {
+            final ReferenceConfidenceModel multiThreadedModel = new ReferenceConfidenceModel(samples, header, 10, -1, threads);
+            // separate reads for each model, as the models cache results in the reads
+            final RefConfData expectedData = makeRandomReadsData(ref.toString(), threads);
+            final List<VariantContext> expected = model.calculateRefConfidence(expectedData.getRefHap(), Collections.singletonList(expectedData.getRefHap()), expectedData.getPaddedRefLoc(),
+                    expectedData.getActiveRegion(), createDummyStratifiedReadMap(expectedData.getRefHap(), samples, expectedData.getActiveRegion()), ploidyModel, calls, false, Collections.emptyList());
+            final RefConfData actualData = makeRandomReadsData(ref.toString(), threads);
+            final List<VariantContext> actual = multiThreadedModel.calculateRefConfidence(actualData.getRefHap(), Collections.singletonList(actualData.getRefHap()), actualData.getPaddedRefLoc(),
+                    actualData.getActiveRegion(), createDummyStratifiedReadMap(actualData.getRefHap(), samples, actualData.getActiveRegion()), ploidyModel, calls, false, Collections.emptyList());
+
+            Assert.assertEquals(actual.size(), expected.size());
+            for ( int i = 0; i < expected.size(); i++ ) {
+                Assert.assertEquals(actual.get(i).toStringDecodeGenotypes(), expected.get(i).toStringDecodeGenotypes());
+            }
+            multiThreadedModel.close();
+        }
+    }
+
     /**
      * Create a context that maps each read to the reference haplotype with log10 L of 0
      * @param refHaplotype a non-null reference haplotype
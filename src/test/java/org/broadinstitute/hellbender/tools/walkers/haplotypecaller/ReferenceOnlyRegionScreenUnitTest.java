@@ -0,0 +1,108 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.engine.AssemblyRegion;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+public final class ReferenceOnlyRegionScreenUnitTest extends GATKBaseTest {
+    private static final SAMFileHeader HEADER = ArtificialReadUtils.createArtificialSamHeader(1, 1, 1000);
+    private static final int MIN_MAPPING_QUALITY = 20;
+    private static final int READ_LENGTH = 50;
+
+    private final byte[] reference = randomBases(new Random(7), 1000);
+
+    private static byte[] randomBases(final Random random, final int length) {
+        final byte[] bases = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bases[i] = "ACGT".getBytes()[random.nextInt(4)];
+        }
+        return bases;
+    }
+
+    /**
+     * @return a read of reference bases starting at start, with high base qualities
+     */
+    private GATKRead referenceRead(final int start, final String cigar) {
+        final byte[] bases = Arrays.copyOfRange(reference, start - 1, start - 1 + READ_LENGTH);
+        final GATKRead read = ArtificialReadUtils.createArtificialRead(HEADER, "read" + start, 0, start, bases, Utils.dupBytes((byte) 30, READ_LENGTH), cigar);
+        read.setMappingQuality(60);
+        return read;
+    }
+
+    private static GATKRead withMismatch(final GATKRead read, final int position, final byte quality) {
+        final byte[] bases = read.getBases();
+        final int offset = position - read.getStart();
+        bases[offset] = bases[offset] == 'A' ? (byte) 'C' : (byte) 'A';
+        read.setBases(bases);
+        final byte[] quals = read.getBaseQualities();
+        quals[offset] = quality;
+        read.setBaseQualities(quals);
+        return read;
+    }
+
+    private boolean isReferenceOnly(final ReferenceOnlyRegionScreen screen, final GATKRead... reads) {
+        final AssemblyRegion region = new AssemblyRegion(new SimpleInterval("1", 101, 200), Collections.emptyList(), true, 20, HEADER);
+        Arrays.stream(reads).sorted(Comparator.comparingInt(GATKRead::getStart)).forEach(region::add);
+        final SimpleInterval readSpan = region.getReadSpanLoc();
+        return screen.isReferenceOnly(region, Arrays.copyOfRange(reference, readSpan.getStart() - 1, readSpan.getEnd()));
+    }
+
+    @Test
+    public void testScreen() {
+        final ReferenceOnlyRegionScreen screen = new ReferenceOnlyRegionScreen(ReferenceOnlyRegionScreen.Mode.SKIP, MIN_MAPPING_QUALITY);
+
+        Assert.assertTrue(isReferenceOnly(screen, referenceRead(90, "50M"), referenceRead(120, "50M"), referenceRead(180, "50M")));
+
+        // one high-quality mismatch is a sequencing error, but two at the same position are evidence
+        Assert.assertTrue(isReferenceOnly(screen, withMismatch(referenceRead(90, "50M"), 130, (byte) 30), referenceRead(120, "50M")));
+        Assert.assertFalse(isReferenceOnly(screen, withMismatch(referenceRead(90, "50M"), 130, (byte) 30), withMismatch(referenceRead(120, "50M"), 130, (byte) 30)));
+        Assert.assertTrue(isReferenceOnly(screen, withMismatch(referenceRead(90, "50M"), 130, (byte) 30), withMismatch(referenceRead(120, "50M"), 131, (byte) 30)));
+
+        // low-quality mismatches, mismatches in poorly mapped reads and mismatches outside the extended span don't count
+        Assert.assertTrue(isReferenceOnly(screen, withMismatch(referenceRead(90, "50M"), 130, (byte) 10), withMismatch(referenceRead(120, "50M"), 130, (byte) 30)));
+        final GATKRead poorlyMapped = withMismatch(referenceRead(90, "50M"), 130, (byte) 30);
+        poorlyMapped.setMappingQuality(10);
+        Assert.assertTrue(isReferenceOnly(screen, poorlyMapped, withMismatch(referenceRead(120, "50M"), 130, (byte) 30)));
+        Assert.assertTrue(isReferenceOnly(screen, withMismatch(referenceRead(40, "50M"), 70, (byte) 30), withMismatch(referenceRead(50, "50M"), 70, (byte) 30)));
+
+        // indels and long soft clips are evidence, short soft clips aren't
+        Assert.assertFalse(isReferenceOnly(screen, referenceRead(120, "20M1I29M")));
+        Assert.assertFalse(isReferenceOnly(screen, referenceRead(120, "20M1D30M")));
+        Assert.assertFalse(isReferenceOnly(screen, referenceRead(120, "40M10S")));
+        Assert.assertTrue(isReferenceOnly(screen, referenceRead(120, "45M5S")));
+
+        Assert.assertEquals(screen.getRegionsScreened(), 11);
+        Assert.assertEquals(screen.getReferenceOnlyRegions(), 7);
+    }
+
+    @Test
+    public void testValidation() {
+        final ReferenceOnlyRegionScreen screen = new ReferenceOnlyRegionScreen(ReferenceOnlyRegionScreen.Mode.VALIDATE, MIN_MAPPING_QUALITY);
+        final VariantContext referenceBlock = new VariantContextBuilder("test", "1", 150, 150, Arrays.asList(Allele.create("A", true), Allele.NON_REF_ALLELE)).make();
+        final VariantContext call = new VariantContextBuilder("test", "1", 150, 150, Arrays.asList(Allele.create("A", true), Allele.create("C"), Allele.NON_REF_ALLELE)).make();
+
+        screen.recordFullResult(true, Collections.singletonList(referenceBlock));
+        screen.recordFullResult(true, Collections.emptyList());
+        Assert.assertEquals(screen.getReferenceOnlyRegionsWithCalls(), 0);
+        screen.recordFullResult(true, Arrays.asList(referenceBlock, call));
+        Assert.assertEquals(screen.getReferenceOnlyRegionsWithCalls(), 1);
+        screen.recordFullResult(false, Collections.singletonList(call));
+        Assert.assertEquals(screen.getReferenceOnlyRegionsWithCalls(), 1);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testOffMode() {
+        new ReferenceOnlyRegionScreen(ReferenceOnlyRegionScreen.Mode.OFF, MIN_MAPPING_QUALITY);
+    }
+}
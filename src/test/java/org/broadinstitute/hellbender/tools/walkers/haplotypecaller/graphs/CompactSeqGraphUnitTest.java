@@ -0,0 +1,214 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.graphs;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.readthreading.ReadThreadingGraph;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+public final class CompactSeqGraphUnitTest extends GATKBaseTest {
+    private static final byte[] BASES = "ACGT".getBytes();
+
+    /**
+     * Simplify graph with the SeqGraph transformations, as SeqGraph#simplifyGraph did before it used a CompactSeqGraph
+     */
+    private static void simplifyWithSeqGraphTransformers(final SeqGraph graph) {
+        graph.zipLinearChains();
+        SeqGraph prevGraph = null;
+        for (int i = 0; i < 100; i++) {
+            boolean didSomeWork = new MergeDiamonds(graph).transformUntilComplete();
+            didSomeWork |= new MergeTails(graph).transformUntilComplete();
+            didSomeWork |= new SplitCommonSuffices(graph).transformUntilComplete();
+            didSomeWork |= new MergeCommonSuffices(graph).transformUntilComplete();
+            didSomeWork |= graph.zipLinearChains();
+            if (!didSomeWork) {
+                break;
+            }
+            if (i > 5) {
+                if (prevGraph != null && BaseGraph.graphEquals(prevGraph, graph)) {
+                    break;
+                }
+                prevGraph = graph.clone();
+            }
+        }
+    }
+
+    private static byte[] randomBases(final Random random, final int length) {
+        final byte[] bases = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bases[i] = BASES[random.nextInt(BASES.length)];
+        }
+        return bases;
+    }
+
+    /**
+     * @return a copy of sequence with a few random SNPs and indels
+     */
+    private static byte[] mutate(final Random random, final byte[] sequence, final int mutations) {
+        final List<Byte> mutated = new ArrayList<>();
+        for (final byte base : sequence) {
+            mutated.add(base);
+        }
+        for (int i = 0; i < mutations; i++) {
+            final int position = 10 + random.nextInt(mutated.size() - 20);
+            switch (random.nextInt(3)) {
+                case 0: mutated.set(position, BASES[random.nextInt(BASES.length)]); break;
+                case 1: mutated.add(position, BASES[random.nextInt(BASES.length)]); break;
+                default: mutated.remove(position);
+            }
+        }
+        final byte[] result = new byte[mutated.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = mutated.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * @return the sequence graph of an assembly of a reference and a few haplotypes, cleaned up as the
+     *         ReadThreadingAssembler does before simplifying it
+     */
+    private static SeqGraph assemblyGraph(final Random random, final int kmerSize) {
+        final ReadThreadingGraph assemblyGraph = new ReadThreadingGraph(kmerSize);
+        final byte[] reference = randomBases(random, 200);
+        assemblyGraph.addSequence("ref", reference, true);
+        for (int i = 0; i < 4; i++) {
+            assemblyGraph.addSequence("hap" + i, mutate(random, reference, 1 + random.nextInt(4)), 1 + random.nextInt(10), false);
+        }
+        assemblyGraph.buildGraphIfNecessary();
+        final SeqGraph graph = assemblyGraph.toSequenceGraph();
+        graph.zipLinearChains();
+        graph.removeSingletonOrphanVertices();
+        graph.removeVerticesNotConnectedToRefRegardlessOfEdgeDirection();
+        return graph;
+    }
+
+    /**
+     * @return a layered graph of short sequences, with many common prefixes and suffixes
+     */
+    private static SeqGraph layeredGraph(final Random random) {
+        final SeqGraph graph = new SeqGraph(3);
+        final String[] sequences = {"A", "C", "AC", "CC", "GAC", "TAC", "ACCC", "CAC"};
+        List<SeqVertex> previousLayer = Collections.emptyList();
+        for (int layer = 0; layer < 8; layer++) {
+            final List<SeqVertex> vertices = new ArrayList<>();
+            for (int i = 0, n = layer == 0 || layer == 7 ? 1 : 1 + random.nextInt(4); i < n; i++) {
+                final SeqVertex vertex = new SeqVertex(sequences[random.nextInt(sequences.length)]);
+                graph.addVertex(vertex);
+                vertices.add(vertex);
+            }
+            for (int i = 0; i < vertices.size(); i++) {
+                for (int j = 0; j < previousLayer.size(); j++) {
+                    if (i == 0 && j == 0) {
+                        graph.addEdge(previousLayer.get(j), vertices.get(i), new BaseEdge(true, 1 + random.nextInt(3)));
+                    } else if (random.nextInt(3) > 0) {
+                        graph.addEdge(previousLayer.get(j), vertices.get(i), new BaseEdge(false, random.nextInt(3)));
+                    }
+                }
+            }
+            previousLayer = vertices;
+        }
+        return graph;
+    }
+
+    /**
+     * @return the bases of all the paths from a source to a sink of graph
+     */
+    private static Set<String> haplotypeBases(final SeqGraph graph) {
+        return new KBestHaplotypeFinder(graph).findBestHaplotypes(Integer.MAX_VALUE).stream()
+                .map(h -> new String(h.getBases())).collect(Collectors.toSet());
+    }
+
+    private static void assertSameSimplification(final SeqGraph graph) {
+        final SeqGraph expected = graph.clone();
+        simplifyWithSeqGraphTransformers(expected);
+        final SeqGraph actual = graph.clone();
+        actual.simplifyGraph();
+
+        Assert.assertTrue(BaseGraph.graphEquals(actual, expected));
+        Assert.assertTrue(BaseGraph.graphEquals(expected, actual));
+        Assert.assertEquals(haplotypeBases(actual), haplotypeBases(expected));
+    }
+
+    @DataProvider(name = "seeds")
+    public Object[][] makeSeeds() {
+        final List<Object[]> tests = new ArrayList<>();
+        for (int seed = 0; seed < 50; seed++) {
+            tests.add(new Object[]{seed});
+        }
+        return tests.toArray(new Object[][]{});
+    }
+
+    @Test(dataProvider = "seeds")
+    public void testSameResultsAsSeqGraphTransformersOnAssemblyGraphs(final int seed) {
+        final Random random = new Random(seed);
+        assertSameSimplification(assemblyGraph(random, 10 + random.nextInt(15)));
+    }
+
+    @Test(dataProvider = "seeds")
+    public void testSameResultsAsSeqGraphTransformersOnLayeredGraphs(final int seed) {
+        assertSameSimplification(layeredGraph(new Random(seed)));
+    }
+
+    @Test
+    public void testCopyIntoKeepsUnchangedVerticesAndEdges() {
+        final SeqGraph graph = new SeqGraph(11);
+        final SeqVertex top = new SeqVertex("A");
+        final SeqVertex middle1 = new SeqVertex("CT");
+        final SeqVertex middle2 = new SeqVertex("GT");
+        final SeqVertex bottom = new SeqVertex("A");
+        final SeqVertex other = new SeqVertex("G");
+        graph.addVertices(top, middle1, middle2, bottom, other);
+        graph.addEdges(() -> new BaseEdge(true, 1), top, middle1, bottom);
+        graph.addEdges(() -> new BaseEdge(false, 2), top, middle2, bottom);
+        final BaseEdge otherEdge = new BaseEdge(false, 3);
+        graph.addEdge(other, top, otherEdge);
+
+        final CompactSeqGraph compact = new CompactSeqGraph();
+        compact.load(graph);
+        Assert.assertEquals(compact.vertexCount(), 5);
+        Assert.assertEquals(compact.edgeCount(), 5);
+        Assert.assertFalse(compact.mergeTails());
+        Assert.assertFalse(compact.isModified());
+        Assert.assertTrue(compact.mergeDiamonds());
+        Assert.assertTrue(compact.isModified());
+        compact.copyInto(graph);
+
+        // A -> C -> T -> A and A -> G -> T -> A, with G -> A unchanged
+        Assert.assertEquals(graph.vertexSet().size(), 6);
+        Assert.assertTrue(graph.containsVertex(top));
+        Assert.assertTrue(graph.containsVertex(bottom));
+        Assert.assertTrue(graph.containsVertex(other));
+        Assert.assertFalse(graph.containsVertex(middle1));
+        Assert.assertTrue(graph.containsEdge(otherEdge));
+        Assert.assertEquals(graph.getEdge(other, top), otherEdge);
+        final SeqVertex suffix = graph.getEdgeSource(graph.incomingEdgesOf(bottom).stream().filter(BaseEdge::isRef).findFirst().get());
+        Assert.assertEquals(suffix.getSequenceString(), "T");
+        Assert.assertEquals(graph.incomingVerticesOf(suffix).stream().map(SeqVertex::getSequenceString).collect(Collectors.toSet()), new HashSet<>(Arrays.asList("C", "G")));
+        Assert.assertEquals(graph.getEdge(suffix, bottom).getMultiplicity(), 1);
+    }
+
+    @Test
+    public void testReuse() {
+        final CompactSeqGraph compact = new CompactSeqGraph();
+        final Random random = new Random(7);
+        for (int i = 0; i < 5; i++) {
+            final SeqGraph graph = assemblyGraph(random, 15);
+            final SeqGraph expected = graph.clone();
+            expected.simplifyGraph();
+
+            compact.load(graph);
+            Assert.assertEquals(compact.vertexCount(), graph.vertexSet().size());
+            Assert.assertEquals(compact.edgeCount(), graph.edgeSet().size());
+            compact.zipLinearChains();
+            while (compact.mergeDiamonds() | compact.mergeTails() | compact.splitCommonSuffices() | compact.mergeCommonSuffices() | compact.zipLinearChains()) {
+            }
+            compact.copyInto(graph);
+            compact.clear();
+            Assert.assertTrue(BaseGraph.graphEquals(graph, expected));
+        }
+    }
+}
@@ -44,6 +44,91 @@ public final class KBestHaplotypeFinderUnitTest extends GATKBaseTest {
         Assert.assertEquals(ACG.score(), -0.47712125471966244);
     }
 
+    /**
+     * The search as it was before partial paths shared their prefixes, which must give exactly the same results
+     */
+    private static List<KBestHaplotype> findBestHaplotypesByCopyingPaths(final SeqGraph graph, final Set<SeqVertex> sources, final Set<SeqVertex> sinks, final int maxNumberOfHaplotypes) {
+        final List<KBestHaplotype> result = new ArrayList<>();
+        final PriorityQueue<KBestHaplotype> queue = new PriorityQueue<>(Comparator.comparingDouble(KBestHaplotype::score).reversed());
+        sources.forEach(source -> queue.add(new KBestHaplotype(source, graph)));
+        final Map<SeqVertex, Integer> vertexCounts = new HashMap<>();
+        while (!queue.isEmpty() && result.size() < maxNumberOfHaplotypes) {
+            final KBestHaplotype pathToExtend = queue.poll();
+            final SeqVertex vertexToExtend = pathToExtend.getLastVertex();
+            if (sinks.contains(vertexToExtend)) {
+                result.add(pathToExtend);
+            } else {
+                final Set<BaseEdge> outgoingEdges = graph.outgoingEdgesOf(vertexToExtend);
+                final int totalOutgoingMultiplicity = outgoingEdges.stream().mapToInt(BaseEdge::getMultiplicity).sum();
+                for (final BaseEdge edge : outgoingEdges) {
+                    final SeqVertex targetVertex = graph.getEdgeTarget(edge);
+                    final int count = vertexCounts.getOrDefault(targetVertex, 0);
+                    vertexCounts.put(targetVertex, count + 1);
+                    if (count < maxNumberOfHaplotypes) {
+                        queue.add(new KBestHaplotype(pathToExtend, edge, totalOutgoingMultiplicity));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    @DataProvider(name = "RandomGraphs")
+    public Object[][] getRandomGraphs() {
+        final List<Object[]> tests = new ArrayList<>();
+        for (final int seed : new int[] {1, 2, 3, 4, 5}) {
+            for (final int maxNumberOfHaplotypes : new int[] {1, 4, 16, 100, Integer.MAX_VALUE}) {
+                tests.add(new Object[] {seed, maxNumberOfHaplotypes});
+            }
+        }
+        return tests.toArray(new Object[][] {});
+    }
+
+    /**
+     * Layered random graphs with several sources, sinks and dead ends, and small multiplicities, so that many paths
+     * have the same score and the per-vertex limit on the number of paths matters
+     */
+    @Test(dataProvider = "RandomGraphs")
+    public void testSameResultsAsCopyingPaths(final int seed, final int maxNumberOfHaplotypes) {
+        final Random random = new Random(seed);
+        final SeqGraph graph = new SeqGraph(3);
+        final String[] bases = {"A", "C", "G", "T", "AC", "GT"};
+        final List<List<SeqVertex>> layers = new ArrayList<>();
+        for (int layer = 0; layer < 8; layer++) {
+            final List<SeqVertex> vertices = new ArrayList<>();
+            for (int i = 0, n = 1 + random.nextInt(4); i < n; i++) {
+                final SeqVertex vertex = new SeqVertex(bases[random.nextInt(bases.length)]);
+                graph.addVertex(vertex);
+                vertices.add(vertex);
+            }
+            if (layer > 0) {
+                for (final SeqVertex target : vertices) {
+                    for (final SeqVertex source : layers.get(layer - 1)) {
+                        if (random.nextInt(3) > 0) {
+                            graph.addEdge(source, target, new BaseEdge(false, 1 + random.nextInt(3)));
+                        }
+                    }
+                }
+            }
+            layers.add(vertices);
+        }
+
+        final Set<SeqVertex> sources = graph.getSources();
+        final Set<SeqVertex> sinks = new LinkedHashSet<>(layers.get(layers.size() - 1));
+        final List<KBestHaplotype> expected = findBestHaplotypesByCopyingPaths(graph, sources, sinks, maxNumberOfHaplotypes);
+        final List<KBestHaplotype> actual = new KBestHaplotypeFinder(graph, sources, sinks).findBestHaplotypes(maxNumberOfHaplotypes);
+
+        Assert.assertEquals(actual.size(), expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(actual.get(i).getEdges(), expected.get(i).getEdges());
+            Assert.assertEquals(actual.get(i).getVertices(), expected.get(i).getVertices());
+            Assert.assertEquals(actual.get(i).score(), expected.get(i).score());
+            Assert.assertEquals(actual.get(i).getBases(), expected.get(i).getBases());
+            Assert.assertEquals(actual.get(i).haplotype(), expected.get(i).haplotype());
+            Assert.assertEquals(actual.get(i).isReference(), expected.get(i).isReference());
+        }
+    }
+
     @Test
     public void testCycleRemove(){
         final SeqGraph g = new SeqGraph(3);
@@ -0,0 +1,132 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.readthreading;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.Kmer;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+public final class KmerIndexUnitTest extends GATKBaseTest {
+
+    @Test
+    public void testPutGetRemove() {
+        final KmerIndex<String> index = new KmerIndex<>(3);
+        final byte[] bases = "ACGTACGTN".getBytes();
+        Assert.assertTrue(index.isEmpty());
+
+        Assert.assertNull(index.put(bases, 0, "ACG"));
+        Assert.assertNull(index.put(bases, 1, "CGT"));
+        Assert.assertEquals(index.put(bases, 4, "ACG again"), "ACG");
+        Assert.assertEquals(index.size(), 2);
+
+        Assert.assertEquals(index.get("TACGT".getBytes(), 1), "ACG again");
+        Assert.assertEquals(index.get(bases, 1), "CGT");
+        Assert.assertNull(index.get(bases, 2));
+        Assert.assertTrue(index.containsKey(bases, 5));
+        Assert.assertFalse(index.containsKey(bases, 3));
+
+        Assert.assertEquals(index.remove(bases, 1), "CGT");
+        Assert.assertNull(index.remove(bases, 1));
+        Assert.assertFalse(index.containsKey(bases, 1));
+        Assert.assertEquals(index.size(), 1);
+
+        index.clear();
+        Assert.assertTrue(index.isEmpty());
+        Assert.assertNull(index.get(bases, 0));
+    }
+
+    @Test
+    public void testUnpackableKmers() {
+        final KmerIndex<Integer> index = new KmerIndex<>(4);
+        final byte[] bases = "ACGNacgtACGT".getBytes();
+        index.put(bases, 0, 1);   // ACGN
+        index.put(bases, 4, 2);   // acgt
+        index.put(bases, 8, 3);   // ACGT
+        Assert.assertEquals(index.size(), 3);
+
+        // kmers are compared exactly, as with Kmer, so acgt and ACGT are different kmers
+        Assert.assertEquals(index.get(bases, 0), Integer.valueOf(1));
+        Assert.assertEquals(index.get(bases, 4), Integer.valueOf(2));
+        Assert.assertEquals(index.get(bases, 8), Integer.valueOf(3));
+        Assert.assertNull(index.get(bases, 1));
+        Assert.assertEquals(index.keySet(), new HashSet<>(Arrays.asList(new Kmer("ACGN"), new Kmer("acgt"), new Kmer("ACGT"))));
+
+        final List<Integer> values = new ArrayList<>();
+        index.forEachValue(values::add);
+        Collections.sort(values);
+        Assert.assertEquals(values, Arrays.asList(1, 2, 3));
+
+        Assert.assertEquals(index.remove(bases, 0), Integer.valueOf(1));
+        Assert.assertFalse(index.containsKey(bases, 0));
+        Assert.assertEquals(index.size(), 2);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testBadKmerSize() {
+        new KmerIndex<>(0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNullValue() {
+        new KmerIndex<>(2).put("AC".getBytes(), 0, null);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testKmerPastEndOfSequence() {
+        new KmerIndex<>(3).get("ACGT".getBytes(), 2);
+    }
+
+    @DataProvider(name = "KmerSizes")
+    public Object[][] getKmerSizes() {
+        return new Object[][] { {1}, {5}, {31}, {32}, {33}, {40}, {63}, {64}, {65}, {100} };
+    }
+
+    /**
+     * Apply the same random puts and removes to a KmerIndex and to a HashMap keyed by Kmer, over a small alphabet
+     * (so that kmers collide often) with an occasional N, and check that they always agree
+     */
+    @Test(dataProvider = "KmerSizes")
+    public void testAgainstHashMap(final int kmerSize) {
+        final Random random = new Random(kmerSize);
+        final byte[] alphabet = "ACGTN".getBytes();
+        final KmerIndex<Integer> index = new KmerIndex<>(kmerSize);
+        final Map<Kmer, Integer> expected = new HashMap<>();
+
+        for ( int round = 0; round < 3; ++round ) {
+            for ( int op = 0; op < 5000; ++op ) {
+                final byte[] sequence = new byte[kmerSize + 2];
+                for ( int i = 0; i < sequence.length; ++i ) {
+                    // mostly A's and C's, so that there are many repeated kmers
+                    sequence[i] = alphabet[random.nextInt(50) == 0 ? 4 : random.nextInt(10) == 0 ? 2 + random.nextInt(2) : random.nextInt(2)];
+                }
+                final int start = random.nextInt(3);
+                final Kmer kmer = new Kmer(sequence, start, kmerSize);
+                if ( random.nextInt(3) == 0 ) {
+                    Assert.assertEquals(index.remove(sequence, start), expected.remove(kmer));
+                } else {
+                    Assert.assertEquals(index.put(sequence, start, op), expected.put(kmer, op));
+                }
+                Assert.assertEquals(index.get(sequence, start), expected.get(kmer));
+                Assert.assertEquals(index.size(), expected.size());
+            }
+
+            Assert.assertEquals(index.keySet(), expected.keySet());
+            for ( final Map.Entry<Kmer, Integer> entry : expected.entrySet() ) {
+                Assert.assertEquals(index.get(entry.getKey().bases(), 0), entry.getValue());
+            }
+            final List<Integer> values = new ArrayList<>();
+            index.forEachValue(values::add);
+            Collections.sort(values);
+            final List<Integer> expectedValues = new ArrayList<>(expected.values());
+            Collections.sort(expectedValues);
+            Assert.assertEquals(values, expectedValues);
+
+            if ( round == 1 ) {
+                index.clear();
+                expected.clear();
+            }
+        }
+    }
+}
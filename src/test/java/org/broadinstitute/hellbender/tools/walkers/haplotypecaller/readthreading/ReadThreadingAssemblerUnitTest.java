@@ -32,6 +32,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 public final class ReadThreadingAssemblerUnitTest extends GATKBaseTest {
 
@@ -168,6 +169,52 @@ public final class ReadThreadingAssemblerUnitTest extends GATKBaseTest {
     }
 
 
+    @DataProvider(name = "ParallelKmerSizeAssemblyData")
+    public Object[][] makeParallelKmerSizeAssemblyData() {
+        final List<Object[]> tests = new ArrayList<>();
+        for ( int start = 100000; start < 102001; start += 500 ) {
+            final SimpleInterval loc = new SimpleInterval("1", start, start + 100);
+            tests.add(new Object[]{loc, Arrays.asList(10, 15, 25)});
+            // a kmer size so small that the reference has non-unique kmers, so that larger kmer sizes are tried
+            tests.add(new Object[]{loc, Collections.singletonList(4)});
+        }
+        return tests.toArray(new Object[][]{});
+    }
+
+    @Test(dataProvider = "ParallelKmerSizeAssemblyData")
+    public void testParallelKmerSizeAssemblyMatchesSequential(final SimpleInterval loc, final List<Integer> kmerSizes) {
+        final byte[] refBases = seq.getSubsequenceAt(loc.getContig(), loc.getStart(), loc.getEnd()).getBases();
+        final byte[] altBases = refBases.clone();
+        altBases[30] = (byte)(altBases[30] == 'A' ? 'C' : 'A');
+        altBases[70] = (byte)(altBases[70] == 'G' ? 'T' : 'G');
+
+        final List<GATKRead> reads = new LinkedList<>();
+        for ( int i = 0; i < 10; i++ ) {
+            final byte[] bases = (i % 2 == 0 ? refBases : altBases).clone();
+            reads.add(ArtificialReadUtils.createArtificialRead(header, "read" + i, loc.getContig(), loc.getStart(), bases,
+                    Utils.dupBytes((byte) 30, bases.length), bases.length + "M"));
+        }
+
+        final ReadThreadingAssembler sequentialAssembler = new ReadThreadingAssembler(128, kmerSizes, false, false, 1, 2, false, 0.001, 2, Integer.MAX_VALUE);
+        final List<Haplotype> expected = assemble(sequentialAssembler, refBases, loc, reads);
+
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final ReadThreadingAssembler parallelAssembler = new ReadThreadingAssembler(128, kmerSizes, false, false, 1, 2, false, 0.001, 2, Integer.MAX_VALUE);
+            parallelAssembler.setKmerSizeAssemblyPool(pool);
+            for ( int i = 0; i < 3; i++ ) {
+                final List<Haplotype> actual = assemble(parallelAssembler, refBases, loc, reads);
+                Assert.assertEquals(actual, expected);
+                for ( int j = 0; j < actual.size(); j++ ) {
+                    Assert.assertEquals(actual.get(j).getCigar(), expected.get(j).getCigar());
+                    Assert.assertEquals(actual.get(j).getScore(), expected.get(j).getScore());
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
     private List<Haplotype> assemble(final ReadThreadingAssembler assembler, final byte[] refBases, final SimpleInterval loc, final List<GATKRead> reads) {
         final Haplotype refHaplotype = new Haplotype(refBases, true);
         final Cigar c = new Cigar();
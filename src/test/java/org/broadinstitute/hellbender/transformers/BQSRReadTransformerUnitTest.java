@@ -1,13 +1,28 @@
 package org.broadinstitute.hellbender.transformers;
 
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMReadGroupRecord;
+import org.broadinstitute.hellbender.tools.ApplyBQSRArgumentCollection;
 import org.broadinstitute.hellbender.utils.QualityUtils;
+import org.broadinstitute.hellbender.utils.MathUtils;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.recalibration.EventType;
 import org.broadinstitute.hellbender.utils.recalibration.RecalDatum;
+import org.broadinstitute.hellbender.utils.recalibration.RecalUtils;
+import org.broadinstitute.hellbender.utils.recalibration.RecalibrationReport;
+import org.broadinstitute.hellbender.utils.recalibration.RecalibrationTables;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.CovariateKeyCache;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.ReadCovariates;
 import org.broadinstitute.hellbender.GATKBaseTest;
 import org.testng.Assert;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.io.File;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 public final class BQSRReadTransformerUnitTest extends GATKBaseTest {
     @Test
@@ -89,4 +104,86 @@ public final class BQSRReadTransformerUnitTest extends GATKBaseTest {
             }
         }
     }
+
+    private static final String READ_GROUP = "20GAVAAXX100126.8"; // the read group of the recalibration report below
+    private static final File RECAL_FILE = new File(publicTestDir + "org/broadinstitute/hellbender/utils/recalibration/HiSeq.1mb.1RG.noSG.table");
+
+    @DataProvider(name = "applyBQSRArgs")
+    public Object[][] applyBQSRArgs() {
+        final ApplyBQSRArgumentCollection defaults = new ApplyBQSRArgumentCollection();
+        final ApplyBQSRArgumentCollection globalPrior = new ApplyBQSRArgumentCollection();
+        globalPrior.globalQScorePrior = 30.0;
+        final ApplyBQSRArgumentCollection reportQuantization = new ApplyBQSRArgumentCollection();
+        reportQuantization.quantizationLevels = -1;
+        final ApplyBQSRArgumentCollection requantized = new ApplyBQSRArgumentCollection();
+        requantized.quantizationLevels = 4;
+        final ApplyBQSRArgumentCollection staticQuals = new ApplyBQSRArgumentCollection();
+        staticQuals.staticQuantizationQuals = Arrays.asList(10, 20, 30);
+        final ApplyBQSRArgumentCollection preserveAll = new ApplyBQSRArgumentCollection();
+        preserveAll.PRESERVE_QSCORES_LESS_THAN = 0;
+        return new Object[][]{{defaults}, {globalPrior}, {reportQuantization}, {requantized}, {staticQuals}, {preserveAll}};
+    }
+
+    /**
+     * The lookup table of the transformer must recalibrate every base exactly as the datums of the report would
+     */
+    @Test(dataProvider = "applyBQSRArgs")
+    public void lookupTableMatchesRecalDatums(final ApplyBQSRArgumentCollection args) {
+        final SAMReadGroupRecord readGroup = new SAMReadGroupRecord(READ_GROUP);
+        readGroup.setPlatform("illumina");
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeaderWithReadGroup(readGroup);
+        final BQSRReadTransformer transformer = new BQSRReadTransformer(header, new RecalibrationReport(RECAL_FILE), args);
+
+        final RecalibrationReport report = new RecalibrationReport(RECAL_FILE);
+        final RecalibrationTables tables = report.getRecalibrationTables();
+        if (args.quantizationLevels == 0) {
+            report.getQuantizationInfo().noQuantization();
+        } else if (args.quantizationLevels > 0) {
+            report.getQuantizationInfo().quantizeQualityScores(args.quantizationLevels);
+        }
+        final List<Byte> quantizedQuals = report.getQuantizationInfo().getQuantizedQuals();
+        final byte[] staticQuantizedMapping = args.staticQuantizationQuals == null || args.staticQuantizationQuals.isEmpty() ? null : BQSRReadTransformer.constructStaticQuantizedMapping(args.staticQuantizationQuals, args.roundDown);
+        final int numCovariates = report.getCovariates().size();
+        final int numSpecialCovariates = report.getCovariates().numberOfSpecialCovariates();
+        final int substitution = EventType.BASE_SUBSTITUTION.ordinal();
+
+        final Random random = new Random(42);
+        final byte[] bases = "ACGTN".getBytes();
+        for (int i = 0; i < 300; i++) {
+            final int length = 1 + random.nextInt(151);
+            final byte[] readBases = new byte[length];
+            final byte[] quals = new byte[length];
+            for (int j = 0; j < length; j++) {
+                readBases[j] = bases[random.nextInt(50) == 0 ? 4 : random.nextInt(4)];
+                // including qualities that are preserved, and qualities that are not in the report
+                quals[j] = (byte) random.nextInt(50);
+            }
+            final GATKRead read = ArtificialReadUtils.createArtificialRead(readBases, quals, length + "M");
+            read.setReadGroup(READ_GROUP);
+            read.setIsReverseStrand(random.nextBoolean());
+
+            final ReadCovariates readCovariates = RecalUtils.computeCovariates(read, header, report.getCovariates(), false, new CovariateKeyCache());
+            final RecalDatum empiricalQualRG = tables.getReadGroupTable().get2Keys(readCovariates.getKeySet(0, EventType.BASE_SUBSTITUTION)[0], substitution);
+            final double epsilon = args.globalQScorePrior > 0.0 ? args.globalQScorePrior : empiricalQualRG.getEstimatedQReported();
+            final byte[] expected = quals.clone();
+            for (int offset = 0; offset < length; offset++) {
+                if (quals[offset] < args.PRESERVE_QSCORES_LESS_THAN) {
+                    continue;
+                }
+                final int[] keySet = readCovariates.getKeySet(offset, EventType.BASE_SUBSTITUTION);
+                final RecalDatum[] empiricalQualCovs = new RecalDatum[numCovariates - numSpecialCovariates];
+                for (int j = numSpecialCovariates; j < numCovariates; j++) {
+                    if (keySet[j] >= 0) {
+                        empiricalQualCovs[j - numSpecialCovariates] = tables.getTable(j).get4Keys(keySet[0], keySet[1], keySet[j], substitution);
+                    }
+                }
+                final double recalibratedQual = BQSRReadTransformer.hierarchicalBayesianQualityEstimate(epsilon, empiricalQualRG,
+                        tables.getQualityScoreTable().get3Keys(keySet[0], keySet[1], substitution), empiricalQualCovs);
+                final byte quantizedQual = quantizedQuals.get(QualityUtils.boundQual(MathUtils.fastRound(recalibratedQual), RecalDatum.MAX_RECALIBRATED_Q_SCORE));
+                expected[offset] = staticQuantizedMapping == null ? quantizedQual : staticQuantizedMapping[quantizedQual];
+            }
+
+            Assert.assertEquals(transformer.apply(read).getBaseQualities(), expected, "read " + i + " of length " + length);
+        }
+    }
 }
@@ -0,0 +1,133 @@
+package org.broadinstitute.hellbender.utils.fasta;
+
+import htsjdk.samtools.SAMException;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.reference.ReferenceSequence;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+public final class MemoryMappedFastaSequenceFileUnitTest extends GATKBaseTest {
+    private static final Path SIMPLE_FASTA = Paths.get(publicTestDir + "exampleFASTA.fasta");
+    private static final Path IUPAC_FASTA = Paths.get(publicTestDir + "iupacFASTA.fasta");
+    private static final Path MULTI_CONTIG_FASTA = Paths.get(hg19MiniReference);
+
+    @DataProvider(name = "fastas")
+    public Object[][] getFastas() {
+        return new Object[][] {
+                { SIMPLE_FASTA, false },
+                { SIMPLE_FASTA, true },
+                { IUPAC_FASTA, false },
+                { IUPAC_FASTA, true },
+                { MULTI_CONTIG_FASTA, false }
+        };
+    }
+
+    @Test(dataProvider = "fastas")
+    public void testQueriesMatchCachingReader( final Path fasta, final boolean preserveBases ) {
+        final Random random = new Random(13);
+        try ( final CachingIndexedFastaSequenceFile caching = new CachingIndexedFastaSequenceFile(fasta, preserveBases);
+              final MemoryMappedFastaSequenceFile mapped = new MemoryMappedFastaSequenceFile(fasta, preserveBases) ) {
+            Assert.assertEquals(mapped.getSequenceDictionary(), caching.getSequenceDictionary());
+
+            for ( final SAMSequenceRecord contig : caching.getSequenceDictionary().getSequences() ) {
+                final int contigLength = contig.getSequenceLength();
+                assertSameSequence(mapped.getSequence(contig.getSequenceName()), caching.getSequence(contig.getSequenceName()));
+
+                for ( int i = 0; i < 1000; ++i ) {
+                    final int start = 1 + random.nextInt(contigLength);
+                    final int stop = Math.min(contigLength, start - 1 + random.nextInt(500));
+                    assertSameSequence(mapped.getSubsequenceAt(contig.getSequenceName(), start, stop),
+                                       caching.getSubsequenceAt(contig.getSequenceName(), start, stop));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentQueries() throws Exception {
+        try ( final CachingIndexedFastaSequenceFile caching = new CachingIndexedFastaSequenceFile(SIMPLE_FASTA);
+              final MemoryMappedFastaSequenceFile mapped = new MemoryMappedFastaSequenceFile(SIMPLE_FASTA) ) {
+            final String contig = caching.getSequenceDictionary().getSequence(0).getSequenceName();
+            final byte[] expected = caching.getSequence(contig).getBases();
+
+            final List<Integer> mismatches = new ArrayList<>();
+            IntStream.range(0, 20_000).parallel().forEach(i -> {
+                final int start = 1 + (i * 7919) % expected.length;
+                final int stop = Math.min(expected.length, start + i % 300);
+                final byte[] bases = mapped.getSubsequenceAt(contig, start, stop).getBases();
+                for ( int j = 0; j < bases.length; ++j ) {
+                    if ( bases[j] != expected[start - 1 + j] ) {
+                        synchronized ( mismatches ) {
+                            mismatches.add(i);
+                        }
+                        return;
+                    }
+                }
+            });
+            Assert.assertTrue(mismatches.isEmpty(), "concurrent queries returned wrong bases: " + mismatches);
+        }
+    }
+
+    @Test
+    public void testNextSequence() {
+        try ( final MemoryMappedFastaSequenceFile mapped = new MemoryMappedFastaSequenceFile(MULTI_CONTIG_FASTA) ) {
+            for ( int pass = 0; pass < 2; ++pass ) {
+                for ( final SAMSequenceRecord contig : mapped.getSequenceDictionary().getSequences() ) {
+                    final ReferenceSequence sequence = mapped.nextSequence();
+                    Assert.assertEquals(sequence.getName(), contig.getSequenceName());
+                    Assert.assertEquals(sequence.length(), contig.getSequenceLength());
+                }
+                Assert.assertNull(mapped.nextSequence());
+                mapped.reset();
+            }
+        }
+    }
+
+    @Test
+    public void testCanMemoryMap() {
+        Assert.assertTrue(MemoryMappedFastaSequenceFile.canMemoryMap(SIMPLE_FASTA));
+        Assert.assertFalse(MemoryMappedFastaSequenceFile.canMemoryMap(Paths.get(publicTestDir + "exampleFASTA.fasta.gz")));
+        Assert.assertFalse(MemoryMappedFastaSequenceFile.canMemoryMap(GATKBaseTest.getSafeNonExistentPath("nonexistent.fasta")));
+    }
+
+    @Test(expectedExceptions = UserException.CouldNotReadInputFile.class)
+    public void testCompressedFasta() {
+        new MemoryMappedFastaSequenceFile(Paths.get(publicTestDir + "exampleFASTA.fasta.gz"));
+    }
+
+    @Test(expectedExceptions = UserException.MissingReferenceFaiFile.class)
+    public void testMissingFaiFile() {
+        new MemoryMappedFastaSequenceFile(Paths.get(publicTestDir + "fastaWithoutFai.fasta"));
+    }
+
+    @Test(expectedExceptions = UserException.MissingContigInSequenceDictionary.class)
+    public void testMissingContig() {
+        try ( final MemoryMappedFastaSequenceFile mapped = new MemoryMappedFastaSequenceFile(SIMPLE_FASTA) ) {
+            mapped.getSubsequenceAt("noSuchContig", 1, 10);
+        }
+    }
+
+    @Test(expectedExceptions = SAMException.class)
+    public void testQueryPastEndOfContig() {
+        try ( final MemoryMappedFastaSequenceFile mapped = new MemoryMappedFastaSequenceFile(SIMPLE_FASTA) ) {
+            final SAMSequenceRecord contig = mapped.getSequenceDictionary().getSequence(0);
+            mapped.getSubsequenceAt(contig.getSequenceName(), 1, contig.getSequenceLength() + 1);
+        }
+    }
+
+    private static void assertSameSequence( final ReferenceSequence actual, final ReferenceSequence expected ) {
+        Assert.assertEquals(actual.getName(), expected.getName());
+        Assert.assertEquals(actual.getContigIndex(), expected.getContigIndex());
+        Assert.assertEquals(actual.getBases(), expected.getBases());
+    }
+}
@@ -196,6 +196,48 @@ public final class ReadLikelihoodsUnitTest {
         testLikelihoodMatrixQueries(samples,result,newLikelihoods);
     }
 
+    @Test(dataProvider = "dataSets")
+    public void testFilterThenAddReadsAndAlleles(final String[] samples, final Allele[] alleles, final Map<String,List<GATKRead>> reads) {
+        // reads are removed in place, so check that reads and alleles added afterwards don't see the removed likelihoods
+        final ReadLikelihoods<Allele> original = new ReadLikelihoods<>(new IndexedSampleList(samples), new IndexedAlleleList<>(alleles), reads);
+        fillWithRandomLikelihoods(samples, alleles, original);
+        final ReadLikelihoods<Allele> result = original.copy();
+        final SimpleInterval evenReadOverlap = new SimpleInterval(SAM_HEADER.getSequenceDictionary().getSequences().get(0).getSequenceName(), EVEN_READ_START, EVEN_READ_START);
+        result.filterToOnlyOverlappingReads(evenReadOverlap);
+
+        final Map<String,List<GATKRead>> newReads = new LinkedHashMap<>();
+        for (final String sample : samples) {
+            final List<GATKRead> sampleNewReads = new ArrayList<>();
+            for (int r = 0; r < 3; r++) {
+                sampleNewReads.add(ArtificialReadUtils.createArtificialRead(SAM_HEADER, "NEW" + sample + r, 0, EVEN_READ_START, "AAAAA".getBytes(), new byte[]{30, 30, 30, 30, 30}, "5M"));
+            }
+            newReads.put(sample, sampleNewReads);
+        }
+        result.addReads(newReads, -1.5);
+        final Allele newAllele = Allele.create("ACCCCCAAAATTTAAAGGG".getBytes(), false);
+        result.addMissingAlleles(Collections.singletonList(newAllele), -2.5);
+
+        final double[][][] expectedLikelihoods = new double[samples.length][alleles.length + 1][];
+        for (int s = 0; s < samples.length; s++) {
+            final int keptReadCount = (original.sampleReadCount(s) + 1) / 2;
+            final int newReadCount = keptReadCount + newReads.get(samples[s]).size();
+            Assert.assertEquals(result.sampleReadCount(s), newReadCount);
+            for (int a = 0; a <= alleles.length; a++) {
+                expectedLikelihoods[s][a] = new double[newReadCount];
+                for (int r = 0; r < newReadCount; r++) {
+                    expectedLikelihoods[s][a][r] = a == alleles.length ? -2.5 : r >= keptReadCount ? -1.5 : original.sampleMatrix(s).get(a, r << 1);
+                }
+                final double[] copied = new double[newReadCount + 1];
+                result.sampleMatrix(s).copyAlleleLikelihoods(a, copied, 1);
+                Assert.assertEquals(Arrays.copyOfRange(copied, 1, copied.length), expectedLikelihoods[s][a]);
+            }
+            for (int r = 0; r < newReadCount; r++) {
+                Assert.assertEquals(result.readIndex(s, result.sampleMatrix(s).getRead(r)), r);
+            }
+        }
+        testLikelihoodMatrixQueries(samples, result, expectedLikelihoods);
+    }
+
     @Test(dataProvider = "marginalizationDataSets")
     public void testMarginalizationWithOverlap(final String[] samples, final Allele[] alleles, final Map<String,List<GATKRead>> reads, final Map<Allele,List<Allele>> newToOldAlleleMapping) {
         final ReadLikelihoods<Allele> original = new ReadLikelihoods<>(new IndexedSampleList(samples), new IndexedAlleleList<>(alleles), reads);
@@ -0,0 +1,86 @@
+package org.broadinstitute.hellbender.utils.io;
+
+import htsjdk.samtools.util.BlockCompressedInputStream;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class ParallelBlockCompressedOutputStreamUnitTest extends GATKBaseTest {
+
+    @DataProvider(name = "CompressionData")
+    public Object[][] getCompressionData() {
+        // number of bytes, compression level, number of threads
+        return new Object[][] {
+                { 0, 5, 2 },
+                { 1, 5, 2 },
+                { 65497, 5, 2 },
+                { 65498, 5, 2 },
+                { 65499, 5, 2 },
+                { 1_000_000, 1, 1 },
+                { 1_000_000, 5, 4 },
+                { 1_000_000, 9, 3 },
+                { 1_000_000, 0, 4 }
+        };
+    }
+
+    @Test(dataProvider = "CompressionData")
+    public void testIdenticalToSerialCompression( final int numBytes, final int compressionLevel, final int numThreads ) throws IOException {
+        final Random random = new Random(numBytes);
+        final byte[] data = new byte[numBytes];
+        for ( int i = 0; i < numBytes; ++i ) {
+            data[i] = (byte)"ACGT".charAt(random.nextInt(4));
+        }
+
+        final ByteArrayOutputStream serialBytes = new ByteArrayOutputStream();
+        final ByteArrayOutputStream parallelBytes = new ByteArrayOutputStream();
+        final List<Long> serialPointers = new ArrayList<>();
+        final List<Long> provisionalPointers = new ArrayList<>();
+
+        final ParallelBlockCompressedOutputStream parallelStream = new ParallelBlockCompressedOutputStream(parallelBytes, compressionLevel, numThreads);
+        try ( final BlockCompressedOutputStream serialStream = new BlockCompressedOutputStream(serialBytes, (File)null, compressionLevel) ) {
+            int offset = 0;
+            while ( offset < numBytes ) {
+                final int length = Math.min(numBytes - offset, 1 + random.nextInt(10_000));
+                serialStream.write(data, offset, length);
+                parallelStream.write(data, offset, length);
+                offset += length;
+                serialPointers.add(serialStream.getFilePointer());
+                provisionalPointers.add(parallelStream.getFilePointer());
+            }
+        }
+
+        final List<Long> resolvedPointers = new ArrayList<>();
+        for ( final long pointer : provisionalPointers ) {
+            resolvedPointers.add(parallelStream.resolveFilePointer(pointer));
+        }
+        parallelStream.close();
+
+        Assert.assertEquals(parallelBytes.toByteArray(), serialBytes.toByteArray(), "parallel compression differs from serial compression");
+        Assert.assertEquals(resolvedPointers, serialPointers, "resolved file pointers differ from those of serial compression");
+
+        try ( final BlockCompressedInputStream in = new BlockCompressedInputStream(new ByteArrayInputStream(parallelBytes.toByteArray())) ) {
+            final ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int n;
+            while ( (n = in.read(buffer)) > 0 ) {
+                decompressed.write(buffer, 0, n);
+            }
+            Assert.assertEquals(decompressed.toByteArray(), data);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidNumThreads() {
+        new ParallelBlockCompressedOutputStream(new ByteArrayOutputStream(), 5, 0);
+    }
+}
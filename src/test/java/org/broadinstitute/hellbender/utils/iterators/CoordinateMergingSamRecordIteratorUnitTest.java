@@ -0,0 +1,142 @@
+package org.broadinstitute.hellbender.utils.iterators;
+
+import htsjdk.samtools.*;
+import htsjdk.samtools.util.CloseableIterator;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+public class CoordinateMergingSamRecordIteratorUnitTest extends GATKBaseTest {
+
+    /**
+     * Make an input with reads at random positions on the first few contigs, some of them at positions shared by all
+     * inputs, plus a few unmapped reads. Each input has its own sample in a read group with the same ID, so that read
+     * group IDs collide when the inputs are merged.
+     */
+    private static SAMRecordSetBuilder makeInput( final int inputIndex, final int numReads ) {
+        final SAMRecordSetBuilder builder = new SAMRecordSetBuilder(true, SAMFileHeader.SortOrder.coordinate);
+        builder.setRandomSeed(inputIndex);
+        final SAMReadGroupRecord readGroup = new SAMReadGroupRecord("rg");
+        readGroup.setSample("sample" + inputIndex);
+        builder.setReadGroup(readGroup);
+
+        final Random random = new Random(inputIndex);
+        for ( int i = 0; i < numReads; ++i ) {
+            builder.addFrag("read" + inputIndex + "_" + i, random.nextInt(3), 1 + random.nextInt(1000), random.nextBoolean());
+        }
+        builder.addFrag("shared" + inputIndex, 1, 500, false);
+        builder.addUnmappedFragment("unmapped" + inputIndex);
+        return builder;
+    }
+
+    private static String describe( final SAMRecord read ) {
+        return String.join(":", read.getReadName(), read.getReferenceName(), Integer.toString(read.getAlignmentStart()),
+                           String.valueOf(read.getAttribute(SAMTag.RG.name())));
+    }
+
+    @DataProvider(name = "MergeTestData")
+    public Object[][] getMergeTestData() {
+        return new Object[][] {
+                { 1, 0 },
+                { 1, 100 },
+                { 2, 100 },
+                { 5, 50 },
+                { 20, 10 }
+        };
+    }
+
+    @Test(dataProvider = "MergeTestData")
+    public void testMergeMatchesHtsjdk( final int numInputs, final int numReadsPerInput ) {
+        final List<SAMRecordSetBuilder> builders = new ArrayList<>();
+        for ( int i = 0; i < numInputs; ++i ) {
+            builders.add(makeInput(i, numReadsPerInput));
+        }
+
+        // Expected results from htsjdk's merging iterator
+        final Map<SamReader, CloseableIterator<SAMRecord>> htsjdkInputs = new LinkedHashMap<>();
+        final List<SAMFileHeader> htsjdkHeaders = new ArrayList<>();
+        for ( final SAMRecordSetBuilder builder : builders ) {
+            final SamReader reader = builder.getSamReader();
+            htsjdkInputs.put(reader, reader.iterator());
+            htsjdkHeaders.add(reader.getFileHeader());
+        }
+        final SamFileHeaderMerger htsjdkHeaderMerger = new SamFileHeaderMerger(SAMFileHeader.SortOrder.coordinate, htsjdkHeaders, true);
+        final List<String> expected = new ArrayList<>();
+        final MergingSamRecordIterator htsjdkIterator = new MergingSamRecordIterator(htsjdkHeaderMerger, htsjdkInputs, true);
+        htsjdkIterator.forEachRemaining(read -> expected.add(describe(read)));
+        htsjdkIterator.close();
+
+        final List<SamReader> readers = new ArrayList<>();
+        final List<SAMFileHeader> headers = new ArrayList<>();
+        for ( final SAMRecordSetBuilder builder : builders ) {
+            readers.add(builder.getSamReader());
+            headers.add(readers.get(readers.size() - 1).getFileHeader());
+        }
+        final SamFileHeaderMerger headerMerger = new SamFileHeaderMerger(SAMFileHeader.SortOrder.coordinate, headers, true);
+        final CoordinateMergingSamRecordIterator.HeaderTranslation translation = new CoordinateMergingSamRecordIterator.HeaderTranslation(headerMerger, headers);
+        Assert.assertEquals(translation.getNumInputs(), numInputs);
+
+        // Make sure that the translation can be reused across iterations
+        for ( int iteration = 0; iteration < 2; ++iteration ) {
+            final List<CloseableIterator<SAMRecord>> iterators = new ArrayList<>();
+            for ( final SamReader reader : readers ) {
+                iterators.add(reader.iterator());
+            }
+
+            final SAMRecordCoordinateComparator comparator = new SAMRecordCoordinateComparator();
+            final List<String> actual = new ArrayList<>();
+            SAMRecord previous = null;
+            try ( final CoordinateMergingSamRecordIterator mergingIterator = new CoordinateMergingSamRecordIterator(translation, iterators) ) {
+                while ( mergingIterator.hasNext() ) {
+                    final SAMRecord read = mergingIterator.next();
+                    Assert.assertSame(read.getHeader(), headerMerger.getMergedHeader(), "Read not translated to the merged header");
+                    if ( previous != null ) {
+                        Assert.assertTrue(comparator.compare(previous, read) <= 0, "Reads out of order: " + describe(previous) + " before " + describe(read));
+                    }
+                    actual.add(describe(read));
+                    previous = read;
+                }
+            }
+
+            // htsjdk breaks ties between reads at identical positions arbitrarily, so compare only the sets of reads
+            Assert.assertEquals(actual.size(), expected.size());
+            Assert.assertEquals(new HashSet<>(actual), new HashSet<>(expected));
+        }
+    }
+
+    @Test(expectedExceptions = NoSuchElementException.class)
+    public void testNextWhenExhausted() {
+        final SAMRecordSetBuilder builder = makeInput(0, 0);
+        final SamReader reader = builder.getSamReader();
+        final List<SAMFileHeader> headers = Collections.singletonList(reader.getFileHeader());
+        final CoordinateMergingSamRecordIterator.HeaderTranslation translation =
+                new CoordinateMergingSamRecordIterator.HeaderTranslation(new SamFileHeaderMerger(SAMFileHeader.SortOrder.coordinate, headers, true), headers);
+
+        try ( final CoordinateMergingSamRecordIterator mergingIterator = new CoordinateMergingSamRecordIterator(translation, Collections.singletonList(reader.iterator())) ) {
+            mergingIterator.next();
+            mergingIterator.next();
+            Assert.assertFalse(mergingIterator.hasNext());
+            mergingIterator.next();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testWrongNumberOfInputs() {
+        final SamReader reader = makeInput(0, 10).getSamReader();
+        final List<SAMFileHeader> headers = Collections.singletonList(reader.getFileHeader());
+        final CoordinateMergingSamRecordIterator.HeaderTranslation translation =
+                new CoordinateMergingSamRecordIterator.HeaderTranslation(new SamFileHeaderMerger(SAMFileHeader.SortOrder.coordinate, headers, true), headers);
+
+        new CoordinateMergingSamRecordIterator(translation, Collections.emptyList());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testRejectsUnsortedMerge() {
+        final SamReader reader = makeInput(0, 10).getSamReader();
+        final List<SAMFileHeader> headers = Collections.singletonList(reader.getFileHeader());
+        new CoordinateMergingSamRecordIterator.HeaderTranslation(new SamFileHeaderMerger(SAMFileHeader.SortOrder.unsorted, headers, true), headers);
+    }
+}
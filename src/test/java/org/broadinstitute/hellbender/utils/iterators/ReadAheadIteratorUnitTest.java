@@ -0,0 +1,170 @@
+package org.broadinstitute.hellbender.utils.iterators;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class ReadAheadIteratorUnitTest extends GATKBaseTest {
+
+    @DataProvider(name = "ReadAheadData")
+    public Object[][] getReadAheadData() {
+        // number of records, batch size, number of batches
+        return new Object[][] {
+                { 0, 1, 1 },
+                { 1, 1, 1 },
+                { 10, 1, 1 },
+                { 10, 3, 2 },
+                { 10, 10, 4 },
+                { 10, 100, 4 },
+                { 10_000, 7, 3 }
+        };
+    }
+
+    @Test(dataProvider = "ReadAheadData")
+    public void testReadAheadPreservesOrder( final int numRecords, final int batchSize, final int numBatches ) {
+        final List<Integer> expected = IntStream.range(0, numRecords).boxed().collect(Collectors.toList());
+        final AtomicInteger numMaterialized = new AtomicInteger();
+        final ReadAheadIterator.Statistics stats = new ReadAheadIterator.Statistics(numBatches);
+
+        final List<Integer> actual = new ArrayList<>();
+        try ( final ReadAheadIterator<Integer> iter = new ReadAheadIterator<>(expected.iterator(), i -> numMaterialized.incrementAndGet(), batchSize, numBatches, stats, "test") ) {
+            while ( iter.hasNext() ) {
+                actual.add(iter.next());
+            }
+            Assert.assertFalse(iter.hasNext(), "iterator should remain exhausted");
+        }
+
+        Assert.assertEquals(actual, expected, "wrong records returned");
+        Assert.assertEquals(numMaterialized.get(), numRecords, "each record should have been materialized exactly once");
+        // one more than the number of data batches, for the end of the data
+        Assert.assertEquals(stats.getBatchesConsumed(), (numRecords + batchSize - 1) / batchSize + 1, "wrong number of batches consumed");
+    }
+
+    @Test(expectedExceptions = NoSuchElementException.class)
+    public void testNextWhenExhausted() {
+        try ( final ReadAheadIterator<Integer> iter = new ReadAheadIterator<>(new ArrayList<Integer>().iterator(), null, 1, 1, null, "test") ) {
+            iter.next();
+        }
+    }
+
+    @Test
+    public void testExceptionPropagatesAfterEarlierRecords() {
+        final Iterator<Integer> failingIter = new Iterator<Integer>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                if ( next == 5 ) {
+                    throw new IllegalStateException("boom");
+                }
+                return next++;
+            }
+        };
+
+        final List<Integer> seen = new ArrayList<>();
+        try ( final ReadAheadIterator<Integer> iter = new ReadAheadIterator<>(failingIter, null, 2, 2, null, "test") ) {
+            while ( iter.hasNext() ) {
+                seen.add(iter.next());
+            }
+            Assert.fail("exception from the wrapped iterator was not rethrown");
+        } catch ( final IllegalStateException e ) {
+            Assert.assertEquals(e.getMessage(), "boom");
+        }
+        Assert.assertEquals(seen, IntStream.range(0, 4).boxed().collect(Collectors.toList()), "records in complete batches before the failure should be returned");
+    }
+
+    @Test
+    public void testCloseBeforeExhaustedStopsProducer() {
+        final AtomicInteger numPulled = new AtomicInteger();
+        final Iterator<Integer> infiniteIter = new Iterator<Integer>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                return numPulled.getAndIncrement();
+            }
+        };
+
+        final ReadAheadIterator<Integer> iter = new ReadAheadIterator<>(infiniteIter, null, 10, 2, null, "test");
+        Assert.assertEquals(iter.next().intValue(), 0);
+        iter.close();
+
+        // The producer has been joined, so no more records may be pulled from the wrapped iterator
+        final int pulledAtClose = numPulled.get();
+        Assert.assertTrue(pulledAtClose <= 10 * 4, "producer read too far ahead: " + pulledAtClose);
+        Assert.assertEquals(numPulled.get(), pulledAtClose);
+
+        // closing twice is harmless
+        iter.close();
+    }
+
+    @Test
+    public void testCloseDoesNotInterruptProducer() throws InterruptedException {
+        final CountDownLatch producerWaiting = new CountDownLatch(1);
+        final CountDownLatch releaseProducer = new CountDownLatch(1);
+        final AtomicBoolean producerInterrupted = new AtomicBoolean(false);
+        final Iterator<Integer> blockingIter = new Iterator<Integer>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                // Stand-in for a read from an NIO channel, which an interrupt would close
+                if ( next == 1 ) {
+                    producerWaiting.countDown();
+                    try {
+                        releaseProducer.await();
+                    } catch ( final InterruptedException e ) {
+                        producerInterrupted.set(true);
+                    }
+                }
+                return next++;
+            }
+        };
+
+        final ReadAheadIterator<Integer> iter = new ReadAheadIterator<>(blockingIter, null, 1, 1, null, "test");
+        Assert.assertEquals(iter.next().intValue(), 0);
+        producerWaiting.await();
+
+        final Thread closer = new Thread(iter::close);
+        closer.start();
+        closer.join(100);
+        releaseProducer.countDown();
+        closer.join();
+
+        Assert.assertFalse(producerInterrupted.get(), "close() interrupted the producer");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidBatchSize() {
+        new ReadAheadIterator<>(new ArrayList<Integer>().iterator(), null, 0, 1, null, "test");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidNumBatches() {
+        new ReadAheadIterator<>(new ArrayList<Integer>().iterator(), null, 1, 0, null, "test");
+    }
+}
@@ -0,0 +1,85 @@
+package org.broadinstitute.hellbender.utils.locusiterator;
+
+import htsjdk.samtools.SAMFileHeader;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.pileup.PileupElement;
+import org.broadinstitute.hellbender.utils.pileup.ReadPileup;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public final class CompactPileupUnitTest extends GATKBaseTest {
+    private static final SAMFileHeader HEADER = ArtificialReadUtils.createArtificialSamHeader(1, 1, 1000);
+
+    /**
+     * @return the state of a new read with a deletion, stepped forward onto its nth base on the genome
+     */
+    private static AlignmentStateMachine makeState(final int n) {
+        final GATKRead read = ArtificialReadUtils.createArtificialRead(HEADER, "read", 0, 10,
+                new byte[]{'A', 'C', 'G', 'T'}, new byte[]{10, 20, 30, 40}, "2M1D2M");
+        final AlignmentStateMachine state = new AlignmentStateMachine(read);
+        for ( int i = 0; i <= n; i++ ) {
+            state.stepForwardOnGenome();
+        }
+        return state;
+    }
+
+    @Test
+    public void testElements() {
+        final CompactPileup pileup = new CompactPileup();
+        pileup.reset("1", 12);
+        Assert.assertTrue(pileup.isEmpty());
+        final AlignmentStateMachine base = makeState(1);
+        final AlignmentStateMachine deletion = makeState(2);
+        pileup.add(base);
+        pileup.add(deletion);
+
+        Assert.assertEquals(pileup.size(), 2);
+        Assert.assertEquals(pileup.getLocation(), new SimpleInterval("1", 12, 12));
+        for ( int i = 0; i < pileup.size(); i++ ) {
+            final PileupElement element = (i == 0 ? base : deletion).makePileupElement();
+            Assert.assertSame(pileup.getRead(i), element.getRead());
+            Assert.assertEquals(pileup.getOffset(i), element.getOffset());
+            Assert.assertEquals(pileup.isDeletion(i), element.isDeletion());
+            Assert.assertEquals(pileup.getBase(i), element.getBase());
+            Assert.assertEquals(pileup.getQual(i), element.getQual());
+            Assert.assertEquals(pileup.getMappingQual(i), element.getMappingQual());
+            Assert.assertEquals(pileup.makePileupElement(i).getCurrentCigarElement(), element.getCurrentCigarElement());
+        }
+        Assert.assertEquals(pileup.getBase(0), (byte) 'C');
+        Assert.assertEquals(pileup.getQual(0), 20);
+        Assert.assertTrue(pileup.isDeletion(1));
+        Assert.assertEquals(pileup.getBase(1), PileupElement.DELETION_BASE);
+
+        final ReadPileup readPileup = pileup.makeReadPileup();
+        Assert.assertEquals(readPileup.getLocation(), pileup.getLocation());
+        Assert.assertEquals(readPileup.getBases(), new byte[]{'C', PileupElement.DELETION_BASE});
+    }
+
+    @Test
+    public void testReuse() {
+        final CompactPileup pileup = new CompactPileup();
+        pileup.reset("1", 10);
+        // more elements than the initial capacity
+        for ( int i = 0; i < 1000; i++ ) {
+            pileup.add(makeState(i % 4));
+        }
+        Assert.assertEquals(pileup.size(), 1000);
+        Assert.assertEquals(pileup.getOffset(999), makeState(3).getReadOffset());
+
+        pileup.reset("1", 11);
+        Assert.assertTrue(pileup.isEmpty());
+        Assert.assertEquals(pileup.getPosition(), 11);
+        Assert.assertTrue(pileup.makePileupElements().isEmpty());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testIndexPastSize() {
+        final CompactPileup pileup = new CompactPileup();
+        pileup.reset("1", 10);
+        pileup.add(makeState(0));
+        pileup.getBase(1);
+    }
+}
@@ -775,4 +775,102 @@ public final class LocusIteratorByStateUnitTest extends LocusIteratorByStateBase
         final int nExpectedPileups = nReadContainingPileups;
         Assert.assertEquals(nPileups, nExpectedPileups, "\"Wrong number of pileups seen for " + read + " with " + nClipsOnLeft + " clipped bases.");
     }
+
+    ////////////////////////////
+    // compact pileup tests   //
+    ////////////////////////////
+
+    /**
+     * @return sorted reads of 20 bases with indels, skips and soft clips, many of them starting at each position
+     */
+    private List<GATKRead> makeReadsWithIndels(final Random random) {
+        final String[] cigars = {"20M", "5M2D15M", "8M3I9M", "4M10N16M", "3S17M", "10M1I2D9M"};
+        final List<GATKRead> reads = new ArrayList<>();
+        for ( int start = 1; start <= 100; start++ ) {
+            for ( int i = 0, n = random.nextInt(20); i < n; i++ ) {
+                final byte[] bases = new byte[20];
+                final byte[] quals = new byte[20];
+                for ( int j = 0; j < 20; j++ ) {
+                    bases[j] = "ACGT".getBytes()[random.nextInt(4)];
+                    quals[j] = (byte) random.nextInt(40);
+                }
+                final GATKRead read = ArtificialReadUtils.createArtificialRead(header, "read" + reads.size(), 0, start, bases, quals, cigars[random.nextInt(cigars.length)]);
+                read.setMappingQuality(random.nextInt(60));
+                reads.add(read);
+            }
+        }
+        return reads;
+    }
+
+    @DataProvider(name = "CompactPileupTest")
+    public Object[][] makeCompactPileupTest() {
+        final List<Object[]> tests = new ArrayList<>();
+        for ( final int downsampleTo : Arrays.asList(-1, 3, 10) ) {
+            for ( final boolean includeDeletions : Arrays.asList(true, false) ) {
+                for ( final boolean includeNs : Arrays.asList(true, false) ) {
+                    tests.add(new Object[]{downsampleTo, includeDeletions, includeNs});
+                }
+            }
+        }
+        return tests.toArray(new Object[][]{});
+    }
+
+    @Test(dataProvider = "CompactPileupTest")
+    public void testCompactPileupsMatchAlignmentContexts(final int downsampleTo, final boolean includeDeletions, final boolean includeNs) {
+        final List<GATKRead> reads = makeReadsWithIndels(new Random(downsampleTo));
+        final DownsamplingMethod downsampling = downsampleTo == -1
+                ? DownsamplingMethod.NONE
+                : new DownsamplingMethod(DownsampleType.BY_SAMPLE, downsampleTo, null);
+
+        // the downsampler must select the same reads in both passes
+        Utils.resetRandomGenerator();
+        final LocusIteratorByState contextLIBS = new LocusIteratorByState(reads.iterator(), downsampling, false,
+                sampleListForSAMWithoutReadGroups(), header, includeDeletions, includeNs);
+        final List<ReadPileup> expectedPileups = new ArrayList<>();
+        while ( contextLIBS.hasNext() ) {
+            expectedPileups.add(contextLIBS.next().getBasePileup());
+        }
+
+        Utils.resetRandomGenerator();
+        final LocusIteratorByState compactLIBS = new LocusIteratorByState(reads.iterator(), downsampling, false,
+                sampleListForSAMWithoutReadGroups(), header, includeDeletions, includeNs);
+        CompactPileup previous = null;
+        int nPileups = 0;
+        for ( CompactPileup pileup = compactLIBS.nextCompactPileup(); pileup != null; pileup = compactLIBS.nextCompactPileup() ) {
+            if ( previous != null ) {
+                Assert.assertSame(pileup, previous, "the compact pileup should be reused");
+            }
+            previous = pileup;
+
+            final ReadPileup expected = expectedPileups.get(nPileups++);
+            Assert.assertEquals(pileup.getLocation(), expected.getLocation());
+            Assert.assertEquals(pileup.size(), expected.size(), "size of the pileup at " + expected.getLocation());
+            int i = 0;
+            for ( final PileupElement element : expected ) {
+                Assert.assertSame(pileup.getRead(i), element.getRead());
+                Assert.assertEquals(pileup.getOffset(i), element.getOffset());
+                Assert.assertEquals(pileup.isDeletion(i), element.isDeletion());
+                Assert.assertEquals(pileup.getBase(i), element.getBase());
+                Assert.assertEquals(pileup.getQual(i), element.getQual());
+                Assert.assertEquals(pileup.getMappingQual(i), element.getMappingQual());
+
+                final PileupElement made = pileup.makePileupElement(i);
+                Assert.assertSame(made.getRead(), element.getRead());
+                Assert.assertEquals(made.getOffset(), element.getOffset());
+                Assert.assertSame(made.getCurrentCigarElement(), element.getCurrentCigarElement());
+                Assert.assertEquals(made.getCurrentCigarOffset(), element.getCurrentCigarOffset());
+                Assert.assertEquals(made.getOffsetInCurrentCigar(), element.getOffsetInCurrentCigar());
+                i++;
+            }
+        }
+        Assert.assertEquals(nPileups, expectedPileups.size());
+        Assert.assertFalse(compactLIBS.hasNext());
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testCompactPileupAfterHasNext() {
+        final LocusIteratorByState libs = makeLIBS(makeReadsWithIndels(new Random(1)), header);
+        Assert.assertTrue(libs.hasNext());
+        libs.nextCompactPileup();
+    }
 }
@@ -0,0 +1,262 @@
+package org.broadinstitute.hellbender.utils.pairhmm;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedAlleleList;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedSampleList;
+import org.broadinstitute.hellbender.utils.genotyper.LikelihoodMatrix;
+import org.broadinstitute.hellbender.utils.genotyper.ReadLikelihoods;
+import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadUtils;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import picard.util.BasicInputParser;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.util.*;
+
+public final class AntiDiagonalLoglessPairHMMUnitTest extends GATKBaseTest {
+
+    private static final String pairHMMTestData = publicTestDir + "pairhmm-testdata.txt";
+
+    private static byte[] randomBases(final Random random, final int length) {
+        final byte[] alphabet = "ACGTN".getBytes();
+        final byte[] bases = new byte[length];
+        for ( int i = 0; i < length; i++ ) {
+            bases[i] = alphabet[random.nextInt(100) == 0 ? 4 : random.nextInt(4)];
+        }
+        return bases;
+    }
+
+    private static byte[] randomQuals(final Random random, final int length, final int min, final int max) {
+        final byte[] quals = new byte[length];
+        for ( int i = 0; i < length; i++ ) {
+            quals[i] = (byte)(min + random.nextInt(max - min + 1));
+        }
+        return quals;
+    }
+
+    /**
+     * Mutate a copy of bases with substitutions, insertions and deletions at the given rate
+     */
+    private static byte[] mutate(final Random random, final byte[] bases, final double rate) {
+        final StringBuilder builder = new StringBuilder();
+        for ( final byte base : bases ) {
+            final double r = random.nextDouble();
+            if ( r < rate / 3 ) {
+                builder.append("ACGT".charAt(random.nextInt(4)));
+            } else if ( r < 2 * rate / 3 ) {
+                builder.append((char)base).append("ACGT".charAt(random.nextInt(4)));
+            } else if ( r >= rate ) {
+                builder.append((char)base);
+            }
+        }
+        return builder.toString().getBytes();
+    }
+
+    @DataProvider(name = "RandomReadsAndHaplotypes")
+    public Object[][] makeRandomReadsAndHaplotypes() {
+        final List<Object[]> tests = new ArrayList<>();
+        for ( final int haplotypeLength : Arrays.asList(1, 10, 100, 400) ) {
+            for ( final int readLength : Arrays.asList(1, 5, 50, 150) ) {
+                for ( final double errorRate : Arrays.asList(0.0, 0.02, 0.3) ) {
+                    tests.add(new Object[]{haplotypeLength, readLength, errorRate});
+                }
+            }
+        }
+        return tests.toArray(new Object[][]{});
+    }
+
+    /**
+     * Compute the likelihood of every read given every haplotype with the given PairHMM, one pair at a time
+     */
+    private static double[][] computeLikelihoods(final PairHMM hmm, final List<byte[]> haplotypes, final List<GATKRead> reads, final byte gcp) {
+        final double[][] likelihoods = new double[reads.size()][haplotypes.size()];
+        for ( int r = 0; r < reads.size(); r++ ) {
+            final GATKRead read = reads.get(r);
+            final byte[] gcps = new byte[read.getLength()];
+            Arrays.fill(gcps, gcp);
+            for ( int h = 0; h < haplotypes.size(); h++ ) {
+                likelihoods[r][h] = hmm.computeReadLikelihoodGivenHaplotypeLog10(haplotypes.get(h), read.getBases(), read.getBaseQualities(),
+                        ReadUtils.getBaseInsertionQualities(read), ReadUtils.getBaseDeletionQualities(read), gcps, h == 0, null);
+            }
+        }
+        return likelihoods;
+    }
+
+    @Test(dataProvider = "RandomReadsAndHaplotypes")
+    public void testMatchesLoglessPairHMM(final int haplotypeLength, final int readLength, final double errorRate) {
+        final Random random = new Random(haplotypeLength * 1000 + readLength);
+        final List<byte[]> haplotypes = new ArrayList<>();
+        final byte[] reference = randomBases(random, haplotypeLength);
+        haplotypes.add(reference);
+        haplotypes.add(mutate(random, reference, 0.05));
+        haplotypes.add(randomBases(random, haplotypeLength / 2 + 1));
+
+        final List<GATKRead> reads = new ArrayList<>();
+        for ( int i = 0; i < 5; i++ ) {
+            final byte[] haplotype = haplotypes.get(i % haplotypes.size());
+            final int start = random.nextInt(Math.max(haplotype.length - readLength, 0) + 1);
+            final byte[] source = Arrays.copyOfRange(haplotype, start, Math.min(start + readLength, haplotype.length));
+            byte[] bases = mutate(random, source, errorRate);
+            if ( bases.length == 0 ) {
+                bases = randomBases(random, 1);
+            }
+            final GATKRead read = ArtificialReadUtils.createArtificialRead(bases, randomQuals(random, bases.length, 6, 40), bases.length + "M");
+            ReadUtils.setInsertionBaseQualities(read, randomQuals(random, bases.length, 30, 45));
+            ReadUtils.setDeletionBaseQualities(read, randomQuals(random, bases.length, 30, 45));
+            reads.add(read);
+        }
+
+        final int maxReadLength = reads.stream().mapToInt(GATKRead::getLength).max().getAsInt();
+        final int maxHaplotypeLength = haplotypes.stream().mapToInt(h -> h.length).max().getAsInt();
+        final PairHMM logless = new LoglessPairHMM();
+        final PairHMM antiDiagonalDouble = new AntiDiagonalLoglessPairHMM(true);
+        final PairHMM antiDiagonal = new AntiDiagonalLoglessPairHMM();
+        for ( final PairHMM hmm : Arrays.asList(logless, antiDiagonalDouble, antiDiagonal) ) {
+            hmm.initialize(maxReadLength, maxHaplotypeLength);
+        }
+
+        final double[][] expected = computeLikelihoods(logless, haplotypes, reads, (byte)10);
+        final double[][] actualDouble = computeLikelihoods(antiDiagonalDouble, haplotypes, reads, (byte)10);
+        final double[][] actual = computeLikelihoods(antiDiagonal, haplotypes, reads, (byte)10);
+        for ( int r = 0; r < reads.size(); r++ ) {
+            for ( int h = 0; h < haplotypes.size(); h++ ) {
+                // double precision performs exactly the same operations as LoglessPairHMM
+                Assert.assertEquals(actualDouble[r][h], expected[r][h], 0.0);
+                Assert.assertEquals(actual[r][h], expected[r][h], 1e-4 * Math.max(1.0, -expected[r][h]));
+            }
+        }
+    }
+
+    @Test
+    public void testFallBackToDoublePrecision() {
+        // a long read that mismatches the haplotype at high quality is far too unlikely to compute in single precision
+        final byte[] haplotype = new byte[300];
+        Arrays.fill(haplotype, (byte)'A');
+        final byte[] read = new byte[250];
+        Arrays.fill(read, (byte)'C');
+        final byte[] quals = new byte[read.length];
+        Arrays.fill(quals, (byte)40);
+        final byte[] gcps = new byte[read.length];
+        Arrays.fill(gcps, (byte)10);
+
+        final PairHMM logless = new LoglessPairHMM();
+        final PairHMM antiDiagonal = new AntiDiagonalLoglessPairHMM();
+        logless.initialize(read.length, haplotype.length);
+        antiDiagonal.initialize(read.length, haplotype.length);
+        final double expected = logless.computeReadLikelihoodGivenHaplotypeLog10(haplotype, read, quals, quals, quals, gcps, true, null);
+        final double actual = antiDiagonal.computeReadLikelihoodGivenHaplotypeLog10(haplotype, read, quals, quals, quals, gcps, true, null);
+        Assert.assertTrue(expected < -100, "test read is not unlikely enough: " + expected);
+        Assert.assertEquals(actual, expected, 0.0);
+    }
+
+    @Test
+    public void testOtherBases() {
+        // bases other than A, C, G, T and N match only themselves (and N)
+        final List<byte[]> haplotypes = Arrays.asList("ACGTRYACGTNNACGT".getBytes(), "ACGTACGTacgtRRWW".getBytes(), "RYACGTMK".getBytes());
+        final List<GATKRead> reads = new ArrayList<>();
+        for ( final String bases : Arrays.asList("ACGTRYAC", "GTNRACGT", "acgtRR", "RYMKN") ) {
+            reads.add(ArtificialReadUtils.createArtificialRead(bases.getBytes(), Utils.dupBytes((byte)30, bases.length()), bases.length() + "M"));
+        }
+
+        final PairHMM logless = new LoglessPairHMM();
+        final PairHMM antiDiagonal = new AntiDiagonalLoglessPairHMM(true);
+        logless.initialize(8, 16);
+        antiDiagonal.initialize(8, 16);
+        final double[][] expected = computeLikelihoods(logless, haplotypes, reads, (byte)10);
+        final double[][] actual = computeLikelihoods(antiDiagonal, haplotypes, reads, (byte)10);
+        for ( int r = 0; r < reads.size(); r++ ) {
+            Assert.assertEquals(actual[r], expected[r]);
+        }
+    }
+
+    @Test
+    public void testComputeLog10Likelihoods() {
+        final Random random = new Random(13);
+        final List<Haplotype> haplotypes = new ArrayList<>();
+        final byte[] reference = randomBases(random, 200);
+        haplotypes.add(new Haplotype(reference, true));
+        for ( int i = 0; i < 4; i++ ) {
+            haplotypes.add(new Haplotype(mutate(random, reference, 0.03), false));
+        }
+
+        final List<GATKRead> reads = new ArrayList<>();
+        final Map<GATKRead, byte[]> gcps = new LinkedHashMap<>();
+        for ( int i = 0; i < 20; i++ ) {
+            final int readLength = 20 + random.nextInt(100);
+            final int start = random.nextInt(reference.length - readLength);
+            final byte[] bases = mutate(random, Arrays.copyOfRange(haplotypes.get(i % haplotypes.size()).getBases(), start, start + readLength), 0.01);
+            final GATKRead read = ArtificialReadUtils.createArtificialRead(bases, randomQuals(random, bases.length, 10, 40), bases.length + "M");
+            reads.add(read);
+            final byte[] gcp = new byte[bases.length];
+            Arrays.fill(gcp, (byte)10);
+            gcps.put(read, gcp);
+        }
+
+        final ReadLikelihoods<Haplotype> expected = new ReadLikelihoods<>(new IndexedSampleList("sample"),
+                new IndexedAlleleList<>(haplotypes), Collections.singletonMap("sample", reads));
+        final ReadLikelihoods<Haplotype> actual = new ReadLikelihoods<>(new IndexedSampleList("sample"),
+                new IndexedAlleleList<>(haplotypes), Collections.singletonMap("sample", reads));
+        final LikelihoodMatrix<Haplotype> expectedMatrix = expected.sampleMatrix(0);
+        final LikelihoodMatrix<Haplotype> actualMatrix = actual.sampleMatrix(0);
+
+        final PairHMM logless = new LoglessPairHMM();
+        final PairHMM antiDiagonal = new AntiDiagonalLoglessPairHMM();
+        logless.computeLog10Likelihoods(expectedMatrix, reads, gcps);
+        antiDiagonal.computeLog10Likelihoods(actualMatrix, reads, gcps);
+
+        final double[] expectedArray = logless.getLogLikelihoodArray();
+        final double[] actualArray = antiDiagonal.getLogLikelihoodArray();
+        Assert.assertEquals(actualArray.length, expectedArray.length);
+        for ( int i = 0; i < expectedArray.length; i++ ) {
+            Assert.assertEquals(actualArray[i], expectedArray[i], 1e-4);
+        }
+        for ( int h = 0; h < haplotypes.size(); h++ ) {
+            for ( int r = 0; r < reads.size(); r++ ) {
+                Assert.assertEquals(actualMatrix.get(h, r), expectedMatrix.get(h, r), 1e-4);
+            }
+        }
+    }
+
+    @Test
+    public void testLikelihoodsFromTestData() {
+        final PairHMM hmm = PairHMM.Implementation.ANTIDIAGONAL_LOGLESS_CACHING.makeNewHMM(null);
+        Assert.assertTrue(hmm instanceof AntiDiagonalLoglessPairHMM);
+
+        BasicInputParser parser = null;
+        try {
+            parser = new BasicInputParser(true, new FileInputStream(pairHMMTestData));
+        } catch (FileNotFoundException e) {
+            Assert.fail("PairHMM test data not found : " + pairHMMTestData);
+        }
+
+        while (parser.hasNext()) {
+            final String[] tokens = parser.next();
+            final byte[] haplotype = tokens[0].getBytes();
+            final byte[] bases = tokens[1].getBytes();
+            final byte[] baseQuals = normalize(tokens[2].getBytes(), 6);
+            final byte[] insertionQuals = normalize(tokens[3].getBytes(), 0);
+            final byte[] deletionQuals = normalize(tokens[4].getBytes(), 0);
+            final byte[] gcp = normalize(tokens[5].getBytes(), 0);
+            final double expectedResult = Double.parseDouble(tokens[6]);
+
+            hmm.initialize(bases.length, haplotype.length);
+            final double result = hmm.computeReadLikelihoodGivenHaplotypeLog10(haplotype, bases, baseQuals, insertionQuals, deletionQuals, gcp, true, null);
+            Assert.assertEquals(result, expectedResult, 1e-5, "Likelihood not in expected range.");
+        }
+        hmm.close();
+    }
+
+    private static byte[] normalize(final byte[] scores, final int min) {
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] -= 33;
+            scores[i] = scores[i] < min ? (byte)min : scores[i];
+        }
+        return scores;
+    }
+}
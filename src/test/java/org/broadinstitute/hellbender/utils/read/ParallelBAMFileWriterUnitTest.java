@@ -0,0 +1,70 @@
+package org.broadinstitute.hellbender.utils.read;
+
+import htsjdk.samtools.*;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ParallelBAMFileWriterUnitTest extends GATKBaseTest {
+
+    @DataProvider(name = "BAMWriterData")
+    public Object[][] getBAMWriterData() {
+        // number of reads, create index, number of threads
+        return new Object[][] {
+                { 0, true, 2 },
+                { 1, true, 2 },
+                { 50_000, true, 4 },
+                { 50_000, false, 3 }
+        };
+    }
+
+    @Test(dataProvider = "BAMWriterData")
+    public void testIdenticalToSerialWriter( final int numReads, final boolean createIndex, final int numThreads ) throws IOException {
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader(2, 1, 10_000_000);
+        header.setSortOrder(SAMFileHeader.SortOrder.coordinate);
+
+        final File tmpDir = createTempDir("parallelBAMWriterTest");
+        final Path serialOutput = new File(tmpDir, "serial.bam").toPath();
+        final Path parallelOutput = new File(tmpDir, "parallel.bam").toPath();
+
+        final SAMFileWriterFactory factory = new SAMFileWriterFactory().setCreateIndex(createIndex).setCreateMd5File(true).setUseAsyncIo(false);
+        try ( final SAMFileWriter serialWriter = factory.makeWriter(header, true, serialOutput, (Path)null);
+              final SAMFileWriter parallelWriter = ParallelBAMFileWriter.create(header, true, parallelOutput, createIndex, true,
+                                                                                BlockCompressedOutputStream.getDefaultCompressionLevel(), numThreads) ) {
+            for ( final SAMRecord read : makeReads(header, numReads) ) {
+                serialWriter.addAlignment(read);
+            }
+            for ( final SAMRecord read : makeReads(header, numReads) ) {
+                parallelWriter.addAlignment(read);
+            }
+        }
+
+        Assert.assertEquals(Files.readAllBytes(parallelOutput), Files.readAllBytes(serialOutput), "BAMs differ");
+        Assert.assertEquals(Files.readAllBytes(new File(tmpDir, "parallel.bam.md5").toPath()),
+                            Files.readAllBytes(new File(tmpDir, "serial.bam.md5").toPath()), "MD5s differ");
+        final File parallelIndex = new File(tmpDir, "parallel.bai");
+        Assert.assertEquals(parallelIndex.exists(), createIndex);
+        if ( createIndex ) {
+            Assert.assertEquals(Files.readAllBytes(parallelIndex.toPath()), Files.readAllBytes(new File(tmpDir, "serial.bai").toPath()), "indices differ");
+        }
+    }
+
+    private static List<SAMRecord> makeReads( final SAMFileHeader header, final int numReads ) {
+        final List<SAMRecord> reads = new ArrayList<>(numReads);
+        for ( int i = 0; i < numReads; ++i ) {
+            final int contig = i < numReads / 2 ? 0 : 1;
+            final int indexInContig = i - (contig == 0 ? 0 : numReads / 2);
+            reads.add(ArtificialReadUtils.createArtificialSAMRecord(header, "read" + i, contig, 1 + indexInContig * 37, 101));
+        }
+        return reads;
+    }
+}
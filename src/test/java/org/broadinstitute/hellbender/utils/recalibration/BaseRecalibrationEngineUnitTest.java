@@ -3,6 +3,7 @@ package org.broadinstitute.hellbender.utils.recalibration;
 import htsjdk.samtools.TextCigarCodec;
 import org.broadinstitute.hellbender.engine.ReferenceDataSource;
 import org.broadinstitute.hellbender.engine.ReferenceMemorySource;
+import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
@@ -93,6 +94,21 @@ public final class BaseRecalibrationEngineUnitTest {
         }
     }
 
+    @Test
+    public void fractionalErrorsIntoExistingArray() {
+        final byte[] baq = "FF@@@GGH@@I@".getBytes();
+        final int[] errors = {0, 1, 0, 0, 0, 1, 0, 0, 0, 1, 1, 0};
+        final double[] result = new double[baq.length];
+        Arrays.fill(result, -1.0);
+        BaseRecalibrationEngine.calculateFractionalErrorArray(errors, baq, result);
+        Assert.assertEquals(result, BaseRecalibrationEngine.calculateFractionalErrorArray(errors, baq));
+    }
+
+    @Test(expectedExceptions = GATKException.class)
+    public void fractionalErrorsIntoArrayOfWrongLength() {
+        BaseRecalibrationEngine.calculateFractionalErrorArray(new int[3], "@@@".getBytes(), new double[2]);
+    }
+
     @DataProvider(name = "CalculateIsIndelData")
     public Object[][] makeCalculateIsIndelData() {
         List<Object[]> tests = new ArrayList<>();
@@ -0,0 +1,159 @@
+package org.broadinstitute.hellbender.utils.recalibration;
+
+import org.apache.spark.SparkConf;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.testutils.SparkTestUtils;
+import org.broadinstitute.hellbender.utils.collections.NestedIntegerArray;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public final class FlatRecalibrationTableUnitTest extends GATKBaseTest {
+
+    /**
+     * Assert that the cells of flat are the same as the RecalDatums of expected, to the bit
+     */
+    private static void assertSameCells(final FlatRecalibrationTable flat, final NestedIntegerArray<RecalDatum> expected) {
+        final NestedIntegerArray<RecalDatum> actual = new NestedIntegerArray<>(flat.getDimensions());
+        flat.forEachCell((keys, numObservations, scaledMismatches, reportedQuality) ->
+                actual.put(RecalDatum.fromScaledCounts(numObservations, scaledMismatches, reportedQuality), keys.clone()));
+
+        Assert.assertEquals(flat.size(), expected.getAllLeaves().size());
+        Assert.assertEquals(actual.getAllLeaves().size(), expected.getAllLeaves().size());
+        for ( final NestedIntegerArray.Leaf<RecalDatum> leaf : expected.getAllLeaves() ) {
+            final RecalDatum datum = actual.get(leaf.keys);
+            Assert.assertNotNull(datum);
+            Assert.assertEquals(datum.getNumObservations(), leaf.value.getNumObservations());
+            Assert.assertEquals(Double.doubleToLongBits(datum.getNumMismatches()), Double.doubleToLongBits(leaf.value.getNumMismatches()));
+            Assert.assertEquals(datum.getEstimatedQReported(), leaf.value.getEstimatedQReported());
+        }
+    }
+
+    /**
+     * Count random observations in flat and, as BaseRecalibrationEngine used to, in the RecalDatums of nested
+     */
+    private static void fillRandomly(final Random random, final int numObservations, final FlatRecalibrationTable flat, final NestedIntegerArray<RecalDatum> nested) {
+        final int[] dimensions = flat.getDimensions();
+        for ( int n = 0; n < numObservations; n++ ) {
+            final int[] keys = new int[dimensions.length];
+            for ( int i = 0; i < keys.length; i++ ) {
+                keys[i] = random.nextInt(dimensions[i]);
+            }
+            final byte qual = (byte) (10 + random.nextInt(30));
+            // fractional errors, as with BAQ
+            final double isError = random.nextInt(4) == 0 ? random.nextDouble() : 0.0;
+            if ( keys.length == 3 ) {
+                flat.increment(qual, isError, keys[0], keys[1], keys[2]);
+                RecalUtils.incrementDatumOrPutIfNecessary3keys(nested, qual, isError, keys[0], keys[1], keys[2]);
+            } else {
+                flat.increment(qual, isError, keys[0], keys[1], keys[2], keys[3]);
+                RecalUtils.incrementDatumOrPutIfNecessary4keys(nested, qual, isError, keys[0], keys[1], keys[2], keys[3]);
+            }
+        }
+    }
+
+    @DataProvider(name = "dimensions")
+    public Object[][] makeDimensions() {
+        final List<Object[]> tests = new ArrayList<>();
+        tests.add(new Object[]{new int[]{3, 94, 3}, 1000});
+        tests.add(new Object[]{new int[]{2, 94, 1002, 3}, 20000});
+        // a sparse table, as for the context covariate, with many more cells than observations
+        tests.add(new Object[]{new int[]{4, 94, 1 << 20, 3}, 20000});
+        // few cells with many observations each
+        tests.add(new Object[]{new int[]{1, 2, 2, 1}, 1000});
+        return tests.toArray(new Object[][]{});
+    }
+
+    @Test(dataProvider = "dimensions")
+    public void testSameCountsAsRecalDatums(final int[] dimensions, final int numObservations) {
+        final FlatRecalibrationTable flat = new FlatRecalibrationTable(dimensions);
+        final NestedIntegerArray<RecalDatum> nested = new NestedIntegerArray<>(dimensions);
+        Assert.assertTrue(flat.isEmpty());
+        fillRandomly(new Random(numObservations), numObservations, flat, nested);
+        Assert.assertFalse(flat.isEmpty());
+        assertSameCells(flat, nested);
+    }
+
+    @Test(dataProvider = "dimensions")
+    public void testAdd(final int[] dimensions, final int numObservations) {
+        final Random random = new Random(numObservations);
+        final FlatRecalibrationTable flat1 = new FlatRecalibrationTable(dimensions);
+        final NestedIntegerArray<RecalDatum> nested1 = new NestedIntegerArray<>(dimensions);
+        fillRandomly(random, numObservations, flat1, nested1);
+        final FlatRecalibrationTable flat2 = new FlatRecalibrationTable(dimensions);
+        final NestedIntegerArray<RecalDatum> nested2 = new NestedIntegerArray<>(dimensions);
+        fillRandomly(random, numObservations / 2, flat2, nested2);
+
+        flat1.add(flat2);
+        for ( final NestedIntegerArray.Leaf<RecalDatum> leaf : nested2.getAllLeaves() ) {
+            final RecalDatum datum = nested1.get(leaf.keys);
+            if ( datum == null ) {
+                nested1.put(leaf.value, leaf.keys);
+            } else {
+                datum.increment(leaf.value.getNumObservations(), leaf.value.getNumMismatches());
+            }
+        }
+
+        Assert.assertEquals(flat1.size(), nested1.getAllLeaves().size());
+        flat1.forEachCell((keys, numObs, scaledMismatches, reportedQuality) -> {
+            final RecalDatum datum = nested1.get(keys);
+            Assert.assertNotNull(datum);
+            Assert.assertEquals(numObs, datum.getNumObservations());
+            Assert.assertEquals(scaledMismatches / RecalDatum.MULTIPLIER, datum.getNumMismatches(), 1e-9);
+            Assert.assertEquals((double) reportedQuality, datum.getEstimatedQReported());
+        });
+    }
+
+    @Test
+    public void testClear() {
+        final FlatRecalibrationTable flat = new FlatRecalibrationTable(2, 94, 1002, 3);
+        fillRandomly(new Random(1), 5000, flat, new NestedIntegerArray<>(flat.getDimensions()));
+        flat.clear();
+        Assert.assertTrue(flat.isEmpty());
+        flat.forEachCell((keys, numObservations, scaledMismatches, reportedQuality) -> Assert.fail("cleared table has a cell"));
+
+        final NestedIntegerArray<RecalDatum> nested = new NestedIntegerArray<>(flat.getDimensions());
+        fillRandomly(new Random(2), 100, flat, nested);
+        assertSameCells(flat, nested);
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        final FlatRecalibrationTable flat = new FlatRecalibrationTable(2, 94, 1002, 3);
+        final NestedIntegerArray<RecalDatum> nested = new NestedIntegerArray<>(flat.getDimensions());
+        fillRandomly(new Random(3), 5000, flat, nested);
+
+        final FlatRecalibrationTable roundTripped = SparkTestUtils.roundTripThroughJavaSerialization(flat);
+        assertSameCells(roundTripped, nested);
+        // the table must still be usable after deserialization
+        fillRandomly(new Random(4), 5000, roundTripped, nested);
+        assertSameCells(roundTripped, nested);
+
+        final FlatRecalibrationTable roundTrippedInKryo = SparkTestUtils.roundTripInKryo(roundTripped, FlatRecalibrationTable.class, new SparkConf());
+        assertSameCells(roundTrippedInKryo, nested);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testKeyTooLarge() {
+        new FlatRecalibrationTable(2, 94, 3).increment((byte) 20, 0.0, 0, 94, 0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNegativeKey() {
+        new FlatRecalibrationTable(2, 94, 10, 3).increment((byte) 20, 0.0, 0, 20, -1, 0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testWrongNumberOfKeys() {
+        new FlatRecalibrationTable(2, 94, 3).increment((byte) 20, 0.0, 0, 20, 0, 0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testAddDifferentDimensions() {
+        new FlatRecalibrationTable(2, 94, 3).add(new FlatRecalibrationTable(3, 94, 3));
+    }
+}
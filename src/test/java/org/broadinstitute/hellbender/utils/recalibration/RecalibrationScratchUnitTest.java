@@ -0,0 +1,201 @@
+package org.broadinstitute.hellbender.utils.recalibration;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMReadGroupRecord;
+import htsjdk.samtools.SAMUtils;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.tools.ApplyBQSRArgumentCollection;
+import org.broadinstitute.hellbender.transformers.BQSRReadTransformer;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadUtils;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.CovariateKeyCache;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.ReadCovariates;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.StandardCovariateList;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public final class RecalibrationScratchUnitTest extends GATKBaseTest {
+    private static final String READ_GROUP = "20GAVAAXX100126.8"; // the read group of the recalibration report below
+    private static final File RECAL_FILE = new File(publicTestDir + "org/broadinstitute/hellbender/utils/recalibration/HiSeq.1mb.1RG.noSG.table");
+    private static final byte[] BASES = "ACGTN".getBytes();
+
+    private static SAMFileHeader makeHeader() {
+        final SAMReadGroupRecord readGroup = new SAMReadGroupRecord(READ_GROUP);
+        readGroup.setPlatform("illumina");
+        return ArtificialReadUtils.createArtificialSamHeaderWithReadGroup(readGroup);
+    }
+
+    /**
+     * @return a read with random bases (a few of them Ns) and qualities, often with low quality tails, on a random
+     *         strand, and sometimes with indel qualities
+     */
+    private static GATKRead makeRead(final Random random, final int length) {
+        final byte[] bases = new byte[length];
+        final byte[] quals = new byte[length];
+        for ( int i = 0; i < length; i++ ) {
+            bases[i] = BASES[random.nextInt(100) == 0 ? 4 : random.nextInt(4)];
+            quals[i] = (byte) (6 + random.nextInt(35));
+        }
+        if ( random.nextBoolean() ) {
+            for ( int i = 0, n = random.nextInt(Math.min(length, 20)); i < n; i++ ) {
+                quals[length - 1 - i] = 2;
+            }
+        }
+        if ( random.nextInt(4) == 0 ) {
+            for ( int i = 0, n = random.nextInt(Math.min(length, 10)); i < n; i++ ) {
+                quals[i] = 2;
+            }
+        }
+        final GATKRead read = ArtificialReadUtils.createArtificialRead(bases, quals, length + "M");
+        read.setReadGroup(READ_GROUP);
+        read.setIsReverseStrand(random.nextBoolean());
+        if ( random.nextInt(3) == 0 ) {
+            final byte[] indelQuals = new byte[length];
+            for ( int i = 0; i < length; i++ ) {
+                indelQuals[i] = (byte) (30 + random.nextInt(20));
+            }
+            read.setAttribute(ReadUtils.BQSR_BASE_INSERTION_QUALITIES, SAMUtils.phredToFastq(indelQuals));
+            read.setAttribute(ReadUtils.BQSR_BASE_DELETION_QUALITIES, SAMUtils.phredToFastq(indelQuals));
+        }
+        return read;
+    }
+
+    /**
+     * @return reads of a few lengths, including very short reads, and reads whose arrays are not kept by a scratch
+     */
+    private static List<GATKRead> makeReads(final Random random, final int numReads) {
+        final int[] lengths = {1, 5, 76, 101, 151, 250, RecalibrationScratch.MAX_CACHED_READ_LENGTH + 1};
+        final List<GATKRead> reads = new ArrayList<>(numReads);
+        for ( int i = 0; i < numReads; i++ ) {
+            reads.add(makeRead(random, lengths[random.nextInt(lengths.length)]));
+        }
+        return reads;
+    }
+
+    /**
+     * @return the number of bytes allocated by this thread so far
+     */
+    private static long allocatedBytes() {
+        final java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if ( !(threadMXBean instanceof com.sun.management.ThreadMXBean) || !((com.sun.management.ThreadMXBean) threadMXBean).isThreadAllocatedMemorySupported() ) {
+            throw new SkipException("measuring the allocations of a thread is not supported by this JVM");
+        }
+        return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    @Test
+    public void testSameCovariatesAsWithKeyCache() {
+        final SAMFileHeader header = makeHeader();
+        final RecalibrationArgumentCollection recalArgs = new RecalibrationArgumentCollection();
+        recalArgs.MAXIMUM_CYCLE_VALUE = 2 * RecalibrationScratch.MAX_CACHED_READ_LENGTH; // for the reads longer than those kept by the scratch
+        final StandardCovariateList covariates = new StandardCovariateList(recalArgs, header);
+        final RecalibrationScratch scratch = new RecalibrationScratch();
+
+        for ( final boolean recordIndelValues : new boolean[]{true, false} ) {
+            for ( final GATKRead read : makeReads(new Random(1), 500) ) {
+                final ReadCovariates expected = RecalUtils.computeCovariates(read, header, covariates, recordIndelValues, new CovariateKeyCache());
+                final ReadCovariates actual = RecalUtils.computeCovariates(read, header, covariates, recordIndelValues, scratch);
+                for ( final EventType eventType : EventType.values() ) {
+                    for ( int offset = 0; offset < read.getLength(); offset++ ) {
+                        Assert.assertEquals(actual.getKeySet(offset, eventType), expected.getKeySet(offset, eventType), "keys of " + eventType + " at " + offset + " for read of length " + read.getLength());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testReuse() {
+        final RecalibrationScratch scratch = new RecalibrationScratch();
+        final ReadCovariates readCovariates = scratch.getReadCovariates(100, 4);
+        Assert.assertSame(scratch.getReadCovariates(100, 4), readCovariates);
+        Assert.assertNotSame(scratch.getReadCovariates(101, 4), readCovariates);
+        Assert.assertEquals(scratch.getReadCovariates(100, 5).getNumberOfCovariates(), 5);
+        final int longReadLength = RecalibrationScratch.MAX_CACHED_READ_LENGTH + 1;
+        Assert.assertNotSame(scratch.getReadCovariates(longReadLength, 4), scratch.getReadCovariates(longReadLength, 4));
+
+        final RecalibrationScratch.ReadArrays arrays = scratch.getReadArrays(100);
+        arrays.isSNP[3] = 1;
+        arrays.isInsertion[4] = 1;
+        arrays.isDeletion[5] = 1;
+        arrays.knownSites[6] = true;
+        Assert.assertSame(scratch.getReadArrays(100), arrays);
+        Assert.assertEquals(arrays.isSNP, new int[100]);
+        Assert.assertEquals(arrays.isInsertion, new int[100]);
+        Assert.assertEquals(arrays.isDeletion, new int[100]);
+        Assert.assertEquals(arrays.knownSites, new boolean[100]);
+        Assert.assertEquals(arrays.flatBAQ, BaseRecalibrationEngine.flatBAQArray(100));
+
+        Assert.assertTrue(scratch.getContextBases(10).length >= 10);
+        Assert.assertTrue(scratch.getContextBases(1000).length >= 1000);
+        Assert.assertTrue(scratch.getMismatchContextKeys(1000).length >= 1000);
+        Assert.assertTrue(scratch.getIndelContextKeys(1000).length >= 1000);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNegativeLength() {
+        new RecalibrationScratch().getReadCovariates(-1, 4);
+    }
+
+    @Test
+    public void testComputeCovariatesDoesNotAllocate() {
+        final SAMFileHeader header = makeHeader();
+        final StandardCovariateList covariates = new StandardCovariateList(new RecalibrationArgumentCollection(), header);
+        final RecalibrationScratch scratch = new RecalibrationScratch();
+        final List<GATKRead> reads = new ArrayList<>();
+        for ( final GATKRead read : makeReads(new Random(2), 2000) ) {
+            if ( read.getLength() <= RecalibrationScratch.MAX_CACHED_READ_LENGTH ) {
+                reads.add(read);
+            }
+        }
+
+        // the first pass allocates the arrays for every length
+        for ( final GATKRead read : reads ) {
+            RecalUtils.computeCovariates(read, header, covariates, true, scratch);
+        }
+
+        final long before = allocatedBytes();
+        for ( final GATKRead read : reads ) {
+            RecalUtils.computeCovariates(read, header, covariates, true, scratch);
+        }
+        final long allocated = allocatedBytes() - before;
+        // allow for the measurement itself, but not for one array per read
+        Assert.assertTrue(allocated < 1024, "computing the covariates of " + reads.size() + " reads allocated " + allocated + " bytes");
+    }
+
+    @Test
+    public void testRecalibrationOnlyAllocatesQualities() {
+        final SAMFileHeader header = makeHeader();
+        final BQSRReadTransformer transformer = new BQSRReadTransformer(header, RECAL_FILE, new ApplyBQSRArgumentCollection());
+        final int readLength = 151;
+        final List<GATKRead> reads = new ArrayList<>();
+        final Random random = new Random(3);
+        for ( int i = 0; i < 2000; i++ ) {
+            reads.add(makeRead(random, readLength));
+        }
+
+        for ( final GATKRead read : reads ) {
+            transformer.apply(read.copy());
+        }
+
+        final List<GATKRead> copies = new ArrayList<>(reads.size());
+        for ( final GATKRead read : reads ) {
+            copies.add(read.copy());
+        }
+        final long before = allocatedBytes();
+        for ( final GATKRead read : copies ) {
+            transformer.apply(read);
+        }
+        final long allocatedPerRead = (allocatedBytes() - before) / copies.size();
+        // the recalibrated qualities are a new array of every read, with a header of at most 16 bytes, and padding
+        Assert.assertTrue(allocatedPerRead <= readLength + 24, "recalibrating a read of " + readLength + " bases allocated " + allocatedPerRead + " bytes");
+    }
+}
@@ -1,5 +1,6 @@
 package org.broadinstitute.hellbender.utils.recalibration;
 
+import org.broadinstitute.hellbender.testutils.SparkTestUtils;
 import org.broadinstitute.hellbender.utils.collections.NestedIntegerArray;
 import org.broadinstitute.hellbender.utils.recalibration.covariates.Covariate;
 import org.broadinstitute.hellbender.utils.recalibration.covariates.StandardCovariateList;
@@ -46,6 +47,47 @@ public final class RecalibrationTablesUnitTest extends GATKBaseTest {
         }
     }
 
+    /**
+     * Count the same observations as fillTable in the quality score and covariate tables, through their flat counts
+     */
+    private void fillCounts(final RecalibrationTables tables) {
+        for ( int iterations = 0; iterations < 10; iterations++ ) {
+            for ( final EventType et : EventType.values() ) {
+                for ( final int rg : combineStates) {
+                    final double error = rg % 2 == 0 ? 1 : 0;
+                    for ( final int qual : combineStates) {
+                        tables.getQualityScoreCounts().increment(qualByte, error, rg, qual, et.ordinal());
+                        for ( final int cycle : combineStates)
+                            tables.getCounts(2).increment(qualByte, error, rg, qual, cycle, et.ordinal());
+                        for ( final int context : combineStates)
+                            tables.getCounts(3).increment(qualByte, error, rg, qual, context, et.ordinal());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Assert that all the tables but the read group table have the same RecalDatums, with multiplicity times the
+     * observations and mismatches of expected
+     */
+    private static void assertSameDatums(final RecalibrationTables actual, final RecalibrationTables expected, final int multiplicity) {
+        Assert.assertEquals(actual.numTables(), expected.numTables());
+        for ( int i = 1; i < expected.numTables(); i++ ) {
+            final NestedIntegerArray<RecalDatum> table = expected.getTable(i);
+            final NestedIntegerArray<RecalDatum> actualTable = actual.getTable(i);
+
+            Assert.assertEquals(actualTable.getAllLeaves().size(), table.getAllLeaves().size());
+            for ( final NestedIntegerArray.Leaf<RecalDatum> leaf : table.getAllLeaves() ) {
+                final RecalDatum actualValue = actualTable.get(leaf.keys);
+                Assert.assertNotNull(actualValue);
+                Assert.assertEquals(actualValue.getNumObservations(), leaf.value.getNumObservations() * multiplicity);
+                Assert.assertEquals(actualValue.getNumMismatches(), leaf.value.getNumMismatches() * multiplicity);
+                Assert.assertEquals(actualValue.getEstimatedQReported(), leaf.value.getEstimatedQReported());
+            }
+        }
+    }
+
     @Test
     public void basicTest() {
         final Covariate qualCov = covariates.getQualityScoreCovariate();
@@ -150,4 +192,47 @@ public final class RecalibrationTablesUnitTest extends GATKBaseTest {
             }
         }
     }
+
+    @Test
+    public void testCountsMatchRecalDatums() {
+        final RecalibrationTables counted = new RecalibrationTables(covariates, numReadGroups);
+        Assert.assertTrue(counted.isEmpty());
+        fillCounts(counted);
+        Assert.assertFalse(counted.isEmpty());
+        Assert.assertFalse(counted.getQualityScoreCounts().isEmpty());
+
+        assertSameDatums(counted, tables, 1);
+        // the counts have been moved to the RecalDatums
+        Assert.assertTrue(counted.getQualityScoreCounts().isEmpty());
+        Assert.assertFalse(counted.isEmpty());
+
+        // counting more observations adds them to the existing RecalDatums
+        fillCounts(counted);
+        assertSameDatums(counted, tables, 2);
+    }
+
+    @Test
+    public void testCombineCounts() {
+        final RecalibrationTables counted1 = new RecalibrationTables(covariates, numReadGroups);
+        fillCounts(counted1);
+        final RecalibrationTables counted2 = new RecalibrationTables(covariates, numReadGroups);
+        fillCounts(counted2);
+
+        final RecalibrationTables merged = RecalibrationTables.safeCombine(counted1, counted2);
+        Assert.assertFalse(merged.getQualityScoreCounts().isEmpty());
+        assertSameDatums(merged, tables, 2);
+
+        // counts combined with RecalDatums
+        final RecalibrationTables counted3 = new RecalibrationTables(covariates, numReadGroups);
+        fillCounts(counted3);
+        assertSameDatums(counted3.combine(tables), tables, 2);
+    }
+
+    @Test
+    public void testCountsSerialization() throws Exception {
+        final RecalibrationTables counted = new RecalibrationTables(covariates, numReadGroups);
+        fillCounts(counted);
+
+        assertSameDatums(SparkTestUtils.roundTripThroughJavaSerialization(counted), tables, 1);
+    }
 }
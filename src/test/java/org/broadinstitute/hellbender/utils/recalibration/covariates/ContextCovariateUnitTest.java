@@ -7,6 +7,7 @@ import org.broadinstitute.hellbender.utils.clipping.ReadClipper;
 import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.recalibration.RecalibrationArgumentCollection;
+import org.broadinstitute.hellbender.utils.recalibration.RecalibrationScratch;
 import org.broadinstitute.hellbender.GATKBaseTest;
 import org.testng.Assert;
 import org.testng.annotations.BeforeClass;
@@ -73,6 +74,46 @@ public final class ContextCovariateUnitTest extends GATKBaseTest {
         Assert.assertEquals(new String(strandedBaseArray), new String(expected));
     }
 
+    @Test
+    public void testFillStrandedClippedBases() {
+        final Random rnd = Utils.getRandomGenerator();
+        final byte[] bases = new byte[200];
+        for (int i = 0; i < 100; i++) {
+            final GATKRead read = ArtificialReadUtils.createRandomRead(1 + rnd.nextInt(150), true);
+            read.setIsReverseStrand(rnd.nextBoolean());
+            final byte lowQTail = (byte) rnd.nextInt(10);
+            final byte[] expected = getStrandedClippedBytes(read, lowQTail);
+            // the buffer holds the bases of the previous reads
+            final int length = ContextCovariate.fillStrandedClippedBases(read, lowQTail, bases);
+            Assert.assertEquals(length, expected.length);
+            Assert.assertEquals(new String(bases, 0, length), new String(expected));
+        }
+    }
+
+    @Test
+    public void testRecordValuesWithScratch() {
+        final Random rnd = Utils.getRandomGenerator();
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader();
+        final RecalibrationScratch scratch = new RecalibrationScratch();
+
+        for (int i = 0; i < 100; i++) {
+            // the buffers of the scratch are reused for reads of all lengths
+            final GATKRead read = ArtificialReadUtils.createRandomRead(header, 1 + rnd.nextInt(300), true);
+            read.setIsReverseStrand(rnd.nextBoolean());
+            final boolean recordIndelValues = rnd.nextBoolean();
+            final ReadCovariates expected = new ReadCovariates(read.getLength(), 1);
+            covariate.recordValues(read, header, expected, recordIndelValues);
+            final ReadCovariates actual = scratch.getReadCovariates(read.getLength(), 1);
+            covariate.recordValues(read, header, actual, recordIndelValues, scratch);
+
+            for (int offset = 0; offset < read.getLength(); offset++) {
+                Assert.assertEquals(actual.getMismatchesKeySet(offset), expected.getMismatchesKeySet(offset));
+                Assert.assertEquals(actual.getInsertionsKeySet(offset), expected.getInsertionsKeySet(offset));
+                Assert.assertEquals(actual.getDeletionsKeySet(offset), expected.getDeletionsKeySet(offset));
+            }
+        }
+    }
+
     @DataProvider(name="strandedOffset")
     public Object[][] strandedOffset() {
         return new Object[][]{
@@ -0,0 +1,152 @@
+package org.broadinstitute.hellbender.utils.runtime;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+public final class MetricsRegistryUnitTest extends GATKBaseTest {
+
+    @Test
+    public void testMetricsAreSharedByName() {
+        final MetricsRegistry registry = new MetricsRegistry();
+        Assert.assertSame(registry.counter("a"), registry.counter("a"));
+        Assert.assertSame(registry.timer("b"), registry.timer("b"));
+        Assert.assertSame(registry.histogram("c"), registry.histogram("c"));
+        Assert.assertNotSame(registry.counter("a"), registry.counter("d"));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testMetricTypeConflict() {
+        final MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("a");
+        registry.timer("a");
+    }
+
+    @Test
+    public void testConcurrentUpdates() {
+        final MetricsRegistry registry = new MetricsRegistry();
+        IntStream.range(0, 100_000).parallel().forEach(i -> {
+            registry.counter("counter").increment();
+            registry.histogram("histogram").record(i % 100);
+        });
+        Assert.assertEquals(registry.counter("counter").getCount(), 100_000);
+        Assert.assertEquals(registry.histogram("histogram").getCount(), 100_000);
+        Assert.assertEquals(registry.histogram("histogram").getTotal(), 1000L * (99 * 100 / 2));
+    }
+
+    @Test
+    public void testHistogram() {
+        final MetricsRegistry.Histogram histogram = new MetricsRegistry().histogram("h");
+        Assert.assertEquals(histogram.getMin(), 0);
+        Assert.assertEquals(histogram.getMax(), 0);
+        Assert.assertEquals(histogram.getPercentile(50), 0);
+
+        for ( int i = 1; i <= 100; ++i ) {
+            histogram.record(i);
+        }
+        Assert.assertEquals(histogram.getCount(), 100);
+        Assert.assertEquals(histogram.getTotal(), 5050);
+        Assert.assertEquals(histogram.getMean(), 50.5);
+        Assert.assertEquals(histogram.getMin(), 1);
+        Assert.assertEquals(histogram.getMax(), 100);
+
+        // percentiles are reported as the upper bound of their power-of-two bucket, capped at the maximum
+        Assert.assertEquals(histogram.getPercentile(0), 0);
+        Assert.assertEquals(histogram.getPercentile(1), 1);
+        Assert.assertEquals(histogram.getPercentile(50), 63);
+        Assert.assertEquals(histogram.getPercentile(99), 100);
+        Assert.assertEquals(histogram.getPercentile(100), 100);
+    }
+
+    @Test
+    public void testTimer() {
+        final MetricsRegistry.Timer timer = new MetricsRegistry().timer("t");
+        final long start = timer.start();
+        timer.stop(start);
+        Assert.assertEquals(timer.getCount(), 1);
+
+        final Iterator<Integer> timedIterator = timer.timeIterator(Arrays.asList(1, 2, 3).iterator());
+        int sum = 0;
+        while ( timedIterator.hasNext() ) {
+            sum += timedIterator.next();
+        }
+        Assert.assertEquals(sum, 6);
+        Assert.assertEquals(timer.getCount(), 1 + 4 + 3);
+    }
+
+    @Test
+    public void testDisabledRegistry() {
+        final MetricsRegistry registry = MetricsRegistry.DISABLED;
+        Assert.assertFalse(registry.isEnabled());
+
+        registry.counter("a").increment();
+        registry.histogram("b").record(10);
+        final MetricsRegistry.Timer timer = registry.timer("c");
+        timer.stop(timer.start());
+
+        final Iterator<Integer> iterator = Arrays.asList(1, 2).iterator();
+        Assert.assertSame(timer.timeIterator(iterator), iterator);
+        Assert.assertEquals(registry.counter("a").getCount(), 0);
+        Assert.assertEquals(registry.histogram("b").getCount(), 0);
+        Assert.assertEquals(timer.getCount(), 0);
+        Assert.assertTrue(registry.getMetrics().isEmpty());
+        Assert.assertNull(registry.getSummary(5));
+    }
+
+    @Test
+    public void testSummary() {
+        final MetricsRegistry registry = new MetricsRegistry();
+        Assert.assertNull(registry.getSummary(2));
+
+        registry.timer("fast").record(1_000_000_000L);
+        registry.timer("slow").record(3_000_000_000L);
+        registry.timer("slower").record(5_000_000_000L);
+        registry.timer("unused");
+        Assert.assertEquals(registry.getSummary(2), "Time: slower 5.0s, slow 3.0s");
+    }
+
+    @Test
+    public void testWriteTsv() throws IOException {
+        final MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("reads").add(7);
+        registry.timer("apply").record(2_000_000L);
+        registry.histogram("sizes").record(4);
+
+        final File output = createTempFile("metrics", ".tsv");
+        registry.write(output.toPath());
+        final List<String> lines = Files.readAllLines(output.toPath());
+        Assert.assertEquals(lines, Arrays.asList(
+                "name\ttype\tcount\ttotal\tmean\tmin\tmax\tp50\tp90\tp99",
+                "apply\ttimer\t1\t2.0\t2.0\t2.0\t2.0\t2.0\t2.0\t2.0",
+                "reads\tcounter\t7\t\t\t\t\t\t\t",
+                "sizes\thistogram\t1\t4\t4.0\t4\t4\t4\t4\t4"));
+    }
+
+    @Test
+    public void testWriteJson() throws IOException {
+        final MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("reads \"quoted\"").add(7);
+        registry.histogram("sizes").record(4);
+
+        final StringWriter json = new StringWriter();
+        registry.writeJson(json);
+        Assert.assertEquals(json.toString().replace(System.lineSeparator(), "\n"),
+                "{\n" +
+                "  \"reads \\\"quoted\\\"\": {\"type\": \"counter\", \"count\": 7},\n" +
+                "  \"sizes\": {\"type\": \"histogram\", \"count\": 1, \"total\": 4, \"mean\": 4.0, \"min\": 4, \"max\": 4, \"p50\": 4, \"p90\": 4, \"p99\": 4}\n" +
+                "}\n");
+
+        final File output = createTempFile("metrics", ".json");
+        registry.write(output.toPath());
+        Assert.assertEquals(new String(Files.readAllBytes(output.toPath())), json.toString());
+    }
+}
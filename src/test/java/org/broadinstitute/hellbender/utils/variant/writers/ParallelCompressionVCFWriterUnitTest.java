@@ -0,0 +1,83 @@
+package org.broadinstitute.hellbender.utils.variant.writers;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.variantcontext.writer.Options;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.vcf.VCFHeader;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+public class ParallelCompressionVCFWriterUnitTest extends GATKBaseTest {
+
+    @DataProvider(name = "VCFWriterData")
+    public Object[][] getVCFWriterData() {
+        // number of variants, create index, number of threads
+        return new Object[][] {
+                { 0, true, 2 },
+                { 1, true, 2 },
+                { 100_000, true, 4 },
+                { 100_000, false, 3 }
+        };
+    }
+
+    @Test(dataProvider = "VCFWriterData")
+    public void testIdenticalToSerialWriter( final int numVariants, final boolean createIndex, final int numThreads ) throws IOException {
+        final SAMSequenceDictionary dictionary = ArtificialReadUtils.createArtificialSamHeader(2, 1, 10_000_000).getSequenceDictionary();
+        final VCFHeader header = new VCFHeader(new LinkedHashSet<>(), Collections.emptyList());
+        header.setSequenceDictionary(dictionary);
+        final Options[] options = createIndex ? new Options[]{ Options.INDEX_ON_THE_FLY } : new Options[0];
+
+        final File tmpDir = createTempDir("parallelVCFWriterTest");
+        final Path serialOutput = new File(tmpDir, "serial.vcf.gz").toPath();
+        final Path parallelOutput = new File(tmpDir, "parallel.vcf.gz").toPath();
+
+        try ( final VariantContextWriter serialWriter = GATKVariantContextUtils.createVCFWriter(serialOutput, dictionary, true, options);
+              final VariantContextWriter parallelWriter = GATKVariantContextUtils.createVCFWriter(parallelOutput, dictionary, true, numThreads, options) ) {
+            Assert.assertTrue(parallelWriter instanceof ParallelCompressionVCFWriter);
+            serialWriter.writeHeader(header);
+            parallelWriter.writeHeader(header);
+
+            final List<Allele> alleles = Arrays.asList(Allele.create("A", true), Allele.create("C"));
+            for ( int i = 0; i < numVariants; ++i ) {
+                final boolean firstContig = i < numVariants / 2;
+                final int start = 1 + (i - (firstContig ? 0 : numVariants / 2)) * 23;
+                final VariantContext vc = new VariantContextBuilder("test", firstContig ? "1" : "2", start, start, alleles).id("rs" + i).make();
+                serialWriter.add(vc);
+                parallelWriter.add(vc);
+            }
+        }
+
+        Assert.assertEquals(Files.readAllBytes(parallelOutput), Files.readAllBytes(serialOutput), "VCFs differ");
+        Assert.assertEquals(Files.readAllBytes(new File(tmpDir, "parallel.vcf.gz.md5").toPath()),
+                            Files.readAllBytes(new File(tmpDir, "serial.vcf.gz.md5").toPath()), "MD5s differ");
+        final File parallelIndex = new File(tmpDir, "parallel.vcf.gz.tbi");
+        Assert.assertEquals(parallelIndex.exists(), createIndex);
+        if ( createIndex ) {
+            Assert.assertEquals(Files.readAllBytes(parallelIndex.toPath()), Files.readAllBytes(new File(tmpDir, "serial.vcf.gz.tbi").toPath()), "indices differ");
+        }
+    }
+
+    @Test
+    public void testUnsupportedOutputsUseSerialWriter() {
+        Assert.assertFalse(ParallelCompressionVCFWriter.canWrite(new File("out.vcf").toPath()));
+        Assert.assertFalse(ParallelCompressionVCFWriter.canWrite(new File("out.bcf").toPath()));
+        Assert.assertFalse(ParallelCompressionVCFWriter.canWrite(new File("out.vcf.gz").toPath(), Options.USE_ASYNC_IO));
+        Assert.assertTrue(ParallelCompressionVCFWriter.canWrite(new File("out.vcf.gz").toPath(), Options.INDEX_ON_THE_FLY));
+    }
+}